@@ -0,0 +1,55 @@
+package lt.creditco.cupa.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import lt.creditco.cupa.domain.DailyAmountLimit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Daily limit lookup done for every payment of a merchant with a daily amount limit, both on the ramp-up (interpolated)
+ * and after it (flat).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DailyAmountLimitBenchmark {
+
+    private DailyAmountLimit dailyAmountLimit;
+    private LocalDate rampUpDate;
+    private LocalDate afterDate;
+
+    @Setup
+    public void setUp() {
+        LocalDate startDate = LocalDate.of(2026, 1, 1);
+        dailyAmountLimit = new DailyAmountLimit();
+        dailyAmountLimit.setStartDate(startDate);
+        dailyAmountLimit.setStartAmount(new BigDecimal("1000.00"));
+        dailyAmountLimit.setAfterDate(startDate.plusDays(90));
+        dailyAmountLimit.setAfterAmount(new BigDecimal("50000.00"));
+        rampUpDate = startDate.plusDays(45);
+        afterDate = startDate.plusDays(120);
+    }
+
+    @Benchmark
+    public BigDecimal limitDuringRampUp() {
+        return dailyAmountLimit.getLimitForDate(rampUpDate);
+    }
+
+    @Benchmark
+    public BigDecimal limitAfterRampUp() {
+        return dailyAmountLimit.getLimitForDate(afterDate);
+    }
+}
@@ -0,0 +1,79 @@
+package lt.creditco.cupa.benchmark;
+
+import com.bpmid.vapp.config.JacksonConfiguration;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import lt.creditco.cupa.remote.GatewayResponse;
+import lt.creditco.cupa.remote.PaymentReply;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Parsing of a gateway status query response with the application's {@link ObjectMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GatewayResponseDeserializerBenchmark {
+
+    private static final String QUERY_RESPONSE =
+        """
+        {
+            "response":{"statusCode":200,"message":"OK"},
+            "reply":{
+                "date":"2025-08-22T06:44:01.980Z",
+                "reason":"Success!",
+                "amount":"22.04",
+                "clientID":"tcln-001",
+                "orderID":"ttt-006",
+                "signature":"eae7bc256a2d279d04aa37ad5d66cf0b",
+                "merchant":"CREDITCO PROCESSING(USD)",
+                "url":"https://services.creditco.lt/?success=Y&merchantID=2b47b788-d503-440d-9a93-2c9c6bea3552&orderID=ttt-006&clientID=tcln-001",
+                "result":"0",
+                "balance":"1250.00",
+                "merchantID":"2b47b788-d503-440d-9a93-2c9c6bea3552",
+                "success":"Y",
+                "currency":"USD",
+                "settlement":"2025-08-29",
+                "detail":"Successfully completed"
+            }
+        }
+        """;
+
+    private AnnotationConfigApplicationContext context;
+    private ObjectMapper objectMapper;
+    private JavaType responseType;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(JacksonConfiguration.class, JacksonAutoConfiguration.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        responseType = objectMapper.getTypeFactory().constructParametricType(GatewayResponse.class, PaymentReply.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public GatewayResponse<PaymentReply> deserializeQueryResponse() throws JsonProcessingException {
+        return objectMapper.readValue(QUERY_RESPONSE, responseType);
+    }
+}
@@ -0,0 +1,80 @@
+package lt.creditco.cupa.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import lt.creditco.cupa.api.Payment;
+import lt.creditco.cupa.api.PaymentFlow;
+import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.enumeration.Currency;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.PaymentBrand;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
+import lt.creditco.cupa.service.mapper.PaymentMapper;
+import lt.creditco.cupa.service.mapper.PaymentMapperImpl;
+import lt.creditco.cupa.service.mapper.PaymentTransactionMapper;
+import lt.creditco.cupa.service.mapper.PaymentTransactionMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MapStruct conversions on the payment intake path: request DTO to entity, entity to DTO and DTO to API payment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final PaymentTransactionMapper paymentTransactionMapper = new PaymentTransactionMapperImpl();
+    private final PaymentMapper paymentMapper = new PaymentMapperImpl();
+
+    private PaymentTransaction paymentTransaction;
+    private PaymentTransactionDTO paymentTransactionDTO;
+
+    @Setup
+    public void setUp() {
+        paymentTransaction = new PaymentTransaction()
+            .id("01K7QZ3J9V6W8X2Y4Z6A8B0C2D")
+            .orderId("ORD-000123")
+            .merchantId("MERCH-00001")
+            .clientId("01K7QZ3J9V6W8X2Y4Z6A8B0C2E")
+            .environment(MerchantMode.TEST)
+            .status(TransactionStatus.PENDING)
+            .statusDescription("Pending")
+            .paymentBrand(PaymentBrand.UnionPay)
+            .paymentFlow(PaymentFlow.EMAIL)
+            .amount(new BigDecimal("25.00"))
+            .currency(Currency.USD)
+            .clientEmail("john.doe@example.com")
+            .gatewayMerchantId("2b47b788-d503-440d-9a93-2c9c6bea3552")
+            .requestTimestamp(Instant.parse("2026-10-17T12:00:00Z"));
+        paymentTransactionDTO = paymentTransactionMapper.toDto(paymentTransaction);
+    }
+
+    @Benchmark
+    public PaymentTransactionDTO entityToDto() {
+        return paymentTransactionMapper.toDto(paymentTransaction);
+    }
+
+    @Benchmark
+    public PaymentTransaction dtoToEntity() {
+        return paymentTransactionMapper.toEntity(paymentTransactionDTO);
+    }
+
+    @Benchmark
+    public Payment dtoToPayment() {
+        return paymentMapper.toPayment(paymentTransactionDTO);
+    }
+}
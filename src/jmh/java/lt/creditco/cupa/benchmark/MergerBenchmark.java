@@ -0,0 +1,64 @@
+package lt.creditco.cupa.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.domain.util.Merger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Gateway reply merge as done for each status query and webhook: the same fields as
+ * {@code PaymentTransactionService}, once with a final status (changes) and once with an unchanged pending reply.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergerBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("25.00");
+    private static final BigDecimal BALANCE = new BigDecimal("1250.00");
+
+    private PaymentTransaction paymentTransaction;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        paymentTransaction = new PaymentTransaction();
+        paymentTransaction.setId("01K7QZ3J9V6W8X2Y4Z6A8B0C2D");
+        paymentTransaction.setAmount(new BigDecimal("25.0"));
+        paymentTransaction.setStatus(TransactionStatus.PENDING);
+        paymentTransaction.setStatusDescription("Pending");
+    }
+
+    @Benchmark
+    public String mergeFinalStatus() {
+        return merge(TransactionStatus.SUCCESS, "Successfully completed", BALANCE);
+    }
+
+    @Benchmark
+    public String mergeUnchanged() {
+        return merge(TransactionStatus.PENDING, "Pending", null);
+    }
+
+    private String merge(TransactionStatus status, String detail, BigDecimal balance) {
+        Merger<PaymentTransaction> merger = Merger.of(paymentTransaction)
+            .mergeBigDecimal("Amount", paymentTransaction::getAmount, AMOUNT, paymentTransaction::setAmount)
+            .mergeBigDecimal("Balance", paymentTransaction::getBalance, balance, paymentTransaction::setBalance)
+            .merge("Status Description", paymentTransaction::getStatusDescription, detail, paymentTransaction::setStatusDescription)
+            .merge("Status", paymentTransaction::getStatus, status, paymentTransaction::setStatus);
+        return merger.hasChanges() ? merger.getChangeLog() : null;
+    }
+}
@@ -0,0 +1,210 @@
+package lt.creditco.cupa.benchmark;
+
+import com.bpmid.vapp.config.JacksonConfiguration;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lt.creditco.cupa.CupaApplication;
+import lt.creditco.cupa.api.Payment;
+import lt.creditco.cupa.api.PaymentFlow;
+import lt.creditco.cupa.api.PaymentRequest;
+import lt.creditco.cupa.config.PostgreSqlTestContainer;
+import lt.creditco.cupa.domain.Client;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.domain.enumeration.Currency;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.MerchantStatus;
+import lt.creditco.cupa.domain.enumeration.PaymentBrand;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.remote.CardType;
+import lt.creditco.cupa.remote.GatewayConfig;
+import lt.creditco.cupa.remote.GatewayMessage;
+import lt.creditco.cupa.remote.GatewayResponse;
+import lt.creditco.cupa.remote.PaymentCurrency;
+import lt.creditco.cupa.remote.PaymentReply;
+import lt.creditco.cupa.remote.UpGatewayClient;
+import lt.creditco.cupa.repository.ClientRepository;
+import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.service.PaymentTransactionService;
+import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
+import lt.creditco.cupa.web.context.CupaApiContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Payment intake end to end through {@link PaymentTransactionService}: validation, daily limit reservation, inserts and
+ * the status update after placing the payment, against H2 ({@code testdev}) or a Testcontainers PostgreSQL
+ * ({@code testprod}). The gateway is replaced by {@link StubGatewayConfiguration}, so only CUPA's own cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentIntakeBenchmark {
+
+    private static final String MERCHANT_ID = "MERCH-BENCH";
+    private static final String MERCHANT_CLIENT_ID = "BENCH-CLIENT-1";
+
+    @Param({ "testdev", "testprod" })
+    public String profile;
+
+    private final AtomicLong orderSequence = new AtomicLong();
+    private String orderIdPrefix;
+
+    private PostgreSqlTestContainer postgreSqlTestContainer;
+    private ConfigurableApplicationContext context;
+    private PaymentTransactionService paymentTransactionService;
+    private CupaApiContext.CupaApiContextData apiContext;
+
+    @Setup
+    public void setUp() {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(
+            CupaApplication.class,
+            JacksonConfiguration.class,
+            StubGatewayConfiguration.class
+        )
+            .profiles("test", profile)
+            .properties("server.port=0", "pulltasks.enabled=false", "application.reconciliation.enabled=false");
+        if ("testprod".equals(profile)) {
+            postgreSqlTestContainer = new PostgreSqlTestContainer();
+            postgreSqlTestContainer.afterPropertiesSet();
+            builder.properties(
+                "spring.datasource.url=" + postgreSqlTestContainer.getTestContainer().getJdbcUrl(),
+                "spring.datasource.username=" + postgreSqlTestContainer.getTestContainer().getUsername(),
+                "spring.datasource.password=" + postgreSqlTestContainer.getTestContainer().getPassword()
+            );
+        }
+        context = builder.run();
+        paymentTransactionService = context.getBean(PaymentTransactionService.class);
+
+        Merchant merchant = context
+            .getBean(MerchantRepository.class)
+            .save(
+                new Merchant()
+                    .id(MERCHANT_ID)
+                    .name("Benchmark merchant")
+                    .mode(MerchantMode.TEST)
+                    .status(MerchantStatus.ACTIVE)
+                    .remoteTestUrl("http://gateway.invalid")
+                    .remoteTestMerchantId("bench-mid")
+                    .remoteTestMerchantKey("bench-key")
+                    .remoteTestApiKey("bench-api-key")
+            );
+        ClientRepository clientRepository = context.getBean(ClientRepository.class);
+        if (clientRepository.findByMerchantClientId(MERCHANT_CLIENT_ID).isEmpty()) {
+            clientRepository.save(
+                new Client()
+                    .id("01K7QZ3J9V6W8X2Y4Z6A8B0BEN")
+                    .merchantClientId(MERCHANT_CLIENT_ID)
+                    .merchantId(MERCHANT_ID)
+                    .environment(MerchantMode.TEST)
+                    .name("Benchmark client")
+                    .emailAddress("bench.client@example.com")
+                    .valid(true)
+            );
+        }
+
+        apiContext = CupaApiContext.CupaApiContextData.builder()
+            .merchantId(MERCHANT_ID)
+            .merchantContext(
+                CupaApiContext.MerchantContext.builder()
+                    .merchantId(merchant.getId())
+                    .mode(MerchantMode.TEST)
+                    .status(MerchantStatus.ACTIVE)
+                    .gatewayUrl(merchant.getRemoteTestUrl())
+                    .gatewayMerchantId(merchant.getRemoteTestMerchantId())
+                    .gatewayMerchantKey(merchant.getRemoteTestMerchantKey())
+                    .gatewayApiKey(merchant.getRemoteTestApiKey())
+                    .minTransactionAmount(BigDecimal.ONE)
+                    .maxTransactionAmount(new BigDecimal("10000"))
+                    .maxClientTransactionCountPerDay(Integer.MAX_VALUE)
+                    .build()
+            )
+            .build();
+        // order ids are unique per merchant, also across runs against the same database
+        orderIdPrefix = "BENCH-" + Instant.now().toEpochMilli() + "-";
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        if (postgreSqlTestContainer != null) {
+            postgreSqlTestContainer.destroy();
+        }
+    }
+
+    @Benchmark
+    public Payment createPayment() {
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(nextOrderId());
+        request.setClientId(MERCHANT_CLIENT_ID);
+        request.setAmount(new BigDecimal("25.00"));
+        request.setCurrency(PaymentCurrency.USD);
+        request.setCardType(CardType.UnionPay);
+        request.setPaymentFlow(PaymentFlow.EMAIL);
+        return paymentTransactionService.createPayment(request, apiContext);
+    }
+
+    @Benchmark
+    public PaymentTransactionDTO save() {
+        PaymentTransactionDTO paymentTransactionDTO = new PaymentTransactionDTO();
+        paymentTransactionDTO.setMerchantId(MERCHANT_ID);
+        paymentTransactionDTO.setRequestTimestamp(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+        paymentTransactionDTO.setOrderId(nextOrderId());
+        paymentTransactionDTO.setClientId(MERCHANT_CLIENT_ID);
+        paymentTransactionDTO.setAmount(new BigDecimal("25.00"));
+        paymentTransactionDTO.setCurrency(Currency.USD);
+        paymentTransactionDTO.setPaymentBrand(PaymentBrand.UnionPay);
+        paymentTransactionDTO.setPaymentFlow(PaymentFlow.EMAIL);
+        paymentTransactionDTO.setStatus(TransactionStatus.RECEIVED);
+        return paymentTransactionService.save(paymentTransactionDTO, apiContext);
+    }
+
+    private String nextOrderId() {
+        return orderIdPrefix + orderSequence.incrementAndGet();
+    }
+
+    /**
+     * Answers every payment with an accepted, pending reply without any network I/O.
+     */
+    @Configuration
+    static class StubGatewayConfiguration {
+
+        @Bean
+        @Primary
+        UpGatewayClient stubUpGatewayClient() {
+            return new UpGatewayClient(null, null) {
+                @Override
+                public GatewayResponse<PaymentReply> placeTransaction(lt.creditco.cupa.remote.PaymentRequest request, GatewayConfig config) {
+                    PaymentReply reply = new PaymentReply();
+                    reply.setOrderId(request.getOrderId());
+                    reply.setAmount(request.getAmount());
+                    reply.setResult("1");
+                    GatewayResponse<PaymentReply> response = new GatewayResponse<>();
+                    response.setResponse(GatewayMessage.builder().statusCode(200).message("OK").detail("Pending").build());
+                    response.setReply(reply);
+                    return response;
+                }
+            };
+        }
+    }
+}
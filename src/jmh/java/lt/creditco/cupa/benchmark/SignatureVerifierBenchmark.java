@@ -0,0 +1,49 @@
+package lt.creditco.cupa.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import lt.creditco.cupa.remote.PaymentReply;
+import lt.creditco.cupa.remote.SignatureVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Webhook signature check done for every gateway notification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureVerifierBenchmark {
+
+    private static final String MERCHANT_KEY = "2b47b788-d503-440d-9a93-2c9c6bea3552-key";
+
+    private PaymentReply paymentReply;
+
+    @Setup
+    public void setUp() {
+        paymentReply = new PaymentReply();
+        paymentReply.setSuccess("Y");
+        paymentReply.setClientId("tcln-001");
+        paymentReply.setOrderId("ORD-000123");
+        paymentReply.setAmount(new BigDecimal("22.04"));
+        paymentReply.setCurrency("USD");
+        paymentReply.setMerchantId("2b47b788-d503-440d-9a93-2c9c6bea3552");
+        paymentReply.setSignature("eae7bc256a2d279d04aa37ad5d66cf0b");
+    }
+
+    @Benchmark
+    public boolean verifyWebhookSignature() {
+        return SignatureVerifier.verifyWebhookSignature(paymentReply, MERCHANT_KEY);
+    }
+}
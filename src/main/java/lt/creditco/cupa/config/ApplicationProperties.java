@@ -1,5 +1,8 @@
 package lt.creditco.cupa.config;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Primary;
 
@@ -14,5 +17,942 @@ import org.springframework.context.annotation.Primary;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties extends com.bpmid.vapp.config.ApplicationProperties {
 
+    private final GatewayHttpClient gatewayHttpClient = new GatewayHttpClient();
 
+    private final GatewayCircuitBreaker gatewayCircuitBreaker = new GatewayCircuitBreaker();
+
+    private final Audit audit = new Audit();
+
+    private final MerchantContextCache merchantContextCache = new MerchantContextCache();
+
+    private final PullTaskDispatcher pullTaskDispatcher = new PullTaskDispatcher();
+
+    private final Reconciliation reconciliation = new Reconciliation();
+
+    private final AsyncPlacement asyncPlacement = new AsyncPlacement();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final PaymentMetrics paymentMetrics = new PaymentMetrics();
+
+    private final AuditRetention auditRetention = new AuditRetention();
+
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    private final MerchantBalance merchantBalance = new MerchantBalance();
+
+    private final Outbox outbox = new Outbox();
+
+    private final TurnoverRollup turnoverRollup = new TurnoverRollup();
+
+    public GatewayHttpClient getGatewayHttpClient() {
+        return gatewayHttpClient;
+    }
+
+    public GatewayCircuitBreaker getGatewayCircuitBreaker() {
+        return gatewayCircuitBreaker;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    public MerchantContextCache getMerchantContextCache() {
+        return merchantContextCache;
+    }
+
+    public PullTaskDispatcher getPullTaskDispatcher() {
+        return pullTaskDispatcher;
+    }
+
+    public Reconciliation getReconciliation() {
+        return reconciliation;
+    }
+
+    public AsyncPlacement getAsyncPlacement() {
+        return asyncPlacement;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public PaymentMetrics getPaymentMetrics() {
+        return paymentMetrics;
+    }
+
+    public AuditRetention getAuditRetention() {
+        return auditRetention;
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public MerchantBalance getMerchantBalance() {
+        return merchantBalance;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public TurnoverRollup getTurnoverRollup() {
+        return turnoverRollup;
+    }
+
+    /**
+     * HTTP client used by {@link lt.creditco.cupa.remote.UpGatewayClient} ({@code application.gateway-http-client.*}).
+     */
+    public static class GatewayHttpClient {
+
+        /** Max open connections across all gateway hosts. */
+        private int maxConnectionsTotal = 50;
+
+        /** Max open connections to one gateway host. */
+        private int maxConnectionsPerRoute = 20;
+
+        /** TCP connect timeout. */
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /** Max wait for a free pooled connection. */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+
+        /** Response timeout for placing a payment (POST). */
+        private Duration placeResponseTimeout = Duration.ofSeconds(60);
+
+        /** Response timeout for status and client queries (GET). */
+        private Duration queryResponseTimeout = Duration.ofSeconds(15);
+
+        /** Keep-alive used when the gateway does not send a Keep-Alive header. */
+        private Duration keepAlive = Duration.ofSeconds(30);
+
+        /** Idle connections older than this are closed by the background evictor. */
+        private Duration evictIdleAfter = Duration.ofSeconds(60);
+
+        /** Max lifetime of a pooled connection, so DNS/load balancer changes are picked up. */
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        /** Use the JDK HTTP/2 client instead of the pooled HTTP/1.1 client (no pool limits or pool metrics). */
+        private boolean http2 = false;
+
+        public int getMaxConnectionsTotal() {
+            return maxConnectionsTotal;
+        }
+
+        public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+            this.maxConnectionsTotal = maxConnectionsTotal;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getConnectionRequestTimeout() {
+            return connectionRequestTimeout;
+        }
+
+        public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+        }
+
+        public Duration getPlaceResponseTimeout() {
+            return placeResponseTimeout;
+        }
+
+        public void setPlaceResponseTimeout(Duration placeResponseTimeout) {
+            this.placeResponseTimeout = placeResponseTimeout;
+        }
+
+        public Duration getQueryResponseTimeout() {
+            return queryResponseTimeout;
+        }
+
+        public void setQueryResponseTimeout(Duration queryResponseTimeout) {
+            this.queryResponseTimeout = queryResponseTimeout;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public Duration getEvictIdleAfter() {
+            return evictIdleAfter;
+        }
+
+        public void setEvictIdleAfter(Duration evictIdleAfter) {
+            this.evictIdleAfter = evictIdleAfter;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public boolean isHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(boolean http2) {
+            this.http2 = http2;
+        }
+    }
+
+    /**
+     * Circuit breaker and bulkhead per gateway host, see {@link lt.creditco.cupa.remote.GatewayCircuitBreakers}
+     * ({@code application.gateway-circuit-breaker.*}).
+     */
+    public static class GatewayCircuitBreaker {
+
+        /** Guard gateway calls; when off, every call goes to the network. */
+        private boolean enabled = true;
+
+        /** Max calls in flight to one gateway host. */
+        private int maxConcurrentCalls = 20;
+
+        /** Max wait for a free bulkhead slot before the call is rejected. */
+        private Duration maxWait = Duration.ofMillis(500);
+
+        /** Failure percentage of the sliding window at which the circuit opens. */
+        private int failureRateThreshold = 50;
+
+        /** Number of most recent calls the failure rate is computed over. */
+        private int slidingWindowSize = 20;
+
+        /** Min calls in the window before the failure rate is evaluated. */
+        private int minimumCalls = 10;
+
+        /** How long an open circuit rejects calls before probing the host again. */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /** Calls let through while half-open; all must succeed to close the circuit. */
+        private int halfOpenProbes = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenProbes() {
+            return halfOpenProbes;
+        }
+
+        public void setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+        }
+    }
+
+    /**
+     * Asynchronous API audit log writer ({@code application.audit.*}).
+     */
+    public static class Audit {
+
+        /**
+         * What to do with an audit record when the write queue is full.
+         */
+        public enum OverflowPolicy {
+            /** Drop the record immediately. */
+            DROP,
+            /** Wait up to {@code block-timeout} for space, then drop. */
+            BLOCK,
+        }
+
+        /** Max audit records waiting to be written. */
+        private int queueCapacity = 10000;
+
+        /** Max records per JDBC batch. */
+        private int batchSize = 200;
+
+        /** Max time a record waits before a (possibly partial) batch is written. */
+        private Duration flushInterval = Duration.ofMillis(500);
+
+        /** Requests whose response half has not arrived within this time are written without it. */
+        private Duration pendingTimeout = Duration.ofMinutes(2);
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        /** Max wait for queue space with {@link OverflowPolicy#BLOCK}. */
+        private Duration blockTimeout = Duration.ofMillis(100);
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public Duration getPendingTimeout() {
+            return pendingTimeout;
+        }
+
+        public void setPendingTimeout(Duration pendingTimeout) {
+            this.pendingTimeout = pendingTimeout;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public Duration getBlockTimeout() {
+            return blockTimeout;
+        }
+
+        public void setBlockTimeout(Duration blockTimeout) {
+            this.blockTimeout = blockTimeout;
+        }
+    }
+
+    /**
+     * API key to merchant context cache used by API authentication ({@code application.merchant-context-cache.*}).
+     */
+    public static class MerchantContextCache {
+
+        /** How long a resolved API key stays cached; merchant changes made through MerchantService evict it earlier. */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        /** Max cached API keys. */
+        private long maximumSize = 10000;
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+    }
+
+    /**
+     * Pull-task dispatcher for the default pool ({@code application.pull-task-dispatcher.*}).
+     */
+    public static class PullTaskDispatcher {
+
+        /** Max tasks leased and executed by one lease run. */
+        private int maxWorkers = 10;
+
+        /** How long a leased task stays reserved for this node. */
+        private Duration leaseTime = Duration.ofMinutes(10);
+
+        /** Lease runs that may execute at the same time in the pool. */
+        private int concurrency = 1;
+
+        /** Max sleep when no task is known to be due; picks up tasks enqueued by other nodes or before a restart. */
+        private Duration idlePollInterval = Duration.ofSeconds(60);
+
+        /** Run lease runs (and so the task handlers) on virtual threads. */
+        private boolean virtualThreads = false;
+
+        public int getMaxWorkers() {
+            return maxWorkers;
+        }
+
+        public void setMaxWorkers(int maxWorkers) {
+            this.maxWorkers = maxWorkers;
+        }
+
+        public Duration getLeaseTime() {
+            return leaseTime;
+        }
+
+        public void setLeaseTime(Duration leaseTime) {
+            this.leaseTime = leaseTime;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public Duration getIdlePollInterval() {
+            return idlePollInterval;
+        }
+
+        public void setIdlePollInterval(Duration idlePollInterval) {
+            this.idlePollInterval = idlePollInterval;
+        }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+    }
+
+    /**
+     * Bulk status reconciliation of pending payments ({@code application.reconciliation.*}).
+     */
+    public static class Reconciliation {
+
+        /**
+         * Poll pending payments in bulk instead of one {@code QueryPaymentStatusTask} pull task per payment. Off by
+         * default, so deployments keep the pull tasks until they switch over.
+         */
+        private boolean enabled = false;
+
+        /** Delay between reconciliation cycles. */
+        private Duration interval = Duration.ofSeconds(30);
+
+        /** Max gateway status queries in flight. */
+        private int parallelism = 8;
+
+        /** Max transactions updated per database transaction. */
+        private int batchSize = 200;
+
+        /** Delay before a new pending payment is queried for the first time. */
+        private Duration firstQueryDelay = Duration.ofSeconds(60);
+
+        /** How long a node keeps the payments it claimed for a cycle before other nodes may query them. */
+        private Duration claimTimeout = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getFirstQueryDelay() {
+            return firstQueryDelay;
+        }
+
+        public void setFirstQueryDelay(Duration firstQueryDelay) {
+            this.firstQueryDelay = firstQueryDelay;
+        }
+
+        public Duration getClaimTimeout() {
+            return claimTimeout;
+        }
+
+        public void setClaimTimeout(Duration claimTimeout) {
+            this.claimTimeout = claimTimeout;
+        }
+    }
+
+    /**
+     * Gateway placement after the API has answered {@code 202 Accepted} ({@code application.async-placement.*}).
+     */
+    public static class AsyncPlacement {
+
+        /** Place payments in the background for API requests sent with {@code Prefer: respond-async}. */
+        private boolean enabled = false;
+
+        /** Max gateway placements in flight. */
+        private int maxConcurrency = 16;
+
+        /** Max accepted payments waiting for a placement thread; when full, the API request places the payment itself. */
+        private int queueCapacity = 500;
+
+        /** Age after which a payment still {@code RECEIVED} is considered lost and placed by the recovery sweep. */
+        private Duration recoveryAfter = Duration.ofMinutes(5);
+
+        /** Delay between recovery sweeps. */
+        private Duration recoveryInterval = Duration.ofMinutes(1);
+
+        /** Payments created longer ago are left {@code RECEIVED} by the recovery sweep. */
+        private Duration recoveryMaxAge = Duration.ofHours(24);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getRecoveryAfter() {
+            return recoveryAfter;
+        }
+
+        public void setRecoveryAfter(Duration recoveryAfter) {
+            this.recoveryAfter = recoveryAfter;
+        }
+
+        public Duration getRecoveryInterval() {
+            return recoveryInterval;
+        }
+
+        public void setRecoveryInterval(Duration recoveryInterval) {
+            this.recoveryInterval = recoveryInterval;
+        }
+
+        public Duration getRecoveryMaxAge() {
+            return recoveryMaxAge;
+        }
+
+        public void setRecoveryMaxAge(Duration recoveryMaxAge) {
+            this.recoveryMaxAge = recoveryMaxAge;
+        }
+    }
+
+    /**
+     * {@code Idempotency-Key} handling of payment creation ({@code application.idempotency.*}).
+     */
+    public static class Idempotency {
+
+        /** How long a request waits for a concurrent request with the same key before it is rejected. */
+        private Duration waitTimeout = Duration.ofSeconds(60);
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+    }
+
+    /**
+     * Payment lifecycle metrics published by {@link lt.creditco.cupa.service.PaymentMetrics}
+     * ({@code application.payment-metrics.*}).
+     */
+    public static class PaymentMetrics {
+
+        /** How often the payment backlog gauge is recounted from the database. */
+        private Duration backlogInterval = Duration.ofSeconds(60);
+
+        public Duration getBacklogInterval() {
+            return backlogInterval;
+        }
+
+        public void setBacklogInterval(Duration backlogInterval) {
+            this.backlogInterval = backlogInterval;
+        }
+    }
+
+    /**
+     * Monthly {@code audit_log} partitions managed by {@link lt.creditco.cupa.service.AuditLogPartitionMaintenance}
+     * ({@code application.audit-retention.*}). Only takes effect on PostgreSQL.
+     */
+    public static class AuditRetention {
+
+        /**
+         * Whether partitions are created ahead and old ones retired. Off by default, since retiring detaches (and with
+         * an archive directory drops) audit data; may be turned on for every node, a cycle runs on one of them.
+         */
+        private boolean enabled = false;
+
+        /** When the maintenance runs, as a Spring cron expression. */
+        private String cron = "0 30 3 * * *";
+
+        /** Months kept attached, counting the current one. Older partitions are detached. */
+        private int retentionMonths = 13;
+
+        /** Partitions created in advance for the months after the current one. */
+        private int monthsAhead = 2;
+
+        /**
+         * Directory detached partitions are exported to as gzipped CSV and then dropped. When not set, detached
+         * partitions are left in the database as standalone tables.
+         */
+        private String archiveDirectory;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getRetentionMonths() {
+            return retentionMonths;
+        }
+
+        public void setRetentionMonths(int retentionMonths) {
+            this.retentionMonths = retentionMonths;
+        }
+
+        public int getMonthsAhead() {
+            return monthsAhead;
+        }
+
+        public void setMonthsAhead(int monthsAhead) {
+            this.monthsAhead = monthsAhead;
+        }
+
+        public String getArchiveDirectory() {
+            return archiveDirectory;
+        }
+
+        public void setArchiveDirectory(String archiveDirectory) {
+            this.archiveDirectory = archiveDirectory;
+        }
+    }
+
+    /**
+     * Virtual-thread execution mode ({@code application.virtual-threads.*}); pinning is reported by
+     * {@link lt.creditco.cupa.config.VirtualThreadPinningMonitor}.
+     */
+    public static class VirtualThreads {
+
+        /**
+         * Run request handling, outbox event handlers, pull-task handlers, async placements and reconciliation queries
+         * on virtual threads. Also switches {@code spring.threads.virtual.enabled}.
+         */
+        private boolean enabled = false;
+
+        /** Report virtual threads pinned to their carrier for at least this long. */
+        private Duration pinnedThreshold = Duration.ofMillis(20);
+
+        /** Minimum time between two logged pinning stack traces; every pinning is still counted. */
+        private Duration pinnedLogInterval = Duration.ofMinutes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getPinnedThreshold() {
+            return pinnedThreshold;
+        }
+
+        public void setPinnedThreshold(Duration pinnedThreshold) {
+            this.pinnedThreshold = pinnedThreshold;
+        }
+
+        public Duration getPinnedLogInterval() {
+            return pinnedLogInterval;
+        }
+
+        public void setPinnedLogInterval(Duration pinnedLogInterval) {
+            this.pinnedLogInterval = pinnedLogInterval;
+        }
+    }
+
+    /**
+     * Merchant balance projection from gateway replies ({@code application.merchant-balance.*}), see
+     * {@link lt.creditco.cupa.service.MerchantBalanceProjector}.
+     */
+    public static class MerchantBalance {
+
+        /** How often coalesced balances are written; each merchant row is updated at most once per interval. */
+        private Duration flushInterval = Duration.ofSeconds(5);
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    /**
+     * Transactional outbox relay ({@code application.outbox.*}), see {@link lt.creditco.cupa.service.outbox.OutboxRelay}.
+     */
+    public static class Outbox {
+
+        /** Whether this instance relays outbox events; events are recorded either way. */
+        private boolean relayEnabled = true;
+
+        /** Pause between relay runs once the outbox is drained. */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /** Events claimed per batch. */
+        private int batchSize = 100;
+
+        /** How long claimed events stay invisible to other relays; unfinished events are picked up again after it. */
+        private Duration leaseTime = Duration.ofMinutes(5);
+
+        /** Delivery attempts before an event is marked failed and left in the table for inspection. */
+        private int maxAttempts = 10;
+
+        /** Delay before the first retry; doubled for every further attempt. */
+        private Duration initialBackoff = Duration.ofSeconds(5);
+
+        /** Upper bound of the retry delay. */
+        private Duration maxBackoff = Duration.ofMinutes(10);
+
+        /** Handler threads per event type not listed in {@link #concurrency}. */
+        private int defaultConcurrency = 2;
+
+        /** Handler threads per event type, keyed by the event's simple class name. */
+        private Map<String, Integer> concurrency = new HashMap<>();
+
+        public boolean isRelayEnabled() {
+            return relayEnabled;
+        }
+
+        public void setRelayEnabled(boolean relayEnabled) {
+            this.relayEnabled = relayEnabled;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getLeaseTime() {
+            return leaseTime;
+        }
+
+        public void setLeaseTime(Duration leaseTime) {
+            this.leaseTime = leaseTime;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public int getDefaultConcurrency() {
+            return defaultConcurrency;
+        }
+
+        public void setDefaultConcurrency(int defaultConcurrency) {
+            this.defaultConcurrency = defaultConcurrency;
+        }
+
+        public Map<String, Integer> getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(Map<String, Integer> concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        /**
+         * @return the handler threads for the event type.
+         */
+        public int concurrencyOf(String eventType) {
+            return Math.max(1, concurrency.getOrDefault(eventType, defaultConcurrency));
+        }
+    }
+
+    /**
+     * Daily turnover rollup ({@code application.turnover-rollup.*}), see
+     * {@link lt.creditco.cupa.service.DailyTurnoverRollup}.
+     */
+    public static class TurnoverRollup {
+
+        /** How often the accumulated changes are added to {@code daily_turnover}. */
+        private Duration flushInterval = Duration.ofSeconds(5);
+
+        /** When the {@link #rebuildDays} days before today are rebuilt from {@code payment_transaction} (UTC). */
+        private String rebuildCron = "0 15 0 * * *";
+
+        /** Days before today rebuilt by the scheduled rebuild, catching late status changes; 0 disables it. */
+        private int rebuildDays = 2;
+
+        /** Longest day range a statistics query may cover. */
+        private int maxQueryDays = 366;
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public String getRebuildCron() {
+            return rebuildCron;
+        }
+
+        public void setRebuildCron(String rebuildCron) {
+            this.rebuildCron = rebuildCron;
+        }
+
+        public int getRebuildDays() {
+            return rebuildDays;
+        }
+
+        public void setRebuildDays(int rebuildDays) {
+            this.rebuildDays = rebuildDays;
+        }
+
+        public int getMaxQueryDays() {
+            return maxQueryDays;
+        }
+
+        public void setMaxQueryDays(int maxQueryDays) {
+            this.maxQueryDays = maxQueryDays;
+        }
+    }
 }
@@ -1,9 +1,10 @@
 package lt.creditco.cupa.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import com.bpmid.pulltasks.application.DefaultTaskLeasingAgent;
@@ -16,43 +17,42 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Configuration for Pull-Tasks queue processing in CUPA.
- * Configures a single task leasing agent for the default pool.
+ * Configures a single task leasing agent for the default pool, driven by {@link PullTaskDispatcher}.
  */
 @Slf4j
 @Configuration
-@EnableScheduling
 @ConditionalOnProperty(prefix = "pulltasks", name = "enabled", havingValue = "true", matchIfMissing = false)
 public class PullTaskConfiguration {
-    
-    public static final String DEFAULT_POOL = "default";
 
-    private final DefaultTaskLeasingAgent taskAgent;
+    public static final String DEFAULT_POOL = "default";
 
-    public PullTaskConfiguration(PullTaskService pullTaskService,
+    @Bean
+    public PullTaskDispatcher pullTaskDispatcher(PullTaskService pullTaskService,
             DynamicTaskHandlerProviderRegistry handlerRegistry,
             PullTasksProperties properties,
-            TransactionTemplate transactionTemplate) {
+            ApplicationProperties applicationProperties,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
 
         var allProviders = handlerRegistry.getAllProviders();
+        ApplicationProperties.PullTaskDispatcher dispatcherProperties = applicationProperties.getPullTaskDispatcher();
 
         TaskLeasingAgentConfig agentConfig = TaskLeasingAgentConfig.builder()
             .agentName("cupa-task-agent")
             .owner(properties.getOwner())
             .poolName(DEFAULT_POOL)
-            .maxWorkers(10)
-            .leaseTimeInSeconds(600)
+            .maxWorkers(dispatcherProperties.getMaxWorkers())
+            .leaseTimeInSeconds((int) dispatcherProperties.getLeaseTime().toSeconds())
             .build();
-        
-        this.taskAgent = new DefaultTaskLeasingAgent(agentConfig, allProviders, pullTaskService, transactionTemplate);
-        
-        log.info("PullTaskConfiguration initialized with pool: {}, owner: {}", DEFAULT_POOL, properties.getOwner());
-    }
 
-    /**
-     * Polls for and executes due tasks every 60 seconds.
-     */
-    @Scheduled(fixedRate = 60000)
-    public void processTasks() {
-        taskAgent.leaseAndExecuteTasks();
+        DefaultTaskLeasingAgent taskAgent = new DefaultTaskLeasingAgent(agentConfig, allProviders, pullTaskService, transactionTemplate);
+
+        log.info("PullTaskConfiguration initialized with pool: {}, owner: {}", DEFAULT_POOL, properties.getOwner());
+        PullTaskDispatcher dispatcher = new PullTaskDispatcher(taskAgent::leaseAndExecuteTasks, dispatcherProperties);
+        Gauge.builder("cupa.pulltask.queue.size", dispatcher, PullTaskDispatcher::getQueueSize)
+            .description("Pull-task due dates announced on this node and not yet leased")
+            .tag("pool", DEFAULT_POOL)
+            .register(meterRegistry);
+        return dispatcher;
     }
 }
@@ -0,0 +1,182 @@
+package lt.creditco.cupa.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.IntSupplier;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.event.PullTaskScheduledEvent;
+
+/**
+ * Runs pull-task lease runs when work becomes due instead of on a fixed tick.
+ *
+ * <p>Due dates of tasks enqueued or rescheduled on this node arrive as {@link PullTaskScheduledEvent}s (after the
+ * enqueueing transaction commits). Each of the {@code concurrency} workers sleeps until the earliest known due date or
+ * its idle poll, whichever comes first; the idle poll picks up tasks enqueued by other nodes or before a restart.
+ * A lease run covers up to {@code max-workers} due dates, and a run that leased {@code max-workers} tasks is followed by
+ * the next one right away, so a backlog (announced here or not) keeps the workers running back to back until it is
+ * drained.</p>
+ */
+@Slf4j
+public class PullTaskDispatcher implements SmartLifecycle {
+
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final IntSupplier leaseRun;
+    private final ApplicationProperties.PullTaskDispatcher properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+
+    /** Due dates announced on this node that no lease run has covered yet. */
+    private final PriorityQueue<Instant> dueDates = new PriorityQueue<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    /**
+     * @param leaseRun leases and executes the due tasks of the pool, at most {@code max-workers} of them, and returns
+     *     the number of tasks it leased
+     * @param properties dispatcher settings
+     */
+    public PullTaskDispatcher(IntSupplier leaseRun, ApplicationProperties.PullTaskDispatcher properties) {
+        this.leaseRun = leaseRun;
+        this.properties = properties;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskScheduled(PullTaskScheduledEvent event) {
+        wakeUpAt(event.getDueDate());
+    }
+
+    /**
+     * Makes a worker run a lease at {@code dueDate} (immediately if it is {@code null} or in the past).
+     */
+    public void wakeUpAt(Instant dueDate) {
+        lock.lock();
+        try {
+            dueDates.add(dueDate != null ? dueDate : Instant.now());
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return task due dates announced on this node that no lease run has covered yet.
+     */
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return dueDates.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        Instant idlePollAt = Instant.now();
+        while (running) {
+            try {
+                awaitDueWork(idlePollAt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!running) {
+                return;
+            }
+            int leased = 0;
+            try {
+                leased = leaseRun.getAsInt();
+            } catch (RuntimeException e) {
+                log.error("Pull-task lease run failed", e);
+            }
+            // a full run means more tasks are probably due, also ones this node was not told about
+            idlePollAt = leased >= properties.getMaxWorkers() ? Instant.now() : Instant.now().plus(properties.getIdlePollInterval());
+        }
+    }
+
+    private void awaitDueWork(Instant idlePollAt) throws InterruptedException {
+        lock.lock();
+        try {
+            while (running) {
+                Instant next = dueDates.isEmpty() || dueDates.peek().isAfter(idlePollAt) ? idlePollAt : dueDates.peek();
+                long waitNanos = Duration.between(Instant.now(), next).toNanos();
+                if (waitNanos <= 0) {
+                    break;
+                }
+                wakeUp.awaitNanos(waitNanos);
+            }
+            Instant now = Instant.now();
+            for (int i = 0; i < properties.getMaxWorkers() && !dueDates.isEmpty() && !dueDates.peek().isAfter(now); i++) {
+                dueDates.poll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        ThreadFactory threadFactory = properties.isVirtualThreads()
+            ? Thread.ofVirtual().name("pull-task-dispatcher-", 1).factory()
+            : Thread.ofPlatform().name("pull-task-dispatcher-", 1).daemon(true).factory();
+        for (int i = 0; i < properties.getConcurrency(); i++) {
+            Thread worker = threadFactory.newThread(this::work);
+            workers.add(worker);
+            worker.start();
+        }
+        log.info(
+            "Pull-task dispatcher started: {} worker(s), max {} tasks per lease run, virtual threads: {}",
+            properties.getConcurrency(),
+            properties.getMaxWorkers(),
+            properties.isVirtualThreads()
+        );
+    }
+
+    /**
+     * Lets running lease runs finish (up to {@link #STOP_TIMEOUT}) rather than interrupting task handlers.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        lock.lock();
+        try {
+            wakeUp.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        long deadline = System.nanoTime() + STOP_TIMEOUT.toNanos();
+        for (Thread worker : workers) {
+            try {
+                worker.join(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 1)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -1,21 +1,150 @@
 package lt.creditco.cupa.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.function.BiFunction;
 import lt.creditco.cupa.remote.NoOpResponseErrorHandler;
-import lt.creditco.cupa.remote.RestTemplateBodyInterceptor;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.BufferingClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * HTTP client for the UnionPay gateway.
+ *
+ * <p>By default requests go through a pooled, keep-alive Apache HttpClient: connections to a gateway host are reused
+ * instead of paying a TCP/TLS handshake per call. Payment placement (POST) and status/client queries (GET) get separate
+ * response timeouts. Pool usage is published as {@code httpcomponents.httpclient.pool.*} metrics with
+ * {@code httpclient=up-gateway}.</p>
+ *
+ * <p>With {@code application.gateway-http-client.http2=true} the JDK client is used instead (HTTP/2 multiplexing,
+ * no per-host pool limits and no pool metrics).</p>
+ */
 @Configuration
 public class RemoteClientConfig {
 
+    private static final String POOL_METRICS_NAME = "up-gateway";
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "application.gateway-http-client.http2", havingValue = "false", matchIfMissing = true)
+    public PoolingHttpClientConnectionManager gatewayConnectionManager(ApplicationProperties applicationProperties) {
+        ApplicationProperties.GatewayHttpClient properties = applicationProperties.getGatewayHttpClient();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(properties.getMaxConnectionsTotal())
+            .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+            .setDefaultConnectionConfig(connectionConfig(properties))
+            .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "application.gateway-http-client.http2", havingValue = "false", matchIfMissing = true)
+    public CloseableHttpClient gatewayHttpClient(
+        PoolingHttpClientConnectionManager gatewayConnectionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.GatewayHttpClient properties = applicationProperties.getGatewayHttpClient();
+        return HttpClients.custom()
+            .setConnectionManager(gatewayConnectionManager)
+            .setDefaultRequestConfig(requestConfig(properties, properties.getQueryResponseTimeout()))
+            .evictExpiredConnections()
+            .evictIdleConnections(timeValue(properties.getEvictIdleAfter()))
+            .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.gateway-http-client.http2", havingValue = "false", matchIfMissing = true)
+    public MeterBinder gatewayConnectionPoolMetrics(PoolingHttpClientConnectionManager gatewayConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(gatewayConnectionManager, POOL_METRICS_NAME);
+    }
+
     @Bean
-    public RestTemplate restTemplate(RestTemplateBodyInterceptor restTemplateBodyInterceptor) {
-        RestTemplate restTemplate = new RestTemplate(new BufferingClientHttpRequestFactory(new SimpleClientHttpRequestFactory()));
-        restTemplate.getInterceptors().add(restTemplateBodyInterceptor);
+    public RestTemplate restTemplate(
+        ApplicationProperties applicationProperties,
+        ObjectProvider<CloseableHttpClient> gatewayHttpClient
+    ) {
+        ApplicationProperties.GatewayHttpClient properties = applicationProperties.getGatewayHttpClient();
+        ClientHttpRequestFactory requestFactory = properties.isHttp2()
+            ? http2RequestFactory(properties)
+            : pooledRequestFactory(gatewayHttpClient.getObject(), properties);
+
+        // no buffering request factory: UpGatewayClient reads each response body exactly once, as bytes
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
         restTemplate.setErrorHandler(new NoOpResponseErrorHandler());
         return restTemplate;
     }
+
+    private static ClientHttpRequestFactory pooledRequestFactory(
+        CloseableHttpClient httpClient,
+        ApplicationProperties.GatewayHttpClient properties
+    ) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setHttpContextFactory(httpContextFactory(properties));
+        return requestFactory;
+    }
+
+    /**
+     * @return a context factory that gives payment placement (POST) the place response timeout and every other request
+     *     the query one.
+     */
+    static BiFunction<HttpMethod, URI, HttpContext> httpContextFactory(ApplicationProperties.GatewayHttpClient properties) {
+        RequestConfig placeConfig = requestConfig(properties, properties.getPlaceResponseTimeout());
+        RequestConfig queryConfig = requestConfig(properties, properties.getQueryResponseTimeout());
+        return (method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(HttpMethod.POST.equals(method) ? placeConfig : queryConfig);
+            return context;
+        };
+    }
+
+    private static ClientHttpRequestFactory http2RequestFactory(ApplicationProperties.GatewayHttpClient properties) {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(properties.getConnectTimeout())
+            .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        // the JDK factory has a single read timeout; use the longer placement one
+        requestFactory.setReadTimeout(properties.getPlaceResponseTimeout());
+        return requestFactory;
+    }
+
+    static ConnectionConfig connectionConfig(ApplicationProperties.GatewayHttpClient properties) {
+        return ConnectionConfig.custom()
+            .setConnectTimeout(timeout(properties.getConnectTimeout()))
+            .setTimeToLive(timeValue(properties.getTimeToLive()))
+            .build();
+    }
+
+    static RequestConfig requestConfig(ApplicationProperties.GatewayHttpClient properties, Duration responseTimeout) {
+        return RequestConfig.custom()
+            .setConnectionRequestTimeout(timeout(properties.getConnectionRequestTimeout()))
+            .setResponseTimeout(timeout(responseTimeout))
+            .setConnectionKeepAlive(timeValue(properties.getKeepAlive()))
+            .build();
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+    private static TimeValue timeValue(Duration duration) {
+        return TimeValue.ofMilliseconds(duration.toMillis());
+    }
 }
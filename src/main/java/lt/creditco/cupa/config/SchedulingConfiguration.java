@@ -0,0 +1,11 @@
+package lt.creditco.cupa.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} jobs such as {@link lt.creditco.cupa.service.PaymentReconciliationService}.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {}
@@ -0,0 +1,99 @@
+package lt.creditco.cupa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, typically by blocking inside a
+ * {@code synchronized} block or a native frame, which takes a carrier away from all other virtual threads.
+ *
+ * <p>Listens to the JFR {@code jdk.VirtualThreadPinned} event in-process. Every pinning of at least
+ * {@code application.virtual-threads.pinned-threshold} is recorded in the {@code cupa.virtual.threads.pinned} timer,
+ * and at most one stack trace per {@code application.virtual-threads.pinned-log-interval} is logged.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "application.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int LOGGED_FRAMES = 20;
+
+    private final ApplicationProperties.VirtualThreads properties;
+    private final Timer pinned;
+    private final AtomicLong nextLogNanos = new AtomicLong(System.nanoTime());
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getVirtualThreads();
+        this.pinned = Timer.builder("cupa.virtual.threads.pinned")
+            .description("Virtual threads pinned to their carrier longer than the threshold")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(properties.getPinnedThreshold()).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Monitoring virtual thread pinning longer than {}", properties.getPinnedThreshold());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (stream == null) {
+            return;
+        }
+        stream.close();
+        stream = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        long now = System.nanoTime();
+        long next = nextLogNanos.get();
+        if (now - next >= 0 && nextLogNanos.compareAndSet(next, now + properties.getPinnedLogInterval().toNanos())) {
+            log.warn(
+                "Virtual thread {} pinned its carrier for {} ms at:\n{}",
+                event.getThread() != null ? event.getThread().getJavaName() : "?",
+                event.getDuration().toMillis(),
+                formatStackTrace(event.getStackTrace())
+            );
+        }
+    }
+
+    static String formatStackTrace(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(no stack trace)";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        String formatted = frames
+            .stream()
+            .limit(LOGGED_FRAMES)
+            .map(frame -> "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+            .collect(Collectors.joining("\n"));
+        return frames.size() > LOGGED_FRAMES || stackTrace.isTruncated() ? formatted + "\n\t..." : formatted;
+    }
+}
@@ -1,7 +1,7 @@
 package lt.creditco.cupa.config;
 
 import lombok.RequiredArgsConstructor;
-import lt.creditco.cupa.service.AuditLogService;
+import lt.creditco.cupa.service.AuditLogWriter;
 import lt.creditco.cupa.web.filter.HttpLoggingFilter;
 import lt.creditco.cupa.web.interceptor.CupaApiAuditInterceptor;
 
@@ -30,9 +30,9 @@ public class WebMvcConfig implements WebMvcConfigurer {
 
 
     @Bean
-    public FilterRegistrationBean<HttpLoggingFilter> httpLoggingFilter(AuditLogService auditLogService) {
+    public FilterRegistrationBean<HttpLoggingFilter> httpLoggingFilter(AuditLogWriter auditLogWriter) {
         FilterRegistrationBean<HttpLoggingFilter> registrationBean = new FilterRegistrationBean<>();
-        registrationBean.setFilter(new HttpLoggingFilter(auditLogService));
+        registrationBean.setFilter(new HttpLoggingFilter(auditLogWriter));
         registrationBean.addUrlPatterns("/api/*", "/api/v1/*", "/public/webhook/*");
         registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
         registrationBean.setName("httpLoggingFilter");
@@ -17,6 +17,7 @@ import org.hibernate.annotations.NaturalId;
  * Represents a single payment transaction from start to finish.
  * This entity acts as a comprehensive audit log, storing the request,
  * response, and status at each step of the process.
+ * The raw gateway payloads are kept in {@link PaymentTransactionPayload}.
  */
 @Entity
 @Table(name = "payment_transaction")
@@ -85,21 +86,9 @@ public class PaymentTransaction extends AbstractAuditingEntity<String> implement
     @Column(name = "request_timestamp", nullable = false)
     private Instant requestTimestamp;
 
-    @Column(name = "request_data" , columnDefinition = "text")
-    private String requestData;
-
-    @Column(name = "initial_response_data" , columnDefinition = "text")
-    private String initialResponseData;
-
     @Column(name = "callback_timestamp")
     private Instant callbackTimestamp;
 
-    @Column(name = "callback_data" , columnDefinition = "text")
-    private String callbackData;
-
-    @Column(name = "last_query_data" , columnDefinition = "text")
-    private String lastQueryData;
-
     @Column(name = "client_id")
     private String clientId;
 
@@ -116,6 +105,22 @@ public class PaymentTransaction extends AbstractAuditingEntity<String> implement
     @Column(name = "gateway_merchant_id")
     private String gatewayMerchantId;
 
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    /**
+     * Next gateway status query of a pending transaction, written only by the reconciliation queries.
+     */
+    @Column(name = "next_query_at", insertable = false, updatable = false)
+    private Instant nextQueryAt;
+
+    /**
+     * When the gateway placement was started, written only by {@code markPlacementStarted}; a payment still
+     * {@code RECEIVED} with it set may have reached the gateway and is not placed again.
+     */
+    @Column(name = "placement_started_at", insertable = false, updatable = false)
+    private Instant placementStartedAt;
+
     @Version
     private Long version;
 
@@ -329,32 +334,6 @@ public class PaymentTransaction extends AbstractAuditingEntity<String> implement
         this.requestTimestamp = requestTimestamp;
     }
 
-    public String getRequestData() {
-        return this.requestData;
-    }
-
-    public PaymentTransaction requestData(String requestData) {
-        this.setRequestData(requestData);
-        return this;
-    }
-
-    public void setRequestData(String requestData) {
-        this.requestData = requestData;
-    }
-
-    public String getInitialResponseData() {
-        return this.initialResponseData;
-    }
-
-    public PaymentTransaction initialResponseData(String initialResponseData) {
-        this.setInitialResponseData(initialResponseData);
-        return this;
-    }
-
-    public void setInitialResponseData(String initialResponseData) {
-        this.initialResponseData = initialResponseData;
-    }
-
     public Instant getCallbackTimestamp() {
         return this.callbackTimestamp;
     }
@@ -368,32 +347,6 @@ public class PaymentTransaction extends AbstractAuditingEntity<String> implement
         this.callbackTimestamp = callbackTimestamp;
     }
 
-    public String getCallbackData() {
-        return this.callbackData;
-    }
-
-    public PaymentTransaction callbackData(String callbackData) {
-        this.setCallbackData(callbackData);
-        return this;
-    }
-
-    public void setCallbackData(String callbackData) {
-        this.callbackData = callbackData;
-    }
-
-    public String getLastQueryData() {
-        return this.lastQueryData;
-    }
-
-    public PaymentTransaction lastQueryData(String lastQueryData) {
-        this.setLastQueryData(lastQueryData);
-        return this;
-    }
-
-    public void setLastQueryData(String lastQueryData) {
-        this.lastQueryData = lastQueryData;
-    }
-
     public String getClientId() {
         return this.clientId;
     }
@@ -459,6 +412,27 @@ public class PaymentTransaction extends AbstractAuditingEntity<String> implement
         return this;
     }
 
+    public String getIdempotencyKey() {
+        return this.idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public PaymentTransaction idempotencyKey(String idempotencyKey) {
+        this.setIdempotencyKey(idempotencyKey);
+        return this;
+    }
+
+    public Instant getNextQueryAt() {
+        return this.nextQueryAt;
+    }
+
+    public Instant getPlacementStartedAt() {
+        return this.placementStartedAt;
+    }
+
     public Long getVersion() {
         return this.version;
     }
@@ -512,11 +486,7 @@ public class PaymentTransaction extends AbstractAuditingEntity<String> implement
             ", signature='" + getSignature() + "'" +
             ", signatureVersion='" + getSignatureVersion() + "'" +
             ", requestTimestamp='" + getRequestTimestamp() + "'" +
-            ", requestData='" + getRequestData() + "'" +
-            ", initialResponseData='" + getInitialResponseData() + "'" +
             ", callbackTimestamp='" + getCallbackTimestamp() + "'" +
-            ", callbackData='" + getCallbackData() + "'" +
-            ", lastQueryData='" + getLastQueryData() + "'" +
             "}";
     }
 }
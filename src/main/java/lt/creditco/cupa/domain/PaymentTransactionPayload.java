@@ -0,0 +1,107 @@
+package lt.creditco.cupa.domain;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import lt.creditco.cupa.domain.util.CompressedTextConverter;
+
+/**
+ * Raw gateway payloads of a {@link PaymentTransaction}, kept apart from the transaction row.
+ *
+ * <p>The payloads are large and only read when a single transaction is shown in detail, so they are neither loaded
+ * with list queries nor held in the second-level cache. They are stored compressed.</p>
+ */
+@Entity
+@Table(name = "payment_transaction_payload")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class PaymentTransactionPayload implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Id of the {@link PaymentTransaction} the payloads belong to. */
+    @Id
+    @Column(name = "transaction_id", length = 50, nullable = false)
+    private String transactionId;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "request_data")
+    private String requestData;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "initial_response_data")
+    private String initialResponseData;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "callback_data")
+    private String callbackData;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "last_query_data")
+    private String lastQueryData;
+
+    public PaymentTransactionPayload() {}
+
+    public PaymentTransactionPayload(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getTransactionId() {
+        return this.transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getRequestData() {
+        return this.requestData;
+    }
+
+    public void setRequestData(String requestData) {
+        this.requestData = requestData;
+    }
+
+    public String getInitialResponseData() {
+        return this.initialResponseData;
+    }
+
+    public void setInitialResponseData(String initialResponseData) {
+        this.initialResponseData = initialResponseData;
+    }
+
+    public String getCallbackData() {
+        return this.callbackData;
+    }
+
+    public void setCallbackData(String callbackData) {
+        this.callbackData = callbackData;
+    }
+
+    public String getLastQueryData() {
+        return this.lastQueryData;
+    }
+
+    public void setLastQueryData(String lastQueryData) {
+        this.lastQueryData = lastQueryData;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PaymentTransactionPayload)) {
+            return false;
+        }
+        return getTransactionId() != null && getTransactionId().equals(((PaymentTransactionPayload) o).getTransactionId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentTransactionPayload{transactionId=" + getTransactionId() + "}";
+    }
+}
@@ -5,20 +5,19 @@ import lt.creditco.cupa.domain.PaymentTransaction;
 import lt.creditco.cupa.repository.MerchantRepository;
 import lt.creditco.cupa.repository.PaymentTransactionRepository;
 import lt.creditco.cupa.service.PaymentTransactionService;
+import lt.creditco.cupa.service.outbox.OutboxEventHandler;
 import lt.creditco.cupa.web.context.CupaApiContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 /**
- * Event listener for balance update events.
+ * Outbox handler for balance update events.
  * Handles asynchronous balance updates by querying the remote gateway
  * when a webhook is processed but the balance is null.
  */
 @Component
-public class BalanceUpdateEventListener {
+public class BalanceUpdateEventListener implements OutboxEventHandler<BalanceUpdateEvent> {
 
     private static final Logger LOG = LoggerFactory.getLogger(BalanceUpdateEventListener.class);
 
@@ -36,87 +35,92 @@ public class BalanceUpdateEventListener {
         this.merchantRepository = merchantRepository;
     }
 
+    @Override
+    public Class<BalanceUpdateEvent> eventClass() {
+        return BalanceUpdateEvent.class;
+    }
+
+    @Override
+    public void handle(BalanceUpdateEvent event) {
+        handleBalanceUpdateEvent(event);
+    }
+
     /**
      * Handle balance update events asynchronously.
-     * This method runs outside the webhook processing transaction.
+     * This method runs on the outbox relay, after the webhook processing transaction committed. A failing gateway
+     * query is thrown, so the relay retries it.
      *
      * @param event the balance update event
      */
-    @EventListener
-    @Async
     public void handleBalanceUpdateEvent(BalanceUpdateEvent event) {
         LOG.info(
             "Processing balance update event for transaction: {}, merchant: {}, order: {}",
-            event.getTransactionId(),
-            event.getMerchantId(),
-            event.getOrderId()
+            event.transactionId(),
+            event.merchantId(),
+            event.orderId()
         );
 
-        try {
-            // Find the payment transaction
-            PaymentTransaction paymentTransaction = paymentTransactionRepository.findById(event.getTransactionId()).orElse(null);
-            if (paymentTransaction == null) {
-                LOG.warn("Payment transaction not found for balance update: {}", event.getTransactionId());
-                return;
-            }
+        // Find the payment transaction
+        PaymentTransaction paymentTransaction = paymentTransactionRepository.findById(event.transactionId()).orElse(null);
+        if (paymentTransaction == null) {
+            LOG.warn("Payment transaction not found for balance update: {}", event.transactionId());
+            return;
+        }
 
-            // Find the merchant
-            Merchant merchant = merchantRepository.findById(event.getMerchantId()).orElse(null);
-            if (merchant == null) {
-                LOG.warn("Merchant not found for balance update: {}", event.getMerchantId());
-                return;
-            }
+        // Find the merchant
+        Merchant merchant = merchantRepository.findById(event.merchantId()).orElse(null);
+        if (merchant == null) {
+            LOG.warn("Merchant not found for balance update: {}", event.merchantId());
+            return;
+        }
 
-            // Create a context for the merchant
-            CupaApiContext.MerchantContext merchantContext = CupaApiContext.MerchantContext.builder()
-                .merchantId(merchant.getId())
-                .environment(merchant.getMode())
-                .cupaApiKey(
-                    merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
-                        ? merchant.getCupaProdApiKey()
-                        : merchant.getCupaTestApiKey()
-                )
-                .mode(merchant.getMode())
-                .status(merchant.getStatus())
-                .gatewayUrl(
-                    merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
-                        ? merchant.getRemoteProdUrl()
-                        : merchant.getRemoteTestUrl()
-                )
-                .gatewayMerchantId(
-                    merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
-                        ? merchant.getRemoteProdMerchantId()
-                        : merchant.getRemoteTestMerchantId()
-                )
-                .gatewayMerchantKey(
-                    merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
-                        ? merchant.getRemoteProdMerchantKey()
-                        : merchant.getRemoteTestMerchantKey()
-                )
-                .gatewayApiKey(
-                    merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
-                        ? merchant.getRemoteProdApiKey()
-                        : merchant.getRemoteTestApiKey()
-                )
-                .build();
+        // Create a context for the merchant
+        CupaApiContext.MerchantContext merchantContext = CupaApiContext.MerchantContext.builder()
+            .merchantId(merchant.getId())
+            .environment(merchant.getMode())
+            .cupaApiKey(
+                merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
+                    ? merchant.getCupaProdApiKey()
+                    : merchant.getCupaTestApiKey()
+            )
+            .mode(merchant.getMode())
+            .status(merchant.getStatus())
+            .gatewayUrl(
+                merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
+                    ? merchant.getRemoteProdUrl()
+                    : merchant.getRemoteTestUrl()
+            )
+            .gatewayMerchantId(
+                merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
+                    ? merchant.getRemoteProdMerchantId()
+                    : merchant.getRemoteTestMerchantId()
+            )
+            .gatewayMerchantKey(
+                merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
+                    ? merchant.getRemoteProdMerchantKey()
+                    : merchant.getRemoteTestMerchantKey()
+            )
+            .gatewayApiKey(
+                merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
+                    ? merchant.getRemoteProdApiKey()
+                    : merchant.getRemoteTestApiKey()
+            )
+            .build();
 
-            CupaApiContext.CupaApiContextData context = CupaApiContext.CupaApiContextData.builder()
-                .merchantId(merchant.getId())
-                .cupaApiKey(
-                    merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
-                        ? merchant.getCupaProdApiKey()
-                        : merchant.getCupaTestApiKey()
-                )
-                .merchantContext(merchantContext)
-                .build();
+        CupaApiContext.CupaApiContextData context = CupaApiContext.CupaApiContextData.builder()
+            .merchantId(merchant.getId())
+            .cupaApiKey(
+                merchant.getMode() == lt.creditco.cupa.domain.enumeration.MerchantMode.LIVE
+                    ? merchant.getCupaProdApiKey()
+                    : merchant.getCupaTestApiKey()
+            )
+            .merchantContext(merchantContext)
+            .build();
 
-            // Query the payment from gateway to get the balance
-            LOG.info("Querying payment from gateway for balance update: {}", event.getTransactionId());
-            paymentTransactionService.queryPaymentFromGateway(event.getTransactionId(), context);
+        // Query the payment from gateway to get the balance
+        LOG.info("Querying payment from gateway for balance update: {}", event.transactionId());
+        paymentTransactionService.queryPaymentFromGateway(event.transactionId(), context);
 
-            LOG.info("Successfully processed balance update for transaction: {}", event.getTransactionId());
-        } catch (Exception e) {
-            LOG.error("Error processing balance update event for transaction: {}", event.getTransactionId(), e);
-        }
+        LOG.info("Successfully processed balance update for transaction: {}", event.transactionId());
     }
 }
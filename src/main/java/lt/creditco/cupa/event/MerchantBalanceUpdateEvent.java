@@ -1,18 +1,21 @@
 package lt.creditco.cupa.event;
 
 import java.math.BigDecimal;
-import lombok.Getter;
-import org.springframework.context.ApplicationEvent;
+import java.time.Instant;
 
-@Getter
-public class MerchantBalanceUpdateEvent extends ApplicationEvent {
-
-    private final String merchantId;
-    private final BigDecimal amount;
+/**
+ * Event fired when the gateway reported a merchant's balance with a successful transaction.
+ *
+ * @param transactionTime time of the transaction the balance was reported with; later transactions win.
+ */
+public record MerchantBalanceUpdateEvent(String merchantId, BigDecimal amount, Instant transactionTime) implements OutboxEvent {
+    public MerchantBalanceUpdateEvent {
+        if (transactionTime == null) {
+            transactionTime = Instant.now();
+        }
+    }
 
-    public MerchantBalanceUpdateEvent(Object source, String merchantId, BigDecimal amount) {
-        super(source);
-        this.merchantId = merchantId;
-        this.amount = amount;
+    public MerchantBalanceUpdateEvent(String merchantId, BigDecimal amount) {
+        this(merchantId, amount, null);
     }
 }
@@ -1,56 +1,45 @@
 package lt.creditco.cupa.event;
 
-import java.math.BigDecimal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import lt.creditco.cupa.domain.Merchant;
-import lt.creditco.cupa.repository.MerchantRepository;
-import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
+import lt.creditco.cupa.service.MerchantBalanceProjector;
+import lt.creditco.cupa.service.outbox.OutboxEventHandler;
 import org.springframework.stereotype.Component;
 
+/**
+ * Outbox handler that hands gateway-reported merchant balances to {@link MerchantBalanceProjector}, which coalesces
+ * them and writes each merchant's balance once per outbox batch, before the batch's events are deleted.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class MerchantBalanceUpdateEventListener {
+public class MerchantBalanceUpdateEventListener implements OutboxEventHandler<MerchantBalanceUpdateEvent> {
 
-    private final MerchantRepository merchantRepository;
+    private final MerchantBalanceProjector merchantBalanceProjector;
+
+    @Override
+    public Class<MerchantBalanceUpdateEvent> eventClass() {
+        return MerchantBalanceUpdateEvent.class;
+    }
+
+    @Override
+    public void handle(MerchantBalanceUpdateEvent event) {
+        handleMerchantBalanceUpdateEvent(event);
+    }
+
+    @Override
+    public void afterBatch() {
+        merchantBalanceProjector.persist();
+    }
 
-    @EventListener
-    @Async
     public void handleMerchantBalanceUpdateEvent(MerchantBalanceUpdateEvent event) {
-        log.debug("Processing merchant balance update event for merchantId: {}, amount: {}", event.getMerchantId(), event.getAmount());
+        log.debug("Processing merchant balance update event for merchantId: {}, amount: {}", event.merchantId(), event.amount());
 
-        if (event.getAmount() == null) {
-            log.warn("Balance is null for merchant balance update event for merchantId: {}", event.getMerchantId());
+        if (event.amount() == null) {
+            log.warn("Balance is null for merchant balance update event for merchantId: {}", event.merchantId());
             return;
         }
 
-        try {
-            Merchant merchant = merchantRepository.findById(event.getMerchantId()).orElse(null);
-            if (merchant == null) {
-                log.warn("Merchant not found for balance update - MerchantID: {}", event.getMerchantId());
-                return;
-            }
-
-            BigDecimal currentBalance = merchant.getBalance();
-
-            if (currentBalance != null && currentBalance.compareTo(event.getAmount()) == 0) {
-                log.debug("Balance is the same for merchant balance update event for merchantId: {}", event.getMerchantId());
-                return;
-            }
-
-            merchant.setBalance(event.getAmount());
-            merchantRepository.save(merchant);
-
-            log.info(
-                "Successfully updated merchant balance - MerchantID: {}, old balance: {}, new balance: {}",
-                event.getMerchantId(),
-                currentBalance,
-                event.getAmount()
-            );
-        } catch (Exception e) {
-            log.error("Error processing merchant balance update event for merchantId: {}", event.getMerchantId(), e);
-        }
+        merchantBalanceProjector.offer(event.merchantId(), event.amount(), event.transactionTime());
     }
 }
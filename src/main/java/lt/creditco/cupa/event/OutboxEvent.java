@@ -0,0 +1,11 @@
+package lt.creditco.cupa.event;
+
+/**
+ * An event delivered through the transactional outbox instead of in memory.
+ *
+ * <p>Publishing one with {@link org.springframework.context.ApplicationEventPublisher} stores it in
+ * {@code outbox_event} as part of the current transaction; {@link lt.creditco.cupa.service.outbox.OutboxRelay}
+ * then hands it to the {@link lt.creditco.cupa.service.outbox.OutboxEventHandler} for its type, retrying until it
+ * succeeds. Implementations are serialized to JSON, so they should be records of plain values.</p>
+ */
+public interface OutboxEvent {}
@@ -0,0 +1,19 @@
+package lt.creditco.cupa.event;
+
+import java.time.Instant;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when a pull task is enqueued or rescheduled, so the dispatcher can wake up when it becomes due.
+ */
+@Getter
+public class PullTaskScheduledEvent extends ApplicationEvent {
+
+    private final Instant dueDate;
+
+    public PullTaskScheduledEvent(Object source, Instant dueDate) {
+        super(source);
+        this.dueDate = dueDate;
+    }
+}
@@ -0,0 +1,282 @@
+package lt.creditco.cupa.remote;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.config.ApplicationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit breaker and bulkhead per gateway host, so a slow or failing merchant gateway cannot tie up the threads
+ * serving healthy ones.
+ *
+ * <p>The bulkhead admits at most {@code application.gateway-circuit-breaker.max-concurrent-calls} calls to one host at
+ * a time. The circuit opens when at least {@code failure-rate-threshold} percent of the last {@code sliding-window-size}
+ * calls (and at least {@code minimum-calls}) failed; a failure is an I/O error or a 5xx reply. While open, calls are
+ * rejected without touching the network. After {@code open-duration} the circuit is half-open and lets
+ * {@code half-open-probes} calls through: if they all succeed it closes, the first failure opens it again.</p>
+ *
+ * <p>Publishes {@code cupa.gateway.circuit.state} (0 closed, 1 open, 2 half-open) and
+ * {@code cupa.gateway.bulkhead.active} per {@code host}, and {@code cupa.gateway.rejected} per {@code host} and
+ * {@code reason}.</p>
+ */
+@Slf4j
+@Component
+public class GatewayCircuitBreakers {
+
+    /**
+     * State of a host's circuit; the ordinal is the value of the state gauge.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN,
+    }
+
+    /**
+     * Thrown instead of calling a gateway host whose circuit is open or whose bulkhead is full.
+     */
+    public static class GatewayUnavailableException extends RuntimeException {
+
+        private final String host;
+        private final Instant retryAt;
+
+        GatewayUnavailableException(String message, String host, Instant retryAt) {
+            super(message);
+            this.host = host;
+            this.retryAt = retryAt;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * @return when the host accepts calls again, {@code null} if it only had too many calls in flight.
+         */
+        public Instant getRetryAt() {
+            return retryAt;
+        }
+    }
+
+    private final ApplicationProperties.GatewayCircuitBreaker properties;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Map<String, HostCircuit> circuits = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GatewayCircuitBreakers(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this(applicationProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    GatewayCircuitBreakers(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, Clock clock) {
+        this.properties = applicationProperties.getGatewayCircuitBreaker();
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs a gateway call through the circuit breaker and bulkhead of the host of {@code baseUrl}.
+     *
+     * @throws GatewayUnavailableException if the call was not made.
+     */
+    public <T> ResponseEntity<T> call(String baseUrl, Supplier<ResponseEntity<T>> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        HostCircuit circuit = circuitOf(baseUrl);
+        circuit.acquirePermission();
+        boolean success = false;
+        try {
+            ResponseEntity<T> response = call.get();
+            success = response == null || !response.getStatusCode().is5xxServerError();
+            return response;
+        } finally {
+            circuit.onResult(success);
+        }
+    }
+
+    /**
+     * @return until when calls to the host of {@code baseUrl} are rejected, empty if its circuit is not open.
+     */
+    public Optional<Instant> openUntil(String baseUrl) {
+        if (!properties.isEnabled() || baseUrl == null) {
+            return Optional.empty();
+        }
+        HostCircuit circuit = circuits.get(hostOf(baseUrl));
+        return circuit != null ? circuit.openUntil() : Optional.empty();
+    }
+
+    State state(String baseUrl) {
+        HostCircuit circuit = circuits.get(hostOf(baseUrl));
+        return circuit != null ? circuit.state : State.CLOSED;
+    }
+
+    private HostCircuit circuitOf(String baseUrl) {
+        return circuits.computeIfAbsent(hostOf(baseUrl), HostCircuit::new);
+    }
+
+    static String hostOf(String baseUrl) {
+        try {
+            URI uri = URI.create(baseUrl);
+            if (uri.getHost() != null) {
+                String host = uri.getHost().toLowerCase(Locale.ROOT);
+                return uri.getPort() != -1 ? host + ":" + uri.getPort() : host;
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through: keep malformed URLs apart from each other
+        }
+        return String.valueOf(baseUrl);
+    }
+
+    private final class HostCircuit {
+
+        private final String host;
+        private final Semaphore bulkhead;
+        private final boolean[] outcomes;
+        private final Counter circuitOpenRejections;
+        private final Counter bulkheadFullRejections;
+
+        private volatile State state = State.CLOSED;
+        private int recorded;
+        private int next;
+        private int failures;
+        private Instant openedUntil;
+        private int probesLeft;
+        private int probeSuccesses;
+
+        private HostCircuit(String host) {
+            this.host = host;
+            this.bulkhead = new Semaphore(properties.getMaxConcurrentCalls());
+            this.outcomes = new boolean[properties.getSlidingWindowSize()];
+            Gauge.builder("cupa.gateway.circuit.state", this, circuit -> circuit.state.ordinal())
+                .description("Gateway circuit state: 0 closed, 1 open, 2 half-open")
+                .tag("host", host)
+                .register(meterRegistry);
+            Gauge.builder("cupa.gateway.bulkhead.active", bulkhead, semaphore -> properties.getMaxConcurrentCalls() - semaphore.availablePermits())
+                .description("Gateway calls in flight")
+                .tag("host", host)
+                .register(meterRegistry);
+            this.circuitOpenRejections = rejectedCounter("circuit_open");
+            this.bulkheadFullRejections = rejectedCounter("bulkhead_full");
+        }
+
+        private Counter rejectedCounter(String reason) {
+            return Counter.builder("cupa.gateway.rejected")
+                .description("Gateway calls rejected without a network call")
+                .tags("host", host, "reason", reason)
+                .register(meterRegistry);
+        }
+
+        void acquirePermission() {
+            synchronized (this) {
+                if (state == State.OPEN) {
+                    if (clock.instant().isBefore(openedUntil)) {
+                        circuitOpenRejections.increment();
+                        throw new GatewayUnavailableException("Circuit open for gateway host " + host, host, openedUntil);
+                    }
+                    transitionTo(State.HALF_OPEN);
+                    probesLeft = properties.getHalfOpenProbes();
+                    probeSuccesses = 0;
+                }
+                if (state == State.HALF_OPEN) {
+                    if (probesLeft == 0) {
+                        circuitOpenRejections.increment();
+                        throw new GatewayUnavailableException("Circuit half-open for gateway host " + host, host, clock.instant());
+                    }
+                    probesLeft--;
+                }
+            }
+            boolean acquired;
+            try {
+                acquired = bulkhead.tryAcquire(properties.getMaxWait().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                synchronized (this) {
+                    if (state == State.HALF_OPEN) {
+                        probesLeft++;
+                    }
+                }
+                bulkheadFullRejections.increment();
+                throw new GatewayUnavailableException("Too many concurrent calls to gateway host " + host, host, null);
+            }
+        }
+
+        synchronized void onResult(boolean success) {
+            bulkhead.release();
+            switch (state) {
+                case HALF_OPEN -> {
+                    if (!success) {
+                        open();
+                    } else if (++probeSuccesses >= properties.getHalfOpenProbes()) {
+                        transitionTo(State.CLOSED);
+                        resetWindow();
+                    }
+                }
+                case CLOSED -> {
+                    record(success);
+                    if (recorded >= properties.getMinimumCalls() && failures * 100 >= properties.getFailureRateThreshold() * recorded) {
+                        open();
+                    }
+                }
+                case OPEN -> {
+                    // a call admitted before the circuit opened; its result does not change the decision
+                }
+            }
+        }
+
+        synchronized Optional<Instant> openUntil() {
+            return state == State.OPEN && clock.instant().isBefore(openedUntil) ? Optional.of(openedUntil) : Optional.empty();
+        }
+
+        private void record(boolean success) {
+            if (recorded == outcomes.length) {
+                if (!outcomes[next]) {
+                    failures--;
+                }
+            } else {
+                recorded++;
+            }
+            outcomes[next] = success;
+            if (!success) {
+                failures++;
+            }
+            next = (next + 1) % outcomes.length;
+        }
+
+        private void open() {
+            openedUntil = clock.instant().plus(properties.getOpenDuration());
+            transitionTo(State.OPEN);
+            resetWindow();
+        }
+
+        private void resetWindow() {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+        }
+
+        private void transitionTo(State newState) {
+            if (state != newState) {
+                log.warn("Gateway circuit for host {} changed from {} to {}", host, state, newState);
+                state = newState;
+            }
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package lt.creditco.cupa.remote;
 
 import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 @JsonDeserialize(using = GatewayResponseDeserializer.class)
@@ -21,6 +24,12 @@ public class GatewayResponse<T> {
 
     private Map<String, Object> additionalProperties = new HashMap<>();
 
+    /** Raw bodies of the call that produced this response, {@code null} if no call was made. */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private GatewayTrace trace;
+
     @JsonAnySetter
     public void setAdditionalProperty(String name, Object value) {
         if ("reply".equals(name) || "client".equals(name) || "clients".equals(name)) {
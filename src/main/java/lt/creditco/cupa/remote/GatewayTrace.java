@@ -0,0 +1,35 @@
+package lt.creditco.cupa.remote;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Raw request and response bodies of one gateway call, as sent and received.
+ *
+ * <p>The bytes are the same buffers the client serialized and deserialized, so capturing them costs no extra copy.
+ * They are decoded to text only when asked for, i.e. when a caller actually persists the trace.</p>
+ */
+public final class GatewayTrace {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final byte[] requestBody;
+    private final byte[] responseBody;
+
+    GatewayTrace(byte[] requestBody, byte[] responseBody) {
+        this.requestBody = requestBody != null ? requestBody : EMPTY;
+        this.responseBody = responseBody != null ? responseBody : EMPTY;
+    }
+
+    public String getRequestBody() {
+        return new String(requestBody, StandardCharsets.UTF_8);
+    }
+
+    public String getResponseBody() {
+        return new String(responseBody, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "GatewayTrace{requestBytes=" + requestBody.length + ", responseBytes=" + responseBody.length + "}";
+    }
+}
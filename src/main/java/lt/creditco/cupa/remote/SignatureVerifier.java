@@ -49,12 +49,13 @@ public class SignatureVerifier {
 
     /**
      * Calculate the webhook signature for verification.
+     * Public so that the gateway simulator used in tests signs its webhooks exactly the way they are verified.
      *
      * @param paymentReply the payment reply containing all the parameters
      * @param merchantKey the merchant key
      * @return the calculated signature
      */
-    private static String calculateWebhookSignature(PaymentReply paymentReply, String merchantKey) {
+    public static String calculateWebhookSignature(PaymentReply paymentReply, String merchantKey) {
         // Create the clear text string according to the gateway documentation
         StringBuilder clearText = new StringBuilder();
 
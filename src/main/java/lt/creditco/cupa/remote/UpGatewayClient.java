@@ -1,6 +1,10 @@
 package lt.creditco.cupa.remote;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.common.util.StringUtils;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -11,20 +15,43 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+/**
+ * Client of the UnionPay gateway REST API.
+ *
+ * <p>Request and response bodies are exchanged as bytes and (de)serialized here with the {@link ObjectMapper} of the
+ * {@link RestTemplate}, so the very same buffers are handed back as the {@link GatewayResponse#getTrace() trace} of the
+ * call without being read or copied a second time.</p>
+ */
 @Service
 @Slf4j
 public class UpGatewayClient {
 
+    /** Internally defined status code of a request that failed validation and was not sent. */
+    public static final int INVALID_REQUEST_STATUS = 499;
+
+    /** Internally defined status code of a call rejected by {@link GatewayCircuitBreakers} without being sent. */
+    public static final int GATEWAY_UNAVAILABLE_STATUS = 498;
+
+    private static final byte[] NO_BODY = new byte[0];
+
     private final RestTemplate restTemplate;
+    private final GatewayCircuitBreakers circuitBreakers;
+    private final ObjectMapper objectMapper;
     private static final String SIGNATURE_VERSION = "1.0";
 
-    public UpGatewayClient(RestTemplate restTemplate) {
+    public UpGatewayClient(RestTemplate restTemplate, GatewayCircuitBreakers circuitBreakers) {
         this.restTemplate = restTemplate;
+        this.circuitBreakers = circuitBreakers;
+        this.objectMapper = objectMapperOf(restTemplate);
     }
 
     public GatewayResponse<PaymentReply> placeTransaction(PaymentRequest request, GatewayConfig config) {
@@ -37,7 +64,7 @@ public class UpGatewayClient {
             GatewayResponse<PaymentReply> response = new GatewayResponse<>();
             response.setResponse(
                 GatewayMessage.builder()
-                    .statusCode(499) // our internally defined error code for invalid requests
+                    .statusCode(INVALID_REQUEST_STATUS)
                     .message("Request validation failed")
                     .detail(request.getFirstErrorMessage())
                     .build()
@@ -54,29 +81,22 @@ public class UpGatewayClient {
             .buildAndExpand(config.getMerchantMid())
             .toUriString();
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Type", "application/json");
-        headers.add("x-api-key", config.getApiKey());
-
-        HttpEntity<PaymentRequest> entity = new HttpEntity<>(request, headers);
-
-        log.debug("Request to URL: {}", url);
-        log.debug("Request Headers: {}", headers);
-
-        ParameterizedTypeReference<GatewayResponse<PaymentReply>> responseType = new ParameterizedTypeReference<>() {};
-
-        ResponseEntity<GatewayResponse<PaymentReply>> response = restTemplate.exchange(url, HttpMethod.POST, entity, responseType);
-
-        if (response.getStatusCode().isError()) {
-            log.error(
-                "Received error status: {} for orderId: {}, error: {}",
-                response.getStatusCode(),
-                request.getOrderId(),
-                getErrorMessage(response.getBody())
-            );
+        byte[] requestBody;
+        try {
+            requestBody = objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            throw new RestClientException("Could not serialize payment request " + request.getOrderId(), e);
         }
 
-        return response.getBody();
+        return exchange(
+            url,
+            HttpMethod.POST,
+            requestBody,
+            new ParameterizedTypeReference<GatewayResponse<PaymentReply>>() {},
+            config,
+            "orderId",
+            request.getOrderId()
+        );
     }
 
     public GatewayResponse<PaymentReply> queryTransaction(String orderId, GatewayConfig config) {
@@ -87,27 +107,7 @@ public class UpGatewayClient {
             .buildAndExpand(config.getMerchantMid(), orderId)
             .toUriString();
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Type", "application/json");
-        headers.add("x-api-key", config.getApiKey());
-
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-        log.debug("Request to URL: {}", url);
-
-        ParameterizedTypeReference<GatewayResponse<PaymentReply>> responseType = new ParameterizedTypeReference<>() {};
-        ResponseEntity<GatewayResponse<PaymentReply>> response = restTemplate.exchange(url, HttpMethod.GET, entity, responseType);
-
-        if (response.getStatusCode().isError()) {
-            log.error(
-                "Received error status: {} for orderId: {}, error: {}",
-                response.getStatusCode(),
-                orderId,
-                getErrorMessage(response.getBody())
-            );
-        }
-
-        return response.getBody();
+        return exchange(url, HttpMethod.GET, null, new ParameterizedTypeReference<GatewayResponse<PaymentReply>>() {}, config, "orderId", orderId);
     }
 
     public GatewayResponse<ClientDetails> getClientDetails(String clientId, GatewayConfig config) {
@@ -118,26 +118,15 @@ public class UpGatewayClient {
             .buildAndExpand(config.getMerchantMid(), clientId)
             .toUriString();
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Type", "application/json");
-        headers.add("x-api-key", config.getApiKey());
-
-        log.debug("Request to URL: {}", url);
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-        ParameterizedTypeReference<GatewayResponse<ClientDetails>> responseType = new ParameterizedTypeReference<>() {};
-        ResponseEntity<GatewayResponse<ClientDetails>> response = restTemplate.exchange(url, HttpMethod.GET, entity, responseType);
-
-        if (response.getStatusCode().isError()) {
-            log.error(
-                "Received error status: {} for clientId: {}, error: {}",
-                response.getStatusCode(),
-                clientId,
-                getErrorMessage(response.getBody())
-            );
-        }
-
-        return response.getBody();
+        return exchange(
+            url,
+            HttpMethod.GET,
+            null,
+            new ParameterizedTypeReference<GatewayResponse<ClientDetails>>() {},
+            config,
+            "clientId",
+            clientId
+        );
     }
 
     public GatewayResponse<List<ClientDetails>> getClientList(String nextClientId, GatewayConfig config) {
@@ -157,27 +146,96 @@ public class UpGatewayClient {
                 .toUriString();
         }
 
+        return exchange(
+            url,
+            HttpMethod.GET,
+            null,
+            new ParameterizedTypeReference<GatewayResponse<List<ClientDetails>>>() {},
+            config,
+            "nextClientId",
+            nextClientId
+        );
+    }
+
+    /**
+     * Sends one call through the circuit breaker of the gateway host and parses the reply from the received bytes.
+     *
+     * @param requestBody serialized request, {@code null} for calls without a body.
+     * @param keyName name of {@code key} in log messages.
+     * @return the parsed reply with the trace of the call attached, {@code null} if the gateway sent no body.
+     */
+    private <T> GatewayResponse<T> exchange(
+        String url,
+        HttpMethod method,
+        byte[] requestBody,
+        ParameterizedTypeReference<GatewayResponse<T>> responseType,
+        GatewayConfig config,
+        String keyName,
+        String key
+    ) {
         HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Type", "application/json");
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         headers.add("x-api-key", config.getApiKey());
 
         log.debug("Request to URL: {}", url);
 
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        HttpEntity<byte[]> entity = new HttpEntity<>(requestBody, headers);
+        ResponseEntity<byte[]> response;
+        try {
+            response = circuitBreakers.call(config.getBaseUrl(), () -> restTemplate.exchange(url, method, entity, byte[].class));
+        } catch (GatewayCircuitBreakers.GatewayUnavailableException e) {
+            return unavailable(e, key);
+        }
 
-        ParameterizedTypeReference<GatewayResponse<List<ClientDetails>>> responseType = new ParameterizedTypeReference<>() {};
-        ResponseEntity<GatewayResponse<List<ClientDetails>>> response = restTemplate.exchange(url, HttpMethod.GET, entity, responseType);
+        byte[] responseBody = response.getBody();
+        GatewayResponse<T> body = parse(responseBody, responseType);
+        if (body != null) {
+            body.setTrace(new GatewayTrace(requestBody != null ? requestBody : NO_BODY, responseBody));
+        }
 
         if (response.getStatusCode().isError()) {
-            log.error(
-                "Received error status: {} for nextClientId: {}, error: {}",
-                response.getStatusCode(),
-                nextClientId,
-                getErrorMessage(response.getBody())
-            );
+            log.error("Received error status: {} for {}: {}, error: {}", response.getStatusCode(), keyName, key, getErrorMessage(body));
         }
 
-        return response.getBody();
+        return body;
+    }
+
+    private <T> GatewayResponse<T> parse(byte[] responseBody, ParameterizedTypeReference<GatewayResponse<T>> responseType) {
+        if (responseBody == null || responseBody.length == 0) {
+            return null;
+        }
+        JavaType javaType = objectMapper.getTypeFactory().constructType(responseType.getType());
+        try {
+            return objectMapper.readValue(responseBody, javaType);
+        } catch (IOException e) {
+            throw new RestClientException("Could not parse gateway response", e);
+        }
+    }
+
+    private static ObjectMapper objectMapperOf(RestTemplate restTemplate) {
+        if (restTemplate != null) {
+            for (var converter : restTemplate.getMessageConverters()) {
+                if (converter instanceof MappingJackson2HttpMessageConverter jacksonConverter) {
+                    return jacksonConverter.getObjectMapper();
+                }
+            }
+        }
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    private static <T> GatewayResponse<T> unavailable(GatewayCircuitBreakers.GatewayUnavailableException e, String key) {
+        log.warn("Gateway call for {} not sent: {}", key, e.getMessage());
+        GatewayResponse<T> response = new GatewayResponse<>();
+        response.setResponse(
+            GatewayMessage.builder()
+                .statusCode(GATEWAY_UNAVAILABLE_STATUS)
+                .message("Gateway unavailable")
+                .detail(e.getMessage())
+                .reason(e.getRetryAt() != null ? "Retry after " + e.getRetryAt() : null)
+                .build()
+        );
+        return response;
     }
 
     private String getErrorMessage(GatewayResponse<?> responseBody) {
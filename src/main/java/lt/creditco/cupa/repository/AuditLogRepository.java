@@ -1,11 +1,17 @@
 package lt.creditco.cupa.repository;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import lt.creditco.cupa.domain.AuditLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,7 +20,7 @@ import org.springframework.stereotype.Repository;
  * Spring Data JPA repository for the AuditLog entity.
  */
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, JpaSpecificationExecutor<AuditLog> {
     default Optional<AuditLog> findOneWithEagerRelationships(Long id) {
         return this.findOneWithToOneRelationships(id);
     }
@@ -53,32 +59,54 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
     List<Integer> findDistinctHttpStatusCodes();
 
     /**
-     * Find audit logs by filters.
-     * Service layer handles access control - repository just filters data.
-     * 
-     * @param merchantIds Merchant IDs to filter by (null = all merchants)
-     * @param endpointPattern Filter by endpoint fragment (LIKE pattern)
-     * @param method Filter by exact HTTP method
-     * @param orderIdPattern Filter by order ID fragment (LIKE pattern)
-     * @param environment Filter by environment (TEST or LIVE)
-     * @param statusCodes Filter by HTTP status codes (can be multiple)
-     * @param pageable Pagination and sorting
-     * @return Page of filtered audit logs
+     * Rows of the audit log search; {@code null} arguments do not filter.
+     *
+     * <p>{@code endpoint} and {@code orderId} match as a substring, or as a prefix when they end with {@code *}. On
+     * PostgreSQL substring matches are served by trigram indexes and prefix matches by B-tree indexes, so neither
+     * scans the table.</p>
+     *
+     * @param merchantIds merchants to include, {@code null} for all merchants.
      */
-    @Query("SELECT a FROM AuditLog a WHERE " +
-       "(:merchantIds IS NULL OR a.merchantId IN :merchantIds) AND " +
-       "(:endpointPattern IS NULL OR a.apiEndpoint LIKE :endpointPattern) AND " +
-       "(:method IS NULL OR a.httpMethod = :method) AND " +
-       "(:orderIdPattern IS NULL OR a.orderId LIKE :orderIdPattern) AND " +
-       "(:environment IS NULL OR a.environment = :environment) AND " +
-       "(:statusCodes IS NULL OR a.httpStatusCode IN :statusCodes)")
-    Page<AuditLog> findByFilters(
-        @Param("merchantIds") List<String> merchantIds,
-        @Param("endpointPattern") String endpointPattern,
-        @Param("method") String method,
-        @Param("orderIdPattern") String orderIdPattern,
-        @Param("environment") String environment,
-        @Param("statusCodes") List<Integer> statusCodes,
-        Pageable pageable
-    );
+    static Specification<AuditLog> matchesSearchFilter(
+        Collection<String> merchantIds,
+        String endpoint,
+        String method,
+        String orderId,
+        String environment,
+        Collection<Integer> statusCodes
+    ) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (merchantIds != null) {
+                predicates.add(root.get("merchantId").in(merchantIds));
+            }
+            if (endpoint != null) {
+                predicates.add(matchesText(cb, root.<String>get("apiEndpoint"), endpoint));
+            }
+            if (method != null) {
+                predicates.add(cb.equal(root.get("httpMethod"), method));
+            }
+            if (orderId != null) {
+                predicates.add(matchesText(cb, root.<String>get("orderId"), orderId));
+            }
+            if (environment != null) {
+                predicates.add(cb.equal(root.get("environment"), environment));
+            }
+            if (statusCodes != null) {
+                predicates.add(root.get("httpStatusCode").in(statusCodes));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static Predicate matchesText(CriteriaBuilder cb, Expression<String> field, String value) {
+        if (value.endsWith("*")) {
+            return cb.like(field, escapeLike(value.substring(0, value.length() - 1)) + "%", '\\');
+        }
+        return cb.like(field, "%" + escapeLike(value) + "%", '\\');
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
@@ -1,5 +1,6 @@
 package lt.creditco.cupa.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -53,4 +54,26 @@ public interface ClientRepository extends JpaRepository<Client, String> {
 
     @Query("select client from Client client where client.merchantId = :merchantId")
     Page<Client> findByMerchantId(@Param("merchantId") String merchantId, Pageable pageable);
+
+    /**
+     * Load only the client fields shown next to payment transactions, for many clients in one query.
+     */
+    @Query(
+        "select client.id as id, client.merchantClientId as merchantClientId, client.name as name, client.emailAddress as emailAddress " +
+        "from Client client where client.id in :ids"
+    )
+    List<ClientSummary> findSummariesByIds(@Param("ids") Collection<String> ids);
+
+    /**
+     * Projection of {@link Client} used to enrich payment transaction lists.
+     */
+    interface ClientSummary {
+        String getId();
+
+        String getMerchantClientId();
+
+        String getName();
+
+        String getEmailAddress();
+    }
 }
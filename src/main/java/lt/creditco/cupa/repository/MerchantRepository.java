@@ -1,5 +1,6 @@
 package lt.creditco.cupa.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -60,4 +61,19 @@ public interface MerchantRepository extends JpaRepository<Merchant, String> {
 
     @Query("select merchant from Merchant merchant where merchant.id = :id and merchant.id in :merchantIds")
     Optional<Merchant> findByIdAndMerchantIds(@Param("id") String id, @Param("merchantIds") Set<String> merchantIds);
+
+    /**
+     * Load only the merchant fields shown next to payment transactions, for many merchants in one query.
+     */
+    @Query("select merchant.id as id, merchant.name as name from Merchant merchant where merchant.id in :ids")
+    List<MerchantSummary> findSummariesByIds(@Param("ids") Collection<String> ids);
+
+    /**
+     * Projection of {@link Merchant} used to enrich payment transaction lists.
+     */
+    interface MerchantSummary {
+        String getId();
+
+        String getName();
+    }
 }
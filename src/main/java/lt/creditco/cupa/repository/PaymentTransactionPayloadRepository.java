@@ -0,0 +1,11 @@
+package lt.creditco.cupa.repository;
+
+import lt.creditco.cupa.domain.PaymentTransactionPayload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the PaymentTransactionPayload entity.
+ */
+@Repository
+public interface PaymentTransactionPayloadRepository extends JpaRepository<PaymentTransactionPayload, String> {}
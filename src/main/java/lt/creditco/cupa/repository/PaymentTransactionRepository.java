@@ -1,16 +1,24 @@
 package lt.creditco.cupa.repository;
 
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 import lt.creditco.cupa.domain.PaymentTransaction;
 import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.PaymentBrand;
 import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,7 +28,8 @@ import org.springframework.transaction.annotation.Transactional;
  * Spring Data JPA repository for the PaymentTransaction entity.
  */
 @Repository
-public interface PaymentTransactionRepository extends JpaRepository<PaymentTransaction, String> {
+public interface PaymentTransactionRepository
+    extends JpaRepository<PaymentTransaction, String>, JpaSpecificationExecutor<PaymentTransaction> {
     default Optional<PaymentTransaction> findOneWithEagerRelationships(String id) {
         return this.findOneWithToOneRelationships(id);
     }
@@ -111,11 +120,11 @@ public interface PaymentTransactionRepository extends JpaRepository<PaymentTrans
     )
     Optional<PaymentTransaction> findByMerchantIdAndOrderId(@Param("merchantId") String merchantId, @Param("orderId") String orderId);
 
+    /**
+     * The transaction created by the API request with this {@code Idempotency-Key}, backed by a unique index.
+     */
     @Transactional(readOnly = true)
-    @Query(
-        "select count(paymentTransaction) > 0 from PaymentTransaction paymentTransaction where paymentTransaction.merchantId = :merchantId and paymentTransaction.orderId = :orderId"
-    )
-    boolean existsByMerchantIdAndOrderId(@Param("merchantId") String merchantId, @Param("orderId") String orderId);
+    Optional<PaymentTransaction> findByMerchantIdAndIdempotencyKey(String merchantId, String idempotencyKey);
 
     @Transactional(readOnly = true)
     @Query(
@@ -131,13 +140,256 @@ public interface PaymentTransactionRepository extends JpaRepository<PaymentTrans
 
     @Transactional(readOnly = true)
     @Query(
-        "select p from PaymentTransaction p where p.environment = :environment and p.gatewayMerchantId = :gatewayMerchantId and p.clientEmail = :clientEmail and p.requestTimestamp >= :after and p.status in :statuses"
+        "select p.merchantId as merchantId, p.environment as environment, sum(p.amount) as total from PaymentTransaction p where p.status in :statuses and p.createdDate >= :startDate and p.createdDate <= :endDate group by p.merchantId, p.environment"
     )
-    List<PaymentTransaction> findTransactionsForPerClientDailyLimit(
-        @Param("environment") MerchantMode environment,
-        @Param("gatewayMerchantId") String gatewayMerchantId,
-        @Param("clientEmail") String clientEmail,
-        @Param("after") Instant after,
-        @Param("statuses") Collection<TransactionStatus> statuses
+    List<TurnoverTotal> getTotalAmountsByMerchantAndEnvironmentAndDateRange(
+        @Param("statuses") Collection<TransactionStatus> statuses,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    /**
+     * Transactions in {@code status} due for a gateway status query: their {@code next_query_at} has passed, or they were never
+     * queried and were requested before {@code firstQueryBefore}.
+     */
+    @Transactional(readOnly = true)
+    @Query(
+        "select p.id as id, p.merchantId as merchantId, p.environment as environment, p.orderId as orderId, p.requestTimestamp as requestTimestamp, p.createdDate as createdDate from PaymentTransaction p where p.status = :status and (p.nextQueryAt <= :now or (p.nextQueryAt is null and coalesce(p.requestTimestamp, p.createdDate) <= :firstQueryBefore)) order by p.id"
+    )
+    List<ReconciliationCandidate> findDueForQuery(
+        @Param("status") TransactionStatus status,
+        @Param("now") Instant now,
+        @Param("firstQueryBefore") Instant firstQueryBefore,
+        Pageable pageable
+    );
+
+    /**
+     * Claims the due pending transactions among {@code ids} for one reconciliation cycle by moving their
+     * {@code next_query_at} to {@code claimedUntil}. The query space keeps Hibernate from clearing second-level cache
+     * regions other than {@code PaymentTransaction}'s.
+     *
+     * @return the number of transactions claimed; the others were claimed by another node or are no longer pending.
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "payment_transaction"))
+    @Query(
+        value = "update payment_transaction set next_query_at = :claimedUntil where id in (:ids) and status = 'PENDING' and (next_query_at is null or next_query_at <= :now)",
+        nativeQuery = true
+    )
+    int claimForQuery(@Param("ids") Collection<String> ids, @Param("now") Instant now, @Param("claimedUntil") Instant claimedUntil);
+
+    /**
+     * Ids among {@code ids} claimed with {@link #claimForQuery} until {@code claimedUntil}.
+     */
+    @Transactional(readOnly = true)
+    @Query("select p.id from PaymentTransaction p where p.id in :ids and p.nextQueryAt = :claimedUntil")
+    List<String> findClaimedForQuery(@Param("ids") Collection<String> ids, @Param("claimedUntil") Instant claimedUntil);
+
+    /**
+     * Sets the next gateway status query of pending transactions.
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "payment_transaction"))
+    @Query(
+        value = "update payment_transaction set next_query_at = :nextQueryAt where id in (:ids) and status = 'PENDING'",
+        nativeQuery = true
+    )
+    int scheduleNextQuery(@Param("ids") Collection<String> ids, @Param("nextQueryAt") Instant nextQueryAt);
+
+    /**
+     * Number of transactions in {@code status} per merchant and environment.
+     */
+    @Transactional(readOnly = true)
+    @Query(
+        "select p.merchantId as merchantId, p.environment as environment, count(p) as count from PaymentTransaction p where p.status = :status group by p.merchantId, p.environment"
+    )
+    List<MerchantCount> countByMerchant(@Param("status") TransactionStatus status);
+
+    /**
+     * Transactions in {@code status} created after {@code createdAfter}, not modified since {@code before} and whose
+     * gateway placement was never started, oldest first.
+     */
+    @Transactional(readOnly = true)
+    @Query(
+        "select p.id as id, p.merchantId as merchantId, p.environment as environment, p.orderId as orderId, p.requestTimestamp as requestTimestamp, p.createdDate as createdDate from PaymentTransaction p where p.status = :status and p.placementStartedAt is null and p.createdDate > :createdAfter and p.lastModifiedDate < :before order by p.lastModifiedDate"
+    )
+    List<ReconciliationCandidate> findStaleCandidates(
+        @Param("status") TransactionStatus status,
+        @Param("createdAfter") Instant createdAfter,
+        @Param("before") Instant before,
+        Pageable pageable
+    );
+
+    /**
+     * Claims a transaction still in {@code status} and not modified since {@code before} by setting its last
+     * modified date to {@code now}.
+     *
+     * @return {@code 1} if claimed, {@code 0} if the transaction changed or was claimed by another node.
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        "update PaymentTransaction p set p.lastModifiedDate = :now, p.version = p.version + 1 where p.id = :id and p.status = :status and p.lastModifiedDate < :before"
+    )
+    int claimStale(
+        @Param("id") String id,
+        @Param("status") TransactionStatus status,
+        @Param("before") Instant before,
+        @Param("now") Instant now
     );
+
+    /**
+     * Records that the gateway placement of a transaction still in {@code status} starts. The version is left alone, so the
+     * loaded entity can still be saved with the placement result.
+     *
+     * @return {@code 1} if marked, {@code 0} if the placement was already started or the transaction is no longer
+     *     in {@code status}.
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        "update PaymentTransaction p set p.placementStartedAt = :now where p.id = :id and p.status = :status and p.placementStartedAt is null"
+    )
+    int markPlacementStarted(@Param("id") String id, @Param("status") TransactionStatus status, @Param("now") Instant now);
+
+    /**
+     * Number of transactions per status and environment, for the given statuses.
+     */
+    @Transactional(readOnly = true)
+    @Query(
+        "select p.status as status, p.environment as environment, count(p) as count from PaymentTransaction p where p.status in :statuses group by p.status, p.environment"
+    )
+    List<StatusCount> countByStatusIn(@Param("statuses") Collection<TransactionStatus> statuses);
+
+    /**
+     * Rows of the payment transaction list: a request timestamp range plus optional field filters; {@code null}
+     * arguments do not filter.
+     *
+     * @param merchantIds merchants the user can access, {@code null} for all merchants.
+     */
+    static Specification<PaymentTransaction> matchesListFilter(
+        Collection<String> merchantIds,
+        Instant startInclusive,
+        Instant endExclusive,
+        String orderId,
+        PaymentBrand paymentBrand,
+        BigDecimal amount,
+        TransactionStatus status,
+        String merchantId,
+        MerchantMode environment
+    ) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.greaterThanOrEqualTo(root.<Instant>get("requestTimestamp"), startInclusive));
+            predicates.add(cb.lessThan(root.<Instant>get("requestTimestamp"), endExclusive));
+            if (merchantIds != null) {
+                predicates.add(root.get("merchantId").in(merchantIds));
+            }
+            if (orderId != null) {
+                predicates.add(cb.equal(root.get("orderId"), orderId));
+            }
+            if (paymentBrand != null) {
+                predicates.add(cb.equal(root.get("paymentBrand"), paymentBrand));
+            }
+            if (amount != null) {
+                predicates.add(cb.equal(root.get("amount"), amount));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (merchantId != null) {
+                predicates.add(cb.equal(root.get("merchantId"), merchantId));
+            }
+            if (environment != null) {
+                predicates.add(cb.equal(root.get("environment"), environment));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Rows counted toward the per-client daily transaction limit: any status in {@code countedStatuses}, plus
+     * {@link TransactionStatus#FAILED} rows whose status description contains (case-insensitively) one of
+     * {@code failedDescriptionFragments}. Meant for {@link #count(Specification)}, so no row data is loaded.
+     */
+    static Specification<PaymentTransaction> countedForPerClientDailyLimit(
+        MerchantMode environment,
+        String gatewayMerchantId,
+        String clientEmail,
+        Instant after,
+        Collection<TransactionStatus> countedStatuses,
+        Collection<String> failedDescriptionFragments
+    ) {
+        return (root, query, cb) -> {
+            Predicate counted = root.get("status").in(countedStatuses);
+            if (!failedDescriptionFragments.isEmpty()) {
+                Expression<String> description = cb.lower(root.<String>get("statusDescription"));
+                Predicate[] matches = failedDescriptionFragments
+                    .stream()
+                    .map(fragment -> cb.like(description, "%" + escapeLike(fragment.toLowerCase(Locale.ROOT)) + "%", '\\'))
+                    .toArray(Predicate[]::new);
+                counted = cb.or(counted, cb.and(cb.equal(root.get("status"), TransactionStatus.FAILED), cb.or(matches)));
+            }
+            return cb.and(
+                cb.equal(root.get("environment"), environment),
+                cb.equal(root.get("gatewayMerchantId"), gatewayMerchantId),
+                cb.equal(root.get("clientEmail"), clientEmail),
+                cb.greaterThanOrEqualTo(root.<Instant>get("requestTimestamp"), after),
+                counted
+            );
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Turnover of one merchant and environment for a date range.
+     */
+    interface TurnoverTotal {
+        String getMerchantId();
+
+        MerchantMode getEnvironment();
+
+        BigDecimal getTotal();
+    }
+
+    /**
+     * Transaction count of one status and environment.
+     */
+    interface MerchantCount {
+        String getMerchantId();
+
+        MerchantMode getEnvironment();
+
+        long getCount();
+    }
+
+    interface StatusCount {
+        TransactionStatus getStatus();
+
+        MerchantMode getEnvironment();
+
+        long getCount();
+    }
+
+    /**
+     * A transaction waiting for its final status from the gateway.
+     */
+    interface ReconciliationCandidate {
+        String getId();
+
+        String getMerchantId();
+
+        MerchantMode getEnvironment();
+
+        String getOrderId();
+
+        Instant getRequestTimestamp();
+
+        Instant getCreatedDate();
+    }
 }
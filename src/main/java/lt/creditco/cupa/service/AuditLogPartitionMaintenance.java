@@ -0,0 +1,224 @@
+package lt.creditco.cupa.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.config.ApplicationProperties;
+import org.postgresql.PGConnection;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the monthly partitions of {@code audit_log} in shape on PostgreSQL.
+ *
+ * <p>Each run creates the partitions for the current and the next {@code application.audit-retention.months-ahead}
+ * months, so new rows never land in {@code audit_log_default}, and detaches the partitions that fall out of
+ * {@code application.audit-retention.retention-months}. With {@code application.audit-retention.archive-directory}
+ * set, a detached partition is exported to {@code audit_log_YYYYMM.csv.gz} there and dropped; otherwise it stays in
+ * the database as a standalone table.</p>
+ *
+ * <p>Does nothing on other databases or while {@code audit_log} is not partitioned. When several nodes run the
+ * maintenance, a PostgreSQL advisory lock lets only one of them run a cycle; the others skip it. The lock is held on
+ * a connection of its own for the length of the cycle.</p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "application.audit-retention", name = "enabled", havingValue = "true")
+public class AuditLogPartitionMaintenance {
+
+    static final String PARENT_TABLE = "audit_log";
+
+    /** Key of the session advisory lock taken for a maintenance cycle. */
+    static final long ADVISORY_LOCK_KEY = PARENT_TABLE.hashCode();
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("audit_log_(\\d{6})");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationProperties.AuditRetention properties;
+    private final Clock clock;
+
+    public AuditLogPartitionMaintenance(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this(jdbcTemplate, applicationProperties, Clock.systemUTC());
+    }
+
+    AuditLogPartitionMaintenance(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = applicationProperties.getAuditRetention();
+        this.clock = clock;
+    }
+
+    @Scheduled(cron = "${application.audit-retention.cron:0 30 3 * * *}", zone = "UTC")
+    public void maintainPartitions() {
+        try {
+            maintain(YearMonth.now(clock.withZone(ZoneOffset.UTC)));
+        } catch (RuntimeException e) {
+            log.error("Audit log partition maintenance failed", e);
+        }
+    }
+
+    /**
+     * Runs one maintenance cycle.
+     *
+     * @param currentMonth the current month in UTC.
+     */
+    void maintain(YearMonth currentMonth) {
+        if (!isPartitioned()) {
+            log.debug("Table {} is not partitioned, skipping partition maintenance", PARENT_TABLE);
+            return;
+        }
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "select pg_try_advisory_lock(?)")) {
+                return false;
+            }
+            try {
+                runCycle(currentMonth);
+            } finally {
+                advisoryLock(connection, "select pg_advisory_unlock(?)");
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(ran)) {
+            log.debug("Audit log partition maintenance is running on another node, skipping");
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private void runCycle(YearMonth currentMonth) {
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            createPartition(currentMonth.plusMonths(i));
+        }
+        List<String> partitions = jdbcTemplate.queryForList(
+            "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid where i.inhparent = ?::regclass",
+            String.class,
+            PARENT_TABLE
+        );
+        for (String partition : partitionsToRetire(partitions, retentionCutoff(currentMonth))) {
+            retire(partition);
+        }
+    }
+
+    private boolean isPartitioned() {
+        Boolean postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+            "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())
+        );
+        if (!Boolean.TRUE.equals(postgres)) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject(
+            "select count(*) from pg_partitioned_table where partrelid = to_regclass(?)",
+            Integer.class,
+            PARENT_TABLE
+        );
+        return count != null && count > 0;
+    }
+
+    private void createPartition(YearMonth month) {
+        try {
+            jdbcTemplate.execute(
+                "create table if not exists " +
+                partitionName(month) +
+                " partition of " +
+                PARENT_TABLE +
+                " for values from ('" +
+                month.atDay(1) +
+                " 00:00:00+00') to ('" +
+                month.plusMonths(1).atDay(1) +
+                " 00:00:00+00')"
+            );
+        } catch (DataAccessException e) {
+            // Fails when audit_log_default already holds rows of that month; those have to be moved by hand.
+            log.warn("Could not create audit log partition for {}: {}", month, e.getMessage());
+        }
+    }
+
+    private void retire(String partition) {
+        jdbcTemplate.execute("alter table " + PARENT_TABLE + " detach partition " + partition);
+        if (properties.getArchiveDirectory() == null) {
+            log.info("Detached audit log partition {}", partition);
+            return;
+        }
+        Path target = Path.of(properties.getArchiveDirectory(), partition + ".csv.gz");
+        long rows = export(partition, target);
+        jdbcTemplate.execute("drop table " + partition);
+        log.info("Archived audit log partition {} ({} rows) to {}", partition, rows, target);
+    }
+
+    private long export(String partition, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), partition, ".tmp");
+            try {
+                Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                        return connection
+                            .unwrap(PGConnection.class)
+                            .getCopyAPI()
+                            .copyOut("copy " + partition + " to stdout (format csv, header)", out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                return rows != null ? rows : 0;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not export audit log partition " + partition, e);
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARENT_TABLE + "_" + month.format(PARTITION_MONTH);
+    }
+
+    static Optional<YearMonth> partitionMonth(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        return matcher.matches() ? Optional.of(YearMonth.parse(matcher.group(1), PARTITION_MONTH)) : Optional.empty();
+    }
+
+    /**
+     * @return the first month that is kept; partitions of earlier months are retired.
+     */
+    YearMonth retentionCutoff(YearMonth currentMonth) {
+        return currentMonth.minusMonths(Math.max(properties.getRetentionMonths(), 1) - 1L);
+    }
+
+    static List<String> partitionsToRetire(List<String> partitions, YearMonth cutoff) {
+        return partitions
+            .stream()
+            .filter(partition -> partitionMonth(partition).filter(month -> month.isBefore(cutoff)).isPresent())
+            .sorted()
+            .toList();
+    }
+}
@@ -1,7 +1,6 @@
 package lt.creditco.cupa.service;
 
 import com.bpmid.vapp.domain.User;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -11,12 +10,14 @@ import lt.creditco.cupa.domain.AuditLog;
 import lt.creditco.cupa.repository.AuditLogRepository;
 import lt.creditco.cupa.service.dto.AuditLogDTO;
 import lt.creditco.cupa.service.mapper.AuditLogMapper;
-import lt.creditco.cupa.web.filter.HttpLoggingFilter.ApiRequestDetails;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,14 +31,12 @@ public class AuditLogService {
     private static final Logger LOG = LoggerFactory.getLogger(AuditLogService.class);
 
     private final AuditLogRepository auditLogRepository;
-    private final ObjectMapper objectMapper;
 
     private final AuditLogMapper auditLogMapper;
 
-    public AuditLogService(AuditLogRepository auditLogRepository, AuditLogMapper auditLogMapper, ObjectMapper objectMapper) {
+    public AuditLogService(AuditLogRepository auditLogRepository, AuditLogMapper auditLogMapper) {
         this.auditLogRepository = auditLogRepository;
         this.auditLogMapper = auditLogMapper;
-        this.objectMapper = objectMapper;
     }
 
     /**
@@ -140,41 +139,6 @@ public class AuditLogService {
         return auditLogRepository.count();
     }
 
-    public void updateAuditLogWithResponse(Long requestId, ApiRequestDetails apiRequestDetails) {
-        LOG.debug("Request to update AuditLog with response : {}", requestId);
-
-        AuditLog auditLog = auditLogRepository.findById(requestId).orElse(null);
-        if (auditLog != null) {
-            auditLog.setRequestData(formatIfJson(apiRequestDetails.getRequestBody()));
-            auditLog.setHttpStatusCode(apiRequestDetails.getResponseStatus());
-            auditLog.setResponseData(formatIfJson(apiRequestDetails.getResponseBody()));
-            auditLog.setResponseDescription(StringUtils.substring(apiRequestDetails.getResponseDescription(), 0, 255));
-            auditLogRepository.save(auditLog);
-        }
-    }
-
-    /**
-     * Attempts to format JSON string with proper indentation if it's valid JSON.
-     */
-    private String formatIfJson(String content) {
-        if (content == null || content.trim().isEmpty()) {
-            return content;
-        }
-
-        String trimmed = content.trim();
-        // Quick check if it looks like JSON
-        if ((trimmed.startsWith("{") && trimmed.endsWith("}")) || (trimmed.startsWith("[") && trimmed.endsWith("]"))) {
-            try {
-                Object json = objectMapper.readValue(trimmed, Object.class);
-                return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
-            } catch (Exception e) {
-                // Not valid JSON, return original
-                return content;
-            }
-        }
-        return content;
-    }
-
     /**
      * Get all the auditLogs with access control based on user's merchant access.
      *
@@ -273,9 +237,9 @@ public class AuditLogService {
      *   - If filterMerchantIds is null: use user's merchant list
      *   - If filterMerchantIds provided: validate all are in user's merchant list
      * 
-     * @param endpoint Filter by endpoint fragment
+     * @param endpoint Filter by endpoint fragment, or prefix when it ends with {@code *}
      * @param method Filter by HTTP method
-     * @param orderId Filter by order ID fragment
+     * @param orderId Filter by order ID fragment, or prefix when it ends with {@code *}
      * @param environment Filter by environment (TEST or LIVE)
      * @param statusCodes Filter by HTTP status codes (can be multiple)
      * @param filterMerchantIds User-selected merchant IDs from UI filter
@@ -294,102 +258,109 @@ public class AuditLogService {
         Pageable pageable,
         User user
     ) {
-        LOG.debug("=== findByFiltersWithAccessControl START ===");
-        LOG.debug("Input parameters:");
-        LOG.debug("  - user: {}", user != null ? user.getLogin() : "null");
-        LOG.debug("  - endpoint: {}", endpoint);
-        LOG.debug("  - method: {}", method);
-        LOG.debug("  - orderId: {}", orderId);
-        LOG.debug("  - environment: {}", environment);
-        LOG.debug("  - statusCodes: {}", statusCodes);
-        LOG.debug("  - filterMerchantIds: {}", filterMerchantIds);
-        LOG.debug("  - pageable: page={}, size={}, sort={}", 
-            pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
-        
+        Specification<AuditLog> specification = searchSpecification(
+            endpoint, method, orderId, environment, statusCodes, filterMerchantIds, user
+        );
+        if (specification == null) {
+            return Page.empty(pageable);
+        }
+        return auditLogRepository.findAll(specification, pageable).map(auditLogMapper::toDto);
+    }
+
+    /**
+     * Same search as {@link #findByFiltersWithAccessControl}, but without counting the matching rows: only
+     * {@code limit} rows plus one are read, which tells whether more rows match.
+     *
+     * @param sort the order of the rows.
+     * @param limit max rows returned.
+     * @param user Current user for access control
+     * @return the first {@code limit} matching rows; {@link Window#hasNext()} tells whether there are more.
+     */
+    @Transactional(readOnly = true)
+    public Window<AuditLogDTO> findWindowByFiltersWithAccessControl(
+        String endpoint,
+        String method,
+        String orderId,
+        String environment,
+        List<Integer> statusCodes,
+        List<String> filterMerchantIds,
+        Sort sort,
+        int limit,
+        User user
+    ) {
+        Specification<AuditLog> specification = searchSpecification(
+            endpoint, method, orderId, environment, statusCodes, filterMerchantIds, user
+        );
+        if (specification == null) {
+            return Window.from(List.of(), ScrollPosition::offset);
+        }
+        Window<AuditLog> window = auditLogRepository.findBy(specification, query ->
+            query.sortBy(sort).limit(Math.max(1, limit)).scroll(ScrollPosition.offset())
+        );
+        List<AuditLogDTO> content = window.getContent().stream().map(auditLogMapper::toDto).toList();
+        return Window.from(content, window::positionAt, window.hasNext());
+    }
+
+    /**
+     * @return the search query for the user, {@code null} if the user cannot see any of the requested merchants.
+     */
+    private Specification<AuditLog> searchSpecification(
+        String endpoint,
+        String method,
+        String orderId,
+        String environment,
+        List<Integer> statusCodes,
+        List<String> filterMerchantIds,
+        User user
+    ) {
+        LOG.debug("Audit log search for user {}: endpoint={}, method={}, orderId={}, environment={}, statusCodes={}, merchantIds={}",
+            user != null ? user.getLogin() : null, endpoint, method, orderId, environment, statusCodes, filterMerchantIds);
+
         if (user == null) {
             LOG.warn("Anonymous user access attempt - returning empty results");
-            return Page.empty(pageable);
+            return null;
         }
 
         if (!(user instanceof CupaUser cupaUser)) {
             LOG.warn("User is not CupaUser instance - returning empty results");
-            return Page.empty(pageable);
+            return null;
         }
-        
-        LOG.debug("User hasAccessToAllMerchants: {}", cupaUser.hasAccessToAllMerchants());
-        
+
         List<String> finalMerchantIds;
-        
+
         if (cupaUser.hasAccessToAllMerchants()) {
             // Admin/CreditCo: use filter as-is (null = all merchants)
             finalMerchantIds = filterMerchantIds;
-            LOG.debug("Admin/CreditCo user - using filterMerchantIds as-is: {}", finalMerchantIds);
         } else {
             // Non-admin users: restrict to assigned merchants
-            Set<String> merchantIdsSet = cupaUser.getMerchantIdsSet();
-            List<String> userMerchantIds = merchantIdsSet.stream().toList();
-            LOG.debug("Regular user - assigned merchantIds: {}", userMerchantIds);
-            
+            List<String> userMerchantIds = cupaUser.getMerchantIdsSet().stream().toList();
+
             if (userMerchantIds.isEmpty()) {
                 LOG.debug("User {} has no assigned merchants", user.getLogin());
-                return Page.empty(pageable);
+                return null;
             }
-            
+
             if (filterMerchantIds == null || filterMerchantIds.isEmpty()) {
                 // No filter selected: use all user's merchants
                 finalMerchantIds = userMerchantIds;
-                LOG.debug("No filter selected - using all user's merchants: {}", finalMerchantIds);
             } else {
                 // Filter selected: check all are within user's allowed merchants
-                boolean allAllowed = userMerchantIds.containsAll(filterMerchantIds);
-                LOG.debug("Filter selected - validation allAllowed: {}", allAllowed);
-                if (!allAllowed) {
+                if (!userMerchantIds.containsAll(filterMerchantIds)) {
                     LOG.warn("User {} attempted to filter by unauthorized merchants", user.getLogin());
-                    return Page.empty(pageable);
+                    return null;
                 }
                 finalMerchantIds = filterMerchantIds;
-                LOG.debug("Using filtered merchantIds: {}", finalMerchantIds);
             }
         }
-        
-        // Convert empty list to null to avoid issues with empty IN clauses
-        List<String> merchantIdsForQuery = (finalMerchantIds != null && finalMerchantIds.isEmpty()) 
-            ? null 
-            : finalMerchantIds;
-        
-        // Construct the LIKE patterns in service layer to avoid Hibernate type inference issues
-        String endpointPattern = (endpoint != null && !endpoint.isEmpty())
-            ? "%" + endpoint + "%"
-            : null;
-        
-        String orderIdPattern = (orderId != null && !orderId.isEmpty())
-            ? "%" + orderId + "%"
-            : null;
-        
-        // Convert empty statusCodes list to null
-        List<Integer> statusCodesForQuery = (statusCodes != null && statusCodes.isEmpty())
-            ? null
-            : statusCodes;
-        
-        LOG.debug("=== Calling repository.findByFilters ===");
-        LOG.debug("Repository parameters:");
-        LOG.debug("  - merchantIdsForQuery: {}", merchantIdsForQuery);
-        LOG.debug("  - endpointPattern: {}", endpointPattern);
-        LOG.debug("  - method: {}", method);
-        LOG.debug("  - orderIdPattern: {}", orderIdPattern);
-        LOG.debug("  - environment: {}", environment);
-        LOG.debug("  - statusCodesForQuery: {}", statusCodesForQuery);
-        LOG.debug("  - pageable: page={}, size={}, sort={}", 
-            pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
-        
-        Page<AuditLogDTO> result = auditLogRepository.findByFilters(
-            merchantIdsForQuery, endpointPattern, method, orderIdPattern, environment, statusCodesForQuery, pageable
-        ).map(auditLogMapper::toDto);
-        
-        LOG.debug("Repository returned: totalElements={}, numberOfElements={}, totalPages={}", 
-            result.getTotalElements(), result.getNumberOfElements(), result.getTotalPages());
-        LOG.debug("=== findByFiltersWithAccessControl END ===");
-        
-        return result;
+
+        // Empty values do not filter
+        return AuditLogRepository.matchesSearchFilter(
+            finalMerchantIds != null && finalMerchantIds.isEmpty() ? null : finalMerchantIds,
+            endpoint != null && !endpoint.isEmpty() ? endpoint : null,
+            method,
+            orderId != null && !orderId.isEmpty() ? orderId : null,
+            environment,
+            statusCodes != null && statusCodes.isEmpty() ? null : statusCodes
+        );
     }
 }
@@ -0,0 +1,355 @@
+package lt.creditco.cupa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.config.Constants;
+import lt.creditco.cupa.service.dto.AuditLogDTO;
+import lt.creditco.cupa.web.filter.HttpLoggingFilter.ApiRequestDetails;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes API audit log records off the request thread.
+ *
+ * <p>The request half of a record ({@link #begin}) gets its id from {@link AuditLogIdAllocator} and waits in memory
+ * for its response half ({@link #complete}); the merged record is put on a bounded queue and inserted by one
+ * background writer in JDBC batches. A request whose response never arrives is written without it after
+ * {@code application.audit.pending-timeout}; a response arriving after that becomes an update.</p>
+ *
+ * <p>When the queue is full the configured {@link ApplicationProperties.Audit.OverflowPolicy} applies. Everything
+ * still in memory is written when the application shuts down.</p>
+ */
+@Component
+public class AuditLogWriter implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_SQL =
+        "insert into audit_log (id, request_timestamp, api_endpoint, http_method, http_status_code, order_id, response_description, " +
+        "cupa_api_key, environment, request_data, response_data, requester_ip_address, merchant_id, version, created_by, created_date, " +
+        "last_modified_by, last_modified_date) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+        "update audit_log set http_status_code = ?, response_description = ?, request_data = ?, response_data = ?, " +
+        "last_modified_date = ?, version = version + 1 where id = ?";
+
+    private static final int CREATED_BY_LENGTH = 50;
+
+    private final ApplicationProperties.Audit properties;
+    private final AuditLogIdAllocator idAllocator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<Record> queue;
+
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditLogWriter(
+        ApplicationProperties applicationProperties,
+        AuditLogIdAllocator idAllocator,
+        JdbcTemplate jdbcTemplate,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry
+    ) {
+        this.properties = applicationProperties.getAudit();
+        this.idAllocator = idAllocator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        Gauge.builder("cupa.audit.queue.size", queue, BlockingQueue::size)
+            .description("Audit log records waiting to be written")
+            .register(meterRegistry);
+        Gauge.builder("cupa.audit.pending.size", pending, Map::size)
+            .description("Audit log requests waiting for their response")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("cupa.audit.dropped").description("Audit log records dropped on a full queue").register(meterRegistry);
+        this.writtenCounter = Counter.builder("cupa.audit.written").description("Audit log records written").register(meterRegistry);
+        this.failedCounter = Counter.builder("cupa.audit.failed").description("Audit log records lost to write errors").register(meterRegistry);
+        this.lagTimer = Timer.builder("cupa.audit.write.lag").description("Time from enqueue to database write").register(meterRegistry);
+    }
+
+    /**
+     * Registers the request half of an audit record.
+     *
+     * @return the audit log id assigned to the request.
+     */
+    public Long begin(AuditLogDTO auditLog) {
+        Long id = idAllocator.nextId(this::prefetch);
+        auditLog.setId(id);
+        auditLog.setCreatedBy(currentAuditor());
+        auditLog.setCreatedDate(Instant.now());
+        pending.put(id, new Pending(auditLog, System.nanoTime()));
+        return id;
+    }
+
+    /**
+     * Records an exception thrown while handling the request. A later {@link #complete} overrides these fields.
+     */
+    public void fail(Long id, Exception ex) {
+        Pending entry = pending.get(id);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry.auditLog) {
+            entry.auditLog.setHttpStatusCode(500);
+            entry.auditLog.setResponseDescription(StringUtils.substring("Exception occurred: " + ex.getMessage(), 0, 255));
+            entry.auditLog.setResponseData(ex.toString());
+        }
+    }
+
+    /**
+     * Adds the response half and queues the record for writing.
+     */
+    public void complete(Long id, ApiRequestDetails apiRequestDetails) {
+        Pending entry = pending.remove(id);
+        AuditLogDTO auditLog = entry != null ? entry.auditLog : new AuditLogDTO();
+        synchronized (auditLog) {
+            auditLog.setId(id);
+            auditLog.setRequestData(apiRequestDetails.getRequestBody());
+            auditLog.setHttpStatusCode(apiRequestDetails.getResponseStatus());
+            auditLog.setResponseData(apiRequestDetails.getResponseBody());
+            auditLog.setResponseDescription(StringUtils.substring(apiRequestDetails.getResponseDescription(), 0, 255));
+        }
+        enqueue(new Record(auditLog, entry == null, System.nanoTime()));
+    }
+
+    /**
+     * Writes everything that is queued, plus pending requests older than the pending timeout (or all of them if
+     * {@code includeAllPending}). Runs on the writer thread, and on the stopping thread at shutdown.
+     */
+    void flush(boolean includeAllPending) {
+        expirePending(includeAllPending);
+        List<Record> batch = new ArrayList<>(properties.getBatchSize());
+        while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void enqueue(Record record) {
+        boolean accepted;
+        if (properties.getOverflowPolicy() == ApplicationProperties.Audit.OverflowPolicy.BLOCK) {
+            try {
+                accepted = queue.offer(record, properties.getBlockTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = queue.offer(record);
+        }
+        if (!accepted) {
+            droppedCounter.increment();
+            LOG.warn("Audit log queue full, dropped record id={}", record.auditLog.getId());
+        }
+    }
+
+    private void expirePending(boolean all) {
+        long deadline = System.nanoTime() - properties.getPendingTimeout().toNanos();
+        for (Map.Entry<Long, Pending> expired : pending.entrySet()) {
+            if (all || expired.getValue().createdNanos - deadline <= 0) {
+                // the insert is queued while the entry is still locked in pending, so a concurrent complete() that
+                // finds it gone queues its update behind the insert
+                pending.computeIfPresent(expired.getKey(), (id, entry) -> {
+                    enqueue(new Record(entry.auditLog, false, System.nanoTime()));
+                    return null;
+                });
+            }
+        }
+    }
+
+    private void write(List<Record> batch) {
+        List<Record> inserts = new ArrayList<>(batch.size());
+        List<Record> updates = new ArrayList<>();
+        for (Record record : batch) {
+            (record.update ? updates : inserts).add(record);
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, record) -> bindInsert(ps, record.auditLog, now));
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, record) -> bindUpdate(ps, record.auditLog, now));
+            }
+            long writtenNanos = System.nanoTime();
+            for (Record record : batch) {
+                lagTimer.record(writtenNanos - record.enqueuedNanos, TimeUnit.NANOSECONDS);
+            }
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            LOG.error("Failed to write {} audit log records", batch.size(), e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement ps, AuditLogDTO auditLog, Timestamp now) throws SQLException {
+        ps.setLong(1, auditLog.getId());
+        ps.setTimestamp(2, Timestamp.from(auditLog.getRequestTimestamp() != null ? auditLog.getRequestTimestamp() : auditLog.getCreatedDate()));
+        ps.setString(3, auditLog.getApiEndpoint());
+        ps.setString(4, auditLog.getHttpMethod());
+        setInteger(ps, 5, auditLog.getHttpStatusCode());
+        ps.setString(6, auditLog.getOrderId());
+        ps.setString(7, auditLog.getResponseDescription());
+        ps.setString(8, auditLog.getCupaApiKey());
+        ps.setString(9, auditLog.getEnvironment());
+        ps.setString(10, formatIfJson(auditLog.getRequestData()));
+        ps.setString(11, formatIfJson(auditLog.getResponseData()));
+        ps.setString(12, auditLog.getRequesterIpAddress());
+        ps.setString(13, auditLog.getMerchantId());
+        ps.setString(14, auditLog.getCreatedBy());
+        ps.setTimestamp(15, Timestamp.from(auditLog.getCreatedDate()));
+        ps.setString(16, auditLog.getCreatedBy());
+        ps.setTimestamp(17, now);
+    }
+
+    private void bindUpdate(PreparedStatement ps, AuditLogDTO auditLog, Timestamp now) throws SQLException {
+        setInteger(ps, 1, auditLog.getHttpStatusCode());
+        ps.setString(2, auditLog.getResponseDescription());
+        ps.setString(3, formatIfJson(auditLog.getRequestData()));
+        ps.setString(4, formatIfJson(auditLog.getResponseData()));
+        ps.setTimestamp(5, now);
+        ps.setLong(6, auditLog.getId());
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    /**
+     * Attempts to format JSON string with proper indentation if it's valid JSON.
+     */
+    private String formatIfJson(String content) {
+        if (content == null || content.trim().isEmpty()) {
+            return content;
+        }
+
+        String trimmed = content.trim();
+        // Quick check if it looks like JSON
+        if ((trimmed.startsWith("{") && trimmed.endsWith("}")) || (trimmed.startsWith("[") && trimmed.endsWith("]"))) {
+            try {
+                Object json = objectMapper.readValue(trimmed, Object.class);
+                return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
+            } catch (Exception e) {
+                // Not valid JSON, return original
+                return content;
+            }
+        }
+        return content;
+    }
+
+    private static String currentAuditor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String name = authentication != null ? authentication.getName() : null;
+        return StringUtils.isBlank(name) ? Constants.SYSTEM : StringUtils.substring(name, 0, CREATED_BY_LENGTH);
+    }
+
+    private void prefetch(Runnable task) {
+        if (running) {
+            Thread.ofVirtual().name("audit-id-prefetch").start(task);
+        } else {
+            task.run();
+        }
+    }
+
+    private void runWriter() {
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        while (running) {
+            try {
+                Record first = queue.poll(intervalNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    List<Record> batch = new ArrayList<>(properties.getBatchSize());
+                    batch.add(first);
+                    queue.drainTo(batch, properties.getBatchSize() - 1);
+                    write(batch);
+                }
+                expirePending(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                LOG.error("Audit log writer error", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(Duration.ofSeconds(5).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(true);
+        LOG.info("Audit log writer stopped, queue flushed");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server (which stops at {@code SmartLifecycle.DEFAULT_PHASE - 1024}) so in-flight requests
+     * are audited, and before the data source goes away.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    private record Pending(AuditLogDTO auditLog, long createdNanos) {}
+
+    private record Record(AuditLogDTO auditLog, boolean update, long enqueuedNanos) {}
+}
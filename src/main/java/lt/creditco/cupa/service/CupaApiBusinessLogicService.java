@@ -33,6 +33,7 @@ public class CupaApiBusinessLogicService {
     private final MerchantService merchantService;
     private final CupaUserRepository userRepo;
     private final ObjectMapper objectMapper;
+    private final MerchantContextCache merchantContextCache;
 
     /**
      * Extract and determine all business context from the request.
@@ -120,15 +121,15 @@ public class CupaApiBusinessLogicService {
             return getDefaultMerchantContext("Unable to determine merchant context");
         }
 
-        Merchant merchant = null;
+        MerchantContextCache.Entry apiKeyEntry = null;
         if (requestApiKey != null) {
-            merchant = merchantService.findMerchantByCupaApiKey(requestApiKey);
+            apiKeyEntry = merchantContextCache.get(requestApiKey, this::resolveApiKey);
         }
         if (cupaUser != null) {
             String[] merchantIds = cupaUser.getMerchantIds() != null ? cupaUser.getMerchantIds().split(",") : new String[0];
-            if (merchant == null) {
+            if (apiKeyEntry == null || apiKeyEntry.merchantId() == null) {
                 if (merchantIds.length == 1) {
-                    merchant = merchantService.findMerchantById(merchantIds[0]);
+                    return buildMerchantContext(merchantService.findMerchantById(merchantIds[0]), requestApiKey);
                 } else {
                     log.warn(
                         "No merchant found for user: {}, merchantIds: {}, returning null values",
@@ -138,13 +139,24 @@ public class CupaApiBusinessLogicService {
                     return getDefaultMerchantContext("No merchant found for user");
                 }
             } else {
-                if (!StringUtils.containsAny(merchant.getId(), merchantIds)) {
+                if (!StringUtils.containsAny(apiKeyEntry.merchantId(), merchantIds)) {
                     return getDefaultMerchantContext("Merchant not allowed to use with user");
 //                    throw new RuntimeException("Merchant (API key) not allowed to use with user " + cupaUser.getLogin());
                 }
             }
         }
+        return apiKeyEntry.merchantContext();
+    }
+
+    /**
+     * Resolves an API key on a {@link MerchantContextCache} miss.
+     */
+    private MerchantContextCache.Entry resolveApiKey(String requestApiKey) {
+        Merchant merchant = merchantService.findMerchantByCupaApiKey(requestApiKey);
+        return new MerchantContextCache.Entry(merchant != null ? merchant.getId() : null, buildMerchantContext(merchant, requestApiKey));
+    }
 
+    private CupaApiContext.MerchantContext buildMerchantContext(Merchant merchant, String requestApiKey) {
         if (merchant == null) {
             log.warn("No merchant found for API key: {}, returning null values", requestApiKey);
             return getDefaultMerchantContext("No merchant found for API key");
@@ -0,0 +1,175 @@
+package lt.creditco.cupa.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.domain.DailyAmountLimit;
+import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory running turnover per (merchant, environment, UTC day), used for {@link DailyAmountLimit} checks
+ * instead of summing {@code payment_transaction} on every incoming payment.
+ *
+ * <p>A day is seeded from the database the first time it is touched (or by {@link #rebuild}) and afterwards only
+ * adjusted in memory:</p>
+ * <ul>
+ *   <li>{@link #tryReserve} checks the limit and adds the amount in one atomic step, so concurrent payments
+ *   cannot both pass the limit;</li>
+ *   <li>{@link #recordChange} applies moves into or out of {@link PaymentTransactionService#TURNOVER_AMOUNT_STATUSES},
+ *   including the placement of a payment, whose reservation is then given back with {@link #release}.</li>
+ * </ul>
+ *
+ * <p>Totals are kept per application node. Days older than yesterday are dropped when a new day is seeded.</p>
+ */
+@Component
+@Slf4j
+public class DailyTurnoverLedger {
+
+    private final Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Ledger key: one merchant, one environment, one UTC day.
+     */
+    public record Key(String merchantId, MerchantMode environment, LocalDate day) {
+        /**
+         * Key of the day a stored transaction is summed under (its created date, as in the turnover query).
+         */
+        public static Key of(PaymentTransaction transaction) {
+            Instant timestamp = transaction.getCreatedDate() != null ? transaction.getCreatedDate() : transaction.getRequestTimestamp();
+            LocalDate day = timestamp != null ? timestamp.atZone(ZoneOffset.UTC).toLocalDate() : LocalDate.now(ZoneOffset.UTC);
+            return new Key(transaction.getMerchantId(), transaction.getEnvironment(), day);
+        }
+    }
+
+    private static final class Bucket {
+
+        private BigDecimal total;
+
+        private Bucket(BigDecimal total) {
+            this.total = total == null ? BigDecimal.ZERO : total;
+        }
+    }
+
+    /**
+     * Checks {@code amount} against the limit for {@code key.day()} and, if it fits, adds it to the day total.
+     *
+     * @param key the ledger key
+     * @param amount the amount of the incoming payment
+     * @param limit the merchant daily amount limit
+     * @param seed loads the day total from the database when the day is not in the ledger yet
+     * @return true if the amount was reserved, false if the limit would be exceeded
+     */
+    public boolean tryReserve(Key key, BigDecimal amount, DailyAmountLimit limit, Supplier<BigDecimal> seed) {
+        BigDecimal value = amount == null ? BigDecimal.ZERO : amount;
+        Bucket bucket = bucketFor(key, seed);
+        synchronized (bucket) {
+            if (limit.isLimitExceeded(value, bucket.total, key.day())) {
+                return false;
+            }
+            bucket.total = bucket.total.add(value);
+            return true;
+        }
+    }
+
+    /**
+     * Gives back an amount reserved with {@link #tryReserve}, once the payment's own turnover has been applied with
+     * {@link #recordChange} or when the payment will not be persisted. The reservation only holds the amount against
+     * the limit while the payment is being placed.
+     */
+    public void release(Key key, BigDecimal amount) {
+        if (amount != null) {
+            adjust(key, amount.negate());
+        }
+    }
+
+    /**
+     * Applies a status (and/or amount) change of a transaction to its day total.
+     *
+     * @param transaction the transaction after the change
+     * @param previousStatus the status before the change
+     * @param previousAmount the amount before the change
+     */
+    public void recordChange(PaymentTransaction transaction, TransactionStatus previousStatus, BigDecimal previousAmount) {
+        if (transaction == null || transaction.getMerchantId() == null) {
+            return;
+        }
+        boolean previouslyCounted = isTurnover(previousStatus);
+        BigDecimal before = previouslyCounted && previousAmount != null ? previousAmount : BigDecimal.ZERO;
+        boolean counted = isTurnover(transaction.getStatus());
+        BigDecimal after = counted && transaction.getAmount() != null ? transaction.getAmount() : BigDecimal.ZERO;
+        BigDecimal delta = after.subtract(before);
+        if (delta.signum() != 0) {
+            adjust(Key.of(transaction), delta);
+        }
+    }
+
+    /**
+     * Seeds the totals of {@code day} with the given ones (typically aggregated from the database at startup).
+     * Keys already in the ledger keep their totals: they were seeded when first used and carry reservations made
+     * after {@code totals} were read. Keys not present in {@code totals} are seeded lazily on first use.
+     */
+    public void rebuild(LocalDate day, Map<Key, BigDecimal> totals) {
+        int seeded = 0;
+        for (Map.Entry<Key, BigDecimal> total : totals.entrySet()) {
+            if (total.getKey().day().equals(day) && buckets.putIfAbsent(total.getKey(), new Bucket(total.getValue())) == null) {
+                seeded++;
+            }
+        }
+        evictBefore(day.minusDays(1));
+        log.info("Daily turnover ledger rebuilt for {}: {} of {} merchant/environment totals seeded", day, seeded, totals.size());
+    }
+
+    /**
+     * Current total for the key, or null if the day is not in the ledger.
+     */
+    public BigDecimal getTotal(Key key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return null;
+        }
+        synchronized (bucket) {
+            return bucket.total;
+        }
+    }
+
+    private void adjust(Key key, BigDecimal delta) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            // not tracked yet; it will be seeded from the database with this change included
+            return;
+        }
+        synchronized (bucket) {
+            bucket.total = bucket.total.add(delta);
+        }
+    }
+
+    private Bucket bucketFor(Key key, Supplier<BigDecimal> seed) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        Bucket seeded = new Bucket(seed.get());
+        bucket = buckets.putIfAbsent(key, seeded);
+        if (bucket == null) {
+            evictBefore(key.day().minusDays(1));
+            return seeded;
+        }
+        return bucket;
+    }
+
+    private static boolean isTurnover(TransactionStatus status) {
+        return status != null && PaymentTransactionService.TURNOVER_AMOUNT_STATUSES.contains(status);
+    }
+
+    private void evictBefore(LocalDate day) {
+        buckets.keySet().removeIf(key -> key.day().isBefore(day));
+    }
+}
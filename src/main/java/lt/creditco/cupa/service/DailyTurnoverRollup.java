@@ -0,0 +1,329 @@
+package lt.creditco.cupa.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains {@code daily_turnover}: transaction count and amount per merchant, environment, UTC day, status, currency
+ * and payment brand, so merchant statistics do not aggregate {@code payment_transaction}.
+ *
+ * <p>Every change moves one transaction from its previous row to its current one, and a deletion removes it from its
+ * row. The changes are
+ * accumulated in memory once their transaction commits and added to the table every
+ * {@code application.turnover-rollup.flush-interval}, one update per touched row, so busy merchants do not contend
+ * on their rollup rows for every payment. A flush that fails is retried with the next one.</p>
+ *
+ * <p>{@link #rebuild} recomputes days from {@code payment_transaction}. It heals changes lost with a node that stopped
+ * before flushing and is run for the {@code application.turnover-rollup.rebuild-days} days before today on
+ * {@code application.turnover-rollup.rebuild-cron}. Changes that other nodes have not flushed yet when a day is
+ * rebuilt are counted twice, so days that still get many payments are best rebuilt once they are over.</p>
+ */
+@Slf4j
+@Component
+public class DailyTurnoverRollup implements DisposableBean {
+
+    /** Stored instead of a missing environment, which the key columns do not allow. */
+    public static final String UNKNOWN = "UNKNOWN";
+
+    static final String UPDATE_SQL =
+        "update daily_turnover set transaction_count = transaction_count + ?, amount = amount + ? " +
+        "where merchant_id = ? and turnover_date = ? and environment = ? and status = ? and currency = ? and payment_brand = ?";
+
+    static final String INSERT_SQL =
+        "insert into daily_turnover (transaction_count, amount, merchant_id, turnover_date, environment, status, currency, payment_brand) " +
+        "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String DELETE_DAYS_SQL = "delete from daily_turnover where turnover_date >= ? and turnover_date <= ?";
+
+    /** The day of a transaction is the UTC date of its created date, as in {@link DailyTurnoverLedger.Key#of}. */
+    private static final String TURNOVER_DATE = "cast(coalesce(created_date, request_timestamp) at time zone 'UTC' as date)";
+
+    static final String REBUILD_DAYS_SQL =
+        "insert into daily_turnover (merchant_id, environment, turnover_date, status, currency, payment_brand, transaction_count, amount) " +
+        "select merchant_id, coalesce(environment, '" + UNKNOWN + "'), " + TURNOVER_DATE + ", status, currency, payment_brand, " +
+        "count(*), coalesce(sum(amount), 0) from payment_transaction " +
+        "where merchant_id is not null and coalesce(created_date, request_timestamp) >= ? and coalesce(created_date, request_timestamp) < ? " +
+        "group by merchant_id, coalesce(environment, '" + UNKNOWN + "'), " + TURNOVER_DATE + ", status, currency, payment_brand";
+
+    /** One rollup row. */
+    record Key(String merchantId, LocalDate day, String environment, String status, String currency, String paymentBrand) {
+        Key withStatus(TransactionStatus status) {
+            return new Key(merchantId, day, environment, status.name(), currency, paymentBrand);
+        }
+    }
+
+    /** The row a transaction is counted in and the amount it adds, taken before the transaction is changed. */
+    record Snapshot(Key key, BigDecimal amount) {
+        /**
+         * @return the snapshot of the transaction as it is now, {@code null} if it is not counted in any row.
+         */
+        static Snapshot of(PaymentTransaction transaction) {
+            if (transaction == null || transaction.getMerchantId() == null || transaction.getStatus() == null) {
+                return null;
+            }
+            LocalDate day = DailyTurnoverLedger.Key.of(transaction).day();
+            return new Snapshot(keyOf(transaction, day, transaction.getStatus()), transaction.getAmount());
+        }
+    }
+
+    /** Change of one rollup row. */
+    record Delta(long count, BigDecimal amount) {
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, amount.add(other.amount));
+        }
+
+        boolean isZero() {
+            return count == 0 && amount.signum() == 0;
+        }
+    }
+
+    /** Rows are always written in this order, so concurrent flushes of several nodes do not deadlock. */
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::merchantId)
+        .thenComparing(Key::day)
+        .thenComparing(Key::environment)
+        .thenComparing(Key::status)
+        .thenComparing(Key::currency)
+        .thenComparing(Key::paymentBrand);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationProperties.TurnoverRollup properties;
+
+    private final Map<Key, Delta> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public DailyTurnoverRollup(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getTurnoverRollup();
+    }
+
+    /**
+     * Records a status (and/or amount) change of a transaction whose other key fields did not change; applied once the
+     * current transaction commits.
+     *
+     * @param transaction the transaction after the change
+     * @param previousStatus the status before the change, {@code null} for a new transaction
+     * @param previousAmount the amount before the change
+     */
+    public void recordChange(PaymentTransaction transaction, TransactionStatus previousStatus, BigDecimal previousAmount) {
+        Snapshot current = Snapshot.of(transaction);
+        if (current == null) {
+            return;
+        }
+        record(previousStatus != null ? new Snapshot(current.key().withStatus(previousStatus), previousAmount) : null, current);
+    }
+
+    /**
+     * Records any change of a transaction, including of its merchant, environment, currency, payment brand or day;
+     * applied once the current transaction commits.
+     *
+     * @param transaction the transaction after the change
+     * @param previous the snapshot taken before the change, {@code null} for a new transaction
+     */
+    void recordChange(PaymentTransaction transaction, Snapshot previous) {
+        record(previous, Snapshot.of(transaction));
+    }
+
+    /**
+     * Records the deletion of a transaction; applied once the current transaction commits.
+     *
+     * @param transaction the transaction being deleted
+     */
+    public void recordRemoval(PaymentTransaction transaction) {
+        record(Snapshot.of(transaction), null);
+    }
+
+    private void record(Snapshot previous, Snapshot current) {
+        Map<Key, Delta> deltas = new HashMap<>(2);
+        if (previous != null) {
+            deltas.merge(previous.key(), new Delta(-1, amountOf(previous.amount()).negate()), Delta::plus);
+        }
+        if (current != null) {
+            deltas.merge(current.key(), new Delta(1, amountOf(current.amount())), Delta::plus);
+        }
+        deltas.values().removeIf(Delta::isZero);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        accumulate(deltas);
+                    }
+                }
+            );
+        } else {
+            accumulate(deltas);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.turnover-rollup.flush-interval:5s}")
+    public void flush() {
+        writeLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${application.turnover-rollup.rebuild-cron:0 15 0 * * *}", zone = "UTC")
+    public void rebuildRecentDays() {
+        if (properties.getRebuildDays() <= 0) {
+            return;
+        }
+        LocalDate yesterday = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        try {
+            rebuild(yesterday.minusDays(properties.getRebuildDays() - 1L), yesterday);
+        } catch (RuntimeException e) {
+            log.error("Daily turnover rebuild failed", e);
+        }
+    }
+
+    /**
+     * Replaces the rollup rows of the days from {@code from} to {@code to} (inclusive) with aggregates of
+     * {@code payment_transaction}, after flushing the changes accumulated so far.
+     *
+     * @return the number of rows written.
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Rebuild range ends before it starts: " + from + " - " + to);
+        }
+        writeLock.lock();
+        try {
+            flushLocked();
+            Integer rows = transactionTemplate.execute(status -> {
+                int deleted = jdbcTemplate.update(DELETE_DAYS_SQL, Date.valueOf(from), Date.valueOf(to));
+                int inserted = jdbcTemplate.update(
+                    REBUILD_DAYS_SQL,
+                    Timestamp.from(from.atStartOfDay(ZoneOffset.UTC).toInstant()),
+                    Timestamp.from(to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant())
+                );
+                log.debug("Daily turnover {} - {}: replaced {} rows with {}", from, to, deleted, inserted);
+                return inserted;
+            });
+            log.info("Daily turnover rebuilt for {} - {}: {} rows", from, to, rows);
+            return rows != null ? rows : 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds what is still pending at shutdown.
+     */
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    private void accumulate(Map<Key, Delta> deltas) {
+        deltas.forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+    }
+
+    private void flushLocked() {
+        List<Key> keys = pending.keySet().stream().sorted(KEY_ORDER).toList();
+        List<Map.Entry<Key, Delta>> batch = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            Delta delta = pending.remove(key);
+            if (delta != null && !delta.isZero()) {
+                batch.add(Map.entry(key, delta));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+        } catch (RuntimeException e) {
+            // a row inserted concurrently by another node is updated on the retry
+            log.warn("Daily turnover flush of {} rows failed, retrying with the next flush: {}", batch.size(), e.toString());
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), Delta::plus));
+        }
+    }
+
+    private void write(List<Map.Entry<Key, Delta>> batch) {
+        List<Object[]> updates = batch.stream().map(DailyTurnoverRollup::parameters).toList();
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                inserts.add(updates.get(i));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+    }
+
+    /**
+     * @return the parameters of {@link #UPDATE_SQL} and {@link #INSERT_SQL}.
+     */
+    private static Object[] parameters(Map.Entry<Key, Delta> entry) {
+        Key key = entry.getKey();
+        Delta delta = entry.getValue();
+        return new Object[] {
+            delta.count(),
+            delta.amount(),
+            key.merchantId(),
+            Date.valueOf(key.day()),
+            key.environment(),
+            key.status(),
+            key.currency(),
+            key.paymentBrand(),
+        };
+    }
+
+    private static Key keyOf(PaymentTransaction transaction, LocalDate day, TransactionStatus status) {
+        return new Key(
+            transaction.getMerchantId(),
+            day,
+            nameOf(transaction.getEnvironment()),
+            status.name(),
+            nameOf(transaction.getCurrency()),
+            nameOf(transaction.getPaymentBrand())
+        );
+    }
+
+    private static String nameOf(Enum<?> value) {
+        return value != null ? value.name() : UNKNOWN;
+    }
+
+    private static BigDecimal amountOf(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,136 @@
+package lt.creditco.cupa.service;
+
+import com.bpmid.vapp.web.rest.errors.BadRequestAlertException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.api.Payment;
+import lt.creditco.cupa.api.PaymentRequest;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.web.context.CupaApiContext;
+import org.springframework.stereotype.Service;
+
+/**
+ * Payment creation with {@code Idempotency-Key} support.
+ *
+ * <p>The key is stored with the transaction, behind a unique (merchant_id, idempotency_key) index. A request whose
+ * key is already stored gets that payment back in its current state, without validation or a gateway call. A request
+ * arriving while another one with the same key is still running on this instance waits for it (up to
+ * {@code application.idempotency.wait-timeout}) and then gets its result; one racing on another instance is stopped
+ * by the unique index and gets the stored payment as well. Failed requests store nothing, so their retries are
+ * processed anew.</p>
+ */
+@Slf4j
+@Service
+public class IdempotentPaymentService {
+
+    /** Max length of an {@code Idempotency-Key}, the size of its column. */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * @param payment the created or replayed payment.
+     * @param replayed {@code true} if the payment was created by an earlier request with the same key.
+     */
+    public record Result(Payment payment, boolean replayed) {}
+
+    private record InFlightKey(String merchantId, String idempotencyKey) {}
+
+    private final PaymentTransactionService paymentTransactionService;
+    private final Duration waitTimeout;
+
+    /** Requests with a key running on this instance, completed when they finish. */
+    private final ConcurrentMap<InFlightKey, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotentPaymentService(PaymentTransactionService paymentTransactionService, ApplicationProperties applicationProperties) {
+        this.paymentTransactionService = paymentTransactionService;
+        this.waitTimeout = applicationProperties.getIdempotency().getWaitTimeout();
+    }
+
+    /**
+     * Creates the payment, or returns the one created earlier with the same {@code idempotencyKey}.
+     *
+     * @param idempotencyKey the request's {@code Idempotency-Key}; {@code null} creates the payment unconditionally.
+     */
+    public Result createPayment(
+        PaymentRequest request,
+        CupaApiContext.CupaApiContextData context,
+        boolean placeAsync,
+        String idempotencyKey
+    ) {
+        if (idempotencyKey == null) {
+            return new Result(paymentTransactionService.createPayment(request, context, placeAsync, null), false);
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestAlertException("Idempotency-Key is too long", "PaymentTransaction", "idempotencyKeyTooLong");
+        }
+
+        String merchantId = request.getMerchantId() != null ? request.getMerchantId() : context.getMerchantId();
+        InFlightKey key = new InFlightKey(merchantId, idempotencyKey);
+        CompletableFuture<Void> running = new CompletableFuture<>();
+        CompletableFuture<Void> earlier = inFlight.putIfAbsent(key, running);
+        if (earlier != null) {
+            awaitCompletion(earlier);
+            return createPayment(request, context, placeAsync, idempotencyKey);
+        }
+
+        try {
+            Optional<Result> replay = replay(request, merchantId, idempotencyKey);
+            if (replay.isPresent()) {
+                return replay.get();
+            }
+            try {
+                return new Result(paymentTransactionService.createPayment(request, context, placeAsync, idempotencyKey), false);
+            } catch (RuntimeException e) {
+                // a request with the same key on another instance got the unique index first
+                return replay(request, merchantId, idempotencyKey).orElseThrow(() -> e);
+            }
+        } finally {
+            inFlight.remove(key, running);
+            running.complete(null);
+        }
+    }
+
+    private Optional<Result> replay(PaymentRequest request, String merchantId, String idempotencyKey) {
+        return paymentTransactionService
+            .findPaymentByIdempotencyKey(merchantId, idempotencyKey)
+            .map(payment -> {
+                if (!Objects.equals(payment.getOrderId(), request.getOrderId())) {
+                    throw new BadRequestAlertException(
+                        "Idempotency-Key was used for another order",
+                        "PaymentTransaction",
+                        "idempotencyKeyReused"
+                    );
+                }
+                log.info("Replaying payment {} for Idempotency-Key of merchant {}", payment.getId(), merchantId);
+                return new Result(payment, true);
+            });
+    }
+
+    private void awaitCompletion(CompletableFuture<Void> earlier) {
+        try {
+            earlier.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException e) {
+            // never completed exceptionally
+        }
+    }
+
+    private static BadRequestAlertException inProgress() {
+        return new BadRequestAlertException(
+            "A request with this Idempotency-Key is still in progress",
+            "PaymentTransaction",
+            "idempotencyKeyInProgress"
+        );
+    }
+}
@@ -0,0 +1,142 @@
+package lt.creditco.cupa.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.repository.MerchantRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Projects the balances reported by the gateway onto {@link Merchant#getBalance()}.
+ *
+ * <p>Balances are coalesced in memory per merchant: the one reported with the latest transaction time wins, and
+ * balances older than the last one written are ignored. Every {@code application.merchant-balance.flush-interval}
+ * each merchant with a new balance gets one load and save, so balance writes (and the {@code Merchant} version
+ * bumps and cache updates that come with them) follow the number of merchants rather than the number of payments.
+ * A balance whose save fails is retried on the next flush, unless a newer one arrived. The outbox handler calls
+ * {@link #persist()} after each batch, so a balance is in the database before its outbox event is deleted.</p>
+ */
+@Slf4j
+@Component
+public class MerchantBalanceProjector implements DisposableBean {
+
+    record ReportedBalance(BigDecimal balance, Instant transactionTime) {}
+
+    private final MerchantRepository merchantRepository;
+
+    private final Map<String, ReportedBalance> pending = new ConcurrentHashMap<>();
+    private final Map<String, Instant> written = new ConcurrentHashMap<>();
+
+    public MerchantBalanceProjector(MerchantRepository merchantRepository) {
+        this.merchantRepository = merchantRepository;
+    }
+
+    /**
+     * Records a balance reported by the gateway; it is written on the next flush.
+     */
+    public void offer(String merchantId, BigDecimal balance, Instant transactionTime) {
+        Instant lastWritten = written.get(merchantId);
+        if (lastWritten != null && transactionTime.isBefore(lastWritten)) {
+            log.debug("Ignoring balance of merchant {} as of {}, a newer one was written already", merchantId, transactionTime);
+            return;
+        }
+        pending.merge(merchantId, new ReportedBalance(balance, transactionTime), MerchantBalanceProjector::latest);
+    }
+
+    @Scheduled(fixedDelayString = "${application.merchant-balance.flush-interval:5s}")
+    public void flush() {
+        writePending();
+    }
+
+    /**
+     * Writes every pending balance now.
+     *
+     * @throws IllegalStateException if a balance could not be written; it stays pending.
+     */
+    public void persist() {
+        List<String> failed = writePending();
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Balance of merchants " + failed + " could not be written");
+        }
+    }
+
+    /**
+     * @return the merchants whose balance could not be written.
+     */
+    private synchronized List<String> writePending() {
+        List<String> failed = new ArrayList<>();
+        for (String merchantId : List.copyOf(pending.keySet())) {
+            ReportedBalance reported = pending.remove(merchantId);
+            if (reported != null && !write(merchantId, reported)) {
+                failed.add(merchantId);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Writes what is still pending at shutdown.
+     */
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return {@code false} if the balance was put back to pending for a retry.
+     */
+    private boolean write(String merchantId, ReportedBalance reported) {
+        try {
+            Merchant merchant = merchantRepository.findById(merchantId).orElse(null);
+            if (merchant == null) {
+                log.warn("Merchant not found for balance update - MerchantID: {}", merchantId);
+                return true;
+            }
+
+            BigDecimal currentBalance = merchant.getBalance();
+            if (currentBalance != null && currentBalance.compareTo(reported.balance()) == 0) {
+                log.debug("Balance is the same for merchant balance update of merchantId: {}", merchantId);
+                written.merge(merchantId, reported.transactionTime(), MerchantBalanceProjector::max);
+                return true;
+            }
+
+            merchant.setBalance(reported.balance());
+            merchantRepository.save(merchant);
+            written.merge(merchantId, reported.transactionTime(), MerchantBalanceProjector::max);
+
+            log.info(
+                "Successfully updated merchant balance - MerchantID: {}, old balance: {}, new balance: {}",
+                merchantId,
+                currentBalance,
+                reported.balance()
+            );
+            return true;
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Merchant {} was changed concurrently, retrying its balance update on the next flush", merchantId);
+        } catch (Exception e) {
+            log.error("Error processing merchant balance update for merchantId: {}, retrying on the next flush", merchantId, e);
+        }
+        pending.merge(merchantId, reported, MerchantBalanceProjector::latest);
+        return false;
+    }
+
+    private static ReportedBalance latest(ReportedBalance current, ReportedBalance offered) {
+        return offered.transactionTime().isBefore(current.transactionTime()) ? current : offered;
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
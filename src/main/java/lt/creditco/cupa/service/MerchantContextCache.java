@@ -0,0 +1,81 @@
+package lt.creditco.cupa.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.web.context.CupaApiContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Caches what an API key resolves to, so authenticating an API request is a single in-memory lookup.
+ *
+ * <p>Entries expire after {@code application.merchant-context-cache.time-to-live} and are all evicted whenever a
+ * merchant is changed through {@link MerchantService}. Hit/miss counts are published as {@code cache.gets} metrics
+ * with {@code cache=merchantContext}.</p>
+ */
+@Component
+@Slf4j
+public class MerchantContextCache {
+
+    static final String CACHE_NAME = "merchantContext";
+
+    /**
+     * Resolution of one API key.
+     *
+     * @param merchantId the merchant owning the key, {@code null} if there is none.
+     * @param merchantContext the context for requests made with the key (without a merchant if access is denied).
+     */
+    public record Entry(String merchantId, CupaApiContext.MerchantContext merchantContext) {}
+
+    private final Cache<String, Entry> cache;
+
+    public MerchantContextCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this(applicationProperties, meterRegistry, Ticker.systemTicker());
+    }
+
+    MerchantContextCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, Ticker ticker) {
+        ApplicationProperties.MerchantContextCache properties = applicationProperties.getMerchantContextCache();
+        this.cache = Caffeine.newBuilder()
+            .ticker(ticker)
+            .expireAfterWrite(properties.getTimeToLive())
+            .maximumSize(properties.getMaximumSize())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @param apiKey the API key from the request.
+     * @param loader resolves the key on a cache miss.
+     * @return the cached or freshly loaded entry.
+     */
+    public Entry get(String apiKey, Function<String, Entry> loader) {
+        return cache.get(apiKey, loader);
+    }
+
+    /**
+     * Evicts all entries now and, inside a transaction, again after it completes, so a request racing with the
+     * merchant update cannot leave the pre-commit state cached.
+     */
+    public void invalidateAll() {
+        log.debug("Invalidating merchant context cache");
+        cache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        cache.invalidateAll();
+                    }
+                }
+            );
+        }
+    }
+}
@@ -29,9 +29,20 @@ public class MerchantService {
 
     private final MerchantMapper merchantMapper;
 
-    public MerchantService(MerchantRepository merchantRepository, MerchantMapper merchantMapper) {
+    private final MerchantContextCache merchantContextCache;
+
+    private final WebhookMerchantIndex webhookMerchantIndex;
+
+    public MerchantService(
+        MerchantRepository merchantRepository,
+        MerchantMapper merchantMapper,
+        MerchantContextCache merchantContextCache,
+        WebhookMerchantIndex webhookMerchantIndex
+    ) {
         this.merchantRepository = merchantRepository;
         this.merchantMapper = merchantMapper;
+        this.merchantContextCache = merchantContextCache;
+        this.webhookMerchantIndex = webhookMerchantIndex;
     }
 
     /**
@@ -45,6 +56,8 @@ public class MerchantService {
         validateMerchant(merchantDTO);
         Merchant merchant = merchantMapper.toEntity(merchantDTO);
         merchant = merchantRepository.saveAndFlush(merchant);
+        merchantContextCache.invalidateAll();
+        webhookMerchantIndex.invalidate();
         return merchantMapper.toDto(merchant);
     }
 
@@ -67,7 +80,11 @@ public class MerchantService {
                 return existingMerchant;
             })
             .map(merchantRepository::saveAndFlush)
-            .map(merchantMapper::toDto);
+            .map(merchant -> {
+                merchantContextCache.invalidateAll();
+                webhookMerchantIndex.invalidate();
+                return merchantMapper.toDto(merchant);
+            });
     }
 
 
@@ -79,6 +96,8 @@ public class MerchantService {
     public void delete(String id) {
         log.debug("Request to delete Merchant : {}", id);
         merchantRepository.deleteById(id);
+        merchantContextCache.invalidateAll();
+        webhookMerchantIndex.invalidate();
     }
 
     /**
@@ -93,9 +112,9 @@ public class MerchantService {
     }
 
     /**
-     * Find a merchant by CUPA test API key.
+     * Find a merchant by CUPA API key (prod key first, then test key).
      *
-     * @param cupaApiKey the test API key
+     * @param cupaApiKey the prod or test API key
      * @return the merchant if found
      */
     @Transactional(readOnly = true)
@@ -103,7 +122,8 @@ public class MerchantService {
         log.debug("findMerchantByCupaApiKey({})", cupaApiKey);
         return merchantRepository
             .findOneByCupaProdApiKey(cupaApiKey)
-            .orElse(merchantRepository.findOneByCupaTestApiKey(cupaApiKey).orElse(null));
+            .or(() -> merchantRepository.findOneByCupaTestApiKey(cupaApiKey))
+            .orElse(null);
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,143 @@
+package lt.creditco.cupa.service;
+
+import com.bpmid.vapp.domain.User;
+import com.bpmid.vapp.web.rest.errors.BadRequestAlertException;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import lt.creditco.cupa.base.users.CupaUser;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.domain.enumeration.Currency;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.PaymentBrand;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.service.dto.DailyTurnoverDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Merchant statistics read from the {@code daily_turnover} rollup maintained by {@link DailyTurnoverRollup}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class MerchantStatisticsService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MerchantStatisticsService.class);
+
+    private static final String ENTITY_NAME = "dailyTurnover";
+
+    static final String SELECT_SQL =
+        "select merchant_id, environment, turnover_date, status, currency, payment_brand, transaction_count, amount " +
+        "from daily_turnover where turnover_date >= ? and turnover_date <= ? and (transaction_count <> 0 or amount <> 0)";
+
+    private static final String ORDER_BY = " order by turnover_date, merchant_id, environment, status, currency, payment_brand";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationProperties.TurnoverRollup properties;
+
+    public MerchantStatisticsService(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = applicationProperties.getTurnoverRollup();
+    }
+
+    /**
+     * Daily turnover of the merchants the user can access.
+     *
+     * @param merchantIds merchants to include, {@code null} or empty for all merchants the user can access.
+     * @param environment environment to include, {@code null} for all.
+     * @param from first UTC day, inclusive.
+     * @param to last UTC day, inclusive.
+     * @param user the authenticated user.
+     * @return the rows ordered by day, empty if the user cannot see any of the requested merchants.
+     */
+    public List<DailyTurnoverDTO> findDailyTurnoverWithAccessControl(
+        Collection<String> merchantIds,
+        MerchantMode environment,
+        LocalDate from,
+        LocalDate to,
+        User user
+    ) {
+        checkRange(from, to);
+        if (!(user instanceof CupaUser cupaUser)) {
+            LOG.warn("User is not CupaUser instance - returning empty results");
+            return List.of();
+        }
+
+        Collection<String> finalMerchantIds;
+        if (cupaUser.hasAccessToAllMerchants()) {
+            finalMerchantIds = merchantIds == null || merchantIds.isEmpty() ? null : merchantIds;
+        } else {
+            Set<String> userMerchantIds = cupaUser.getMerchantIdsSet();
+            if (userMerchantIds.isEmpty()) {
+                LOG.debug("User {} has no assigned merchants", user.getLogin());
+                return List.of();
+            }
+            if (merchantIds == null || merchantIds.isEmpty()) {
+                finalMerchantIds = userMerchantIds;
+            } else if (userMerchantIds.containsAll(merchantIds)) {
+                finalMerchantIds = merchantIds;
+            } else {
+                LOG.warn("User {} attempted to read statistics of unauthorized merchants", user.getLogin());
+                return List.of();
+            }
+        }
+        return findDailyTurnover(finalMerchantIds, environment, from, to);
+    }
+
+    private List<DailyTurnoverDTO> findDailyTurnover(Collection<String> merchantIds, MerchantMode environment, LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(Date.valueOf(from));
+        parameters.add(Date.valueOf(to));
+        if (merchantIds != null) {
+            sql.append(" and merchant_id in (").append(String.join(", ", Collections.nCopies(merchantIds.size(), "?"))).append(')');
+            parameters.addAll(merchantIds);
+        }
+        if (environment != null) {
+            sql.append(" and environment = ?");
+            parameters.add(environment.name());
+        }
+        sql.append(ORDER_BY);
+        return jdbcTemplate.query(sql.toString(), MerchantStatisticsService::toDto, parameters.toArray());
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new BadRequestAlertException("Invalid date range", ENTITY_NAME, "invalidrange");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= properties.getMaxQueryDays()) {
+            throw new BadRequestAlertException(
+                "Date range is longer than " + properties.getMaxQueryDays() + " days",
+                ENTITY_NAME,
+                "rangetoolong"
+            );
+        }
+    }
+
+    private static DailyTurnoverDTO toDto(ResultSet rs, int rowNum) throws SQLException {
+        return new DailyTurnoverDTO(
+            rs.getString("merchant_id"),
+            valueOf(MerchantMode.class, rs.getString("environment")),
+            rs.getDate("turnover_date").toLocalDate(),
+            valueOf(TransactionStatus.class, rs.getString("status")),
+            valueOf(Currency.class, rs.getString("currency")),
+            valueOf(PaymentBrand.class, rs.getString("payment_brand")),
+            rs.getLong("transaction_count"),
+            rs.getBigDecimal("amount")
+        );
+    }
+
+    private static <E extends Enum<E>> E valueOf(Class<E> type, String name) {
+        return name == null || DailyTurnoverRollup.UNKNOWN.equals(name) ? null : Enum.valueOf(type, name);
+    }
+}
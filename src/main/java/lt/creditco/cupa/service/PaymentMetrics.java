@@ -0,0 +1,153 @@
+package lt.creditco.cupa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.repository.PaymentTransactionRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Business metrics of the payment lifecycle, published through the actuator {@code prometheus} endpoint.
+ *
+ * <ul>
+ *   <li>{@code cupa.payment.stage} – time spent per stage ({@code validation}, {@code persist}, {@code gateway.place},
+ *   {@code gateway.query}, {@code webhook}), tagged with {@code merchant}, {@code environment} and {@code outcome};</li>
+ *   <li>{@code cupa.payment.status.transitions} – status changes, tagged with {@code from}, {@code to},
+ *   {@code merchant} and {@code environment};</li>
+ *   <li>{@code cupa.payment.time.to.final.status} – histogram of the time from the request to a final status;</li>
+ *   <li>{@code cupa.payment.backlog} – payments not yet in a final status per {@code status} and
+ *   {@code environment}, recounted every {@code application.payment-metrics.backlog-interval}.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class PaymentMetrics {
+
+    /** Statuses a payment can still leave without manual action. */
+    static final Set<TransactionStatus> OPEN_STATUSES = Set.of(
+        TransactionStatus.RECEIVED,
+        TransactionStatus.PENDING,
+        TransactionStatus.AWAITING_CALLBACK
+    );
+
+    private static final String NONE = "none";
+
+    /**
+     * A timed stage of the payment lifecycle.
+     */
+    public enum Stage {
+        VALIDATION("validation"),
+        PERSIST("persist"),
+        GATEWAY_PLACE("gateway.place"),
+        GATEWAY_QUERY("gateway.query"),
+        WEBHOOK("webhook");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final MultiGauge backlog;
+
+    public PaymentMetrics(MeterRegistry meterRegistry, PaymentTransactionRepository paymentTransactionRepository) {
+        this.meterRegistry = meterRegistry;
+        this.paymentTransactionRepository = paymentTransactionRepository;
+        this.backlog = MultiGauge.builder("cupa.payment.backlog")
+            .description("Payments not yet in a final status")
+            .register(meterRegistry);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Records the time of a stage started with {@link #start()}.
+     *
+     * @param outcome short lower case result of the stage, e.g. {@code ok}, {@code rejected} or {@code error}.
+     */
+    public void stop(Timer.Sample sample, Stage stage, String merchantId, MerchantMode environment, String outcome) {
+        sample.stop(
+            Timer.builder("cupa.payment.stage")
+                .description("Time spent in a payment lifecycle stage")
+                .tags(tagsOf(merchantId, environment).and("stage", stage.tag, "outcome", outcome))
+                .register(meterRegistry)
+        );
+    }
+
+    /**
+     * Counts a status change of a saved transaction and, when it reached a final status, records its time to final
+     * status. Does nothing if the status did not change.
+     *
+     * @param previousStatus the status before the change, {@code null} for a new transaction.
+     */
+    public void statusChanged(PaymentTransaction paymentTransaction, TransactionStatus previousStatus) {
+        TransactionStatus status = paymentTransaction.getStatus();
+        if (status == null || status == previousStatus) {
+            return;
+        }
+        Tags tags = tagsOf(paymentTransaction.getMerchantId(), paymentTransaction.getEnvironment());
+        Counter.builder("cupa.payment.status.transitions")
+            .description("Payment status changes")
+            .tags(tags.and("from", previousStatus != null ? previousStatus.name() : NONE, "to", status.name()))
+            .register(meterRegistry)
+            .increment();
+
+        Instant requestedAt = paymentTransaction.getRequestTimestamp();
+        if (requestedAt != null && !OPEN_STATUSES.contains(status) && (previousStatus == null || OPEN_STATUSES.contains(previousStatus))) {
+            Timer.builder("cupa.payment.time.to.final.status")
+                .description("Time from the payment request to its final status")
+                .tags(tags.and("status", status.name()))
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofDays(2))
+                .register(meterRegistry)
+                .record(Duration.between(requestedAt, Instant.now()));
+        }
+    }
+
+    @Scheduled(
+        initialDelayString = "${application.payment-metrics.backlog-interval:60s}",
+        fixedDelayString = "${application.payment-metrics.backlog-interval:60s}"
+    )
+    public void refreshBacklog() {
+        try {
+            backlog.register(
+                paymentTransactionRepository
+                    .countByStatusIn(OPEN_STATUSES)
+                    .stream()
+                    .map(count ->
+                        MultiGauge.Row.of(
+                            Tags.of("status", count.getStatus().name(), "environment", nameOf(count.getEnvironment())),
+                            count.getCount()
+                        )
+                    )
+                    .toList(),
+                true
+            );
+        } catch (RuntimeException e) {
+            log.warn("Failed to count the payment backlog", e);
+        }
+    }
+
+    private static Tags tagsOf(String merchantId, MerchantMode environment) {
+        return Tags.of("merchant", merchantId != null ? merchantId : NONE, "environment", nameOf(environment));
+    }
+
+    private static String nameOf(MerchantMode environment) {
+        return environment != null ? environment.name() : NONE;
+    }
+}
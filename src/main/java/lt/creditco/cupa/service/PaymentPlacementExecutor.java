@@ -0,0 +1,97 @@
+package lt.creditco.cupa.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.config.ApplicationProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded executor for gateway placements of payments accepted with {@code 202 Accepted}.
+ *
+ * <p>Runs at most {@code application.async-placement.max-concurrency} placements at a time and queues up to
+ * {@code application.async-placement.queue-capacity} more. A slot is reserved with {@link #tryReserve()} before the
+ * payment is committed; when none is free the request places the payment itself in its own transaction, so a gateway
+ * slowdown turns into back pressure on the API instead of an unbounded backlog.
+ * The placement threads are virtual when {@code application.virtual-threads.enabled} is set; the pool still bounds
+ * the concurrency.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "application.async-placement", name = "enabled", havingValue = "true")
+public class PaymentPlacementExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    /** Free slots, running and queued placements together. */
+    private final Semaphore slots;
+
+    public PaymentPlacementExecutor(ApplicationProperties applicationProperties) {
+        ApplicationProperties.AsyncPlacement properties = applicationProperties.getAsyncPlacement();
+        Thread.Builder threads = applicationProperties.getVirtualThreads().isEnabled() ? Thread.ofVirtual() : Thread.ofPlatform();
+        this.executor = new ThreadPoolExecutor(
+            properties.getMaxConcurrency(),
+            properties.getMaxConcurrency(),
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+            threads.name("payment-placement-", 1).factory(),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.slots = new Semaphore(properties.getMaxConcurrency() + properties.getQueueCapacity());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Reserves a slot for one placement; each successful call must be followed by {@link #execute} or {@link #release}.
+     *
+     * @return {@code false} if all threads and queue places are taken.
+     */
+    public boolean tryReserve() {
+        return slots.tryAcquire();
+    }
+
+    /**
+     * Gives back a slot reserved with {@link #tryReserve()} that will not be used.
+     */
+    public void release() {
+        slots.release();
+    }
+
+    /**
+     * Runs the placement on a placement thread, in a slot reserved with {@link #tryReserve()}.
+     *
+     * @throws RejectedExecutionException if the executor is shutting down; the slot is released.
+     */
+    public void execute(Runnable placement) {
+        try {
+            executor.execute(() -> {
+                try {
+                    placement.run();
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Lets queued placements finish; payments still queued after the timeout stay {@code RECEIVED} until
+     * {@link PaymentPlacementRecovery} places them.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("{} payment placements were not run before shutdown", executor.getQueue().size());
+        }
+    }
+}
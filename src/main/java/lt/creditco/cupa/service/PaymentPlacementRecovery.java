@@ -0,0 +1,168 @@
+package lt.creditco.cupa.service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.MerchantStatus;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.repository.PaymentTransactionRepository;
+import lt.creditco.cupa.repository.PaymentTransactionRepository.ReconciliationCandidate;
+import lt.creditco.cupa.web.context.CupaApiContext;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Places payments left {@code RECEIVED} by a lost background placement: queued when the node shut down, or on a
+ * node that crashed.
+ *
+ * <p>Every {@code application.async-placement.recovery-interval} the payments still {@code RECEIVED} and unmodified
+ * for {@code application.async-placement.recovery-after} are handed to {@link PaymentPlacementExecutor}, as many as it
+ * has free slots. Each one is claimed in the database before it is placed, so with several nodes a payment is placed
+ * by one of them only.</p>
+ *
+ * <p>Payments whose gateway placement was started are never placed again, since the gateway may have accepted them;
+ * neither are payments created more than {@code application.async-placement.recovery-max-age} ago.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "application.async-placement", name = "enabled", havingValue = "true")
+public class PaymentPlacementRecovery {
+
+    /** Max payments read per sweep. */
+    private static final int BATCH_SIZE = 100;
+
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final MerchantRepository merchantRepository;
+    private final PaymentTransactionService paymentTransactionService;
+    private final PaymentPlacementExecutor paymentPlacementExecutor;
+    private final ApplicationProperties.AsyncPlacement properties;
+
+    public PaymentPlacementRecovery(
+        PaymentTransactionRepository paymentTransactionRepository,
+        MerchantRepository merchantRepository,
+        PaymentTransactionService paymentTransactionService,
+        PaymentPlacementExecutor paymentPlacementExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.paymentTransactionRepository = paymentTransactionRepository;
+        this.merchantRepository = merchantRepository;
+        this.paymentTransactionService = paymentTransactionService;
+        this.paymentPlacementExecutor = paymentPlacementExecutor;
+        this.properties = applicationProperties.getAsyncPlacement();
+    }
+
+    @Scheduled(
+        fixedDelayString = "${application.async-placement.recovery-interval:60s}",
+        initialDelayString = "${application.async-placement.recovery-interval:60s}"
+    )
+    public void recoverStale() {
+        try {
+            recover(Instant.now());
+        } catch (RuntimeException e) {
+            log.error("Payment placement recovery failed", e);
+        }
+    }
+
+    /**
+     * Runs one recovery sweep.
+     *
+     * @param now the sweep time.
+     * @return the number of payments handed to the placement executor.
+     */
+    int recover(Instant now) {
+        Instant staleBefore = now.minus(properties.getRecoveryAfter());
+        List<ReconciliationCandidate> stale = paymentTransactionRepository.findStaleCandidates(
+            TransactionStatus.RECEIVED,
+            now.minus(properties.getRecoveryMaxAge()),
+            staleBefore,
+            PageRequest.of(0, BATCH_SIZE)
+        );
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        Map<String, Merchant> merchants = new HashMap<>();
+        merchantRepository
+            .findAllById(stale.stream().map(ReconciliationCandidate::getMerchantId).filter(Objects::nonNull).collect(Collectors.toSet()))
+            .forEach(merchant -> merchants.put(merchant.getId(), merchant));
+
+        int handedOver = 0;
+        for (ReconciliationCandidate candidate : stale) {
+            CupaApiContext.CupaApiContextData context = contextOf(candidate, merchants.get(candidate.getMerchantId()));
+            if (context == null) {
+                continue;
+            }
+            if (!paymentPlacementExecutor.tryReserve()) {
+                log.debug("Payment placement executor is saturated, recovery continues in the next sweep");
+                break;
+            }
+            try {
+                paymentPlacementExecutor.execute(() -> place(candidate.getId(), staleBefore, context));
+                handedOver++;
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        log.info("Recovering placement of {} of {} payments left RECEIVED", handedOver, stale.size());
+        return handedOver;
+    }
+
+    private void place(String transactionId, Instant staleBefore, CupaApiContext.CupaApiContextData context) {
+        try {
+            paymentTransactionService.placeStaleReceivedPayment(transactionId, staleBefore, context);
+        } catch (RuntimeException e) {
+            log.error("Failed to recover placement of payment {}", transactionId, e);
+        }
+    }
+
+    /**
+     * @return the gateway context of the payment, {@code null} if its merchant cannot place payments.
+     */
+    private CupaApiContext.CupaApiContextData contextOf(ReconciliationCandidate candidate, Merchant merchant) {
+        if (merchant == null) {
+            log.warn("Merchant not found: {}, skipping placement of payment {}", candidate.getMerchantId(), candidate.getId());
+            return null;
+        }
+        if (!MerchantStatus.ACTIVE.equals(merchant.getStatus())) {
+            log.warn("Merchant {} is not active (status: {}), skipping placement of payment {}", merchant.getId(), merchant.getStatus(), candidate.getId());
+            return null;
+        }
+        MerchantMode mode = candidate.getEnvironment() != null ? candidate.getEnvironment() : merchant.getMode();
+        boolean live = mode == MerchantMode.LIVE;
+        CupaApiContext.MerchantContext merchantContext = CupaApiContext.MerchantContext.builder()
+            .merchantId(merchant.getId())
+            .mode(mode)
+            .status(merchant.getStatus())
+            .gatewayUrl(live ? merchant.getRemoteProdUrl() : merchant.getRemoteTestUrl())
+            .gatewayMerchantId(live ? merchant.getRemoteProdMerchantId() : merchant.getRemoteTestMerchantId())
+            .gatewayMerchantKey(live ? merchant.getRemoteProdMerchantKey() : merchant.getRemoteTestMerchantKey())
+            .gatewayApiKey(live ? merchant.getRemoteProdApiKey() : merchant.getRemoteTestApiKey())
+            .build();
+        if (
+            StringUtils.isAnyBlank(
+                merchantContext.getGatewayUrl(),
+                merchantContext.getGatewayMerchantId(),
+                merchantContext.getGatewayMerchantKey()
+            )
+        ) {
+            log.warn("Merchant {} has no gateway credentials configured for mode {}, skipping placement of payment {}", merchant.getId(), mode, candidate.getId());
+            return null;
+        }
+        return CupaApiContext.CupaApiContextData.builder()
+            .merchantId(merchant.getId())
+            .merchantContext(merchantContext)
+            .requestTimestamp(Instant.now())
+            .build();
+    }
+}
@@ -0,0 +1,298 @@
+package lt.creditco.cupa.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.MerchantStatus;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.remote.GatewayConfig;
+import lt.creditco.cupa.remote.GatewayResponse;
+import lt.creditco.cupa.remote.PaymentReply;
+import lt.creditco.cupa.remote.UpGatewayClient;
+import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.repository.PaymentTransactionRepository;
+import lt.creditco.cupa.repository.PaymentTransactionRepository.ReconciliationCandidate;
+import lt.creditco.cupa.service.tasks.QueryPaymentStatusTask;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Polls the gateway for the final status of pending payments in bulk, replacing one
+ * {@link QueryPaymentStatusTask} per payment.
+ *
+ * <p>Each cycle reads the due pending transactions in batches of {@code application.reconciliation.batch-size},
+ * claims every one by moving its {@code next_query_at} past {@code application.reconciliation.claim-timeout}, and
+ * groups the claimed ones by merchant and environment, so gateway credentials are resolved once per group. Only the
+ * node that claimed a transaction queries it, so several nodes share the work. Status queries run on
+ * {@code application.reconciliation.parallelism} threads. Query intervals and the 24 hour timeout follow
+ * {@link QueryPaymentStatusTask}; the next query time is stored in {@code next_query_at}, so a restart does not
+ * query the whole backlog again.</p>
+ *
+ * <p>Publishes {@code cupa.reconciliation.latency} (gateway query time) and {@code cupa.reconciliation.backlog}
+ * (pending payments), both tagged with {@code merchant} and {@code environment}.</p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "application.reconciliation", name = "enabled", havingValue = "true")
+public class PaymentReconciliationService implements DisposableBean {
+
+    private record GroupKey(String merchantId, MerchantMode environment) {}
+
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final MerchantRepository merchantRepository;
+    private final PaymentTransactionService paymentTransactionService;
+    private final UpGatewayClient upGatewayClient;
+    private final ApplicationProperties.Reconciliation properties;
+    private final MeterRegistry meterRegistry;
+    private final MultiGauge backlog;
+    private final ExecutorService executor;
+
+    public PaymentReconciliationService(
+        PaymentTransactionRepository paymentTransactionRepository,
+        MerchantRepository merchantRepository,
+        PaymentTransactionService paymentTransactionService,
+        UpGatewayClient upGatewayClient,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.paymentTransactionRepository = paymentTransactionRepository;
+        this.merchantRepository = merchantRepository;
+        this.paymentTransactionService = paymentTransactionService;
+        this.upGatewayClient = upGatewayClient;
+        this.properties = applicationProperties.getReconciliation();
+        this.meterRegistry = meterRegistry;
+        this.backlog = MultiGauge.builder("cupa.reconciliation.backlog")
+            .description("Pending payments waiting for a final status")
+            .register(meterRegistry);
+        ThreadFactory threads = applicationProperties.getVirtualThreads().isEnabled()
+            ? Thread.ofVirtual().name("payment-reconciliation").factory()
+            : Thread.ofPlatform().name("payment-reconciliation").daemon().factory();
+        this.executor = Executors.newFixedThreadPool(properties.getParallelism(), threads);
+    }
+
+    @Scheduled(fixedDelayString = "${application.reconciliation.interval:30s}")
+    public void reconcileDue() {
+        try {
+            reconcile(Instant.now());
+        } catch (RuntimeException e) {
+            log.error("Payment status reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Runs one reconciliation cycle: claims and queries due pending transactions a batch at a time until none are due.
+     *
+     * @param now the cycle time.
+     */
+    void reconcile(Instant now) {
+        registerBacklog();
+        Instant firstQueryBefore = now.minus(properties.getFirstQueryDelay());
+        List<ReconciliationCandidate> due;
+        do {
+            due = paymentTransactionRepository.findDueForQuery(
+                TransactionStatus.PENDING,
+                now,
+                firstQueryBefore,
+                PageRequest.of(0, properties.getBatchSize())
+            );
+            List<ReconciliationCandidate> claimed = claim(due, now);
+            if (!claimed.isEmpty()) {
+                reconcileClaimed(claimed, now);
+            }
+        } while (due.size() == properties.getBatchSize());
+    }
+
+    /**
+     * @return the candidates this node claimed; the others were claimed by another node or are no longer pending.
+     */
+    private List<ReconciliationCandidate> claim(List<ReconciliationCandidate> due, Instant now) {
+        if (due.isEmpty()) {
+            return due;
+        }
+        // the claim time tells this cycle's claims apart from other nodes'; truncated to the precision it is stored with
+        Instant claimedUntil = now.plus(properties.getClaimTimeout()).truncatedTo(ChronoUnit.MICROS);
+        List<String> ids = due.stream().map(ReconciliationCandidate::getId).toList();
+        int claimed = paymentTransactionRepository.claimForQuery(ids, now, claimedUntil);
+        if (claimed == ids.size()) {
+            return due;
+        }
+        if (claimed == 0) {
+            return List.of();
+        }
+        Set<String> claimedIds = Set.copyOf(paymentTransactionRepository.findClaimedForQuery(ids, claimedUntil));
+        return due.stream().filter(candidate -> claimedIds.contains(candidate.getId())).toList();
+    }
+
+    private void reconcileClaimed(List<ReconciliationCandidate> claimed, Instant now) {
+        Map<String, Merchant> merchants = new HashMap<>();
+        merchantRepository
+            .findAllById(claimed.stream().map(ReconciliationCandidate::getMerchantId).filter(Objects::nonNull).collect(Collectors.toSet()))
+            .forEach(merchant -> merchants.put(merchant.getId(), merchant));
+
+        List<String> timedOut = new ArrayList<>();
+        Map<GroupKey, List<ReconciliationCandidate>> dueByGroup = new LinkedHashMap<>();
+        for (ReconciliationCandidate candidate : claimed) {
+            Instant requestedAt = requestedAt(candidate, now);
+            if (Duration.between(requestedAt, now).toHours() >= QueryPaymentStatusTask.TIMEOUT_PERIOD_HOURS) {
+                timedOut.add(candidate.getId());
+            } else {
+                dueByGroup.computeIfAbsent(groupOf(candidate, merchants.get(candidate.getMerchantId())), key -> new ArrayList<>()).add(candidate);
+            }
+        }
+
+        if (!timedOut.isEmpty()) {
+            paymentTransactionService.abandonPending(timedOut, QueryPaymentStatusTask.TIMEOUT_STATUS_DESCRIPTION);
+        }
+
+        List<CompletableFuture<PaymentTransactionService.StatusReply>> queries = new ArrayList<>();
+        List<ReconciliationCandidate> queried = new ArrayList<>();
+        List<ReconciliationCandidate> rescheduled = new ArrayList<>();
+        for (Map.Entry<GroupKey, List<ReconciliationCandidate>> entry : dueByGroup.entrySet()) {
+            GroupKey group = entry.getKey();
+            GatewayConfig config = gatewayConfig(merchants.get(group.merchantId()), group);
+            for (ReconciliationCandidate candidate : entry.getValue()) {
+                if (config != null) {
+                    queries.add(CompletableFuture.supplyAsync(() -> query(candidate, group, config), executor));
+                    queried.add(candidate);
+                } else {
+                    rescheduled.add(candidate);
+                }
+            }
+        }
+        if (!queries.isEmpty()) {
+            log.debug("Querying gateway status of {} pending payments", queries.size());
+            List<PaymentTransactionService.StatusReply> replies = queries.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+            Set<String> settled = replies.isEmpty() ? Set.of() : paymentTransactionService.applyGatewayReplies(replies);
+            queried.stream().filter(candidate -> !settled.contains(candidate.getId())).forEach(rescheduled::add);
+        }
+        reschedule(rescheduled, now);
+    }
+
+    private PaymentTransactionService.StatusReply query(ReconciliationCandidate candidate, GroupKey group, GatewayConfig config) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            GatewayResponse<PaymentReply> upResponse = upGatewayClient.queryTransaction(candidate.getOrderId(), config);
+            if (upResponse == null || upResponse.getResponse() == null || upResponse.getResponse().getStatusCode() != 200) {
+                return null;
+            }
+            return new PaymentTransactionService.StatusReply(candidate.getId(), upResponse.getReply(), upResponse.getTrace());
+        } catch (RuntimeException e) {
+            log.warn("Gateway status query failed for transaction: {}, orderId: {}", candidate.getId(), candidate.getOrderId(), e);
+            return null;
+        } finally {
+            sample.stop(
+                Timer.builder("cupa.reconciliation.latency")
+                    .description("Gateway payment status query time")
+                    .tags(tagsOf(group))
+                    .register(meterRegistry)
+            );
+        }
+    }
+
+    /**
+     * Stores the next query time of transactions that are still pending, following the {@link QueryPaymentStatusTask}
+     * intervals.
+     */
+    private void reschedule(List<ReconciliationCandidate> candidates, Instant now) {
+        Map<Instant, List<String>> idsByNextQuery = new HashMap<>();
+        for (ReconciliationCandidate candidate : candidates) {
+            Duration elapsed = Duration.between(requestedAt(candidate, now), now);
+            idsByNextQuery
+                .computeIfAbsent(now.plusSeconds(QueryPaymentStatusTask.calculateNextInterval(elapsed)), key -> new ArrayList<>())
+                .add(candidate.getId());
+        }
+        idsByNextQuery.forEach((nextQueryAt, ids) -> paymentTransactionRepository.scheduleNextQuery(ids, nextQueryAt));
+    }
+
+    private void registerBacklog() {
+        backlog.register(
+            paymentTransactionRepository
+                .countByMerchant(TransactionStatus.PENDING)
+                .stream()
+                .map(count -> MultiGauge.Row.of(tagsOf(new GroupKey(count.getMerchantId(), count.getEnvironment())), count.getCount()))
+                .toList(),
+            true
+        );
+    }
+
+    /**
+     * @return the gateway settings of the group, {@code null} if the merchant cannot be queried.
+     */
+    private GatewayConfig gatewayConfig(Merchant merchant, GroupKey group) {
+        if (merchant == null) {
+            log.warn("Merchant not found: {}, skipping status queries", group.merchantId());
+            return null;
+        }
+        if (!MerchantStatus.ACTIVE.equals(merchant.getStatus())) {
+            log.warn("Merchant {} is not active (status: {}), skipping status queries", merchant.getId(), merchant.getStatus());
+            return null;
+        }
+        boolean live = group.environment() == MerchantMode.LIVE;
+        GatewayConfig config = GatewayConfig.builder()
+            .baseUrl(live ? merchant.getRemoteProdUrl() : merchant.getRemoteTestUrl())
+            .merchantMid(live ? merchant.getRemoteProdMerchantId() : merchant.getRemoteTestMerchantId())
+            .merchantKey(live ? merchant.getRemoteProdMerchantKey() : merchant.getRemoteTestMerchantKey())
+            .apiKey(live ? merchant.getRemoteProdApiKey() : merchant.getRemoteTestApiKey())
+            .build();
+        if (StringUtils.isAnyBlank(config.getBaseUrl(), config.getMerchantMid(), config.getMerchantKey())) {
+            log.warn("Merchant {} has no gateway credentials configured for mode {}, skipping status queries", merchant.getId(), group.environment());
+            return null;
+        }
+        return config;
+    }
+
+    private static GroupKey groupOf(ReconciliationCandidate candidate, Merchant merchant) {
+        MerchantMode environment = candidate.getEnvironment();
+        if (environment == null && merchant != null) {
+            environment = merchant.getMode();
+        }
+        return new GroupKey(candidate.getMerchantId(), environment);
+    }
+
+    private static Tags tagsOf(GroupKey group) {
+        return Tags.of(
+            "merchant",
+            String.valueOf(group.merchantId()),
+            "environment",
+            group.environment() != null ? group.environment().name() : "UNKNOWN"
+        );
+    }
+
+    private static Instant requestedAt(ReconciliationCandidate candidate, Instant now) {
+        if (candidate.getRequestTimestamp() != null) {
+            return candidate.getRequestTimestamp();
+        }
+        return candidate.getCreatedDate() != null ? candidate.getCreatedDate() : now;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -1,15 +1,24 @@
 package lt.creditco.cupa.service;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import lt.creditco.cupa.api.Payment;
 import lt.creditco.cupa.api.PaymentFlow;
 import lt.creditco.cupa.api.PaymentRequest;
@@ -18,6 +27,7 @@ import lt.creditco.cupa.domain.Client;
 import lt.creditco.cupa.domain.DailyAmountLimit;
 import lt.creditco.cupa.domain.Merchant;
 import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.PaymentTransactionPayload;
 import lt.creditco.cupa.domain.enumeration.Currency;
 import lt.creditco.cupa.domain.enumeration.MerchantMode;
 import lt.creditco.cupa.domain.enumeration.PaymentBrand;
@@ -25,19 +35,22 @@ import lt.creditco.cupa.domain.enumeration.TransactionStatus;
 import lt.creditco.cupa.domain.util.Merger;
 import lt.creditco.cupa.event.BalanceUpdateEvent;
 import lt.creditco.cupa.event.MerchantBalanceUpdateEvent;
+import lt.creditco.cupa.event.PullTaskScheduledEvent;
 import lt.creditco.cupa.remote.CardType;
 import lt.creditco.cupa.remote.ClientDetails;
 import lt.creditco.cupa.remote.GatewayConfig;
 import lt.creditco.cupa.remote.GatewayMessage;
 import lt.creditco.cupa.remote.GatewayResponse;
+import lt.creditco.cupa.remote.GatewayTrace;
 import lt.creditco.cupa.remote.PaymentCurrency;
 import lt.creditco.cupa.remote.PaymentReply;
-import lt.creditco.cupa.remote.RestTemplateBodyInterceptor;
 import lt.creditco.cupa.remote.UpGatewayClient;
 import lt.creditco.cupa.repository.ClientRepository;
 import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.repository.PaymentTransactionPayloadRepository;
 import lt.creditco.cupa.repository.PaymentTransactionRepository;
 import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
+import lt.creditco.cupa.service.dto.PaymentTransactionListFilter;
 import lt.creditco.cupa.service.mapper.PaymentMapper;
 import lt.creditco.cupa.service.mapper.PaymentTransactionMapper;
 import lt.creditco.cupa.web.context.CupaApiContext;
@@ -48,18 +61,29 @@ import com.bpmid.pulltasks.application.PullTaskService;
 import com.bpmid.pulltasks.domain.PullTask;
 import com.bpmid.vapp.web.rest.errors.BadRequestAlertException;
 import com.github.f4b6a3.ulid.UlidCreator;
+import io.micrometer.core.instrument.Timer;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.bpmid.vapp.domain.User;
 
@@ -81,25 +105,40 @@ public class PaymentTransactionService {
     public static final List<TransactionStatus> TURNOVER_AMOUNT_STATUSES = List.of(TransactionStatus.PENDING, TransactionStatus.SUCCESS);
 
     /**
-     * Statuses loaded from the DB for the per-client rolling window; {@link #countTransactions} decides which rows actually count
-     * (e.g. which {@link TransactionStatus#FAILED} descriptions qualify).
+     * Statuses that always count toward the per-client rolling window; {@link TransactionStatus#FAILED} rows count only when
+     * their description matches {@link #MAX_CLIENT_TRANSACTION_COUNT_FAILED_DESCRIPTION_FRAGMENTS}.
      */
-    public static final List<TransactionStatus> MAX_CLIENT_TRANSACTION_COUNT_QUERY_STATUSES = List.of(
+    public static final List<TransactionStatus> MAX_CLIENT_TRANSACTION_COUNT_STATUSES = List.of(
         TransactionStatus.PENDING,
-        TransactionStatus.SUCCESS,
-        TransactionStatus.FAILED
+        TransactionStatus.SUCCESS
     );
 
     /**
      * Substrings matched case-insensitively against {@link PaymentTransaction#getStatusDescription()} for {@link TransactionStatus#FAILED} rows.
-     * Add fragments here for simple inclusion rules; extend the {@link TransactionStatus#FAILED} branch in {@link #countTransactions} for combined rules.
+     * Add fragments here for simple inclusion rules; extend {@link PaymentTransactionRepository#countedForPerClientDailyLimit} for combined rules.
      */
     public static final List<String> MAX_CLIENT_TRANSACTION_COUNT_FAILED_DESCRIPTION_FRAGMENTS = List.of(
         "Blocked, due to risk score. Client over daily limit"
     );
 
+    /** Unique index on (merchant_id, order_id). */
+    static final String MERCHANT_ORDER_ID_INDEX = "ux_payment_transaction__merchant_order";
+
+    /** Unique index on (merchant_id, idempotency_key). */
+    static final String MERCHANT_IDEMPOTENCY_KEY_INDEX = "ux_payment_transaction__merchant_idempotency_key";
+
+    /** SQLState of a unique violation. */
+    private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
+
+    /**
+     * Max ids bound into one {@code IN} list when enriching transaction lists with client and merchant data.
+     */
+    private static final int ENRICHMENT_BATCH_SIZE = 1000;
+
     private final PaymentTransactionRepository paymentTransactionRepository;
 
+    private final PaymentTransactionPayloadRepository paymentTransactionPayloadRepository;
+
     private final PaymentTransactionMapper paymentTransactionMapper;
 
     private final PaymentMapper paymentMapper;
@@ -110,40 +149,57 @@ public class PaymentTransactionService {
 
     private final UpGatewayClient upGatewayClient;
 
-    private final RestTemplateBodyInterceptor bodyInterceptor;
-
     private final ApplicationEventPublisher eventPublisher;
 
     private final JHipsterProperties jHipsterProperties;
 
     private final Environment environment;
 
+    private final DailyTurnoverLedger dailyTurnoverLedger;
+
+    private final WebhookMerchantIndex webhookMerchantIndex;
+
+    private final PaymentMetrics paymentMetrics;
+
+    private final DailyTurnoverRollup dailyTurnoverRollup;
+
     // Optional pull-tasks dependencies (only available when pulltasks.enabled=true)
     private PullTaskService pullTaskService;
     private PullTaskFactory pullTaskFactory;
 
+    // Optional async placement executor (only available when application.async-placement.enabled=true)
+    private PaymentPlacementExecutor paymentPlacementExecutor;
+
     public PaymentTransactionService(
         PaymentTransactionRepository paymentTransactionRepository,
+        PaymentTransactionPayloadRepository paymentTransactionPayloadRepository,
         PaymentTransactionMapper paymentTransactionMapper,
         PaymentMapper paymentMapper,
         ClientRepository clientRepository,
         MerchantRepository merchantRepository,
         UpGatewayClient upGatewayClient,
-        RestTemplateBodyInterceptor bodyInterceptor,
         ApplicationEventPublisher eventPublisher,
         JHipsterProperties jHipsterProperties,
-        Environment environment
+        Environment environment,
+        DailyTurnoverLedger dailyTurnoverLedger,
+        WebhookMerchantIndex webhookMerchantIndex,
+        PaymentMetrics paymentMetrics,
+        DailyTurnoverRollup dailyTurnoverRollup
     ) {
         this.paymentTransactionRepository = paymentTransactionRepository;
+        this.paymentTransactionPayloadRepository = paymentTransactionPayloadRepository;
         this.paymentTransactionMapper = paymentTransactionMapper;
         this.paymentMapper = paymentMapper;
         this.clientRepository = clientRepository;
         this.merchantRepository = merchantRepository;
         this.upGatewayClient = upGatewayClient;
-        this.bodyInterceptor = bodyInterceptor;
         this.eventPublisher = eventPublisher;
         this.jHipsterProperties = jHipsterProperties;
         this.environment = environment;
+        this.dailyTurnoverLedger = dailyTurnoverLedger;
+        this.webhookMerchantIndex = webhookMerchantIndex;
+        this.paymentMetrics = paymentMetrics;
+        this.dailyTurnoverRollup = dailyTurnoverRollup;
     }
 
     /**
@@ -162,6 +218,33 @@ public class PaymentTransactionService {
         this.pullTaskFactory = pullTaskFactory;
     }
 
+    /**
+     * Optional setter for PaymentPlacementExecutor (injected when application.async-placement.enabled=true).
+     */
+    @Autowired(required = false)
+    public void setPaymentPlacementExecutor(PaymentPlacementExecutor paymentPlacementExecutor) {
+        this.paymentPlacementExecutor = paymentPlacementExecutor;
+    }
+
+    /**
+     * Loads today's turnover per merchant and environment into the {@link DailyTurnoverLedger} with one grouped query,
+     * so the first payments after startup do not each seed their merchant from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildDailyTurnoverLedger() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Map<DailyTurnoverLedger.Key, BigDecimal> totals = new HashMap<>();
+        for (PaymentTransactionRepository.TurnoverTotal total : paymentTransactionRepository.getTotalAmountsByMerchantAndEnvironmentAndDateRange(
+            TURNOVER_AMOUNT_STATUSES,
+            today.atStartOfDay().toInstant(ZoneOffset.UTC),
+            today.atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC)
+        )) {
+            totals.put(new DailyTurnoverLedger.Key(total.getMerchantId(), total.getEnvironment(), today), total.getTotal());
+        }
+        dailyTurnoverLedger.rebuild(today, totals);
+    }
+
     /**
      * Check if the current profile is production.
      *
@@ -178,7 +261,7 @@ public class PaymentTransactionService {
 
     /**
      * Counts payment transactions that apply toward the per-client daily limit for the rolling window starting at {@code afterRequestTimestamp}.
-     * Same rules as (status switch + FAILED description fragments in Java).
+     * The status and FAILED description rules are evaluated by the database; only the count is returned.
      */
     public int countTransactions(
         MerchantMode environment,
@@ -186,49 +269,27 @@ public class PaymentTransactionService {
         String clientEmail,
         Instant afterRequestTimestamp
     ) {
-        List<PaymentTransaction> transactions = paymentTransactionRepository.findTransactionsForPerClientDailyLimit(
-            environment,
-            gatewayMerchantId,
-            clientEmail,
-            afterRequestTimestamp,
-            MAX_CLIENT_TRANSACTION_COUNT_QUERY_STATUSES
+        long count = paymentTransactionRepository.count(
+            PaymentTransactionRepository.countedForPerClientDailyLimit(
+                environment,
+                gatewayMerchantId,
+                clientEmail,
+                afterRequestTimestamp,
+                MAX_CLIENT_TRANSACTION_COUNT_STATUSES,
+                MAX_CLIENT_TRANSACTION_COUNT_FAILED_DESCRIPTION_FRAGMENTS
+            )
         );
-        int count = 0;
-        for (PaymentTransaction tx : transactions) {
-            if (tx == null || tx.getStatus() == null) {
-                continue;
-            }
-            switch (tx.getStatus()) {
-                case PENDING:
-                case SUCCESS:
-                    count++;
-                    break;
-                case FAILED:
-                    String desc = tx.getStatusDescription();
-                    if (!StringUtils.isBlank(desc)) {
-                        for (String fragment : MAX_CLIENT_TRANSACTION_COUNT_FAILED_DESCRIPTION_FRAGMENTS) {
-                            if (StringUtils.containsIgnoreCase(desc, fragment)) {
-                                count++;
-                                break;
-                            }
-                        }
-                    }
-                    break;
-                default:
-                    break;
-            }
-        }
-        return count;
+        return Math.toIntExact(count);
     }
 
-
     /**
      * Validate payment transaction data before saving.
      *
      * @param paymentTransactionDTO the entity to validate.
+     * @return the daily turnover reservation key, or null if no daily amount limit applies.
      * @throws BadRequestAlertException if validation fails.
      */
-    private void validatePaymentTransaction(PaymentTransactionDTO paymentTransactionDTO, CupaApiContext.CupaApiContextData context) {
+    private DailyTurnoverLedger.Key validatePaymentTransaction(PaymentTransactionDTO paymentTransactionDTO, CupaApiContext.CupaApiContextData context) {
         MerchantContext merchantContext = context.getMerchantContext();
 
 
@@ -306,29 +367,6 @@ public class PaymentTransactionService {
             }
         }
 
-        if (merchantContext.getDailyAmountLimit() != null){
-            LocalDate paymentDate = paymentTransactionDTO.getRequestTimestamp() == null ? LocalDate.now() : paymentTransactionDTO.getRequestTimestamp().atZone(ZoneOffset.UTC).toLocalDate();
-            Instant startOfDay = paymentDate.atStartOfDay().toInstant(ZoneOffset.UTC);
-            Instant endOfDay = paymentDate.atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC);
-            DailyAmountLimit dailyAmountLimit = context.getMerchantContext().getDailyAmountLimit();
-            String merchantId = context.getMerchantId();
-            MerchantMode environment = context.getMerchantContext().getMode();
-
-            if (dailyAmountLimit.isLimitExceeded(paymentTransactionDTO.getAmount(), null, paymentDate) || 
-                dailyAmountLimit.isLimitExceeded(
-                    paymentTransactionDTO.getAmount(),
-                    paymentTransactionRepository.getTotalAmountByMerchantIdAndEnvironmentAndDateRange(
-                        merchantId,
-                        environment,
-                        TURNOVER_AMOUNT_STATUSES,
-                        startOfDay,
-                        endOfDay
-                    ),
-                    paymentDate
-                )) {
-                throw new BadRequestAlertException("Daily amount limit exceeded", "PaymentTransaction", "dailyAmountLimitExceeded");
-            }
-        }
         Instant dateRangeStart = paymentTransactionDTO.getRequestTimestamp().minus(24, ChronoUnit.HOURS);
         String remoteMerchantId = context.getMerchantContext().getGatewayMerchantId();
         String clientEmail = paymentTransactionDTO.getClientEmail() == null ? client.getEmailAddress() : paymentTransactionDTO.getClientEmail().trim();
@@ -351,6 +389,43 @@ public class PaymentTransactionService {
             );
         }
 
+        return reserveDailyTurnover(paymentTransactionDTO, context);
+    }
+
+    /**
+     * Checks the merchant daily amount limit and reserves the payment amount in the {@link DailyTurnoverLedger}.
+     * The day total is read from the database only when the ledger does not hold it yet.
+     * Turnover is summed by the UTC day of the created date everywhere, so the reservation is made under today, the
+     * day the payment is about to be created on.
+     *
+     * @return the ledger key the amount was reserved under, or null if the merchant has no daily amount limit.
+     * @throws BadRequestAlertException if the limit would be exceeded.
+     */
+    private DailyTurnoverLedger.Key reserveDailyTurnover(PaymentTransactionDTO paymentTransactionDTO, CupaApiContext.CupaApiContextData context) {
+        DailyAmountLimit dailyAmountLimit = context.getMerchantContext().getDailyAmountLimit();
+        if (dailyAmountLimit == null) {
+            return null;
+        }
+        LocalDate paymentDate = LocalDate.now(ZoneOffset.UTC);
+        Instant startOfDay = paymentDate.atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant endOfDay = paymentDate.atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC);
+        String merchantId = context.getMerchantId();
+        MerchantMode environment = context.getMerchantContext().getMode();
+
+        DailyTurnoverLedger.Key key = new DailyTurnoverLedger.Key(merchantId, environment, paymentDate);
+        boolean reserved = dailyTurnoverLedger.tryReserve(key, paymentTransactionDTO.getAmount(), dailyAmountLimit, () ->
+            paymentTransactionRepository.getTotalAmountByMerchantIdAndEnvironmentAndDateRange(
+                merchantId,
+                environment,
+                TURNOVER_AMOUNT_STATUSES,
+                startOfDay,
+                endOfDay
+            )
+        );
+        if (!reserved) {
+            throw new BadRequestAlertException("Daily amount limit exceeded", "PaymentTransaction", "dailyAmountLimitExceeded");
+        }
+        return key;
     }
 
     /**
@@ -360,10 +435,61 @@ public class PaymentTransactionService {
      * @return the persisted entity.
      */
     public PaymentTransactionDTO save(PaymentTransactionDTO paymentTransactionDTO, CupaApiContext.CupaApiContextData context) {
-        LOG.debug("Request to save PaymentTransaction : {}, context: {}", paymentTransactionDTO, context);
+        return save(paymentTransactionDTO, context, false);
+    }
 
-        // Validate before saving
-        validatePaymentTransaction(paymentTransactionDTO, context);
+    /**
+     * Save a paymentTransaction, optionally placing it with the gateway in the background.
+     *
+     * @param paymentTransactionDTO the entity to save.
+     * @param placeAsync when {@code true} and async placement is enabled, the transaction is returned as
+     *     {@link TransactionStatus#RECEIVED} and placed by {@link PaymentPlacementExecutor} after the commit.
+     * @return the persisted entity.
+     */
+    public PaymentTransactionDTO save(
+        PaymentTransactionDTO paymentTransactionDTO,
+        CupaApiContext.CupaApiContextData context,
+        boolean placeAsync
+    ) {
+        LOG.debug("Request to save PaymentTransaction : {}, context: {}, async: {}", paymentTransactionDTO, context, placeAsync);
+
+        // Validate before saving; reserves the amount against the daily amount limit
+        MerchantMode environment = context.getMerchantContext() != null ? context.getMerchantContext().getMode() : null;
+        Timer.Sample validation = paymentMetrics.start();
+        String validationOutcome = "error";
+        DailyTurnoverLedger.Key reservation;
+        try {
+            reservation = validatePaymentTransaction(paymentTransactionDTO, context);
+            validationOutcome = "ok";
+        } catch (BadRequestAlertException e) {
+            validationOutcome = "rejected";
+            throw e;
+        } finally {
+            paymentMetrics.stop(validation, PaymentMetrics.Stage.VALIDATION, paymentTransactionDTO.getMerchantId(), environment, validationOutcome);
+        }
+        BigDecimal reservedAmount = paymentTransactionDTO.getAmount();
+        boolean placementSlot = placeAsync && reservePlacementSlot();
+        try {
+            return doSave(paymentTransactionDTO, context, reservation, reservedAmount, placementSlot);
+        } catch (RuntimeException e) {
+            // the slot is handed to placeAfterCommit only as doSave's last step, so it is still ours here
+            if (placementSlot) {
+                paymentPlacementExecutor.release();
+            }
+            if (reservation != null) {
+                dailyTurnoverLedger.release(reservation, reservedAmount);
+            }
+            throw e;
+        }
+    }
+
+    private PaymentTransactionDTO doSave(
+        PaymentTransactionDTO paymentTransactionDTO,
+        CupaApiContext.CupaApiContextData context,
+        DailyTurnoverLedger.Key reservation,
+        BigDecimal reservedAmount,
+        boolean placeAsync
+    ) {
 
         // Set environment from context
         if (context.getMerchantContext() != null) {
@@ -388,18 +514,197 @@ public class PaymentTransactionService {
             paymentTransaction.setRequestTimestamp(Instant.now());
         }
 
-        // Check for duplicate orderId for the merchant
-        if (
-            paymentTransactionRepository.existsByMerchantIdAndOrderId(paymentTransaction.getMerchantId(), paymentTransaction.getOrderId())
-        ) {
-            throw new BadRequestAlertException("Duplicate OrderId", "PaymentTransaction", "duplicateOrderId");
+        paymentTransaction.setStatus(TransactionStatus.RECEIVED);
+        Timer.Sample persist = paymentMetrics.start();
+        String persistOutcome = "error";
+        try {
+            paymentTransaction = paymentTransactionRepository.saveAndFlush(paymentTransaction);
+            persistOutcome = "ok";
+        } catch (DataIntegrityViolationException e) {
+            // the unique indexes are the duplicate check, so a retried request costs no extra query
+            Optional<String> index = violatedUniqueIndex(e);
+            if (index.isPresent()) {
+                // a violation the driver did not name is put down to the Idempotency-Key if the payment has one
+                boolean unnamed = index.get().isEmpty();
+                if (unnamed ? paymentTransaction.getIdempotencyKey() != null : index.get().equals(MERCHANT_IDEMPOTENCY_KEY_INDEX)) {
+                    persistOutcome = "duplicate";
+                    throw new BadRequestAlertException("Duplicate Idempotency-Key", "PaymentTransaction", "duplicateIdempotencyKey");
+                }
+                if (unnamed || index.get().equals(MERCHANT_ORDER_ID_INDEX)) {
+                    persistOutcome = "duplicate";
+                    throw new BadRequestAlertException("Duplicate OrderId", "PaymentTransaction", "duplicateOrderId");
+                }
+            }
+            throw e;
+        } finally {
+            paymentMetrics.stop(
+                persist,
+                PaymentMetrics.Stage.PERSIST,
+                paymentTransactionDTO.getMerchantId(),
+                paymentTransactionDTO.getEnvironment(),
+                persistOutcome
+            );
         }
+        dailyTurnoverRollup.recordChange(paymentTransaction, null, null);
+        paymentMetrics.statusChanged(paymentTransaction, null);
 
-        paymentTransaction.setStatus(TransactionStatus.RECEIVED);
-        paymentTransaction = paymentTransactionRepository.saveAndFlush(paymentTransaction);
+        if (placeAsync) {
+            PaymentTransactionDTO received = enrichWithRelatedData(paymentTransactionMapper.toDto(paymentTransaction));
+            placeAfterCommit(paymentTransaction.getId(), context, reservation, reservedAmount);
+            return received;
+        }
 
         paymentTransaction = placePayment(paymentTransaction, context);
-        return enrichWithRelatedData(paymentTransactionMapper.toDto(paymentTransaction));
+        PaymentTransactionDTO result = enrichWithRelatedData(paymentTransactionMapper.toDto(paymentTransaction));
+        // placePayment recorded the payment's turnover, the reservation only held the amount until then
+        if (reservation != null) {
+            dailyTurnoverLedger.release(reservation, reservedAmount);
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if a {@link PaymentPlacementExecutor} slot was reserved for a background placement;
+     *     otherwise the payment is placed within the request, and the response carries the placement result.
+     */
+    private boolean reservePlacementSlot() {
+        if (paymentPlacementExecutor == null) {
+            return false;
+        }
+        if (!paymentPlacementExecutor.tryReserve()) {
+            LOG.debug("Payment placement executor is saturated, placing the payment within the request");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Hands the RECEIVED transaction to {@link PaymentPlacementExecutor} once it is committed, so the placement thread
+     * can read it. If the transaction rolls back, the reserved slot and the daily amount reservation are released
+     * instead. A placement the executor no longer accepts stays RECEIVED for the recovery sweep.
+     */
+    private void placeAfterCommit(
+        String transactionId,
+        CupaApiContext.CupaApiContextData context,
+        DailyTurnoverLedger.Key reservation,
+        BigDecimal reservedAmount
+    ) {
+        Runnable placement = () -> placeReceivedPayment(transactionId, context, reservation, reservedAmount);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            executePlacement(transactionId, placement);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executePlacement(transactionId, placement);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        paymentPlacementExecutor.release();
+                        if (reservation != null) {
+                            dailyTurnoverLedger.release(reservation, reservedAmount);
+                        }
+                    }
+                }
+            }
+        );
+    }
+
+    private void executePlacement(String transactionId, Runnable placement) {
+        try {
+            paymentPlacementExecutor.execute(placement);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Payment placement executor is shutting down, payment {} stays RECEIVED", transactionId);
+        }
+    }
+
+    /**
+     * Places a committed RECEIVED transaction with the gateway; runs on a {@link PaymentPlacementExecutor} thread.
+     * The result reaches the merchant through the status query API and the webhook, as for synchronous placements.
+     */
+    private void placeReceivedPayment(
+        String transactionId,
+        CupaApiContext.CupaApiContextData context,
+        DailyTurnoverLedger.Key reservation,
+        BigDecimal reservedAmount
+    ) {
+        try {
+            PaymentTransaction paymentTransaction = paymentTransactionRepository
+                .findById(transactionId)
+                .orElseThrow(() -> new IllegalStateException("PaymentTransaction not found id=" + transactionId));
+            if (paymentTransaction.getStatus() != TransactionStatus.RECEIVED) {
+                LOG.info("Payment {} was placed by the recovery sweep, status: {}", transactionId, paymentTransaction.getStatus());
+                return;
+            }
+            paymentTransaction = placePayment(paymentTransaction, context);
+            LOG.info("Placed payment {} asynchronously, status: {}", transactionId, paymentTransaction.getStatus());
+        } catch (RuntimeException e) {
+            LOG.error("Failed to place payment {} asynchronously", transactionId, e);
+        } finally {
+            // placePayment recorded the payment's turnover, the reservation only held the amount until then
+            if (reservation != null) {
+                dailyTurnoverLedger.release(reservation, reservedAmount);
+            }
+        }
+    }
+
+    /**
+     * Places a RECEIVED transaction whose background placement was lost to a restart or a crash; called by
+     * {@link PaymentPlacementRecovery}. The transaction is claimed first, so only one node places it.
+     *
+     * Runs outside a transaction, so the claim and the start of the placement are committed before the gateway is called.
+     *
+     * @param staleBefore the transaction is placed only if it was not modified since.
+     * @return {@code false} if the transaction was placed or claimed in the meantime.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean placeStaleReceivedPayment(String transactionId, Instant staleBefore, CupaApiContext.CupaApiContextData context) {
+        if (paymentTransactionRepository.claimStale(transactionId, TransactionStatus.RECEIVED, staleBefore, Instant.now()) == 0) {
+            return false;
+        }
+        PaymentTransaction paymentTransaction = paymentTransactionRepository
+            .findById(transactionId)
+            .orElseThrow(() -> new IllegalStateException("PaymentTransaction not found id=" + transactionId));
+        paymentTransaction = placePayment(paymentTransaction, context);
+        LOG.info("Recovered placement of payment {}, status: {}", transactionId, paymentTransaction.getStatus());
+        return true;
+    }
+
+    /**
+     * @return {@code ok}, {@code http_<status>} for a gateway error reply, or {@code error} if there was no reply.
+     */
+    private static String gatewayOutcome(GatewayResponse<PaymentReply> upResponse) {
+        if (upResponse == null || upResponse.getResponse() == null) {
+            return "error";
+        }
+        int statusCode = upResponse.getResponse().getStatusCode();
+        return statusCode == 200 || statusCode == 201 || statusCode == 210 ? "ok" : "http_" + statusCode;
+    }
+
+    /**
+     * @return the unique index {@code e} violated, in lower case and without schema; an empty name for a unique
+     *     violation (SQLState {@code 23505}) whose constraint the driver did not name; empty if {@code e} is not a
+     *     unique violation.
+     */
+    private static Optional<String> violatedUniqueIndex(DataIntegrityViolationException e) {
+        boolean uniqueViolation = false;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                // H2 names it like PUBLIC.UX_... ON PUBLIC.PAYMENT_TRANSACTION(...), PostgreSQL just ux_...
+                String name = violation.getConstraintName().replace("\"", "").toLowerCase(Locale.ROOT);
+                int end = name.indexOf(' ');
+                name = end < 0 ? name : name.substring(0, end);
+                return Optional.of(name.substring(name.lastIndexOf('.') + 1));
+            }
+            if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION_SQL_STATE.equals(sqlException.getSQLState())) {
+                uniqueViolation = true;
+            }
+        }
+        return uniqueViolation ? Optional.of("") : Optional.empty();
     }
 
     public PaymentTransactionDTO queryPaymentFromGateway(String transactionId, CupaApiContext.CupaApiContextData context) {
@@ -422,18 +727,28 @@ public class PaymentTransactionService {
             );
         }
         GatewayConfig config = getGatewayConfig(context, paymentTransaction);
-        bodyInterceptor.clear();
 
-        GatewayResponse<PaymentReply> upResponse = upGatewayClient.queryTransaction(paymentTransaction.getOrderId(), config);
+        GatewayResponse<PaymentReply> upResponse = null;
+        Timer.Sample query = paymentMetrics.start();
+        try {
+            upResponse = upGatewayClient.queryTransaction(paymentTransaction.getOrderId(), config);
+        } finally {
+            paymentMetrics.stop(
+                query,
+                PaymentMetrics.Stage.GATEWAY_QUERY,
+                paymentTransaction.getMerchantId(),
+                paymentTransaction.getEnvironment(),
+                gatewayOutcome(upResponse)
+            );
+        }
 
         if (upResponse != null && upResponse.getResponse() != null) {
             if (upResponse.getResponse().getStatusCode() == 200) {
-                RestTemplateBodyInterceptor.Trace trace = bodyInterceptor.getLastTrace();
-                String responseBody = trace != null ? trace.getResponseBody() : null;
+                GatewayTrace trace = upResponse.getTrace();
                 paymentTransaction = paymentTransactionRepository // reread the payment transaction to get the latest state
                     .findById(paymentTransaction.getId())
                     .orElseThrow(() -> new RuntimeException("PaymentTransaction not found id=" + transactionId));
-                paymentTransaction = mergeAndSaveIfNeeded(paymentTransaction, upResponse.getReply(), responseBody);
+                paymentTransaction = mergeAndSaveIfNeeded(paymentTransaction, upResponse.getReply(), () -> trace != null ? trace.getResponseBody() : null);
             }
         }
 
@@ -444,32 +759,46 @@ public class PaymentTransactionService {
                 paymentTransaction.getMerchantId(),
                 paymentTransaction.getBalance()
             );
-            eventPublisher.publishEvent(
-                new MerchantBalanceUpdateEvent(this, paymentTransaction.getMerchantId(), paymentTransaction.getBalance())
-            );
+            eventPublisher.publishEvent(merchantBalanceUpdateEvent(paymentTransaction));
         }
         return enrichWithRelatedData(paymentTransactionMapper.toDto(paymentTransaction));
     }
 
+    /**
+     * Places a RECEIVED transaction with the gateway. The start of the placement is recorded first, in the caller's
+     * transaction or committed right away for background placements, so a payment whose placement failed without a
+     * reply stays RECEIVED with an unknown outcome and is not placed again by {@link PaymentPlacementRecovery}.
+     */
     private PaymentTransaction placePayment(PaymentTransaction paymentTransaction, CupaApiContext.CupaApiContextData context) {
         GatewayConfig config = getGatewayConfig(context, paymentTransaction);
-        bodyInterceptor.clear();
 
         lt.creditco.cupa.remote.PaymentRequest upPaymentRequest = upPaymentRequestFrom(paymentTransaction);
 
+        if (paymentTransactionRepository.markPlacementStarted(paymentTransaction.getId(), TransactionStatus.RECEIVED, Instant.now()) == 0) {
+            LOG.warn("Placement of payment {} was already started, not placing it again", paymentTransaction.getId());
+            return paymentTransaction;
+        }
+
+        TransactionStatus previousStatus = paymentTransaction.getStatus();
         GatewayResponse<PaymentReply> upResponse = null;
         String statusDescription = null;
+        Timer.Sample placement = paymentMetrics.start();
         try {
             upResponse = upGatewayClient.placeTransaction(upPaymentRequest, config);
         } catch (Exception e) {
-            LOG.error("Error placing payment", e);
+            // the gateway may have accepted the payment; it stays RECEIVED with its placement started
+            LOG.error("Error placing payment {}, outcome unknown", paymentTransaction.getId(), e);
+            statusDescription = "ERROR: Gateway placement outcome unknown";
+        } finally {
+            paymentMetrics.stop(
+                placement,
+                PaymentMetrics.Stage.GATEWAY_PLACE,
+                paymentTransaction.getMerchantId(),
+                paymentTransaction.getEnvironment(),
+                gatewayOutcome(upResponse)
+            );
         }
 
-        RestTemplateBodyInterceptor.Trace trace = bodyInterceptor.getLastTrace();
-        if (trace != null) {
-            paymentTransaction.setRequestData(trace.getRequestBody());
-            paymentTransaction.setInitialResponseData(trace.getResponseBody());
-        }
         if (upResponse != null) {
             if (upResponse.getResponse() == null) {
                 paymentTransaction.setStatus(TransactionStatus.FAILED);
@@ -489,6 +818,17 @@ public class PaymentTransactionService {
         }
         paymentTransaction.setStatusDescription(statusDescription);
         paymentTransaction = paymentTransactionRepository.saveAndFlush(paymentTransaction);
+        dailyTurnoverLedger.recordChange(paymentTransaction, previousStatus, paymentTransaction.getAmount());
+        dailyTurnoverRollup.recordChange(paymentTransaction, previousStatus, paymentTransaction.getAmount());
+        paymentMetrics.statusChanged(paymentTransaction, previousStatus);
+
+        GatewayTrace trace = upResponse != null ? upResponse.getTrace() : null;
+        if (trace != null) {
+            PaymentTransactionPayload payload = payloadOf(paymentTransaction.getId());
+            payload.setRequestData(trace.getRequestBody());
+            payload.setInitialResponseData(trace.getResponseBody());
+            paymentTransactionPayloadRepository.save(payload);
+        }
         
         // Enqueue task to query payment status if transaction is pending
         if (paymentTransaction.getStatus() == TransactionStatus.PENDING) {
@@ -503,6 +843,10 @@ public class PaymentTransactionService {
      * Only available when pull-tasks module is enabled.
      */
     private void enqueueQueryPaymentStatusTask(PaymentTransaction paymentTransaction) {
+        if (Boolean.TRUE.equals(environment.getProperty("application.reconciliation.enabled", Boolean.class))) {
+            LOG.debug("Pending transaction {} is polled by PaymentReconciliationService", paymentTransaction.getId());
+            return;
+        }
         if (pullTaskService == null || pullTaskFactory == null) {
             LOG.debug("Pull-tasks not enabled, skipping task enqueueing for transaction: {}", 
                 paymentTransaction.getId());
@@ -512,6 +856,7 @@ public class PaymentTransactionService {
         try {
             PullTask task = pullTaskFactory.createQueryPaymentStatusTask(paymentTransaction);
             pullTaskService.enqueueTask(task);
+            eventPublisher.publishEvent(new PullTaskScheduledEvent(this, task.getDueDate()));
             LOG.info("Enqueued QueryPaymentStatusTask for transaction: {}, orderId: {}", 
                 paymentTransaction.getId(), paymentTransaction.getOrderId());
         } catch (Exception e) {
@@ -571,6 +916,7 @@ public class PaymentTransactionService {
 
     /**
      * Partially update a paymentTransaction.
+     * The raw gateway payloads given in the DTO are written to the transaction's {@link PaymentTransactionPayload}.
      *
      * @param paymentTransactionDTO the entity to update partially.
      * @return the persisted entity.
@@ -581,15 +927,61 @@ public class PaymentTransactionService {
         return paymentTransactionRepository
             .findById(paymentTransactionDTO.getId())
             .map(existingPaymentTransaction -> {
+                TransactionStatus previousStatus = existingPaymentTransaction.getStatus();
+                BigDecimal previousAmount = existingPaymentTransaction.getAmount();
+                DailyTurnoverRollup.Snapshot previousTurnover = DailyTurnoverRollup.Snapshot.of(existingPaymentTransaction);
                 paymentTransactionMapper.partialUpdate(existingPaymentTransaction, paymentTransactionDTO);
 
-                return existingPaymentTransaction;
+                PaymentTransaction saved = paymentTransactionRepository.saveAndFlush(existingPaymentTransaction);
+                dailyTurnoverLedger.recordChange(saved, previousStatus, previousAmount);
+                dailyTurnoverRollup.recordChange(saved, previousTurnover);
+                paymentMetrics.statusChanged(saved, previousStatus);
+                return saved;
             })
-            .map(paymentTransactionRepository::saveAndFlush)
             .map(paymentTransactionMapper::toDto)
+            .map(dto -> {
+                PaymentTransactionPayload payload = partialUpdatePayload(paymentTransactionDTO);
+                if (payload != null) {
+                    dto.setRequestData(payload.getRequestData());
+                    dto.setInitialResponseData(payload.getInitialResponseData());
+                    dto.setCallbackData(payload.getCallbackData());
+                    dto.setLastQueryData(payload.getLastQueryData());
+                }
+                return dto;
+            })
             .map(this::enrichWithRelatedData);
     }
 
+    /**
+     * Writes the non-null payload fields of the DTO to the transaction's payload.
+     *
+     * @return the saved payload, {@code null} if the DTO carries no payload fields.
+     */
+    private PaymentTransactionPayload partialUpdatePayload(PaymentTransactionDTO paymentTransactionDTO) {
+        if (
+            paymentTransactionDTO.getRequestData() == null &&
+            paymentTransactionDTO.getInitialResponseData() == null &&
+            paymentTransactionDTO.getCallbackData() == null &&
+            paymentTransactionDTO.getLastQueryData() == null
+        ) {
+            return null;
+        }
+        PaymentTransactionPayload payload = payloadOf(paymentTransactionDTO.getId());
+        if (paymentTransactionDTO.getRequestData() != null) {
+            payload.setRequestData(paymentTransactionDTO.getRequestData());
+        }
+        if (paymentTransactionDTO.getInitialResponseData() != null) {
+            payload.setInitialResponseData(paymentTransactionDTO.getInitialResponseData());
+        }
+        if (paymentTransactionDTO.getCallbackData() != null) {
+            payload.setCallbackData(paymentTransactionDTO.getCallbackData());
+        }
+        if (paymentTransactionDTO.getLastQueryData() != null) {
+            payload.setLastQueryData(paymentTransactionDTO.getLastQueryData());
+        }
+        return paymentTransactionPayloadRepository.save(payload);
+    }
+
 
     /**
      * Get all the paymentTransactions with eager load of many-to-many relationships.
@@ -597,10 +989,7 @@ public class PaymentTransactionService {
      * @return the list of entities.
      */
     public Page<PaymentTransactionDTO> findAllWithEagerRelationships(Pageable pageable) {
-        return paymentTransactionRepository
-            .findAllWithEagerRelationships(pageable)
-            .map(paymentTransactionMapper::toDto)
-            .map(this::enrichWithRelatedData);
+        return enrichWithRelatedData(paymentTransactionRepository.findAllWithEagerRelationships(pageable).map(paymentTransactionMapper::toDto));
     }
 
     /**
@@ -641,7 +1030,12 @@ public class PaymentTransactionService {
      */
     public void delete(String id) {
         LOG.debug("Request to delete PaymentTransaction : {}", id);
-        paymentTransactionRepository.deleteById(id);
+        paymentTransactionRepository
+            .findById(id)
+            .ifPresent(paymentTransaction -> {
+                dailyTurnoverRollup.recordRemoval(paymentTransaction);
+                paymentTransactionRepository.delete(paymentTransaction);
+            });
     }
 
     /**
@@ -698,16 +1092,52 @@ public class PaymentTransactionService {
 
     /**
      * Enrich a list of PaymentTransactionDTOs with related entity data.
+     * Clients and merchants referenced by the list are loaded with one projection query each
+     * (per {@link #ENRICHMENT_BATCH_SIZE} distinct ids), so the number of round trips does not grow with the list size.
+     * Same field rules as {@link #enrichWithRelatedData(PaymentTransactionDTO)}.
      *
      * @param dtoList the list of DTOs to enrich
      * @return the enriched list
      */
     private List<PaymentTransactionDTO> enrichWithRelatedData(List<PaymentTransactionDTO> dtoList) {
-        if (dtoList == null) {
+        if (dtoList == null || dtoList.isEmpty()) {
             return dtoList;
         }
 
-        return dtoList.stream().map(this::enrichWithRelatedData).toList();
+        Set<String> clientIds = new HashSet<>();
+        Set<String> merchantIds = new HashSet<>();
+        for (PaymentTransactionDTO dto : dtoList) {
+            if (dto.getClientId() != null) {
+                clientIds.add(dto.getClientId());
+            }
+            if (dto.getMerchantId() != null) {
+                merchantIds.add(dto.getMerchantId());
+            }
+        }
+
+        Map<String, ClientRepository.ClientSummary> clients = new HashMap<>();
+        for (List<String> ids : partition(clientIds)) {
+            clientRepository.findSummariesByIds(ids).forEach(client -> clients.put(client.getId(), client));
+        }
+        Map<String, String> merchantNames = new HashMap<>();
+        for (List<String> ids : partition(merchantIds)) {
+            merchantRepository.findSummariesByIds(ids).forEach(merchant -> merchantNames.put(merchant.getId(), merchant.getName()));
+        }
+
+        for (PaymentTransactionDTO dto : dtoList) {
+            ClientRepository.ClientSummary client = dto.getClientId() != null ? clients.get(dto.getClientId()) : null;
+            if (client != null) {
+                dto.setMerchantClientId(client.getMerchantClientId());
+                dto.setClientName(client.getName());
+                if (dto.getClientEmail() == null || dto.getClientEmail().isBlank()) {
+                    dto.setClientEmail(client.getEmailAddress());
+                }
+            }
+            if (dto.getMerchantId() != null && merchantNames.containsKey(dto.getMerchantId())) {
+                dto.setMerchantName(merchantNames.get(dto.getMerchantId()));
+            }
+        }
+        return dtoList;
     }
 
     /**
@@ -721,11 +1151,36 @@ public class PaymentTransactionService {
             return dtoPage;
         }
 
-        List<PaymentTransactionDTO> enrichedContent = enrichWithRelatedData(dtoPage.getContent());
-        return dtoPage.map(dto -> enrichWithRelatedData(dto));
+        enrichWithRelatedData(dtoPage.getContent());
+        return dtoPage;
+    }
+
+    private static List<List<String>> partition(Set<String> ids) {
+        List<String> all = new ArrayList<>(ids);
+        List<List<String>> batches = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += ENRICHMENT_BATCH_SIZE) {
+            batches.add(all.subList(from, Math.min(from + ENRICHMENT_BATCH_SIZE, all.size())));
+        }
+        return batches;
     }
 
     public Payment createPayment(PaymentRequest request, CupaApiContext.CupaApiContextData context) {
+        return createPayment(request, context, false, null);
+    }
+
+    /**
+     * Creates a payment from an API request.
+     *
+     * @param placeAsync place the payment with the gateway in the background if async placement is enabled; the
+     *     returned payment is then still {@link TransactionStatus#RECEIVED}.
+     * @param idempotencyKey the request's {@code Idempotency-Key}, stored with the transaction; may be {@code null}.
+     */
+    public Payment createPayment(
+        PaymentRequest request,
+        CupaApiContext.CupaApiContextData context,
+        boolean placeAsync,
+        String idempotencyKey
+    ) {
         Objects.requireNonNull(context, "Context is required");
         LOG.info(
             "createPayment({}), executed by {}, merchant: {}, environment: {}",
@@ -754,6 +1209,7 @@ public class PaymentTransactionService {
         paymentTransactionDTO.setCurrency(currencyFromPaymentCurrency(request.getCurrency()));
         paymentTransactionDTO.setPaymentBrand(paymentBrandFromCardType(request.getCardType()));
         paymentTransactionDTO.setPaymentFlow(request.getPaymentFlow());
+        paymentTransactionDTO.setIdempotencyKey(idempotencyKey);
 
         paymentTransactionDTO.setStatus(TransactionStatus.RECEIVED);
 
@@ -771,13 +1227,28 @@ public class PaymentTransactionService {
             createOrUpdateClient(paymentTransactionDTO.getMerchantId(), paymentTransactionDTO.getClientId(), request.getClient(), context);
         }
 
-        paymentTransactionDTO = save(paymentTransactionDTO, context);
+        paymentTransactionDTO = save(paymentTransactionDTO, context, placeAsync);
 
         Payment payment = paymentMapper.toPayment(paymentTransactionDTO);
 
         return payment;
     }
 
+    /**
+     * The payment created by the API request with this {@code Idempotency-Key}, in its current state.
+     *
+     * @param merchantId the merchant of the request.
+     * @param idempotencyKey the request's {@code Idempotency-Key}.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Payment> findPaymentByIdempotencyKey(String merchantId, String idempotencyKey) {
+        return paymentTransactionRepository
+            .findByMerchantIdAndIdempotencyKey(merchantId, idempotencyKey)
+            .map(paymentTransactionMapper::toDto)
+            .map(this::enrichWithRelatedData)
+            .map(paymentMapper::toPayment);
+    }
+
     private Currency currencyFromPaymentCurrency(PaymentCurrency paymentCurrency) {
         return Currency.valueOf(paymentCurrency.name());
     }
@@ -842,16 +1313,56 @@ public class PaymentTransactionService {
 
     /**
      * Merges fields from PaymentReply into PaymentTransaction and saves if changes were made.
-     * Uses the Merger utility to track changes and build a descriptive log.
      *
      * @param paymentTransaction the target PaymentTransaction entity
      * @param paymentReply the source PaymentReply from gateway response
+     * @param lastQueryData supplies the raw reply, only called when it is stored
      * @return the updated PaymentTransaction (saved if changes were made)
      */
-    private PaymentTransaction mergeAndSaveIfNeeded(PaymentTransaction paymentTransaction, PaymentReply paymentReply, String responseBody) {
+    private PaymentTransaction mergeAndSaveIfNeeded(
+        PaymentTransaction paymentTransaction,
+        PaymentReply paymentReply,
+        Supplier<String> lastQueryData
+    ) {
+        TransactionStatus previousStatus = paymentTransaction.getStatus();
+        BigDecimal previousAmount = paymentTransaction.getAmount();
+        if (mergeReply(paymentTransaction, paymentReply)) {
+            paymentTransaction = paymentTransactionRepository.saveAndFlush(paymentTransaction);
+            dailyTurnoverLedger.recordChange(paymentTransaction, previousStatus, previousAmount);
+            dailyTurnoverRollup.recordChange(paymentTransaction, previousStatus, previousAmount);
+            paymentMetrics.statusChanged(paymentTransaction, previousStatus);
+            if (storesLastQueryData(paymentReply)) {
+                PaymentTransactionPayload payload = payloadOf(paymentTransaction.getId());
+                payload.setLastQueryData(lastQueryData.get());
+                paymentTransactionPayloadRepository.save(payload);
+            }
+        }
+        return paymentTransaction;
+    }
+
+    /**
+     * The last query data is kept only for replies that carry the gateway's status date.
+     */
+    private static boolean storesLastQueryData(PaymentReply paymentReply) {
+        return paymentReply.getDate() != null;
+    }
+
+    private PaymentTransactionPayload payloadOf(String transactionId) {
+        return paymentTransactionPayloadRepository.findById(transactionId).orElseGet(() -> new PaymentTransactionPayload(transactionId));
+    }
+
+    /**
+     * Merges fields from PaymentReply into PaymentTransaction without saving it.
+     * Uses the Merger utility to track changes and build a descriptive log.
+     *
+     * @param paymentTransaction the target PaymentTransaction entity
+     * @param paymentReply the source PaymentReply from gateway response
+     * @return true if the transaction was changed
+     */
+    private boolean mergeReply(PaymentTransaction paymentTransaction, PaymentReply paymentReply) {
         if (paymentReply == null) {
             LOG.debug("PaymentReply is null, no merging needed for transaction: {}", paymentTransaction.getId());
-            return paymentTransaction;
+            return false;
         }
 
         // Use the Merger utility to track changes
@@ -873,32 +1384,141 @@ public class PaymentTransactionService {
             .merge("Status", paymentTransaction::getStatus, newStatus, paymentTransaction::setStatus);
 
         // Check if any changes were made
-        if (merger.hasChanges()) {
-            if (paymentReply.getDate() != null) {
-                paymentTransaction.setLastQueryData(responseBody);
-            }
-            // Log the changes with main payment fields for context
-            String changeLog = merger.getChangeLog();
-            LOG.info(
-                "Payment transaction updated - ID: {}, MerchantID: {}, OrderID: {}, Changes: {}",
-                paymentTransaction.getId(),
-                paymentTransaction.getMerchantId(),
-                paymentTransaction.getOrderId(),
-                changeLog
-            );
-
-            // Save the updated transaction
-            paymentTransaction = paymentTransactionRepository.saveAndFlush(paymentTransaction);
-        } else {
+        if (!merger.hasChanges()) {
             LOG.debug(
                 "No changes detected for payment transaction - ID: {}, MerchantID: {}, OrderID: {}",
                 paymentTransaction.getId(),
                 paymentTransaction.getMerchantId(),
                 paymentTransaction.getOrderId()
             );
+            return false;
+        }
+        // Log the changes with main payment fields for context
+        LOG.info(
+            "Payment transaction updated - ID: {}, MerchantID: {}, OrderID: {}, Changes: {}",
+            paymentTransaction.getId(),
+            paymentTransaction.getMerchantId(),
+            paymentTransaction.getOrderId(),
+            merger.getChangeLog()
+        );
+        return true;
+    }
+
+    /**
+     * A gateway status query answer for one transaction.
+     *
+     * @param transactionId the queried transaction.
+     * @param reply the reply from the gateway.
+     * @param trace the raw call, its response body is stored as the last query data.
+     */
+    public record StatusReply(String transactionId, PaymentReply reply, GatewayTrace trace) {
+        String lastQueryData() {
+            return trace != null ? trace.getResponseBody() : null;
         }
+    }
 
-        return paymentTransaction;
+    private record MergedTransaction(PaymentTransaction paymentTransaction, TransactionStatus previousStatus, BigDecimal previousAmount) {}
+
+    /**
+     * Applies gateway status replies to pending transactions: loads them with one query, merges the replies and
+     * writes the changed rows as one JDBC batch. Transactions that are no longer pending are left untouched.
+     *
+     * @param replies the replies to apply.
+     * @return ids of the transactions that are no longer pending.
+     */
+    public Set<String> applyGatewayReplies(List<StatusReply> replies) {
+        Map<String, PaymentTransaction> paymentTransactions = new HashMap<>();
+        for (PaymentTransaction paymentTransaction : paymentTransactionRepository.findAllById(
+            replies.stream().map(StatusReply::transactionId).toList()
+        )) {
+            paymentTransactions.put(paymentTransaction.getId(), paymentTransaction);
+        }
+
+        Set<String> settled = new HashSet<>();
+        List<MergedTransaction> merged = new ArrayList<>();
+        Map<String, StatusReply> lastQueryData = new HashMap<>();
+        for (StatusReply reply : replies) {
+            PaymentTransaction paymentTransaction = paymentTransactions.get(reply.transactionId());
+            if (paymentTransaction == null || paymentTransaction.getStatus() != TransactionStatus.PENDING) {
+                settled.add(reply.transactionId());
+                continue;
+            }
+            TransactionStatus previousStatus = paymentTransaction.getStatus();
+            BigDecimal previousAmount = paymentTransaction.getAmount();
+            if (mergeReply(paymentTransaction, reply.reply())) {
+                merged.add(new MergedTransaction(paymentTransaction, previousStatus, previousAmount));
+                if (storesLastQueryData(reply.reply())) {
+                    lastQueryData.put(reply.transactionId(), reply);
+                }
+            }
+            if (paymentTransaction.getStatus() != TransactionStatus.PENDING) {
+                settled.add(reply.transactionId());
+            }
+        }
+        if (merged.isEmpty()) {
+            return settled;
+        }
+
+        paymentTransactionRepository.saveAll(merged.stream().map(MergedTransaction::paymentTransaction).toList());
+        paymentTransactionRepository.flush();
+        saveLastQueryData(lastQueryData);
+        for (MergedTransaction mergedTransaction : merged) {
+            PaymentTransaction paymentTransaction = mergedTransaction.paymentTransaction();
+            dailyTurnoverLedger.recordChange(paymentTransaction, mergedTransaction.previousStatus(), mergedTransaction.previousAmount());
+            dailyTurnoverRollup.recordChange(paymentTransaction, mergedTransaction.previousStatus(), mergedTransaction.previousAmount());
+            paymentMetrics.statusChanged(paymentTransaction, mergedTransaction.previousStatus());
+            if (paymentTransaction.isSuccess() && paymentTransaction.getBalance() != null) {
+                eventPublisher.publishEvent(merchantBalanceUpdateEvent(paymentTransaction));
+            }
+        }
+        return settled;
+    }
+
+    private MerchantBalanceUpdateEvent merchantBalanceUpdateEvent(PaymentTransaction paymentTransaction) {
+        return new MerchantBalanceUpdateEvent(
+            paymentTransaction.getMerchantId(),
+            paymentTransaction.getBalance(),
+            paymentTransaction.getRequestTimestamp()
+        );
+    }
+
+    private void saveLastQueryData(Map<String, StatusReply> replies) {
+        if (replies.isEmpty()) {
+            return;
+        }
+        Map<String, PaymentTransactionPayload> payloads = new HashMap<>();
+        for (PaymentTransactionPayload payload : paymentTransactionPayloadRepository.findAllById(replies.keySet())) {
+            payloads.put(payload.getTransactionId(), payload);
+        }
+        for (StatusReply reply : replies.values()) {
+            payloads.computeIfAbsent(reply.transactionId(), PaymentTransactionPayload::new).setLastQueryData(reply.lastQueryData());
+        }
+        paymentTransactionPayloadRepository.saveAll(payloads.values());
+    }
+
+    /**
+     * Marks the transactions that are still pending as {@link TransactionStatus#ABANDONED}.
+     *
+     * @param transactionIds the transactions to abandon.
+     * @param statusDescription the reason stored on the transactions.
+     */
+    public void abandonPending(Collection<String> transactionIds, String statusDescription) {
+        List<PaymentTransaction> abandoned = new ArrayList<>();
+        for (PaymentTransaction paymentTransaction : paymentTransactionRepository.findAllById(transactionIds)) {
+            if (paymentTransaction.getStatus() == TransactionStatus.PENDING) {
+                LOG.warn("Transaction {} marked as ABANDONED: {}", paymentTransaction.getId(), statusDescription);
+                paymentTransaction.setStatus(TransactionStatus.ABANDONED);
+                paymentTransaction.setStatusDescription(statusDescription);
+                abandoned.add(paymentTransaction);
+            }
+        }
+        paymentTransactionRepository.saveAll(abandoned);
+        paymentTransactionRepository.flush();
+        for (PaymentTransaction paymentTransaction : abandoned) {
+            dailyTurnoverLedger.recordChange(paymentTransaction, TransactionStatus.PENDING, paymentTransaction.getAmount());
+            dailyTurnoverRollup.recordChange(paymentTransaction, TransactionStatus.PENDING, paymentTransaction.getAmount());
+            paymentMetrics.statusChanged(paymentTransaction, TransactionStatus.PENDING);
+        }
     }
 
     /**
@@ -955,17 +1575,14 @@ public class PaymentTransactionService {
         CupaUser cupaUser = (CupaUser) user;
         
         if (cupaUser.hasAccessToAllMerchants()) {
-            return paymentTransactionRepository.findAll(pageable).map(paymentTransactionMapper::toDto).map(this::enrichWithRelatedData);
+            return enrichWithRelatedData(paymentTransactionRepository.findAll(pageable).map(paymentTransactionMapper::toDto));
         }
         Set<String> merchantIds = cupaUser.getMerchantIdsSet();
         if (merchantIds.isEmpty()) {
             return Page.empty(pageable);
         }
 
-        return paymentTransactionRepository
-            .findAllByMerchantIds(merchantIds, pageable)
-            .map(paymentTransactionMapper::toDto)
-            .map(this::enrichWithRelatedData);
+        return enrichWithRelatedData(paymentTransactionRepository.findAllByMerchantIds(merchantIds, pageable).map(paymentTransactionMapper::toDto));
     }
 
     /**
@@ -993,20 +1610,22 @@ public class PaymentTransactionService {
         CupaUser cupaUser = (CupaUser) user;
 
         if (cupaUser.hasAccessToAllMerchants()) {
-            return paymentTransactionRepository
-                .findAllByRequestTimestampRange(startInclusive, endExclusive, pageable)
-                .map(paymentTransactionMapper::toDto)
-                .map(this::enrichWithRelatedData);
+            return enrichWithRelatedData(
+                paymentTransactionRepository
+                    .findAllByRequestTimestampRange(startInclusive, endExclusive, pageable)
+                    .map(paymentTransactionMapper::toDto)
+            );
         }
         Set<String> merchantIds = cupaUser.getMerchantIdsSet();
         if (merchantIds.isEmpty()) {
             return Page.empty(pageable);
         }
 
-        return paymentTransactionRepository
-            .findAllByMerchantIdsAndRequestTimestampRange(merchantIds, startInclusive, endExclusive, pageable)
-            .map(paymentTransactionMapper::toDto)
-            .map(this::enrichWithRelatedData);
+        return enrichWithRelatedData(
+            paymentTransactionRepository
+                .findAllByMerchantIdsAndRequestTimestampRange(merchantIds, startInclusive, endExclusive, pageable)
+                .map(paymentTransactionMapper::toDto)
+        );
     }
 
     /**
@@ -1052,6 +1671,77 @@ public class PaymentTransactionService {
         return enrichWithRelatedData(list.stream().map(paymentTransactionMapper::toDto).toList());
     }
 
+    /**
+     * One window of the payment transaction list, filtered and sorted by the database. Scrolling from a keyset
+     * position avoids skipping over the preceding rows, so deep windows cost the same as the first one.
+     *
+     * @param user the authenticated user; only transactions of merchants the user can access are returned.
+     * @param filter the list filters.
+     * @param sort the order, which must end with a unique property for keyset scrolling.
+     * @param limit max rows in the window.
+     * @param position where the window starts (a keyset or offset position of the previous window).
+     * @return the rows, enriched with client and merchant data.
+     */
+    @Transactional(readOnly = true)
+    public Window<PaymentTransactionDTO> findWindowWithAccessControl(
+        User user,
+        PaymentTransactionListFilter filter,
+        Sort sort,
+        int limit,
+        ScrollPosition position
+    ) {
+        Specification<PaymentTransaction> specification = listSpecification(user, filter);
+        if (specification == null) {
+            return Window.from(List.of(), ScrollPosition::offset);
+        }
+        Window<PaymentTransaction> window = paymentTransactionRepository.findBy(specification, query ->
+            query.sortBy(sort).limit(Math.max(1, limit)).scroll(position)
+        );
+        List<PaymentTransactionDTO> content = enrichWithRelatedData(
+            window.getContent().stream().map(paymentTransactionMapper::toDto).toList()
+        );
+        return Window.from(content, window::positionAt, window.hasNext());
+    }
+
+    /**
+     * Number of rows of the payment transaction list, counted by the database.
+     *
+     * @param user the authenticated user.
+     * @param filter the list filters.
+     */
+    @Transactional(readOnly = true)
+    public long countWithAccessControl(User user, PaymentTransactionListFilter filter) {
+        Specification<PaymentTransaction> specification = listSpecification(user, filter);
+        return specification == null ? 0 : paymentTransactionRepository.count(specification);
+    }
+
+    /**
+     * @return the list query for the user, {@code null} if the user cannot access any merchant.
+     */
+    private Specification<PaymentTransaction> listSpecification(User user, PaymentTransactionListFilter filter) {
+        if (!(user instanceof CupaUser cupaUser)) {
+            return null;
+        }
+        Set<String> merchantIds = null;
+        if (!cupaUser.hasAccessToAllMerchants()) {
+            merchantIds = cupaUser.getMerchantIdsSet();
+            if (merchantIds.isEmpty()) {
+                return null;
+            }
+        }
+        return PaymentTransactionRepository.matchesListFilter(
+            merchantIds,
+            filter.startInclusive(),
+            filter.endExclusive(),
+            filter.orderId(),
+            filter.paymentBrand(),
+            filter.amount(),
+            filter.status(),
+            filter.merchantId(),
+            filter.environment()
+        );
+    }
+
     /**
      * Get all the payment transactions with eager load of many-to-many relationships and access control.
      *
@@ -1075,10 +1765,7 @@ public class PaymentTransactionService {
             return Page.empty(pageable);
         }
 
-        return paymentTransactionRepository
-            .findAllByMerchantIds(merchantIds, pageable)
-            .map(paymentTransactionMapper::toDto)
-            .map(this::enrichWithRelatedData);
+        return enrichWithRelatedData(paymentTransactionRepository.findAllByMerchantIds(merchantIds, pageable).map(paymentTransactionMapper::toDto));
     }
 
     /**
@@ -1101,7 +1788,7 @@ public class PaymentTransactionService {
             return paymentTransactionRepository
                 .findOneWithEagerRelationships(id)
                 .map(paymentTransactionMapper::toDto)
-                .map(this::enrichWithRelatedData);
+                .map(dto -> enrichWithRelatedData(List.of(dto)).get(0));
         }
         Set<String> merchantIds = cupaUser.getMerchantIdsSet();
         if (merchantIds.isEmpty()) {
@@ -1111,7 +1798,30 @@ public class PaymentTransactionService {
         return paymentTransactionRepository
             .findByIdAndMerchantIds(id, merchantIds)
             .map(paymentTransactionMapper::toDto)
-            .map(this::enrichWithRelatedData);
+            .map(dto -> enrichWithRelatedData(List.of(dto)).get(0));
+    }
+
+    /**
+     * Get one paymentTransaction with access control, including its raw gateway payloads.
+     * Meant for the detail views; lists and other lookups leave the payloads unloaded.
+     *
+     * @param id the id of the entity.
+     * @param user the authenticated user.
+     * @return the entity if accessible.
+     */
+    @Transactional(readOnly = true)
+    public Optional<PaymentTransactionDTO> findOneWithPayloadWithAccessControl(String id, User user) {
+        return findOneWithAccessControl(id, user).map(dto -> {
+            paymentTransactionPayloadRepository
+                .findById(dto.getId())
+                .ifPresent(payload -> {
+                    dto.setRequestData(payload.getRequestData());
+                    dto.setInitialResponseData(payload.getInitialResponseData());
+                    dto.setCallbackData(payload.getCallbackData());
+                    dto.setLastQueryData(payload.getLastQueryData());
+                });
+            return dto;
+        });
     }
 
     /**
@@ -1187,6 +1897,27 @@ public class PaymentTransactionService {
      * @return true if webhook was processed successfully, false if signature verification failed or processing failed
      */
     public boolean processWebhook(PaymentReply paymentReply) {
+        Timer.Sample sample = paymentMetrics.start();
+        String outcome = "error";
+        try {
+            boolean processed = applyWebhook(paymentReply);
+            outcome = processed ? "ok" : "rejected";
+            return processed;
+        } finally {
+            WebhookMerchantIndex.Entry merchant = paymentReply.getMerchantId() != null
+                ? webhookMerchantIndex.find(paymentReply.getMerchantId()).orElse(null)
+                : null;
+            paymentMetrics.stop(
+                sample,
+                PaymentMetrics.Stage.WEBHOOK,
+                merchant != null ? merchant.merchantId() : null,
+                merchant != null ? merchant.mode() : null,
+                outcome
+            );
+        }
+    }
+
+    private boolean applyWebhook(PaymentReply paymentReply) {
         LOG.info(
             "Processing webhook for OrderID: {}, MerchantID: {}, Success: {}",
             paymentReply.getOrderId(),
@@ -1203,16 +1934,14 @@ public class PaymentTransactionService {
             return false;
         }
 
-        Merchant merchant = merchantRepository
-            .findByRemoteTestMerchantId(paymentReply.getMerchantId())
-            .orElse(merchantRepository.findByRemoteProdMerchantId(paymentReply.getMerchantId()).orElse(null));
+        WebhookMerchantIndex.Entry merchant = webhookMerchantIndex.find(paymentReply.getMerchantId()).orElse(null);
         if (merchant == null) {
             LOG.warn("Merchant not found for remote ID: {}", paymentReply.getMerchantId());
             return false;
         }
 
         // Get merchant key for signature verification
-        String merchantKey = merchant.getMerchantKeyByMode();
+        String merchantKey = merchant.merchantKey();
         if (merchantKey == null) {
             LOG.error("Cannot verify signature: merchant key not found for MerchantID: {}", paymentReply.getMerchantId());
             return false;
@@ -1230,12 +1959,12 @@ public class PaymentTransactionService {
 
         // Find the payment transaction by merchant ID and order ID
         PaymentTransaction paymentTransaction = paymentTransactionRepository
-            .findByMerchantIdAndOrderId(merchant.getId(), paymentReply.getOrderId())
+            .findByMerchantIdAndOrderId(merchant.merchantId(), paymentReply.getOrderId())
             .orElse(null);
         if (paymentTransaction == null) {
             LOG.warn(
                 "No payment transaction found for webhook - resolvedMerchantID: {}, OrderID: {}, remoteMerchantID: {}",
-                merchant.getId(),
+                merchant.merchantId(),
                 paymentReply.getOrderId(),
                 paymentReply.getMerchantId()
             );
@@ -1243,31 +1972,26 @@ public class PaymentTransactionService {
         }
 
         // Check if the merchant ID in the payment transaction matches the resolved merchant ID
-        if (!merchant.getId().equals(paymentTransaction.getMerchantId())) {
+        if (!merchant.merchantId().equals(paymentTransaction.getMerchantId())) {
             LOG.warn(
                 "Merchant ID mismatch for transaction id = {}: resolvedMerchantID: {}, paymentTransactionMerchantID: {}",
                 paymentTransaction.getId(),
-                merchant.getId(),
+                merchant.merchantId(),
                 paymentTransaction.getMerchantId()
             );
         }
 
         // Update the transaction with webhook data
-        paymentTransaction = mergeAndSaveIfNeeded(paymentTransaction, paymentReply, "Webhook notification");
+        paymentTransaction = mergeAndSaveIfNeeded(paymentTransaction, paymentReply, () -> "Webhook notification");
 
-        // Check if balance is null and fire event for asynchronous balance update
+        // Check if balance is null and record an outbox event for a balance refresh
         if (paymentTransaction.getBalance() == null) {
             LOG.info(
                 "Balance is null after webhook processing, firing balance update event for transaction: {}",
                 paymentTransaction.getId()
             );
             eventPublisher.publishEvent(
-                new BalanceUpdateEvent(
-                    this,
-                    paymentTransaction.getId(),
-                    paymentTransaction.getMerchantId(),
-                    paymentTransaction.getOrderId()
-                )
+                new BalanceUpdateEvent(paymentTransaction.getId(), paymentTransaction.getMerchantId(), paymentTransaction.getOrderId())
             );
         }
 
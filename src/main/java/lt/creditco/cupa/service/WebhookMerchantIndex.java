@@ -0,0 +1,116 @@
+package lt.creditco.cupa.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.repository.MerchantRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory index from the gateway's merchant ID (test or production) to what a webhook needs to be verified and
+ * applied, so resolving the merchant of a webhook does not query the database.
+ *
+ * <p>The index is built from all merchants on first use and rebuilt after a merchant is changed through
+ * {@link MerchantService}, or once it is older than {@code application.merchant-context-cache.time-to-live} (which
+ * also picks up changes made by other instances). As before, a test merchant ID takes precedence over an equal
+ * production one.</p>
+ */
+@Component
+@Slf4j
+public class WebhookMerchantIndex {
+
+    /**
+     * Merchant resolved from a gateway merchant ID.
+     *
+     * @param merchantId the CUPA merchant ID.
+     * @param mode the merchant's mode.
+     * @param merchantKey the gateway key of the merchant's mode, {@code null} if it is not set.
+     */
+    public record Entry(String merchantId, MerchantMode mode, String merchantKey) {}
+
+    private record Snapshot(Map<String, Entry> entries, Instant builtAt) {}
+
+    private final MerchantRepository merchantRepository;
+    private final Duration timeToLive;
+
+    /** Not {@code synchronized}: the rebuild queries the database, which would pin a virtual thread. */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    public WebhookMerchantIndex(MerchantRepository merchantRepository, ApplicationProperties applicationProperties) {
+        this.merchantRepository = merchantRepository;
+        this.timeToLive = applicationProperties.getMerchantContextCache().getTimeToLive();
+    }
+
+    /**
+     * @param remoteMerchantId the merchant ID sent by the gateway.
+     * @return the merchant with this test or production gateway merchant ID.
+     */
+    public Optional<Entry> find(String remoteMerchantId) {
+        Snapshot current = snapshot;
+        if (current == null || current.builtAt().plus(timeToLive).isBefore(Instant.now())) {
+            current = rebuild();
+        }
+        return Optional.ofNullable(current.entries().get(remoteMerchantId));
+    }
+
+    /**
+     * Drops the index now and, inside a transaction, again after it completes, so the next lookup sees the change.
+     */
+    public void invalidate() {
+        snapshot = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        snapshot = null;
+                    }
+                }
+            );
+        }
+    }
+
+    private Snapshot rebuild() {
+        rebuildLock.lock();
+        try {
+            return rebuildLocked();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Snapshot rebuildLocked() {
+        Snapshot current = snapshot;
+        if (current != null && !current.builtAt().plus(timeToLive).isBefore(Instant.now())) {
+            return current;
+        }
+        Map<String, Entry> entries = new HashMap<>();
+        Map<String, Entry> testEntries = new HashMap<>();
+        for (Merchant merchant : merchantRepository.findAll()) {
+            Entry entry = new Entry(merchant.getId(), merchant.getMode(), merchant.getMerchantKeyByMode());
+            if (StringUtils.isNotBlank(merchant.getRemoteProdMerchantId())) {
+                entries.put(merchant.getRemoteProdMerchantId(), entry);
+            }
+            if (StringUtils.isNotBlank(merchant.getRemoteTestMerchantId())) {
+                testEntries.put(merchant.getRemoteTestMerchantId(), entry);
+            }
+        }
+        entries.putAll(testEntries);
+        current = new Snapshot(Map.copyOf(entries), Instant.now());
+        snapshot = current;
+        log.debug("Rebuilt webhook merchant index with {} gateway merchant IDs", entries.size());
+        return current;
+    }
+}
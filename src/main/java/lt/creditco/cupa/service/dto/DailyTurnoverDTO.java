@@ -0,0 +1,33 @@
+package lt.creditco.cupa.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lt.creditco.cupa.domain.enumeration.Currency;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.PaymentBrand;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+
+/**
+ * Turnover of one merchant on one UTC day, for one status, currency and payment brand.
+ *
+ * @param merchantId merchant id.
+ * @param environment environment, {@code null} for transactions without one.
+ * @param day UTC day the transactions were created on.
+ * @param status current status of the transactions.
+ * @param currency currency.
+ * @param paymentBrand payment brand.
+ * @param transactionCount number of transactions.
+ * @param amount sum of the transaction amounts.
+ */
+public record DailyTurnoverDTO(
+    String merchantId,
+    MerchantMode environment,
+    LocalDate day,
+    TransactionStatus status,
+    Currency currency,
+    PaymentBrand paymentBrand,
+    long transactionCount,
+    BigDecimal amount
+)
+    implements Serializable {}
@@ -82,6 +82,8 @@ public class PaymentTransactionDTO implements Serializable, MerchantOwnedEntity
 
     private String gatewayMerchantId;
 
+    private String idempotencyKey;
+
     private String merchantName;
 
     private Long version;
@@ -319,6 +321,14 @@ public class PaymentTransactionDTO implements Serializable, MerchantOwnedEntity
         this.gatewayMerchantId = gatewayMerchantId;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
     public String getMerchantName() {
         return merchantName;
     }
@@ -0,0 +1,32 @@
+package lt.creditco.cupa.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.PaymentBrand;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+
+/**
+ * Filters of the payment transaction list, evaluated by the database. {@code null} fields do not filter.
+ *
+ * @param startInclusive start of the request timestamp range.
+ * @param endExclusive end of the request timestamp range.
+ * @param orderId exact order id.
+ * @param paymentBrand payment brand.
+ * @param amount amount, compared numerically.
+ * @param status transaction status.
+ * @param merchantId merchant id (on top of the merchants the user can access).
+ * @param environment environment.
+ */
+public record PaymentTransactionListFilter(
+    Instant startInclusive,
+    Instant endExclusive,
+    String orderId,
+    PaymentBrand paymentBrand,
+    BigDecimal amount,
+    TransactionStatus status,
+    String merchantId,
+    MerchantMode environment
+)
+    implements Serializable {}
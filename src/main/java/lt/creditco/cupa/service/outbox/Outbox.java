@@ -0,0 +1,62 @@
+package lt.creditco.cupa.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.event.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records published {@link OutboxEvent}s in {@code outbox_event}.
+ *
+ * <p>Listens synchronously, so the row is inserted on the publishing thread and commits or rolls back with the
+ * transaction that published the event, e.g. together with the payment update that caused it.</p>
+ */
+@Slf4j
+@Component
+public class Outbox {
+
+    static final String INSERT_SQL =
+        "insert into outbox_event (event_type, payload, created_at, available_at, attempts) values (?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    @Autowired
+    public Outbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this(jdbcTemplate, objectMapper, Clock.systemUTC());
+    }
+
+    Outbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    @EventListener
+    public void record(OutboxEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize outbox event " + event, e);
+        }
+        Timestamp now = Timestamp.from(Instant.now(clock));
+        jdbcTemplate.update(INSERT_SQL, eventType(event.getClass()), payload, now, now);
+        log.debug("Recorded outbox event {}", event);
+    }
+
+    /**
+     * @return the type stored with events of the class, also the key of {@code application.outbox.concurrency}.
+     */
+    public static String eventType(Class<? extends OutboxEvent> eventClass) {
+        return eventClass.getSimpleName();
+    }
+}
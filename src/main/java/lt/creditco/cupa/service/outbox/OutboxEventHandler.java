@@ -0,0 +1,25 @@
+package lt.creditco.cupa.service.outbox;
+
+import lt.creditco.cupa.event.OutboxEvent;
+
+/**
+ * Consumes the outbox events of one type on behalf of {@link OutboxRelay}.
+ *
+ * <p>Delivery is at least once: an event is deleted only after {@link #handle} returns, so a handler may see an
+ * event again after a crash or an expired lease and should tolerate that. Throwing schedules a retry with backoff;
+ * returning normally after logging drops the event, which is the right choice for events that can never succeed.
+ * A handler that only buffers events must persist them in {@link #afterBatch}.</p>
+ *
+ * @param <E> the event type.
+ */
+public interface OutboxEventHandler<E extends OutboxEvent> {
+    Class<E> eventClass();
+
+    void handle(E event) throws Exception;
+
+    /**
+     * Called once the events of a batch were handled and before they are deleted, so a handler that buffers events
+     * can persist what it buffered. Throwing retries every event of the batch that this handler handled.
+     */
+    default void afterBatch() throws Exception {}
+}
@@ -0,0 +1,358 @@
+package lt.creditco.cupa.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.event.OutboxEvent;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains {@code outbox_event} in batches and hands each event to the {@link OutboxEventHandler} of its type.
+ *
+ * <p>A batch is claimed by bumping {@code attempts} (compared with the value read) and moving {@code available_at}
+ * to the end of {@code application.outbox.lease-time}, so several instances can relay side by side and events of a
+ * crashed relay are picked up again once their lease runs out. Each event type runs on its own bounded executor
+ * ({@code application.outbox.concurrency}), so a slow handler cannot hold up other types. Delivered events are
+ * deleted once {@link OutboxEventHandler#afterBatch} of their handler has returned; failed ones are retried with exponential backoff between {@code application.outbox.initial-backoff} and
+ * {@code application.outbox.max-backoff}, and after {@code application.outbox.max-attempts} they are marked failed
+ * and left in the table.</p>
+ *
+ * <p>Publishes {@code cupa.outbox.lag} (time from recording to delivery) and {@code cupa.outbox.events} (by
+ * {@code outcome}: {@code delivered}, {@code retried}, {@code failed}), both tagged with {@code type}, and
+ * {@code cupa.outbox.backlog} (events waiting for delivery).</p>
+ *
+ * <p>Relay runs are made on a thread of their own, every {@code application.outbox.poll-interval} once the outbox is
+ * drained, so a long backlog does not hold up the application's shared scheduler.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "application.outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay implements SmartLifecycle, DisposableBean {
+
+    static final String SELECT_DUE_SQL =
+        "select id, event_type, payload, created_at, attempts from outbox_event " +
+        "where failed_at is null and available_at <= ? order by available_at, id limit ?";
+
+    static final String CLAIM_SQL = "update outbox_event set attempts = attempts + 1, available_at = ? where id = ? and attempts = ?";
+
+    static final String DELETE_SQL = "delete from outbox_event where id = ?";
+
+    static final String RETRY_SQL = "update outbox_event set available_at = ?, last_error = ? where id = ?";
+
+    static final String FAIL_SQL = "update outbox_event set failed_at = ?, last_error = ? where id = ?";
+
+    static final String BACKLOG_SQL = "select count(*) from outbox_event where failed_at is null";
+
+    private static final int LAST_ERROR_LENGTH = 1000;
+
+    /** An event claimed by this relay; {@code attempt} counts the current one. */
+    record Claimed(long id, String eventType, String payload, Instant createdAt, int attempt) {}
+
+    private record Delivery(Claimed event, Throwable error) {}
+
+    private record Route(OutboxEventHandler<?> handler, ThreadPoolExecutor executor, Timer lag) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationProperties.Outbox properties;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    private final Map<String, Route> routes = new HashMap<>();
+    private final AtomicLong backlog = new AtomicLong();
+
+    private volatile boolean stopping;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public OutboxRelay(
+        JdbcTemplate jdbcTemplate,
+        ObjectMapper objectMapper,
+        List<OutboxEventHandler<?>> handlers,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this(jdbcTemplate, objectMapper, handlers, applicationProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    OutboxRelay(
+        JdbcTemplate jdbcTemplate,
+        ObjectMapper objectMapper,
+        List<OutboxEventHandler<?>> handlers,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        Clock clock
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getOutbox();
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        boolean virtualThreads = applicationProperties.getVirtualThreads().isEnabled();
+        for (OutboxEventHandler<?> handler : handlers) {
+            String eventType = Outbox.eventType(handler.eventClass());
+            Route previous = routes.put(eventType, route(eventType, handler, virtualThreads));
+            if (previous != null) {
+                throw new IllegalStateException("More than one outbox event handler for " + eventType);
+            }
+        }
+        Gauge.builder("cupa.outbox.backlog", backlog, AtomicLong::get)
+            .description("Outbox events waiting for delivery")
+            .register(meterRegistry);
+    }
+
+    private Route route(String eventType, OutboxEventHandler<?> handler, boolean virtualThreads) {
+        int concurrency = properties.concurrencyOf(eventType);
+        Thread.Builder threads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            concurrency,
+            concurrency,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, properties.getBatchSize())),
+            threads.name("outbox-" + eventType + "-", 1).factory()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        Timer lag = Timer.builder("cupa.outbox.lag")
+            .description("Time from recording an outbox event to its delivery")
+            .tag("type", eventType)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        return new Route(handler, executor, lag);
+    }
+
+    /**
+     * Starts relay runs on the {@code outbox-relay} thread.
+     */
+    @Override
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        stopping = false;
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("outbox-relay").daemon().factory());
+        long pollMillis = properties.getPollInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::relay, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lets a running relay run finish its current batch.
+     */
+    @Override
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        stopping = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    public void relay() {
+        try {
+            while (!stopping && relayBatch(clock.instant()) >= properties.getBatchSize()) {
+                log.debug("Outbox batch was full, relaying the next one right away");
+            }
+            Long count = jdbcTemplate.queryForObject(BACKLOG_SQL, Long.class);
+            backlog.set(count != null ? count : 0);
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    /**
+     * Claims, delivers and settles one batch.
+     *
+     * @return the number of events claimed.
+     */
+    int relayBatch(Instant now) {
+        List<Claimed> claimed = claim(now);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<Delivery>> deliveries = new ArrayList<>(claimed.size());
+        for (Claimed event : claimed) {
+            Route route = routes.get(event.eventType());
+            if (route == null) {
+                IllegalStateException error = new IllegalStateException("No handler for outbox event type " + event.eventType());
+                deliveries.add(CompletableFuture.completedFuture(new Delivery(event, error)));
+            } else {
+                deliveries.add(CompletableFuture.supplyAsync(() -> deliver(route, event), route.executor()));
+            }
+        }
+        settle(afterBatch(deliveries.stream().map(CompletableFuture::join).toList()), clock.instant());
+        return claimed.size();
+    }
+
+    /**
+     * Lets each handler persist what it buffered for the batch; if it cannot, its events are retried.
+     */
+    private List<Delivery> afterBatch(List<Delivery> deliveries) {
+        Map<String, Exception> errors = new HashMap<>();
+        for (Delivery delivery : deliveries) {
+            String eventType = delivery.event().eventType();
+            if (delivery.error() == null && !errors.containsKey(eventType)) {
+                try {
+                    routes.get(eventType).handler().afterBatch();
+                    errors.put(eventType, null);
+                } catch (Exception e) {
+                    errors.put(eventType, e);
+                }
+            }
+        }
+        return deliveries
+            .stream()
+            .map(delivery -> {
+                Exception error = errors.get(delivery.event().eventType());
+                return delivery.error() == null && error != null ? new Delivery(delivery.event(), error) : delivery;
+            })
+            .toList();
+    }
+
+    private List<Claimed> claim(Instant now) {
+        List<Claimed> due = jdbcTemplate.query(
+            SELECT_DUE_SQL,
+            (rs, rowNum) ->
+                new Claimed(
+                    rs.getLong("id"),
+                    rs.getString("event_type"),
+                    rs.getString("payload"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    rs.getInt("attempts") + 1
+                ),
+            Timestamp.from(now),
+            properties.getBatchSize()
+        );
+        if (due.isEmpty()) {
+            return due;
+        }
+        Timestamp leaseUntil = Timestamp.from(now.plus(properties.getLeaseTime()));
+        int[][] updated = jdbcTemplate.batchUpdate(CLAIM_SQL, due, due.size(), (ps, event) -> {
+            ps.setTimestamp(1, leaseUntil);
+            ps.setLong(2, event.id());
+            ps.setInt(3, event.attempt() - 1);
+        });
+        List<Claimed> claimed = new ArrayList<>(due.size());
+        for (int i = 0; i < due.size(); i++) {
+            if (updated[0][i] == 1) {
+                claimed.add(due.get(i));
+            }
+        }
+        return claimed;
+    }
+
+    private Delivery deliver(Route route, Claimed event) {
+        try {
+            handle(route.handler(), event.payload());
+            route.lag().record(Duration.between(event.createdAt(), clock.instant()));
+            return new Delivery(event, null);
+        } catch (Exception e) {
+            return new Delivery(event, e);
+        }
+    }
+
+    private <E extends OutboxEvent> void handle(OutboxEventHandler<E> handler, String payload) throws Exception {
+        handler.handle(objectMapper.readValue(payload, handler.eventClass()));
+    }
+
+    private void settle(List<Delivery> deliveries, Instant now) {
+        List<Long> delivered = new ArrayList<>();
+        List<Object[]> retried = new ArrayList<>();
+        List<Object[]> failed = new ArrayList<>();
+        for (Delivery delivery : deliveries) {
+            Claimed event = delivery.event();
+            if (delivery.error() == null) {
+                delivered.add(event.id());
+                count(event.eventType(), "delivered");
+                continue;
+            }
+            String lastError = StringUtils.abbreviate(String.valueOf(delivery.error()), LAST_ERROR_LENGTH);
+            if (event.attempt() >= properties.getMaxAttempts()) {
+                log.error("Outbox event {} ({}) failed {} times, giving up", event.id(), event.eventType(), event.attempt(), delivery.error());
+                failed.add(new Object[] { Timestamp.from(now), lastError, event.id() });
+                count(event.eventType(), "failed");
+            } else {
+                Duration delay = backoff(event.attempt(), properties.getInitialBackoff(), properties.getMaxBackoff());
+                log.warn("Outbox event {} ({}) failed, retrying in {}: {}", event.id(), event.eventType(), delay, lastError);
+                retried.add(new Object[] { Timestamp.from(now.plus(delay)), lastError, event.id() });
+                count(event.eventType(), "retried");
+            }
+        }
+        if (!delivered.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, delivered.stream().map(id -> new Object[] { id }).toList());
+        }
+        if (!retried.isEmpty()) {
+            jdbcTemplate.batchUpdate(RETRY_SQL, retried);
+        }
+        if (!failed.isEmpty()) {
+            jdbcTemplate.batchUpdate(FAIL_SQL, failed);
+        }
+    }
+
+    private void count(String eventType, String outcome) {
+        Counter.builder("cupa.outbox.events")
+            .description("Outbox event deliveries")
+            .tags("type", eventType, "outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /**
+     * @return the delay before retrying after the given failed attempt.
+     */
+    static Duration backoff(int attempt, Duration initial, Duration max) {
+        Duration delay = initial.multipliedBy(1L << Math.min(Math.max(attempt - 1, 0), 30));
+        return delay.compareTo(max) > 0 ? max : delay;
+    }
+
+    /**
+     * Lets running deliveries finish; claimed events that are not settled are relayed again after their lease.
+     * The executors queue a whole batch, so they only reject deliveries once shut down.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        stopping = true;
+        for (Route route : routes.values()) {
+            route.executor().shutdown();
+        }
+        for (Route route : routes.values()) {
+            route.executor().awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -2,8 +2,11 @@ package lt.creditco.cupa.service.tasks;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,8 +23,13 @@ import lt.creditco.cupa.domain.PaymentTransaction;
 import lt.creditco.cupa.domain.enumeration.MerchantMode;
 import lt.creditco.cupa.domain.enumeration.MerchantStatus;
 import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.event.PullTaskScheduledEvent;
+import lt.creditco.cupa.remote.GatewayCircuitBreakers;
 import lt.creditco.cupa.repository.MerchantRepository;
 import lt.creditco.cupa.repository.PaymentTransactionRepository;
+import lt.creditco.cupa.service.DailyTurnoverLedger;
+import lt.creditco.cupa.service.DailyTurnoverRollup;
+import lt.creditco.cupa.service.PaymentMetrics;
 import lt.creditco.cupa.service.PaymentTransactionService;
 import lt.creditco.cupa.web.context.CupaApiContext;
 
@@ -37,6 +45,9 @@ import lt.creditco.cupa.web.context.CupaApiContext;
  * </ul>
  * 
  * <p>After 24 hours without a final status, the transaction is marked as ABANDONED.
+ *
+ * <p>While the circuit of the merchant's gateway host is open (see {@link GatewayCircuitBreakers}), the query is not
+ * attempted; the task is rescheduled to a random point within one polling interval after the circuit half-opens.
  */
 @Slf4j
 @Component(QueryPaymentStatusTask.TASK_NAME)
@@ -48,6 +59,9 @@ public class QueryPaymentStatusTask implements TaskHandler {
     
     /** Timeout period after which pending transactions are marked as ABANDONED */
     public static final int TIMEOUT_PERIOD_HOURS = 24;
+
+    /** Status description of transactions abandoned after {@link #TIMEOUT_PERIOD_HOURS} */
+    public static final String TIMEOUT_STATUS_DESCRIPTION = "Timed out after " + TIMEOUT_PERIOD_HOURS + " hours without final status";
     
     /** Polling interval in first hour (seconds) */
     private static final int INTERVAL_FIRST_HOUR_SECONDS = 60;
@@ -62,6 +76,11 @@ public class QueryPaymentStatusTask implements TaskHandler {
     private final MerchantRepository merchantRepository;
     private final PaymentTransactionService paymentTransactionService;
     private final ObjectMapper objectMapper;
+    private final DailyTurnoverLedger dailyTurnoverLedger;
+    private final DailyTurnoverRollup dailyTurnoverRollup;
+    private final PaymentMetrics paymentMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final GatewayCircuitBreakers gatewayCircuitBreakers;
 
     /**
      * Task payload containing the transaction ID to query.
@@ -117,8 +136,11 @@ public class QueryPaymentStatusTask implements TaskHandler {
             log.warn("Transaction {} timed out after {} hours, marking as ABANDONED", 
                 transactionId, elapsed.toHours());
             transaction.setStatus(TransactionStatus.ABANDONED);
-            transaction.setStatusDescription("Timed out after " + TIMEOUT_PERIOD_HOURS + " hours without final status");
+            transaction.setStatusDescription(TIMEOUT_STATUS_DESCRIPTION);
             paymentTransactionRepository.saveAndFlush(transaction);
+            dailyTurnoverLedger.recordChange(transaction, TransactionStatus.PENDING, transaction.getAmount());
+            dailyTurnoverRollup.recordChange(transaction, TransactionStatus.PENDING, transaction.getAmount());
+            paymentMetrics.statusChanged(transaction, TransactionStatus.PENDING);
             task.fail("Transaction timed out after " + TIMEOUT_PERIOD_HOURS + " hours", null);
             return;
         }
@@ -126,6 +148,16 @@ public class QueryPaymentStatusTask implements TaskHandler {
         // Load merchant and build context
         CupaApiContext.CupaApiContextData context = buildApiContext(transaction);
         
+        Optional<Instant> circuitOpenUntil = gatewayCircuitBreakers.openUntil(context.getMerchantContext().getGatewayUrl());
+        if (circuitOpenUntil.isPresent()) {
+            Instant nextQueryAt = circuitOpenUntil
+                .get()
+                .plusMillis(ThreadLocalRandom.current().nextLong(calculateNextInterval(elapsed) * 1000L));
+            log.info("Gateway circuit open for transaction {}, next query at {}", transactionId, nextQueryAt);
+            reschedule(task, nextQueryAt);
+            return;
+        }
+
         // Query gateway
         log.info("Querying gateway for transaction: {}, orderId: {}, elapsed: {} minutes", 
             transactionId, transaction.getOrderId(), elapsed.toMinutes());
@@ -136,7 +168,7 @@ public class QueryPaymentStatusTask implements TaskHandler {
         if (updatedTransaction.getStatus() == TransactionStatus.PENDING) {
             // Schedule next query with appropriate interval
             int intervalSeconds = calculateNextInterval(elapsed);
-            task.addUniqueResultTask(task.cloneAndRescheduleAt(Instant.now().plusSeconds(intervalSeconds)));
+            reschedule(task, Instant.now().plusSeconds(intervalSeconds));
         } else {
             log.info("Transaction {} now has final status: {}", 
                 transactionId, updatedTransaction.getStatus());
@@ -144,6 +176,11 @@ public class QueryPaymentStatusTask implements TaskHandler {
         }
     }
     
+    private void reschedule(PullTask task, Instant nextQueryAt) {
+        task.addUniqueResultTask(task.cloneAndRescheduleAt(nextQueryAt));
+        eventPublisher.publishEvent(new PullTaskScheduledEvent(this, nextQueryAt));
+    }
+
     private TaskPayload parsePayload(PullTask task) throws JsonProcessingException {
         if (task.getPayload() == null || task.getPayload().isBlank()) {
             throw new IllegalStateException("Task payload is empty");
@@ -226,7 +263,11 @@ public class QueryPaymentStatusTask implements TaskHandler {
             .build();
     }
     
-    private int calculateNextInterval(Duration elapsed) {
+    /**
+     * @param elapsed time since the payment was requested
+     * @return seconds until the next status query
+     */
+    public static int calculateNextInterval(Duration elapsed) {
         long elapsedHours = elapsed.toHours();
         
         if (elapsedHours < 1) {
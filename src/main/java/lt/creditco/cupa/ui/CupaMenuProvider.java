@@ -11,6 +11,7 @@ import lt.creditco.cupa.ui.client.ClientListView;
 import lt.creditco.cupa.ui.clientcard.ClientCardListView;
 import lt.creditco.cupa.ui.merchant.MerchantListView;
 import lt.creditco.cupa.ui.paymenttransaction.PaymentTransactionListView;
+import lt.creditco.cupa.ui.statistics.MerchantStatisticsView;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +43,9 @@ public class CupaMenuProvider implements MenuProvider {
         // Payment Transactions - available to all authenticated users
         items.add(new RouterLink("Payment Transactions", PaymentTransactionListView.class));
         
+        // Merchant Statistics - available to all authenticated users
+        items.add(new RouterLink("Merchant Statistics", MerchantStatisticsView.class));
+        
         // Merchants - only for admins
         if (isAdmin(user)) {
             items.add(new RouterLink("Merchants", MerchantListView.class));
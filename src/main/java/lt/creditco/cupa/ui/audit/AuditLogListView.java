@@ -8,6 +8,7 @@ import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.combobox.MultiSelectComboBox;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridSortOrder;
+import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
@@ -27,6 +28,7 @@ import lt.creditco.cupa.service.dto.AuditLogDTO;
 import lt.creditco.cupa.service.dto.MerchantDTO;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 import java.util.List;
 import java.util.Set;
@@ -39,6 +41,10 @@ import java.util.Set;
 @RolesAllowed({ AuthoritiesConstants.ADMIN, AuthoritiesConstants.CREDITCO, AuthoritiesConstants.MERCHANT, AuthoritiesConstants.USER })
 public class AuditLogListView extends VerticalLayout {
 
+    /** Rows shown at most; the list is read without counting all matching rows. */
+    private static final int MAX_ROWS = 1000;
+    private static final Sort LIST_SORT = Sort.by(Sort.Direction.DESC, "requestTimestamp").and(Sort.by(Sort.Direction.DESC, "id"));
+
     private final AuditLogService auditLogService;
     private final MerchantService merchantService;
     private final CupaUserService cupaUserService;
@@ -55,6 +61,9 @@ public class AuditLogListView extends VerticalLayout {
     private final ComboBox<MerchantMode> environmentFilter = new ComboBox<>("Environment");
     private final Button applyFiltersButton = new Button("Apply Filters");
     private final Button clearFiltersButton = new Button("Clear");
+    private final Span truncatedNote = new Span(
+        "Showing the latest " + MAX_ROWS + " entries. Narrow the filters to find older ones."
+    );
 
     public AuditLogListView(
         AuditLogService auditLogService,
@@ -81,13 +90,16 @@ public class AuditLogListView extends VerticalLayout {
         );
         
         add(breadcrumbBar, createFilterToolbar());
+        truncatedNote.getStyle().set("color", "var(--lumo-secondary-text-color)");
+        truncatedNote.setVisible(false);
+        add(truncatedNote);
         add(createGrid());
         loadFilterData();
         refreshGrid();
     }
 
     private HorizontalLayout createFilterToolbar() {
-        orderIdFilter.setPlaceholder("Filter by order ID...");
+        orderIdFilter.setPlaceholder("Order ID or prefix*");
         orderIdFilter.setClearButtonVisible(true);
         orderIdFilter.setWidth("200px");
         
@@ -95,7 +107,7 @@ public class AuditLogListView extends VerticalLayout {
         methodFilter.setClearButtonVisible(true);
         methodFilter.setWidth("150px");
         
-        endpointFilter.setPlaceholder("Filter by endpoint...");
+        endpointFilter.setPlaceholder("Endpoint part or prefix*");
         endpointFilter.setClearButtonVisible(true);
         endpointFilter.setWidth("250px");
         
@@ -210,29 +222,22 @@ public class AuditLogListView extends VerticalLayout {
         List<String> merchantIds = selectedMerchants.isEmpty() ? null : 
             selectedMerchants.stream().map(MerchantDTO::getId).toList();
         
-        var pageable = PageRequest.of(0, 1000, 
-            Sort.by(Sort.Direction.DESC, "requestTimestamp"));
-        
         // Service handles ALL access control
-        List<AuditLogDTO> filteredLogs = auditLogService
-            .findByFiltersWithAccessControl(
-                endpoint, method, orderId, environment != null ? environment.name() : null, statusCodes, merchantIds, pageable, loggedInUser
-            )
-            .getContent();
-        
-        grid.setItems(filteredLogs);
-        applySortOrder();
+        showLogs(auditLogService.findWindowByFiltersWithAccessControl(
+            endpoint, method, orderId, environment != null ? environment.name() : null, statusCodes, merchantIds,
+            LIST_SORT, MAX_ROWS, loggedInUser
+        ));
     }
 
     private void refreshGrid() {
-        var pageable = PageRequest.of(0, 1000, 
-            Sort.by(Sort.Direction.DESC, "requestTimestamp"));
-        
-        List<AuditLogDTO> logs = auditLogService
-            .findByFiltersWithAccessControl(null, null, null, null, null, null, pageable, loggedInUser)
-            .getContent();
-        
-        grid.setItems(logs);
+        showLogs(auditLogService.findWindowByFiltersWithAccessControl(
+            null, null, null, null, null, null, LIST_SORT, MAX_ROWS, loggedInUser
+        ));
+    }
+
+    private void showLogs(Window<AuditLogDTO> logs) {
+        grid.setItems(logs.getContent());
+        truncatedNote.setVisible(logs.hasNext());
         applySortOrder();
     }
 
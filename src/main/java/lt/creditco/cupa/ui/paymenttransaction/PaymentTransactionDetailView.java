@@ -417,7 +417,7 @@ public class PaymentTransactionDetailView extends VerticalLayout implements HasU
     
     private void loadTransaction(String transactionId) {
         PaymentTransactionDTO transaction = paymentTransactionService
-            .findOneWithAccessControl(transactionId, loggedInUser)
+            .findOneWithPayloadWithAccessControl(transactionId, loggedInUser)
             .orElse(null);
         
         if (transaction != null) {
@@ -494,7 +494,7 @@ public class PaymentTransactionDetailView extends VerticalLayout implements HasU
         }
         
         PaymentTransactionDTO updated = paymentTransactionService
-            .findOneWithAccessControl(currentTransaction.getId(), loggedInUser)
+            .findOneWithPayloadWithAccessControl(currentTransaction.getId(), loggedInUser)
             .orElse(null);
         
         if (updated != null) {
@@ -551,8 +551,12 @@ public class PaymentTransactionDetailView extends VerticalLayout implements HasU
                     () -> loggedInUser.getLogin());
             
             // Query gateway
-            PaymentTransactionDTO updated = paymentTransactionService
+            PaymentTransactionDTO queried = paymentTransactionService
                 .queryPaymentFromGateway(currentTransaction.getId(), context);
+            // the query result carries no payloads; reload them for the JSON panels
+            PaymentTransactionDTO updated = paymentTransactionService
+                .findOneWithPayloadWithAccessControl(queried.getId(), loggedInUser)
+                .orElse(queried);
             
             // Update view
             this.currentTransaction = updated;
@@ -18,12 +18,14 @@ import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
-import com.vaadin.flow.data.provider.ListDataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
 import com.vaadin.flow.data.provider.SortDirection;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouterLink;
+import com.vaadin.flow.server.streams.DownloadHandler;
 import jakarta.annotation.security.RolesAllowed;
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -31,9 +33,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 import lt.creditco.cupa.application.PaymentTransactionListDatePreset;
 import lt.creditco.cupa.application.PaymentTransactionListDatePresets;
 import lt.creditco.cupa.base.users.CupaUser;
@@ -46,12 +52,17 @@ import lt.creditco.cupa.service.MerchantService;
 import lt.creditco.cupa.service.PaymentTransactionService;
 import lt.creditco.cupa.service.dto.MerchantDTO;
 import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
+import lt.creditco.cupa.service.dto.PaymentTransactionListFilter;
 import lt.creditco.cupa.ui.paymenttransaction.excel.PaymentTransactionExcelExporter;
 import lt.creditco.cupa.ui.paymenttransaction.state.PaymentTransactionListFilterState;
 import lt.creditco.cupa.util.UserLocalDateRange;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.annotation.Scope;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 /**
  * Vaadin view for listing Payment Transactions.
@@ -63,7 +74,10 @@ import org.springframework.data.domain.PageRequest;
 @Slf4j
 public class PaymentTransactionListView extends VerticalLayout {
 
-    private static final int LIST_FETCH_LIMIT = 10_000;
+    /** Rows read from the database per query while streaming the Excel export. */
+    private static final int EXPORT_WINDOW_SIZE = 1_000;
+    private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final String SORT_REQUEST_TIMESTAMP = "requestTimestamp";
     private static final DateTimeFormatter EXCEL_NAME_TS = DateTimeFormatter.ofPattern("yyyyMMdd-HHmm");
 
     private final PaymentTransactionService paymentTransactionService;
@@ -75,6 +89,8 @@ public class PaymentTransactionListView extends VerticalLayout {
     private final Grid<PaymentTransactionDTO> grid = new Grid<>(PaymentTransactionDTO.class, false);
     private Grid.Column<PaymentTransactionDTO> timestampColumn;
     private final Span countLabel = new Span();
+    /** Scroll position of the row before each grid offset fetched so far (one entry per fetched window). */
+    private final Map<Integer, ScrollPosition> scrollPositions = new HashMap<>();
 
     // Filters
     private final TextField orderIdFilter = new TextField("Order ID");
@@ -228,26 +244,35 @@ public class PaymentTransactionListView extends VerticalLayout {
         Button exportExcelButton = new Button("Export to Excel");
         exportExcelButton.addClickListener(event -> {
             try {
-                List<PaymentTransactionDTO> visibleRecords = grid.getListDataView().getItems().toList();
-                if (visibleRecords.isEmpty()) {
+                PaymentTransactionListFilter filter = currentFilter();
+                long total = filter == null ? 0 : paymentTransactionService.countWithAccessControl(loggedInUser, filter);
+                if (total == 0) {
                     Notification.show("No records to export", 3000, Notification.Position.TOP_END)
                         .addThemeVariants(NotificationVariant.LUMO_WARNING);
                     return;
                 }
                 String fileName = "payment-transactions-" + LocalDateTime.now().format(EXCEL_NAME_TS) + ".xlsx";
-                byte[] excelData = excelExporter.exportToExcel(visibleRecords, cupaUserService.getCurrentUserTimezone());
-                exportExcelAnchor.setHref(
-                    "data:application/vnd.openxmlformats-officedocument.spreadsheetml.sheet;base64," +
-                    java.util.Base64.getEncoder().encodeToString(excelData)
-                );
-                exportExcelAnchor.getElement().setAttribute("download", fileName);
+                exportExcelAnchor.setHref(excelDownload(fileName, filter));
                 exportExcelAnchor.getElement().callJsFunction("click");
-                Notification.show(
-                    String.format("Exported %d record%s to Excel", visibleRecords.size(), visibleRecords.size() == 1 ? "" : "s"),
-                    3000,
-                    Notification.Position.TOP_END
-                )
-                    .addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+                if (total > PaymentTransactionExcelExporter.MAX_EXPORT_ROWS) {
+                    Notification.show(
+                        String.format(
+                            "Exporting the first %,d of %,d records, the most an Excel sheet holds",
+                            PaymentTransactionExcelExporter.MAX_EXPORT_ROWS,
+                            total
+                        ),
+                        5000,
+                        Notification.Position.TOP_END
+                    )
+                        .addThemeVariants(NotificationVariant.LUMO_WARNING);
+                } else {
+                    Notification.show(
+                        String.format("Exporting %,d record%s to Excel", total, total == 1 ? "" : "s"),
+                        3000,
+                        Notification.Position.TOP_END
+                    )
+                        .addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+                }
             } catch (Exception e) {
                 log.error("Failed to export to Excel", e);
                 Notification.show("Export failed: " + e.getMessage(), 5000, Notification.Position.TOP_END)
@@ -258,6 +283,23 @@ public class PaymentTransactionListView extends VerticalLayout {
         return exportExcelAnchor;
     }
 
+    /**
+     * Streams the export straight into the download response, reading the rows in windows of
+     * {@value #EXPORT_WINDOW_SIZE}. The handler runs outside the UI session lock, so it only uses values captured here.
+     */
+    private DownloadHandler excelDownload(String fileName, PaymentTransactionListFilter filter) {
+        Sort sort = currentSort();
+        ScrollPosition start = isKeysetSort(sort) ? ScrollPosition.keyset() : ScrollPosition.offset();
+        ZoneId zone = cupaUserService.getCurrentUserTimezone();
+        return event -> {
+            event.setFileName(fileName);
+            event.setContentType(XLSX_CONTENT_TYPE);
+            excelExporter.writeExcel(event.getOutputStream(), zone, start, position ->
+                paymentTransactionService.findWindowWithAccessControl(loggedInUser, filter, sort, EXPORT_WINDOW_SIZE, position)
+            );
+        };
+    }
+
     private void initDateRangeAndRefresh() {
         syncingPeriodToDates = true;
         try {
@@ -448,17 +490,21 @@ public class PaymentTransactionListView extends VerticalLayout {
     }
 
     private Grid<PaymentTransactionDTO> createGrid() {
-        grid.addColumn(PaymentTransactionDTO::getOrderId).setHeader("Order ID").setSortable(true).setAutoWidth(true);
-        grid.addColumn(PaymentTransactionDTO::getPaymentBrand).setHeader("Payment Brand").setSortable(true).setAutoWidth(true);
-        grid.addColumn(PaymentTransactionDTO::getAmount).setHeader("Amount").setSortable(true).setAutoWidth(true);
-        grid.addColumn(PaymentTransactionDTO::getCurrency).setHeader("Currency").setSortable(true).setAutoWidth(true);
+        grid.addColumn(PaymentTransactionDTO::getOrderId).setHeader("Order ID").setSortProperty("orderId").setAutoWidth(true);
+        grid
+            .addColumn(PaymentTransactionDTO::getPaymentBrand)
+            .setHeader("Payment Brand")
+            .setSortProperty("paymentBrand")
+            .setAutoWidth(true);
+        grid.addColumn(PaymentTransactionDTO::getAmount).setHeader("Amount").setSortProperty("amount").setAutoWidth(true);
+        grid.addColumn(PaymentTransactionDTO::getCurrency).setHeader("Currency").setSortProperty("currency").setAutoWidth(true);
         timestampColumn = grid
             .addColumn(PaymentTransactionDTO::getRequestTimestamp)
             .setHeader("Timestamp")
-            .setSortable(true)
+            .setSortProperty(SORT_REQUEST_TIMESTAMP)
             .setAutoWidth(true);
-        grid.addColumn(PaymentTransactionDTO::getStatus).setHeader("Status").setSortable(true).setAutoWidth(true);
-        grid.addColumn(PaymentTransactionDTO::getEnvironment).setHeader("Env").setSortable(true).setWidth("80px");
+        grid.addColumn(PaymentTransactionDTO::getStatus).setHeader("Status").setSortProperty("status").setAutoWidth(true);
+        grid.addColumn(PaymentTransactionDTO::getEnvironment).setHeader("Env").setSortProperty("environment").setWidth("80px");
 
         grid
             .addComponentColumn(tx -> {
@@ -493,13 +539,31 @@ public class PaymentTransactionListView extends VerticalLayout {
         persistStateFromUi();
         log.debug("Refreshing payment transactions grid for user: {}", loggedInUser.getLogin());
 
+        PaymentTransactionListFilter filter = currentFilter();
+        if (filter == null) {
+            grid.setItems(Collections.emptyList());
+            sortGridByTimestamp();
+            return;
+        }
+
+        long total = paymentTransactionService.countWithAccessControl(loggedInUser, filter);
+        scrollPositions.clear();
+        grid.setItems(query -> fetchWindow(query, filter), query -> (int) Math.min(total, Integer.MAX_VALUE));
+        sortGridByTimestamp();
+        updateCountLabel(total);
+    }
+
+    /**
+     * @return the filters of the current UI state, {@code null} (with the reason shown in the count label) if the
+     *     date range is incomplete or invalid.
+     */
+    private PaymentTransactionListFilter currentFilter() {
         LocalDate from = fromDate.getValue();
         LocalDate to = toDate.getValue();
         if (from == null || to == null) {
             countLabel.setText("Set From and To dates to load transactions");
             countLabel.getStyle().set("color", "var(--lumo-secondary-text-color)");
-            applyEmptyGridWithFilters();
-            return;
+            return null;
         }
 
         ZoneId zone = cupaUserService.getCurrentUserTimezone();
@@ -508,99 +572,97 @@ public class PaymentTransactionListView extends VerticalLayout {
         if (!startInclusive.isBefore(endExclusive)) {
             countLabel.setText("Invalid date range (From must be before To)");
             countLabel.getStyle().set("color", "var(--lumo-error-text-color)");
-            applyEmptyGridWithFilters();
-            return;
+            return null;
         }
 
-        List<PaymentTransactionDTO> allTransactions = paymentTransactionService.findListWithAccessControl(
-            loggedInUser,
+        return new PaymentTransactionListFilter(
             startInclusive,
             endExclusive,
-            LIST_FETCH_LIMIT
+            StringUtils.trimToNull(orderIdFilter.getValue()),
+            paymentBrandFilter.getValue(),
+            parseAmount(amountFilter.getValue()),
+            statusFilter.getValue(),
+            merchantFilter.getValue() == null ? null : merchantFilter.getValue().getId(),
+            environmentFilter.getValue()
         );
-
-        ListDataProvider<PaymentTransactionDTO> dataProvider = new ListDataProvider<>(allTransactions);
-        dataProvider.setFilter(this::rowMatchesFieldFilters);
-        grid.setDataProvider(dataProvider);
-        sortGridByTimestamp();
-        int visible = (int) grid.getListDataView().getItems().count();
-        updateCountLabel(visible, allTransactions.size() >= LIST_FETCH_LIMIT);
     }
 
-    private void updateCountLabel(int visibleSize, boolean hitServerLimit) {
-        if (visibleSize == 0) {
-            countLabel.setText("No payment transactions to display (check date range and field filters)");
-            countLabel.getStyle().set("color", "var(--lumo-secondary-text-color)");
-        } else if (hitServerLimit) {
-            countLabel.setText(
-                String.format(
-                    "Showing %,d matching row%s (capped at %,d from server; more data may exist)",
-                    visibleSize,
-                    visibleSize == 1 ? "" : "s",
-                    LIST_FETCH_LIMIT
-                )
-            );
-            countLabel.getStyle().set("color", "var(--lumo-warning-text-color)");
-        } else {
-            countLabel.setText(
-                String.format("Showing %,d payment transaction%s", visibleSize, visibleSize == 1 ? "" : "s")
-            );
-            countLabel.getStyle().set("color", "var(--lumo-secondary-text-color)");
+    private static BigDecimal parseAmount(String value) {
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Invalid amount filter value: {}", value);
+            return null;
         }
     }
 
-    private void applyEmptyGridWithFilters() {
-        ListDataProvider<PaymentTransactionDTO> dataProvider = new ListDataProvider<>(Collections.emptyList());
-        dataProvider.setFilter(this::rowMatchesFieldFilters);
-        grid.setDataProvider(dataProvider);
-        sortGridByTimestamp();
-    }
-
-    private boolean rowMatchesFieldFilters(PaymentTransactionDTO tx) {
-        String orderIdValue = orderIdFilter.getValue();
-        PaymentBrand paymentBrandValue = paymentBrandFilter.getValue();
-        String amountValue = amountFilter.getValue();
-        TransactionStatus statusValue = statusFilter.getValue();
-        MerchantDTO merchantValue = merchantFilter.getValue();
-        MerchantMode envValue = environmentFilter.getValue();
-
-        if (orderIdValue != null && !orderIdValue.isEmpty() && (tx.getOrderId() == null || !tx.getOrderId().equals(orderIdValue))) {
-            return false;
+    /**
+     * Fetches the rows the grid asks for. When the grid scrolls on from the end of a previous window, the next window
+     * is read from that window's keyset position; other offsets (e.g. after dragging the scroll bar) use an offset.
+     */
+    private Stream<PaymentTransactionDTO> fetchWindow(Query<PaymentTransactionDTO, Void> query, PaymentTransactionListFilter filter) {
+        Sort sort = toSort(query.getSortOrders());
+        if (query.getOffset() == 0) {
+            scrollPositions.clear();
         }
+        ScrollPosition position = query.getOffset() == 0
+            ? (isKeysetSort(sort) ? ScrollPosition.keyset() : ScrollPosition.offset())
+            : scrollPositions.getOrDefault(query.getOffset(), ScrollPosition.offset(query.getOffset() - 1L));
 
-        if (paymentBrandValue != null && (tx.getPaymentBrand() == null || !tx.getPaymentBrand().equals(paymentBrandValue))) {
-            return false;
+        Window<PaymentTransactionDTO> window = paymentTransactionService.findWindowWithAccessControl(
+            loggedInUser,
+            filter,
+            sort,
+            query.getLimit(),
+            position
+        );
+        if (!window.isEmpty()) {
+            scrollPositions.put(query.getOffset() + window.size(), window.positionAt(window.size() - 1));
         }
+        return window.stream();
+    }
 
-        if (amountValue != null && !amountValue.isEmpty()) {
-            try {
-                BigDecimal filterAmount = new BigDecimal(amountValue);
-                if (tx.getAmount() == null || tx.getAmount().compareTo(filterAmount) != 0) {
-                    return false;
-                }
-            } catch (NumberFormatException e) {
-                log.debug("Invalid amount filter value: {}", amountValue);
-            }
-        }
+    private Sort currentSort() {
+        return toSort(
+            grid.getSortOrder().stream().flatMap(order -> order.getSorted().getSortOrder(order.getDirection())).toList()
+        );
+    }
 
-        if (statusValue != null && (tx.getStatus() == null || !tx.getStatus().equals(statusValue))) {
-            return false;
+    private static Sort toSort(List<QuerySortOrder> sortOrders) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (QuerySortOrder sortOrder : sortOrders) {
+            orders.add(
+                sortOrder.getDirection() == SortDirection.ASCENDING
+                    ? Sort.Order.asc(sortOrder.getSorted())
+                    : Sort.Order.desc(sortOrder.getSorted())
+            );
         }
-
-        if (merchantValue != null && (tx.getMerchantId() == null || !tx.getMerchantId().equals(merchantValue.getId()))) {
-            return false;
+        if (orders.isEmpty()) {
+            orders.add(Sort.Order.desc(SORT_REQUEST_TIMESTAMP));
         }
+        // the id makes the order unique, as keyset scrolling requires
+        orders.add(new Sort.Order(orders.get(0).getDirection(), "id"));
+        return Sort.by(orders);
+    }
 
-        if (envValue != null) {
-            if (tx.getEnvironment() == null) {
-                return false;
-            }
-            if (!tx.getEnvironment().equals(envValue)) {
-                return false;
-            }
-        }
+    /**
+     * Keyset positions are used only for the timestamp order: it is backed by the (request_timestamp, id) index and
+     * the date range guarantees non-null keys. Other columns are nullable and are scrolled by offset.
+     */
+    private static boolean isKeysetSort(Sort sort) {
+        return SORT_REQUEST_TIMESTAMP.equals(sort.iterator().next().getProperty());
+    }
 
-        return true;
+    private void updateCountLabel(long total) {
+        if (total == 0) {
+            countLabel.setText("No payment transactions to display (check date range and field filters)");
+        } else {
+            countLabel.setText(String.format("Showing %,d payment transaction%s", total, total == 1 ? "" : "s"));
+        }
+        countLabel.getStyle().set("color", "var(--lumo-secondary-text-color)");
     }
 
     private void sortGridByTimestamp() {
@@ -1,25 +1,76 @@
 package lt.creditco.cupa.ui.paymenttransaction.excel;
 
+import com.bpmid.excel_exporter.ExcelCell;
 import com.bpmid.excel_exporter.ExcelExporter;
 import com.bpmid.excel_exporter.ExportOptions;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 /**
  * Builds XLSX for the payment transaction list using the same rows as the grid (order preserved).
+ * <p>
+ * {@link #exportToExcel(List, ZoneId)} builds the whole workbook in memory; {@link #writeExcel} streams rows window by
+ * window into the output, keeping only {@value #ROW_ACCESS_WINDOW} rows in memory, so its memory use does not grow
+ * with the export size.
+ * <p>
+ * The streamed sheet is capped at {@link #MAX_EXPORT_ROWS} rows, the most an {@code .xlsx} sheet holds next to the
+ * header and a truncation notice; the rows beyond are left out and the notice says so.
+ * <p>
+ * The streaming writer cannot hand rows to {@link ExcelExporter}, which only fills a whole sheet from a list held in
+ * memory, so it takes headers, widths and formats from the same {@link ExcelCell} annotations and mirrors how
+ * {@link ExcelExporter} writes values; {@code PaymentTransactionExcelExporterTest} keeps the two outputs in step.
  */
 @Service
 public class PaymentTransactionExcelExporter {
 
     private static final Logger log = LoggerFactory.getLogger(PaymentTransactionExcelExporter.class);
 
+    private static final String SHEET_NAME = "payment_transactions";
+    /** Rows kept in memory by the streaming workbook; older rows are flushed to a temp file. */
+    static final int ROW_ACCESS_WINDOW = 100;
+    private static final String TIMESTAMP_FORMAT = "yyyy-mm-dd hh:mm:ss";
+    private static final int FROZEN_COLUMNS = 2;
+    /** Data rows of the streamed sheet; the rest of the sheet's rows are the header and the truncation notice. */
+    public static final int MAX_EXPORT_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows() - 2;
+    private static final List<Field> COLUMNS = Arrays.stream(PaymentTransactionExportData.class.getDeclaredFields())
+        .filter(field -> field.isAnnotationPresent(ExcelCell.class))
+        .peek(field -> field.setAccessible(true))
+        .toList();
+
+    private final int maxRows;
+
+    public PaymentTransactionExcelExporter() {
+        this(MAX_EXPORT_ROWS);
+    }
+
+    PaymentTransactionExcelExporter(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
     public byte[] exportToExcel(List<PaymentTransactionDTO> visibleRows, ZoneId timeZone) {
         log.info("Exporting {} payment transactions to Excel", visibleRows == null ? 0 : visibleRows.size());
 
@@ -41,6 +92,120 @@ public class PaymentTransactionExcelExporter {
         }
     }
 
+    /**
+     * Streams the rows returned by {@code nextWindow} into {@code out}, starting at {@code start} and continuing from
+     * the last row of each window until a window has no next one. Columns have the fixed widths of
+     * {@link PaymentTransactionExportData} (no auto-sizing, which would need all rows in memory). Stops after
+     * {@link #MAX_EXPORT_ROWS} rows and adds a row saying the export was truncated.
+     *
+     * @return the number of rows written.
+     */
+    public long writeExcel(
+        OutputStream out,
+        ZoneId timeZone,
+        ScrollPosition start,
+        Function<ScrollPosition, Window<PaymentTransactionDTO>> nextWindow
+    ) throws IOException {
+        ZoneId zone = timeZone != null ? timeZone : ZoneId.systemDefault();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            SXSSFSheet sheet = workbook.createSheet(SHEET_NAME);
+            CellStyle[] styles = createColumnStyles(workbook);
+            writeHeader(workbook, sheet);
+
+            int rowCount = 0;
+            boolean truncated = false;
+            Window<PaymentTransactionDTO> window = nextWindow.apply(start);
+            while (true) {
+                for (PaymentTransactionDTO dto : window) {
+                    if (rowCount == maxRows) {
+                        truncated = true;
+                        break;
+                    }
+                    writeRow(sheet.createRow(++rowCount), new PaymentTransactionExportData(dto), styles, zone);
+                }
+                if (truncated || window.isEmpty() || !window.hasNext()) {
+                    break;
+                }
+                window = nextWindow.apply(window.positionAt(window.size() - 1));
+            }
+
+            sheet.setAutoFilter(new CellRangeAddress(0, rowCount, 0, COLUMNS.size() - 1));
+            sheet.createFreezePane(FROZEN_COLUMNS, 1);
+            if (truncated) {
+                sheet
+                    .createRow(rowCount + 1)
+                    .createCell(0)
+                    .setCellValue(String.format("Export truncated after %,d rows; narrow the filter to export the rest.", rowCount));
+                log.warn("Excel export of payment transactions truncated after {} rows", rowCount);
+            }
+            workbook.write(out);
+            log.info("Exported {} payment transactions to Excel", rowCount);
+            return rowCount;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static CellStyle[] createColumnStyles(Workbook workbook) {
+        CellStyle[] styles = new CellStyle[COLUMNS.size()];
+        for (int i = 0; i < styles.length; i++) {
+            Field field = COLUMNS.get(i);
+            String format = field.getAnnotation(ExcelCell.class).format();
+            if ((format == null || format.isEmpty()) && field.getType() == Instant.class) {
+                format = TIMESTAMP_FORMAT;
+            }
+            if (format != null && !format.isEmpty()) {
+                styles[i] = workbook.createCellStyle();
+                styles[i].setDataFormat(workbook.createDataFormat().getFormat(format));
+            }
+        }
+        return styles;
+    }
+
+    private static void writeHeader(Workbook workbook, SXSSFSheet sheet) {
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        CellStyle headerStyle = workbook.createCellStyle();
+        headerStyle.setFont(bold);
+
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            ExcelCell excelCell = COLUMNS.get(i).getAnnotation(ExcelCell.class);
+            Cell cell = header.createCell(i);
+            cell.setCellValue(excelCell.name());
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, excelCell.width() * 256);
+        }
+    }
+
+    private static void writeRow(Row row, PaymentTransactionExportData data, CellStyle[] styles, ZoneId zone) {
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            Object value;
+            try {
+                value = COLUMNS.get(i).get(data);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Failed to read export column " + COLUMNS.get(i).getName(), e);
+            }
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            if (value instanceof BigDecimal number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof Instant instant) {
+                cell.setCellValue(LocalDateTime.ofInstant(instant, zone));
+            } else {
+                cell.setCellValue(value.toString());
+            }
+            if (styles[i] != null) {
+                cell.setCellStyle(styles[i]);
+            }
+        }
+    }
+
     private Workbook createWorkbook(List<PaymentTransactionExportData> exportData, ZoneId timeZone) {
         Workbook workbook = ExcelExporter.createWorkbook();
         ZoneId zone = timeZone != null ? timeZone : ZoneId.systemDefault();
@@ -54,7 +219,7 @@ public class PaymentTransactionExcelExporter {
                 .build();
             ExcelExporter.exportToSheet(
                 workbook,
-                "payment_transactions",
+                SHEET_NAME,
                 exportData,
                 PaymentTransactionExportData.class,
                 options
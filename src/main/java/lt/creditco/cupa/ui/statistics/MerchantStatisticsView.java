@@ -0,0 +1,235 @@
+package lt.creditco.cupa.ui.statistics;
+
+import com.bpmid.vapp.base.ui.MainLayout;
+import com.bpmid.vapp.base.ui.breadcrumb.*;
+import com.bpmid.vapp.base.ui.components.VappDatePicker;
+import com.bpmid.vapp.web.rest.errors.BadRequestAlertException;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.combobox.MultiSelectComboBox;
+import com.vaadin.flow.component.grid.ColumnTextAlign;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.H3;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import jakarta.annotation.security.RolesAllowed;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lt.creditco.cupa.base.users.CupaUser;
+import lt.creditco.cupa.domain.enumeration.Currency;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.security.AuthoritiesConstants;
+import lt.creditco.cupa.service.CupaUserService;
+import lt.creditco.cupa.service.MerchantService;
+import lt.creditco.cupa.service.MerchantStatisticsService;
+import lt.creditco.cupa.service.dto.DailyTurnoverDTO;
+import lt.creditco.cupa.service.dto.MerchantDTO;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Vaadin dashboard of merchant turnover per day, read from the daily turnover rollup.
+ */
+@Route(value = "merchant-statistics", layout = MainLayout.class)
+@PageTitle("Merchant Statistics | CUPA")
+@RolesAllowed({ AuthoritiesConstants.ADMIN, AuthoritiesConstants.CREDITCO, AuthoritiesConstants.MERCHANT, AuthoritiesConstants.USER })
+public class MerchantStatisticsView extends VerticalLayout {
+
+    /** Days shown when the view is opened. */
+    private static final int DEFAULT_DAYS = 30;
+
+    /**
+     * Turnover of all shown days for one currency and status.
+     */
+    record Total(Currency currency, TransactionStatus status, long transactionCount, BigDecimal amount) {
+        Total plus(Total other) {
+            return new Total(currency, status, transactionCount + other.transactionCount, amount.add(other.amount));
+        }
+    }
+
+    private record TotalKey(Currency currency, TransactionStatus status) {}
+
+    private final MerchantStatisticsService merchantStatisticsService;
+    private final MerchantService merchantService;
+    private final CupaUser loggedInUser;
+    private final Grid<Total> totalsGrid = new Grid<>();
+    private final Grid<DailyTurnoverDTO> dailyGrid = new Grid<>();
+
+    // Filter components
+    private final MultiSelectComboBox<MerchantDTO> merchantFilter = new MultiSelectComboBox<>("Merchant");
+    private final ComboBox<MerchantMode> environmentFilter = new ComboBox<>("Environment");
+    private final VappDatePicker fromDate;
+    private final VappDatePicker toDate;
+    private final Button applyFiltersButton = new Button("Apply Filters");
+    private final Button clearFiltersButton = new Button("Clear");
+
+    public MerchantStatisticsView(
+        MerchantStatisticsService merchantStatisticsService,
+        MerchantService merchantService,
+        CupaUserService cupaUserService
+    ) {
+        this.merchantStatisticsService = merchantStatisticsService;
+        this.merchantService = merchantService;
+        this.loggedInUser = cupaUserService.getUserWithAuthorities()
+            .map(CupaUser.class::cast)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        this.fromDate = new VappDatePicker(cupaUserService, "From");
+        this.toDate = new VappDatePicker(cupaUserService, "To");
+
+        setSizeFull();
+        setPadding(true);
+
+        BreadcrumbBar breadcrumbBar = new BreadcrumbBar(
+            Breadcrumbs.builder()
+                .home()
+                .currentLink("Merchant Statistics", MerchantStatisticsView.class)
+                .build()
+        );
+
+        add(breadcrumbBar, createFilterToolbar());
+        add(new H3("Totals"), createTotalsGrid());
+        add(new H3("By Day"), createDailyGrid());
+        loadFilterData();
+        resetDates();
+        refresh();
+    }
+
+    private HorizontalLayout createFilterToolbar() {
+        merchantFilter.setPlaceholder("All merchants");
+        merchantFilter.setItemLabelGenerator(merchant -> merchant.getId() + " - " + merchant.getName());
+        merchantFilter.setWidth("250px");
+
+        environmentFilter.setPlaceholder("All environments");
+        environmentFilter.setClearButtonVisible(true);
+        environmentFilter.setWidth("150px");
+
+        fromDate.setWidth("150px");
+        toDate.setWidth("150px");
+
+        applyFiltersButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
+        clearFiltersButton.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
+
+        applyFiltersButton.addClickListener(e -> refresh());
+        clearFiltersButton.addClickListener(e -> clearFilters());
+
+        HorizontalLayout toolbar = new HorizontalLayout(
+            merchantFilter, environmentFilter, fromDate, toDate,
+            applyFiltersButton, clearFiltersButton
+        );
+        toolbar.setDefaultVerticalComponentAlignment(Alignment.END);
+        toolbar.setWidthFull();
+
+        return toolbar;
+    }
+
+    private Grid<Total> createTotalsGrid() {
+        totalsGrid.setWidthFull();
+        totalsGrid.setAllRowsVisible(true);
+
+        totalsGrid.addColumn(Total::currency).setHeader("Currency").setAutoWidth(true);
+        totalsGrid.addColumn(Total::status).setHeader("Status").setAutoWidth(true);
+        totalsGrid.addColumn(Total::transactionCount)
+            .setHeader("Transactions").setTextAlign(ColumnTextAlign.END).setAutoWidth(true);
+        totalsGrid.addColumn(Total::amount)
+            .setHeader("Amount").setTextAlign(ColumnTextAlign.END).setAutoWidth(true);
+
+        return totalsGrid;
+    }
+
+    private Grid<DailyTurnoverDTO> createDailyGrid() {
+        dailyGrid.setSizeFull();
+
+        dailyGrid.addColumn(DailyTurnoverDTO::day)
+            .setHeader("Day").setSortable(true).setAutoWidth(true);
+        dailyGrid.addColumn(DailyTurnoverDTO::merchantId)
+            .setHeader("Merchant").setSortable(true).setAutoWidth(true);
+        dailyGrid.addColumn(DailyTurnoverDTO::environment)
+            .setHeader("Env").setSortable(true).setWidth("80px");
+        dailyGrid.addColumn(DailyTurnoverDTO::status)
+            .setHeader("Status").setSortable(true).setAutoWidth(true);
+        dailyGrid.addColumn(DailyTurnoverDTO::currency)
+            .setHeader("Currency").setSortable(true).setAutoWidth(true);
+        dailyGrid.addColumn(DailyTurnoverDTO::paymentBrand)
+            .setHeader("Payment Brand").setSortable(true).setAutoWidth(true);
+        dailyGrid.addColumn(DailyTurnoverDTO::transactionCount)
+            .setHeader("Transactions").setSortable(true).setTextAlign(ColumnTextAlign.END).setAutoWidth(true);
+        dailyGrid.addColumn(DailyTurnoverDTO::amount)
+            .setHeader("Amount").setSortable(true)
+            .setTextAlign(ColumnTextAlign.END).setAutoWidth(true);
+
+        return dailyGrid;
+    }
+
+    private void loadFilterData() {
+        // Load merchants - service handles access control automatically
+        var pageable = PageRequest.of(0, 1000);
+        List<MerchantDTO> merchants = merchantService
+            .findAllWithAccessControl(pageable, loggedInUser)
+            .getContent();
+        merchantFilter.setItems(merchants);
+
+        environmentFilter.setItems(MerchantMode.values());
+    }
+
+    private void refresh() {
+        List<String> merchantIds = merchantFilter.getSelectedItems().stream().map(MerchantDTO::getId).toList();
+        List<DailyTurnoverDTO> rows;
+        try {
+            // Service handles ALL access control
+            rows = merchantStatisticsService.findDailyTurnoverWithAccessControl(
+                merchantIds, environmentFilter.getValue(), fromDate.getValue(), toDate.getValue(), loggedInUser
+            );
+        } catch (BadRequestAlertException e) {
+            Notification.show(e.getMessage(), 3000, Notification.Position.MIDDLE)
+                .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            return;
+        }
+        dailyGrid.setItems(rows);
+        totalsGrid.setItems(totals(rows));
+    }
+
+    /**
+     * @return the rows summed per currency and status.
+     */
+    static List<Total> totals(List<DailyTurnoverDTO> rows) {
+        Map<TotalKey, Total> totals = new LinkedHashMap<>();
+        rows
+            .stream()
+            .sorted(
+                Comparator.comparing(DailyTurnoverDTO::currency, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(DailyTurnoverDTO::status, Comparator.nullsLast(Comparator.naturalOrder()))
+            )
+            .forEach(row ->
+                totals.merge(
+                    new TotalKey(row.currency(), row.status()),
+                    new Total(row.currency(), row.status(), row.transactionCount(), row.amount()),
+                    Total::plus
+                )
+            );
+        return new ArrayList<>(totals.values());
+    }
+
+    private void resetDates() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        toDate.setValue(today);
+        fromDate.setValue(today.minusDays(DEFAULT_DAYS - 1L));
+    }
+
+    private void clearFilters() {
+        merchantFilter.clear();
+        environmentFilter.clear();
+        resetDates();
+        refresh();
+    }
+}
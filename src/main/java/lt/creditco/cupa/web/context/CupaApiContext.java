@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import lt.creditco.cupa.base.users.CupaUser;
 import lt.creditco.cupa.domain.DailyAmountLimit;
@@ -122,8 +123,12 @@ public class CupaApiContext {
         }
     }
 
-    @Data
-    @Builder
+    /**
+     * Merchant settings resolved for an API key. Immutable, since instances are shared through
+     * {@link lt.creditco.cupa.service.MerchantContextCache}; use {@code toBuilder()} to derive a changed copy.
+     */
+    @Value
+    @Builder(toBuilder = true)
     public static class MerchantContext {
 
         private String merchantId;
@@ -141,7 +146,7 @@ public class CupaApiContext {
         private DailyAmountLimit dailyAmountLimit;
         private BigDecimal minTransactionAmount;
         private BigDecimal maxTransactionAmount;
-        private int maxClientTransactionCountPerDay = 0;
+        private int maxClientTransactionCountPerDay;
 
         public boolean satisfiesClientIdPrefix(String clientId) {
             if (clientIdPrefix == null) return true;
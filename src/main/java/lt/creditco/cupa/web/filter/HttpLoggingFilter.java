@@ -19,7 +19,7 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import lt.creditco.cupa.service.AuditLogService;
+import lt.creditco.cupa.service.AuditLogWriter;
 import org.apache.commons.io.output.TeeOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,10 +30,10 @@ public class HttpLoggingFilter implements Filter {
 
     private static final Logger log = LoggerFactory.getLogger(HttpLoggingFilter.class);
 
-    private final AuditLogService auditLogService;
+    private final AuditLogWriter auditLogWriter;
 
-    public HttpLoggingFilter(AuditLogService auditLogService) {
-        this.auditLogService = auditLogService;
+    public HttpLoggingFilter(AuditLogWriter auditLogWriter) {
+        this.auditLogWriter = auditLogWriter;
     }
 
     @Override
@@ -93,11 +93,10 @@ public class HttpLoggingFilter implements Filter {
             // Log using the collected data
             log.debug(apiRequestDetails.buildLogMessage());
 
-            // TODO: In the next step, add call to auditLoggingService.saveApiRequestDetails(apiRequestDetails);
             String responseId = httpServletResponse.getHeader("X-Response-Id");
             if (responseId != null) {
                 Long responseIdLong = Long.parseLong(responseId);
-                auditLogService.updateAuditLogWithResponse(responseIdLong, apiRequestDetails);
+                auditLogWriter.complete(responseIdLong, apiRequestDetails);
             }
         } catch (Throwable a) {
             if (a.getMessage() == null) log.error("Unknown error:", a);
@@ -6,7 +6,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.security.Principal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import lt.creditco.cupa.service.AuditLogService;
+import lt.creditco.cupa.service.AuditLogWriter;
 import lt.creditco.cupa.service.CupaApiBusinessLogicService;
 import lt.creditco.cupa.service.dto.AuditLogDTO;
 import lt.creditco.cupa.web.context.CupaApiContext;
@@ -18,14 +18,15 @@ import org.springframework.web.servlet.ModelAndView;
 
 /**
  * Interceptor for auditing CUPA API requests.
- * Captures request/response data and creates audit log entries.
+ * Captures request data and registers audit log entries with {@link AuditLogWriter}; the response half is added by
+ * {@link lt.creditco.cupa.web.filter.HttpLoggingFilter}.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class CupaApiAuditInterceptor implements HandlerInterceptor {
 
-    private final AuditLogService auditLogService;
+    private final AuditLogWriter auditLogWriter;
     private final CupaApiBusinessLogicService businessLogicService;
     private final ObjectMapper objectMapper;
 
@@ -56,15 +57,14 @@ public class CupaApiAuditInterceptor implements HandlerInterceptor {
                 }
             }
 
-            // Create initial audit log entry
-            AuditLogDTO auditLog = createInitialAuditLog(context);
-            AuditLogDTO savedLog = auditLogService.save(auditLog);
+            // Register initial audit log entry, it is written together with the response
+            Long auditLogId = auditLogWriter.begin(createInitialAuditLog(context));
 
-            response.setHeader("X-Response-Id", savedLog.getId().toString());
+            response.setHeader("X-Response-Id", auditLogId.toString());
 
             // Store audit log ID in context
             if (context != null){
-                context.setAuditLogId(savedLog.getId());
+                context.setAuditLogId(auditLogId);
                 // No need to call CupaApiContext.setContext(context) again if it was already set.
                 // However, it is safe to do so as it just sets the same object again.
                 CupaApiContext.setContext(context);
@@ -72,7 +72,7 @@ public class CupaApiAuditInterceptor implements HandlerInterceptor {
 
             log.debug(
                 "Created audit log entry with ID: {} for request: {} {}",
-                savedLog.getId(),
+                auditLogId,
                 request.getMethod(),
                 request.getRequestURI()
             );
@@ -136,40 +136,13 @@ public class CupaApiAuditInterceptor implements HandlerInterceptor {
         return auditLog;
     }
 
-    private void updateAuditLogWithResponse(HttpServletResponse response) {
-        CupaApiContext.CupaApiContextData context = CupaApiContext.getContext();
-        if (context != null && context.getAuditLogId() != null) {
-            try {
-                AuditLogDTO auditLog = auditLogService.findOne(context.getAuditLogId()).orElse(null);
-                if (auditLog != null) {
-                    auditLog.setHttpStatusCode(response.getStatus());
-                    //                   auditLog.setResponseDescription(getResponseDescription(response.getStatus()));
-
-                    // Note: Response body capture would require a response wrapper
-                    // This is a simplified version
-                    auditLogService.update(auditLog);
-
-                    log.debug("Updated audit log entry {} with response status: {}", context.getAuditLogId(), response.getStatus());
-                }
-            } catch (Exception e) {
-                log.error("Error updating audit log with response", e);
-            }
-        }
-    }
-
     private void updateAuditLogWithException(Exception ex) {
         CupaApiContext.CupaApiContextData context = CupaApiContext.getContext();
         if (context != null && context.getAuditLogId() != null) {
             try {
-                AuditLogDTO auditLog = auditLogService.findOne(context.getAuditLogId()).orElse(null);
-                if (auditLog != null) {
-                    auditLog.setHttpStatusCode(500);
-                    auditLog.setResponseDescription("Exception occurred: " + ex.getMessage());
-                    auditLog.setResponseData(ex.toString());
-                    auditLogService.update(auditLog);
-
-                    log.debug("Updated audit log entry {} with exception: {}", context.getAuditLogId(), ex.getMessage());
-                }
+                auditLogWriter.fail(context.getAuditLogId(), ex);
+
+                log.debug("Updated audit log entry {} with exception: {}", context.getAuditLogId(), ex.getMessage());
             } catch (Exception e) {
                 log.error("Error updating audit log with exception", e);
             }
@@ -9,21 +9,26 @@ import jakarta.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.Principal;
+import java.util.Locale;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import lt.creditco.cupa.api.Payment;
 import lt.creditco.cupa.api.PaymentRequest;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.service.IdempotentPaymentService;
 import lt.creditco.cupa.service.PaymentTransactionService;
 import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
 import lt.creditco.cupa.service.mapper.PaymentMapper;
 import lt.creditco.cupa.web.context.CupaApiContext;
 import lt.creditco.cupa.web.rest.util.AccessControlHelper;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -32,11 +37,23 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class CupaApiResource {
 
+    /** RFC 7240 preference with which a merchant asks for {@code 202 Accepted} before the gateway placement. */
+    static final String RESPOND_ASYNC = "respond-async";
+
+    /** Request header with which a merchant makes retries of a payment creation safe. */
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final PaymentTransactionService paymentTransactionService;
+    private final IdempotentPaymentService idempotentPaymentService;
     private final PaymentMapper paymentMapper;
 
-    public CupaApiResource(PaymentTransactionService paymentTransactionService, PaymentMapper paymentMapper) {
+    public CupaApiResource(
+        PaymentTransactionService paymentTransactionService,
+        IdempotentPaymentService idempotentPaymentService,
+        PaymentMapper paymentMapper
+    ) {
         this.paymentTransactionService = paymentTransactionService;
+        this.idempotentPaymentService = idempotentPaymentService;
         this.paymentMapper = paymentMapper;
     }
 
@@ -102,14 +119,27 @@ public class CupaApiResource {
     @Tag(name = "Payments")
     @Operation(
         summary = "Initiate a new payment",
-        description = "<p>Initiate a new payment.</p><p>This endpoint can be used with a new or existing client. If client is not found, it will be created.</p>",
+        description = "<p>Initiate a new payment.</p><p>This endpoint can be used with a new or existing client. If client is not found, it will be created.</p>" +
+        "<p>With the <code>Prefer: respond-async</code> header (if enabled), the payment is returned with status RECEIVED and " +
+        "<code>202 Accepted</code> before it is placed with the gateway. The result is delivered by the webhook and can be " +
+        "read with <code>GET /api/v1/payments/{id}</code>.</p>" +
+        "<p>Retries with the same <code>Idempotency-Key</code> header get the payment created by the first request " +
+        "(header <code>Idempotent-Replayed: true</code>) instead of creating or placing it again.</p>",
         requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
             content = @Content(schema = @Schema(implementation = PaymentRequest.class))
         )
     )
     @PostMapping("/payments")
-    public ResponseEntity<Payment> createPayment(@Valid @RequestBody PaymentRequest request, Principal principal)
-        throws URISyntaxException {
+    public ResponseEntity<Payment> createPayment(
+        @Valid @RequestBody PaymentRequest request,
+        @Parameter(description = "respond-async to get 202 Accepted before the gateway placement")
+        @RequestHeader(name = "Prefer", required = false)
+        String prefer,
+        @Parameter(description = "Unique key of this payment request; retries with the same key return the same payment")
+        @RequestHeader(name = IDEMPOTENCY_KEY, required = false)
+        String idempotencyKey,
+        Principal principal
+    ) throws URISyntaxException {
         // Business context is already available from interceptor
         CupaApiContext.CupaApiContextData context = CupaApiContext.getContext();
 
@@ -125,8 +155,22 @@ public class CupaApiResource {
             throw new AccessDeniedException(String.format("Access denied for merchant: %s", request.getMerchantId()));
         }
 
-        Payment payment = paymentTransactionService.createPayment(request, context);
-
-        return ResponseEntity.created(new URI("/api/v1/payments/" + payment.getId())).body(payment);
+        boolean respondAsync = prefer != null && prefer.toLowerCase(Locale.ROOT).contains(RESPOND_ASYNC);
+        IdempotentPaymentService.Result result = idempotentPaymentService.createPayment(
+            request,
+            context,
+            respondAsync,
+            StringUtils.trimToNull(idempotencyKey)
+        );
+        Payment payment = result.payment();
+
+        URI location = new URI("/api/v1/payments/" + payment.getId());
+        ResponseEntity.BodyBuilder response = respondAsync && TransactionStatus.RECEIVED.name().equals(payment.getStatus())
+            ? ResponseEntity.accepted().location(location).header("Preference-Applied", RESPOND_ASYNC)
+            : ResponseEntity.created(location);
+        if (result.replayed()) {
+            response.header("Idempotent-Replayed", "true");
+        }
+        return response.body(payment);
     }
 }
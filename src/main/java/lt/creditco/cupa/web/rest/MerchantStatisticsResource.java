@@ -0,0 +1,126 @@
+package lt.creditco.cupa.web.rest;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import lt.creditco.cupa.base.users.CupaUser;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.security.AuthoritiesConstants;
+import lt.creditco.cupa.service.DailyTurnoverRollup;
+import lt.creditco.cupa.service.MerchantStatisticsService;
+import lt.creditco.cupa.service.dto.DailyTurnoverDTO;
+import lt.creditco.cupa.web.context.CupaApiContext;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Merchant statistics, served from the daily turnover rollup.
+ */
+@RestController
+@RequestMapping("/api/v1")
+@Slf4j
+public class MerchantStatisticsResource {
+
+    /** Days covered when the request does not give a range. */
+    static final int DEFAULT_DAYS = 30;
+
+    /**
+     * Result of a rollup rebuild.
+     *
+     * @param from first rebuilt day.
+     * @param to last rebuilt day.
+     * @param rows rollup rows written.
+     */
+    public record RebuildResult(LocalDate from, LocalDate to, int rows) {}
+
+    private final MerchantStatisticsService merchantStatisticsService;
+    private final DailyTurnoverRollup dailyTurnoverRollup;
+
+    public MerchantStatisticsResource(MerchantStatisticsService merchantStatisticsService, DailyTurnoverRollup dailyTurnoverRollup) {
+        this.merchantStatisticsService = merchantStatisticsService;
+        this.dailyTurnoverRollup = dailyTurnoverRollup;
+    }
+
+    @Tag(name = "Statistics")
+    @Operation(
+        summary = "Get the daily turnover of a merchant",
+        description = "<p>Transaction count and amount per UTC day, environment, status, currency and payment brand. " +
+        "User must have access to the specified merchant.</p>" +
+        "<p>Without a range, the last " + DEFAULT_DAYS + " days up to today are returned. Without an environment, " +
+        "the environment of the API key is used, or all environments for other users.</p>",
+        parameters = {
+            @Parameter(name = "merchantId", description = "Merchant ID", example = "MER-00001"),
+            @Parameter(name = "from", description = "First UTC day, inclusive", example = "2026-10-01"),
+            @Parameter(name = "to", description = "Last UTC day, inclusive", example = "2026-10-17"),
+            @Parameter(name = "environment", description = "TEST or LIVE"),
+        }
+    )
+    @GetMapping("/merchants/{merchantId}/statistics/daily-turnover")
+    public ResponseEntity<List<DailyTurnoverDTO>> getDailyTurnover(
+        @PathVariable String merchantId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) MerchantMode environment,
+        Principal principal
+    ) {
+        CupaApiContext.CupaApiContextData context = CupaApiContext.getContext();
+        CupaUser cupaUser = context != null ? context.getCupaUser() : null;
+
+        log.info(
+            "getDailyTurnover({}, {} - {}, {}), executed by {}",
+            merchantId,
+            from,
+            to,
+            environment,
+            principal == null ? "null" : principal.getName()
+        );
+
+        if (cupaUser == null || (!cupaUser.hasAccessToAllMerchants() && !cupaUser.getMerchantIdsSet().contains(merchantId))) {
+            throw new AccessDeniedException(String.format("Access denied for merchant: %s", merchantId));
+        }
+
+        LocalDate lastDay = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate firstDay = from != null ? from : lastDay.minusDays(DEFAULT_DAYS - 1L);
+        MerchantMode mode = environment != null ? environment : context.getEnvironment();
+        return ResponseEntity.ok(
+            merchantStatisticsService.findDailyTurnoverWithAccessControl(List.of(merchantId), mode, firstDay, lastDay, cupaUser)
+        );
+    }
+
+    @Tag(name = "Statistics")
+    @Operation(
+        summary = "Rebuild the daily turnover rollup",
+        description = "Recomputes the daily turnover of all merchants for the given UTC days from the payment transactions.",
+        parameters = {
+            @Parameter(name = "from", description = "First UTC day, inclusive", example = "2026-10-01"),
+            @Parameter(name = "to", description = "Last UTC day, inclusive", example = "2026-10-17"),
+        }
+    )
+    @PostMapping("/statistics/daily-turnover/rebuild")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<RebuildResult> rebuildDailyTurnover(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        Principal principal
+    ) {
+        log.info("rebuildDailyTurnover({} - {}), executed by {}", from, to, principal == null ? "null" : principal.getName());
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        int rows = dailyTurnoverRollup.rebuild(from, to);
+        return ResponseEntity.ok(new RebuildResult(from, to, rows));
+    }
+}
@@ -239,7 +239,7 @@ public class PaymentTransactionResource {
             return ResponseEntity.notFound().build();
         }
 
-        Optional<PaymentTransactionDTO> paymentTransactionDTO = paymentTransactionService.findOneWithAccessControl(id, currentUser);
+        Optional<PaymentTransactionDTO> paymentTransactionDTO = paymentTransactionService.findOneWithPayloadWithAccessControl(id, currentUser);
         return ResponseUtil.wrapOrNotFound(paymentTransactionDTO);
     }
 
@@ -0,0 +1,128 @@
+package lt.creditco.cupa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PullTaskDispatcherTest {
+
+    private final AtomicInteger leaseRuns = new AtomicInteger();
+    private final Semaphore leaseRunPermits = new Semaphore(0);
+
+    private ApplicationProperties.PullTaskDispatcher properties;
+    private PullTaskDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ApplicationProperties.PullTaskDispatcher();
+        properties.setIdlePollInterval(Duration.ofHours(1));
+        properties.setMaxWorkers(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    private void createDispatcher() {
+        dispatcher = new PullTaskDispatcher(
+            () -> {
+                leaseRuns.incrementAndGet();
+                leaseRunPermits.release();
+                return 0;
+            },
+            properties
+        );
+    }
+
+    private void startDispatcher() throws InterruptedException {
+        createDispatcher();
+        dispatcher.start();
+        // initial poll on startup
+        assertThat(leaseRunPermits.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldRunImmediatelyWhenTaskIsDue() throws Exception {
+        startDispatcher();
+
+        dispatcher.wakeUpAt(Instant.now());
+
+        assertThat(leaseRunPermits.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(leaseRuns).hasValue(2);
+    }
+
+    @Test
+    void shouldWaitUntilDueDate() throws Exception {
+        startDispatcher();
+
+        dispatcher.wakeUpAt(Instant.now().plusMillis(300));
+
+        assertThat(leaseRunPermits.tryAcquire(100, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(leaseRunPermits.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldRunBackToBackUntilBacklogIsDrained() throws Exception {
+        createDispatcher();
+        Instant now = Instant.now();
+        for (int i = 0; i < 5; i++) {
+            dispatcher.wakeUpAt(now);
+        }
+
+        dispatcher.start();
+
+        // 5 due tasks with 2 per lease run
+        assertThat(leaseRunPermits.tryAcquire(3, 5, TimeUnit.SECONDS)).isTrue();
+        assertThat(leaseRunPermits.tryAcquire(200, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(leaseRuns).hasValue(3);
+    }
+
+    @Test
+    void shouldRunAgainRightAwayWhenLeaseRunWasFull() throws Exception {
+        AtomicInteger backlog = new AtomicInteger(5);
+        dispatcher = new PullTaskDispatcher(
+            () -> {
+                leaseRuns.incrementAndGet();
+                int leased = Math.min(backlog.get(), properties.getMaxWorkers());
+                backlog.addAndGet(-leased);
+                leaseRunPermits.release();
+                return leased;
+            },
+            properties
+        );
+
+        // tasks due on another node: only the initial poll announces them
+        dispatcher.start();
+
+        assertThat(leaseRunPermits.tryAcquire(3, 5, TimeUnit.SECONDS)).isTrue();
+        assertThat(leaseRunPermits.tryAcquire(200, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(leaseRuns).hasValue(3);
+        assertThat(backlog).hasValue(0);
+    }
+
+    @Test
+    void shouldKeepRunningAfterFailedLeaseRun() throws Exception {
+        dispatcher = new PullTaskDispatcher(
+            () -> {
+                leaseRunPermits.release();
+                throw new IllegalStateException("Test exception - lease run failure");
+            },
+            properties
+        );
+        dispatcher.start();
+        assertThat(leaseRunPermits.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+
+        dispatcher.wakeUpAt(null);
+
+        assertThat(leaseRunPermits.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.isRunning()).isTrue();
+    }
+}
@@ -0,0 +1,119 @@
+package lt.creditco.cupa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Duration;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+class RemoteClientConfigTest {
+
+    private static final URI GATEWAY = URI.create("https://gateway.example.com/api/payment");
+
+    private final RemoteClientConfig config = new RemoteClientConfig();
+
+    private ApplicationProperties applicationProperties;
+    private ApplicationProperties.GatewayHttpClient properties;
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties = new ApplicationProperties();
+        properties = applicationProperties.getGatewayHttpClient();
+        properties.setMaxConnectionsTotal(40);
+        properties.setMaxConnectionsPerRoute(10);
+        properties.setConnectTimeout(Duration.ofSeconds(3));
+        properties.setConnectionRequestTimeout(Duration.ofSeconds(1));
+        properties.setPlaceResponseTimeout(Duration.ofSeconds(45));
+        properties.setQueryResponseTimeout(Duration.ofSeconds(12));
+        properties.setKeepAlive(Duration.ofSeconds(20));
+        properties.setTimeToLive(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void shouldLimitConnectionPool() throws Exception {
+        try (PoolingHttpClientConnectionManager connectionManager = config.gatewayConnectionManager(applicationProperties)) {
+            assertThat(connectionManager.getMaxTotal()).isEqualTo(40);
+            assertThat(connectionManager.getDefaultMaxPerRoute()).isEqualTo(10);
+        }
+    }
+
+    @Test
+    void shouldApplyConnectTimeoutAndTimeToLive() {
+        ConnectionConfig connectionConfig = RemoteClientConfig.connectionConfig(properties);
+
+        assertThat(connectionConfig.getConnectTimeout().toMilliseconds()).isEqualTo(Duration.ofSeconds(3).toMillis());
+        assertThat(connectionConfig.getTimeToLive().toMilliseconds()).isEqualTo(Duration.ofMinutes(5).toMillis());
+    }
+
+    @Test
+    void shouldApplyPoolWaitResponseTimeoutAndKeepAlive() {
+        RequestConfig requestConfig = RemoteClientConfig.requestConfig(properties, Duration.ofSeconds(12));
+
+        assertThat(requestConfig.getConnectionRequestTimeout().toMilliseconds()).isEqualTo(Duration.ofSeconds(1).toMillis());
+        assertThat(requestConfig.getResponseTimeout().toMilliseconds()).isEqualTo(Duration.ofSeconds(12).toMillis());
+        assertThat(requestConfig.getConnectionKeepAlive().toMilliseconds()).isEqualTo(Duration.ofSeconds(20).toMillis());
+    }
+
+    @Test
+    void shouldGivePlacementTheLongerResponseTimeout() {
+        var httpContextFactory = RemoteClientConfig.httpContextFactory(properties);
+
+        RequestConfig placeConfig = ((HttpClientContext) httpContextFactory.apply(HttpMethod.POST, GATEWAY)).getRequestConfig();
+        RequestConfig queryConfig = ((HttpClientContext) httpContextFactory.apply(HttpMethod.GET, GATEWAY)).getRequestConfig();
+
+        assertThat(placeConfig.getResponseTimeout().toMilliseconds()).isEqualTo(Duration.ofSeconds(45).toMillis());
+        assertThat(queryConfig.getResponseTimeout().toMilliseconds()).isEqualTo(Duration.ofSeconds(12).toMillis());
+    }
+
+    @Test
+    void shouldEvictExpiredAndIdleConnectionsInBackground() throws Exception {
+        properties.setEvictIdleAfter(Duration.ofMillis(50));
+        PoolingHttpClientConnectionManager connectionManager = mock(PoolingHttpClientConnectionManager.class);
+
+        try (CloseableHttpClient httpClient = config.gatewayHttpClient(connectionManager, applicationProperties)) {
+            verify(connectionManager, timeout(2000).atLeastOnce()).closeExpired();
+            verify(connectionManager, timeout(2000).atLeastOnce()).closeIdle(
+                argThat((TimeValue idleTime) -> idleTime.toMilliseconds() == 50)
+            );
+        }
+    }
+
+    @Test
+    void shouldUsePooledClientUnlessHttp2IsEnabled() throws Exception {
+        try (
+            PoolingHttpClientConnectionManager connectionManager = config.gatewayConnectionManager(applicationProperties);
+            CloseableHttpClient httpClient = config.gatewayHttpClient(connectionManager, applicationProperties)
+        ) {
+            RestTemplate pooled = config.restTemplate(applicationProperties, providerOf(httpClient));
+            assertThat(pooled.getRequestFactory()).isInstanceOf(HttpComponentsClientHttpRequestFactory.class);
+        }
+
+        properties.setHttp2(true);
+        RestTemplate http2 = config.restTemplate(applicationProperties, providerOf(null));
+        assertThat(http2.getRequestFactory()).isInstanceOf(JdkClientHttpRequestFactory.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<CloseableHttpClient> providerOf(CloseableHttpClient httpClient) {
+        ObjectProvider<CloseableHttpClient> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(httpClient);
+        return provider;
+    }
+}
@@ -68,13 +68,7 @@ public class PaymentTransactionAsserts {
             .satisfies(a -> assertThat(a.getSignature()).as("check signature").isEqualTo(expected.getSignature()))
             .satisfies(a -> assertThat(a.getSignatureVersion()).as("check signatureVersion").isEqualTo(expected.getSignatureVersion()))
             .satisfies(a -> assertThat(a.getRequestTimestamp()).as("check requestTimestamp").isEqualTo(expected.getRequestTimestamp()))
-            .satisfies(a -> assertThat(a.getRequestData()).as("check requestData").isEqualTo(expected.getRequestData()))
-            .satisfies(a ->
-                assertThat(a.getInitialResponseData()).as("check initialResponseData").isEqualTo(expected.getInitialResponseData())
-            )
             .satisfies(a -> assertThat(a.getCallbackTimestamp()).as("check callbackTimestamp").isEqualTo(expected.getCallbackTimestamp()))
-            .satisfies(a -> assertThat(a.getCallbackData()).as("check callbackData").isEqualTo(expected.getCallbackData()))
-            .satisfies(a -> assertThat(a.getLastQueryData()).as("check lastQueryData").isEqualTo(expected.getLastQueryData()))
             .satisfies(a -> assertThat(a.getClientId()).as("check clientId").isEqualTo(expected.getClientId()))
             .satisfies(a -> assertThat(a.getMerchantId()).as("check merchantId").isEqualTo(expected.getMerchantId()));
     }
@@ -0,0 +1,44 @@
+package lt.creditco.cupa.domain.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class CompressedTextConverterTest {
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void shouldCompressLargePayloadAndReadItBack() {
+        String json = "{\"response\":{\"statusCode\":200,\"message\":\"OK\"},\"reply\":{\"detail\":\"Successfully completed\"}}".repeat(20);
+
+        byte[] stored = converter.convertToDatabaseColumn(json);
+
+        assertThat(stored.length).isLessThan(json.length() / 4);
+        assertThat(converter.convertToEntityAttribute(stored)).isEqualTo(json);
+    }
+
+    @Test
+    void shouldStoreShortTextAsPlainUtf8() {
+        String text = "Webhook notification – ąčę";
+
+        byte[] stored = converter.convertToDatabaseColumn(text);
+
+        assertThat(stored).isEqualTo(text.getBytes(StandardCharsets.UTF_8));
+        assertThat(converter.convertToEntityAttribute(stored)).isEqualTo(text);
+    }
+
+    @Test
+    void shouldReadUncompressedLegacyBytes() {
+        String json = "{\"orderID\":\"ORD-1\",\"amount\":\"25\"}".repeat(10);
+
+        assertThat(converter.convertToEntityAttribute(json.getBytes(StandardCharsets.UTF_8))).isEqualTo(json);
+    }
+
+    @Test
+    void shouldKeepNull() {
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
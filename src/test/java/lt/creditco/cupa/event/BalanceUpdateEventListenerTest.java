@@ -69,7 +69,7 @@ class BalanceUpdateEventListenerTest {
     @Test
     void shouldHandleBalanceUpdateEvent() {
         // Given
-        BalanceUpdateEvent event = new BalanceUpdateEvent(this, "test-transaction-id", "test-merchant-id", "test-order-id");
+        BalanceUpdateEvent event = new BalanceUpdateEvent("test-transaction-id", "test-merchant-id", "test-order-id");
 
         when(paymentTransactionRepository.findById("test-transaction-id")).thenReturn(Optional.of(paymentTransaction));
         when(merchantRepository.findById("test-merchant-id")).thenReturn(Optional.of(merchant));
@@ -84,7 +84,7 @@ class BalanceUpdateEventListenerTest {
     @Test
     void shouldHandleEventWhenPaymentTransactionNotFound() {
         // Given
-        BalanceUpdateEvent event = new BalanceUpdateEvent(this, "non-existent-transaction-id", "test-merchant-id", "test-order-id");
+        BalanceUpdateEvent event = new BalanceUpdateEvent("non-existent-transaction-id", "test-merchant-id", "test-order-id");
 
         when(paymentTransactionRepository.findById("non-existent-transaction-id")).thenReturn(Optional.empty());
 
@@ -98,7 +98,7 @@ class BalanceUpdateEventListenerTest {
     @Test
     void shouldHandleEventWhenMerchantNotFound() {
         // Given
-        BalanceUpdateEvent event = new BalanceUpdateEvent(this, "test-transaction-id", "non-existent-merchant-id", "test-order-id");
+        BalanceUpdateEvent event = new BalanceUpdateEvent("test-transaction-id", "non-existent-merchant-id", "test-order-id");
 
         when(paymentTransactionRepository.findById("test-transaction-id")).thenReturn(Optional.of(paymentTransaction));
         when(merchantRepository.findById("non-existent-merchant-id")).thenReturn(Optional.empty());
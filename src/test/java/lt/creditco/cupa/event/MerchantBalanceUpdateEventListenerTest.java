@@ -8,11 +8,11 @@ import java.math.BigDecimal;
 import java.util.Optional;
 import lt.creditco.cupa.domain.Merchant;
 import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.service.MerchantBalanceProjector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -22,7 +22,7 @@ class MerchantBalanceUpdateEventListenerTest {
     @Mock
     private MerchantRepository merchantRepository;
 
-    @InjectMocks
+    private MerchantBalanceProjector merchantBalanceProjector;
     private MerchantBalanceUpdateEventListener eventListener;
 
     private Merchant testMerchant;
@@ -30,11 +30,14 @@ class MerchantBalanceUpdateEventListenerTest {
 
     @BeforeEach
     void setUp() {
+        merchantBalanceProjector = new MerchantBalanceProjector(merchantRepository);
+        eventListener = new MerchantBalanceUpdateEventListener(merchantBalanceProjector);
+
         testMerchant = new Merchant();
         testMerchant.setId("test-merchant-id");
         testMerchant.setBalance(new BigDecimal("100.00"));
 
-        testEvent = new MerchantBalanceUpdateEvent(this, "test-merchant-id", new BigDecimal("50.00"));
+        testEvent = new MerchantBalanceUpdateEvent("test-merchant-id", new BigDecimal("50.00"));
     }
 
     @Test
@@ -45,6 +48,7 @@ class MerchantBalanceUpdateEventListenerTest {
 
         // When
         eventListener.handleMerchantBalanceUpdateEvent(testEvent);
+        merchantBalanceProjector.flush();
 
         // Then
         ArgumentCaptor<Merchant> merchantCaptor = ArgumentCaptor.forClass(Merchant.class);
@@ -64,6 +68,7 @@ class MerchantBalanceUpdateEventListenerTest {
 
         // When
         eventListener.handleMerchantBalanceUpdateEvent(testEvent);
+        merchantBalanceProjector.flush();
 
         // Then
         ArgumentCaptor<Merchant> merchantCaptor = ArgumentCaptor.forClass(Merchant.class);
@@ -78,10 +83,11 @@ class MerchantBalanceUpdateEventListenerTest {
         // Given
         when(merchantRepository.findById("non-existent-merchant")).thenReturn(Optional.empty());
 
-        MerchantBalanceUpdateEvent event = new MerchantBalanceUpdateEvent(this, "non-existent-merchant", new BigDecimal("50.00"));
+        MerchantBalanceUpdateEvent event = new MerchantBalanceUpdateEvent("non-existent-merchant", new BigDecimal("50.00"));
 
         // When
         eventListener.handleMerchantBalanceUpdateEvent(event);
+        merchantBalanceProjector.flush();
 
         // Then
         verify(merchantRepository, never()).save(any(Merchant.class));
@@ -94,6 +100,7 @@ class MerchantBalanceUpdateEventListenerTest {
 
         // When
         eventListener.handleMerchantBalanceUpdateEvent(testEvent);
+        merchantBalanceProjector.flush();
 
         // Then
         verify(merchantRepository, never()).save(any(Merchant.class));
@@ -107,6 +114,7 @@ class MerchantBalanceUpdateEventListenerTest {
 
         // When
         eventListener.handleMerchantBalanceUpdateEvent(testEvent);
+        merchantBalanceProjector.flush();
 
         // Then
         verify(merchantRepository, never()).save(any(Merchant.class));
@@ -115,10 +123,11 @@ class MerchantBalanceUpdateEventListenerTest {
     @Test
     void shouldHandleNullAmount() {
         // Given
-        MerchantBalanceUpdateEvent eventWithNullAmount = new MerchantBalanceUpdateEvent(this, "test-merchant-id", null);
+        MerchantBalanceUpdateEvent eventWithNullAmount = new MerchantBalanceUpdateEvent("test-merchant-id", null);
 
         // When
         eventListener.handleMerchantBalanceUpdateEvent(eventWithNullAmount);
+        merchantBalanceProjector.flush();
 
         // Then
         verify(merchantRepository, never()).save(any(Merchant.class));
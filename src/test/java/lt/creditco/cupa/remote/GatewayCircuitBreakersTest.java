@@ -0,0 +1,202 @@
+package lt.creditco.cupa.remote;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lt.creditco.cupa.config.ApplicationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+class GatewayCircuitBreakersTest {
+
+    private static final String GATEWAY = "https://gateway.example.com/api";
+    private static final String OTHER_GATEWAY = "https://other.example.com";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-10-17T10:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private GatewayCircuitBreakers circuitBreakers;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.GatewayCircuitBreaker properties = applicationProperties.getGatewayCircuitBreaker();
+        properties.setSlidingWindowSize(4);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(50);
+        properties.setOpenDuration(Duration.ofSeconds(30));
+        properties.setHalfOpenProbes(2);
+        properties.setMaxConcurrentCalls(1);
+        properties.setMaxWait(Duration.ZERO);
+        circuitBreakers = new GatewayCircuitBreakers(applicationProperties, meterRegistry, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldOpenOnFailureRateAndRejectWithoutCalling() {
+        callOk();
+        callOk();
+        callFailing();
+        callFailing();
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> circuitBreakers.call(GATEWAY, () -> ok(calls)))
+            .isInstanceOf(GatewayCircuitBreakers.GatewayUnavailableException.class)
+            .satisfies(e -> assertThat(((GatewayCircuitBreakers.GatewayUnavailableException) e).getRetryAt()).isEqualTo(clock.instant().plusSeconds(30)));
+        assertThat(calls).hasValue(0);
+        assertThat(circuitBreakers.openUntil(GATEWAY)).contains(clock.instant().plusSeconds(30));
+        assertThat(meterRegistry.get("cupa.gateway.circuit.state").tag("host", "gateway.example.com").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("cupa.gateway.rejected").tags("host", "gateway.example.com", "reason", "circuit_open").counter().count()).isEqualTo(1);
+
+        // other hosts are not affected
+        assertThat(circuitBreakers.call(OTHER_GATEWAY, () -> ok(calls)).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void shouldCountExceptionsAndServerErrorsButNotClientErrorsAsFailures() {
+        callOk();
+        circuitBreakers.call(GATEWAY, () -> ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+        circuitBreakers.call(GATEWAY, () -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        callFailing();
+
+        assertThat(circuitBreakers.state(GATEWAY)).isEqualTo(GatewayCircuitBreakers.State.CLOSED);
+
+        circuitBreakers.call(GATEWAY, () -> ResponseEntity.status(HttpStatus.BAD_GATEWAY).build());
+
+        assertThat(circuitBreakers.state(GATEWAY)).isEqualTo(GatewayCircuitBreakers.State.OPEN);
+    }
+
+    @Test
+    void shouldCloseAfterSuccessfulHalfOpenProbes() {
+        openCircuit();
+        clock.advance(Duration.ofSeconds(31));
+
+        callOk();
+        assertThat(circuitBreakers.state(GATEWAY)).isEqualTo(GatewayCircuitBreakers.State.HALF_OPEN);
+        callOk();
+
+        assertThat(circuitBreakers.state(GATEWAY)).isEqualTo(GatewayCircuitBreakers.State.CLOSED);
+        assertThat(circuitBreakers.openUntil(GATEWAY)).isEmpty();
+    }
+
+    @Test
+    void shouldReopenWhenHalfOpenProbeFails() {
+        openCircuit();
+        clock.advance(Duration.ofSeconds(31));
+
+        callFailing();
+
+        assertThat(circuitBreakers.state(GATEWAY)).isEqualTo(GatewayCircuitBreakers.State.OPEN);
+        assertThat(circuitBreakers.openUntil(GATEWAY)).contains(clock.instant().plusSeconds(30));
+    }
+
+    @Test
+    void shouldRejectCallsBeyondBulkheadLimit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() ->
+            circuitBreakers.call(GATEWAY, () -> {
+                started.countDown();
+                await(release);
+                return ResponseEntity.ok().build();
+            })
+        );
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(this::callOk)
+            .isInstanceOf(GatewayCircuitBreakers.GatewayUnavailableException.class)
+            .hasMessageContaining("Too many concurrent calls");
+        assertThat(meterRegistry.get("cupa.gateway.bulkhead.active").tag("host", "gateway.example.com").gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        callOk();
+    }
+
+    @Test
+    void shouldKeyCircuitsByHostAndPort() {
+        assertThat(GatewayCircuitBreakers.hostOf("https://Gateway.Example.com/api/v1")).isEqualTo("gateway.example.com");
+        assertThat(GatewayCircuitBreakers.hostOf("http://localhost:8089/")).isEqualTo("localhost:8089");
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            callFailing();
+        }
+        assertThat(circuitBreakers.state(GATEWAY)).isEqualTo(GatewayCircuitBreakers.State.OPEN);
+    }
+
+    private void callOk() {
+        circuitBreakers.call(GATEWAY, () -> ResponseEntity.ok().build());
+    }
+
+    private void callFailing() {
+        try {
+            circuitBreakers.call(GATEWAY, () -> {
+                throw new IllegalStateException("I/O error");
+            });
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static ResponseEntity<Void> ok(AtomicInteger calls) {
+        calls.incrementAndGet();
+        return ResponseEntity.ok().build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
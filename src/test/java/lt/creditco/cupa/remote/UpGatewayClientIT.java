@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.io.Reader;
 import java.math.BigDecimal;
@@ -16,6 +17,7 @@ import java.util.List;
 import java.util.Properties;
 import lombok.extern.slf4j.Slf4j;
 import com.bpmid.vapp.config.JacksonConfiguration;
+import lt.creditco.cupa.config.ApplicationProperties;
 import lt.creditco.cupa.config.RemoteClientConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -27,8 +29,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 @SpringBootTest(
     classes = {
         UpGatewayClient.class,
-        RestTemplateBodyInterceptor.class,
+        GatewayCircuitBreakers.class,
+        SimpleMeterRegistry.class,
         RemoteClientConfig.class,
+        ApplicationProperties.class,
         JacksonConfiguration.class,
         JacksonAutoConfiguration.class,
     }
@@ -42,9 +46,6 @@ class UpGatewayClientIT {
     @Autowired
     private UpGatewayClient upGatewayClient;
 
-    @Autowired
-    private RestTemplateBodyInterceptor restTemplateBodyInterceptor;
-
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -52,7 +53,6 @@ class UpGatewayClientIT {
 
     @BeforeEach
     void setUp() throws IOException {
-        restTemplateBodyInterceptor.clear();
         gatewayConfig = loadGatewayConfig();
     }
 
@@ -91,7 +91,7 @@ class UpGatewayClientIT {
         GatewayResponse<PaymentReply> transactionResponse = upGatewayClient.placeTransaction(request, gatewayConfig);
 
         // Then
-        RestTemplateBodyInterceptor.Trace trace = restTemplateBodyInterceptor.getLastTrace();
+        GatewayTrace trace = transactionResponse.getTrace();
         log.info("Request Body: {}", trace.getRequestBody());
         log.info("Response Body: {}", trace.getResponseBody());
         log.info("Transaction Response: {}", objectMapper.writeValueAsString(transactionResponse));
@@ -122,7 +122,7 @@ class UpGatewayClientIT {
         GatewayResponse<PaymentReply> transactionResponse = upGatewayClient.placeTransaction(request, gatewayConfig);
 
         // Then
-        RestTemplateBodyInterceptor.Trace trace = restTemplateBodyInterceptor.getLastTrace();
+        GatewayTrace trace = transactionResponse.getTrace();
         log.info("Request Body: {}", trace.getRequestBody());
         log.info("Response Body: {}", trace.getResponseBody());
         log.info("Transaction Response: {}", objectMapper.writeValueAsString(transactionResponse));
@@ -163,7 +163,7 @@ class UpGatewayClientIT {
         GatewayResponse<PaymentReply> transactionResponse = upGatewayClient.placeTransaction(request, gatewayConfig);
 
         // Then
-        RestTemplateBodyInterceptor.Trace trace = restTemplateBodyInterceptor.getLastTrace();
+        GatewayTrace trace = transactionResponse.getTrace();
         log.info("Request Body: {}", trace.getRequestBody());
         log.info("Response Body: {}", trace.getResponseBody());
         log.info("Transaction Response: {}", objectMapper.writeValueAsString(transactionResponse));
@@ -191,7 +191,7 @@ class UpGatewayClientIT {
         }
 
         // Then
-        RestTemplateBodyInterceptor.Trace trace = restTemplateBodyInterceptor.getLastTrace();
+        GatewayTrace trace = transactionResponse.getTrace();
         log.info("Request Body: {}", trace.getRequestBody());
         log.info("Response Body: {}", trace.getResponseBody());
         log.info("Transaction Response: {}", objectMapper.writeValueAsString(transactionResponse));
@@ -215,7 +215,7 @@ class UpGatewayClientIT {
         }
 
         // Then
-        RestTemplateBodyInterceptor.Trace trace = restTemplateBodyInterceptor.getLastTrace();
+        GatewayTrace trace = clientDetailsResponse.getTrace();
         log.info("Request Body: {}", trace.getRequestBody());
         log.info("Response Body: {}", trace.getResponseBody());
         assertNotNull(clientDetailsResponse);
@@ -237,7 +237,7 @@ class UpGatewayClientIT {
         }
 
         // Then
-        RestTemplateBodyInterceptor.Trace trace = restTemplateBodyInterceptor.getLastTrace();
+        GatewayTrace trace = clientListResponse.getTrace();
         log.info("Request Body: {}", trace.getRequestBody());
         log.info("Response Body: {}", trace.getResponseBody());
         assertNotNull(clientListResponse);
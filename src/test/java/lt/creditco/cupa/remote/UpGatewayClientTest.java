@@ -0,0 +1,89 @@
+package lt.creditco.cupa.remote;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import lt.creditco.cupa.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+class UpGatewayClientTest {
+
+    private static final String QUERY_REPLY =
+        """
+        {"response":{"statusCode":200,"message":"OK"},"reply":{"orderID":"order-1","amount":"25.00","success":"Y","detail":"Successfully completed"}}""";
+
+    private MockRestServiceServer server;
+    private UpGatewayClient upGatewayClient;
+    private GatewayConfig config;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setErrorHandler(new NoOpResponseErrorHandler());
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        upGatewayClient = new UpGatewayClient(restTemplate, new GatewayCircuitBreakers(new ApplicationProperties(), new SimpleMeterRegistry()));
+        config = GatewayConfig.builder()
+            .baseUrl("https://gateway.example.com")
+            .merchantMid("MID-1")
+            .merchantKey("merchant-key")
+            .apiKey("api-key")
+            .build();
+    }
+
+    @Test
+    void shouldReturnParsedReplyWithTraceOfTheCall() {
+        server
+            .expect(requestTo("https://gateway.example.com/merchants/MID-1/transactions/order-1"))
+            .andExpect(method(HttpMethod.GET))
+            .andExpect(header("x-api-key", "api-key"))
+            .andRespond(withSuccess(QUERY_REPLY, MediaType.APPLICATION_JSON));
+
+        GatewayResponse<PaymentReply> response = upGatewayClient.queryTransaction("order-1", config);
+
+        assertThat(response.getResponse().getStatusCode()).isEqualTo(200);
+        assertThat(response.getReply().getOrderId()).isEqualTo("order-1");
+        assertThat(response.getTrace().getRequestBody()).isEmpty();
+        assertThat(response.getTrace().getResponseBody()).isEqualTo(QUERY_REPLY);
+        server.verify();
+    }
+
+    @Test
+    void shouldTraceTheSerializedRequestBodyAsSent() {
+        server
+            .expect(requestTo("https://gateway.example.com/merchants/MID-1/transactions/"))
+            .andExpect(method(HttpMethod.POST))
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andRespond(
+                withStatus(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body("{\"response\":{\"statusCode\":400,\"message\":\"Bad Request\"}}")
+            );
+
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId("order-2");
+        request.setAmount(new BigDecimal("10.50"));
+        request.setCurrency("USD");
+        request.setClientId("CLN-001");
+        request.setCardType(CardType.UnionPay);
+
+        GatewayResponse<PaymentReply> response = upGatewayClient.placeTransaction(request, config);
+
+        assertThat(response.getResponse().getStatusCode()).isEqualTo(400);
+        assertThat(response.getTrace().getRequestBody()).contains("\"order-2\"").contains(request.getSignature());
+        assertThat(response.getTrace().getResponseBody()).contains("Bad Request");
+        server.verify();
+    }
+}
@@ -0,0 +1,71 @@
+package lt.creditco.cupa.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+import lt.creditco.cupa.IntegrationTest;
+import lt.creditco.cupa.domain.AuditLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the dynamic queries in {@link AuditLogRepository}.
+ */
+@IntegrationTest
+@Transactional
+class AuditLogRepositoryIT {
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Test
+    void shouldMatchOrderIdBySubstringOrPrefix() {
+        save("/api/v1/payments", "ORD_1-100");
+        save("/api/v1/payments", "ORDX1-200");
+        save("/api/v1/payments", "XX-ORD_1-300");
+
+        assertThat(orderIds(AuditLogRepository.matchesSearchFilter(null, null, null, "ORD_1", null, null))).containsExactlyInAnyOrder(
+            "ORD_1-100",
+            "XX-ORD_1-300"
+        );
+        assertThat(orderIds(AuditLogRepository.matchesSearchFilter(null, null, null, "ORD_1*", null, null))).containsExactly(
+            "ORD_1-100"
+        );
+    }
+
+    @Test
+    void shouldReadWindowWithoutCounting() {
+        save("/api/v1/payments", "window-1");
+        save("/api/v1/payments", "window-2");
+        save("/api/v1/payments", "window-3");
+        save("/api/v1/merchants", "window-4");
+        Specification<AuditLog> spec = AuditLogRepository.matchesSearchFilter(null, "/api/v1/pay*", "POST", "window", null, List.of(200));
+
+        Window<AuditLog> window = auditLogRepository.findBy(spec, q ->
+            q.sortBy(Sort.by(Sort.Order.desc("id"))).limit(2).scroll(ScrollPosition.offset())
+        );
+
+        assertThat(window.getContent()).extracting(AuditLog::getOrderId).containsExactly("window-3", "window-2");
+        assertThat(window.hasNext()).isTrue();
+    }
+
+    private List<String> orderIds(Specification<AuditLog> spec) {
+        return auditLogRepository.findAll(spec).stream().map(AuditLog::getOrderId).toList();
+    }
+
+    private void save(String endpoint, String orderId) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setRequestTimestamp(Instant.now());
+        auditLog.setApiEndpoint(endpoint);
+        auditLog.setHttpMethod("POST");
+        auditLog.setHttpStatusCode(200);
+        auditLog.setOrderId(orderId);
+        auditLogRepository.saveAndFlush(auditLog);
+    }
+}
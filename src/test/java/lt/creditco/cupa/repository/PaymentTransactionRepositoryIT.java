@@ -0,0 +1,145 @@
+package lt.creditco.cupa.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import lt.creditco.cupa.IntegrationTest;
+import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.enumeration.Currency;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.PaymentBrand;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.service.PaymentTransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the dynamic queries in {@link PaymentTransactionRepository}.
+ */
+@IntegrationTest
+@Transactional
+class PaymentTransactionRepositoryIT {
+
+    private static final String GATEWAY_MERCHANT_ID = "gw-merchant-it";
+    private static final String CLIENT_EMAIL = "client-it@example.com";
+
+    @Autowired
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    @Test
+    void shouldCountPerClientDailyLimitRowsInDatabase() {
+        Instant now = Instant.now();
+        save("tx-1", TransactionStatus.PENDING, null, now);
+        save("tx-2", TransactionStatus.SUCCESS, null, now);
+        save("tx-3", TransactionStatus.FAILED, "Prefix BLOCKED, DUE TO RISK SCORE. CLIENT OVER DAILY LIMIT suffix", now);
+        save("tx-4", TransactionStatus.FAILED, "Card declined", now);
+        save("tx-5", TransactionStatus.FAILED, null, now);
+        save("tx-6", TransactionStatus.RECEIVED, null, now);
+        save("tx-7", TransactionStatus.SUCCESS, null, now.minus(2, ChronoUnit.DAYS));
+
+        long count = paymentTransactionRepository.count(
+            PaymentTransactionRepository.countedForPerClientDailyLimit(
+                MerchantMode.TEST,
+                GATEWAY_MERCHANT_ID,
+                CLIENT_EMAIL,
+                now.minus(24, ChronoUnit.HOURS),
+                PaymentTransactionService.MAX_CLIENT_TRANSACTION_COUNT_STATUSES,
+                PaymentTransactionService.MAX_CLIENT_TRANSACTION_COUNT_FAILED_DESCRIPTION_FRAGMENTS
+            )
+        );
+
+        assertThat(count).isEqualTo(3);
+    }
+
+    @Test
+    void shouldScrollListFilterMatchesByKeyset() {
+        Instant start = Instant.parse("2001-03-01T00:00:00Z");
+        save("list-1", TransactionStatus.SUCCESS, null, start.plusSeconds(10));
+        save("list-2", TransactionStatus.SUCCESS, null, start.plusSeconds(20));
+        save("list-3", TransactionStatus.SUCCESS, null, start.plusSeconds(20));
+        save("list-4", TransactionStatus.SUCCESS, null, start.plusSeconds(30));
+        save("list-5", TransactionStatus.FAILED, null, start.plusSeconds(40));
+        save("list-6", TransactionStatus.SUCCESS, null, start.plus(2, ChronoUnit.DAYS));
+        Specification<PaymentTransaction> spec = PaymentTransactionRepository.matchesListFilter(
+            null,
+            start,
+            start.plus(1, ChronoUnit.DAYS),
+            null,
+            PaymentBrand.UnionPay,
+            null,
+            TransactionStatus.SUCCESS,
+            null,
+            MerchantMode.TEST
+        );
+        Sort sort = Sort.by(Sort.Order.desc("requestTimestamp"), Sort.Order.desc("id"));
+
+        Window<PaymentTransaction> first = paymentTransactionRepository.findBy(spec, q ->
+            q.sortBy(sort).limit(2).scroll(ScrollPosition.keyset())
+        );
+        Window<PaymentTransaction> second = paymentTransactionRepository.findBy(spec, q ->
+            q.sortBy(sort).limit(2).scroll(first.positionAt(first.size() - 1))
+        );
+
+        assertThat(paymentTransactionRepository.count(spec)).isEqualTo(4);
+        assertThat(first.getContent()).extracting(PaymentTransaction::getId).containsExactly("list-4", "list-3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting(PaymentTransaction::getId).containsExactly("list-2", "list-1");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void shouldClaimDuePendingTransactionsOnce() {
+        Instant now = Instant.parse("2001-04-01T12:00:00Z");
+        save("due-1", TransactionStatus.PENDING, null, now.minus(10, ChronoUnit.MINUTES));
+        save("due-2", TransactionStatus.PENDING, null, now.minusSeconds(10));
+        save("due-3", TransactionStatus.SUCCESS, null, now.minus(10, ChronoUnit.MINUTES));
+        Instant firstQueryBefore = now.minusSeconds(60);
+
+        assertThat(dueIds(now, firstQueryBefore)).containsExactly("due-1");
+        Instant claimedUntil = now.plus(5, ChronoUnit.MINUTES);
+        assertThat(paymentTransactionRepository.claimForQuery(List.of("due-1", "due-2", "due-3"), now, claimedUntil)).isEqualTo(2);
+        assertThat(paymentTransactionRepository.claimForQuery(List.of("due-1", "due-2"), now, claimedUntil.plusSeconds(1))).isZero();
+        assertThat(paymentTransactionRepository.findClaimedForQuery(List.of("due-1", "due-2", "due-3"), claimedUntil)).containsExactlyInAnyOrder(
+            "due-1",
+            "due-2"
+        );
+        assertThat(dueIds(now, firstQueryBefore)).isEmpty();
+
+        paymentTransactionRepository.scheduleNextQuery(List.of("due-1"), now.plusSeconds(60));
+        assertThat(dueIds(now.plusSeconds(60), firstQueryBefore)).containsExactly("due-1");
+    }
+
+    private List<String> dueIds(Instant now, Instant firstQueryBefore) {
+        return paymentTransactionRepository
+            .findDueForQuery(TransactionStatus.PENDING, now, firstQueryBefore, PageRequest.of(0, 100))
+            .stream()
+            .map(PaymentTransactionRepository.ReconciliationCandidate::getId)
+            .filter(id -> id.startsWith("due-"))
+            .toList();
+    }
+
+    private void save(String id, TransactionStatus status, String statusDescription, Instant requestTimestamp) {
+        PaymentTransaction transaction = new PaymentTransaction();
+        transaction.setId(id);
+        transaction.setOrderId("order-" + id);
+        transaction.setStatus(status);
+        transaction.setStatusDescription(statusDescription);
+        transaction.setPaymentBrand(PaymentBrand.UnionPay);
+        transaction.setAmount(BigDecimal.TEN);
+        transaction.setCurrency(Currency.USD);
+        transaction.setRequestTimestamp(requestTimestamp);
+        transaction.setEnvironment(MerchantMode.TEST);
+        transaction.setGatewayMerchantId(GATEWAY_MERCHANT_ID);
+        transaction.setClientEmail(CLIENT_EMAIL);
+        paymentTransactionRepository.saveAndFlush(transaction);
+    }
+}
@@ -17,6 +17,7 @@ import lt.creditco.cupa.domain.enumeration.MerchantMode;
 import lt.creditco.cupa.domain.enumeration.MerchantStatus;
 import lt.creditco.cupa.repository.AuditLogRepository;
 import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.service.MerchantContextCache;
 import lt.creditco.cupa.service.PaymentTransactionService;
 import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
 import lt.creditco.cupa.service.mapper.PaymentMapper;
@@ -35,6 +36,9 @@ class ApiKeyAuthenticationIT {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private MerchantContextCache merchantContextCache;
+
     @MockitoBean
     private MerchantRepository merchantRepository;
 
@@ -54,6 +58,7 @@ class ApiKeyAuthenticationIT {
 
     @BeforeEach
     void setUp() {
+        merchantContextCache.invalidateAll();
         // Setup test merchant
         testMerchant = new Merchant();
         testMerchant.setId("MER-TEST-001");
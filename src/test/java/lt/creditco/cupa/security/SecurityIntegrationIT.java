@@ -12,6 +12,7 @@ import lt.creditco.cupa.domain.Merchant;
 import lt.creditco.cupa.domain.enumeration.MerchantMode;
 import lt.creditco.cupa.domain.enumeration.MerchantStatus;
 import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.service.MerchantContextCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,9 @@ class SecurityIntegrationIT {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private MerchantContextCache merchantContextCache;
+
     @MockitoBean
     private MerchantRepository merchantRepository;
 
@@ -35,6 +39,7 @@ class SecurityIntegrationIT {
 
     @BeforeEach
     void setUp() {
+        merchantContextCache.invalidateAll();
         // Setup test merchant
         testMerchant = new Merchant();
         testMerchant.setId("MER-TEST-001");
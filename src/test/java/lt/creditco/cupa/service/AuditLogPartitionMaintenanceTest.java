@@ -0,0 +1,154 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.List;
+import lt.creditco.cupa.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class AuditLogPartitionMaintenanceTest {
+
+    private static final YearMonth CURRENT_MONTH = YearMonth.of(2026, 10);
+    private static final String LIST_PARTITIONS =
+        "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid where i.inhparent = ?::regclass";
+
+    @TempDir
+    Path archiveDirectory;
+
+    private JdbcTemplate jdbcTemplate;
+    private Connection connection;
+    private ResultSet lockResult;
+    private CopyManager copyManager;
+    private AuditLogPartitionMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(connection.getMetaData()).thenReturn(metaData);
+        PreparedStatement lockStatement = mock(PreparedStatement.class);
+        lockResult = mock(ResultSet.class);
+        when(lockResult.next()).thenReturn(true);
+        when(lockResult.getBoolean(1)).thenReturn(true);
+        when(lockStatement.executeQuery()).thenReturn(lockResult);
+        when(connection.prepareStatement(anyString())).thenReturn(lockStatement);
+        PGConnection pgConnection = mock(PGConnection.class);
+        copyManager = mock(CopyManager.class);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            ConnectionCallback<?> callback = invocation.getArgument(0);
+            try {
+                return callback.doInConnection(connection);
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("test", null, e);
+            }
+        });
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq("audit_log"))).thenReturn(1);
+        when(jdbcTemplate.queryForList(LIST_PARTITIONS, String.class, "audit_log")).thenReturn(
+            List.of("audit_log_default", "audit_log_202509", "audit_log_202610")
+        );
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAuditRetention().setArchiveDirectory(archiveDirectory.toString());
+        maintenance = new AuditLogPartitionMaintenance(jdbcTemplate, applicationProperties);
+    }
+
+    @Test
+    void shouldDetachExportAndDropRetiredPartitionWhileHoldingTheLock() throws Exception {
+        when(copyManager.copyOut(anyString(), any(OutputStream.class))).thenReturn(42L);
+
+        maintenance.maintain(CURRENT_MONTH);
+
+        InOrder inOrder = inOrder(connection, jdbcTemplate, copyManager);
+        inOrder.verify(connection).prepareStatement("select pg_try_advisory_lock(?)");
+        inOrder.verify(jdbcTemplate).execute("alter table audit_log detach partition audit_log_202509");
+        inOrder.verify(copyManager).copyOut(eq("copy audit_log_202509 to stdout (format csv, header)"), any(OutputStream.class));
+        inOrder.verify(jdbcTemplate).execute("drop table audit_log_202509");
+        inOrder.verify(connection).prepareStatement("select pg_advisory_unlock(?)");
+        verify(jdbcTemplate, never()).execute("alter table audit_log detach partition audit_log_202610");
+        assertThat(archiveDirectory.resolve("audit_log_202509.csv.gz")).exists();
+    }
+
+    @Test
+    void shouldKeepDetachedPartitionWhenExportFails() throws Exception {
+        when(copyManager.copyOut(anyString(), any(OutputStream.class))).thenThrow(new SQLException("copy failed"));
+
+        assertThatThrownBy(() -> maintenance.maintain(CURRENT_MONTH)).isInstanceOf(DataAccessException.class);
+
+        verify(jdbcTemplate).execute("alter table audit_log detach partition audit_log_202509");
+        verify(jdbcTemplate, never()).execute("drop table audit_log_202509");
+        verify(connection).prepareStatement("select pg_advisory_unlock(?)");
+        assertThat(archiveDirectory).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldSkipCycleWhenAnotherNodeHoldsTheLock() throws Exception {
+        when(lockResult.getBoolean(1)).thenReturn(false);
+
+        maintenance.maintain(CURRENT_MONTH);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).queryForList(LIST_PARTITIONS, String.class, "audit_log");
+        verify(connection, never()).prepareStatement("select pg_advisory_unlock(?)");
+    }
+
+    @Test
+    void shouldNamePartitionsByMonth() {
+        assertThat(AuditLogPartitionMaintenance.partitionName(YearMonth.of(2026, 3))).isEqualTo("audit_log_202603");
+        assertThat(AuditLogPartitionMaintenance.partitionMonth("audit_log_202603")).contains(YearMonth.of(2026, 3));
+        assertThat(AuditLogPartitionMaintenance.partitionMonth("audit_log_default")).isEmpty();
+    }
+
+    @Test
+    void shouldKeepRetentionMonthsIncludingTheCurrentOne() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAuditRetention().setRetentionMonths(13);
+        AuditLogPartitionMaintenance maintenance = new AuditLogPartitionMaintenance(null, applicationProperties);
+
+        assertThat(maintenance.retentionCutoff(YearMonth.of(2026, 10))).isEqualTo(YearMonth.of(2025, 10));
+    }
+
+    @Test
+    void shouldRetireOnlyMonthlyPartitionsBeforeTheCutoff() {
+        List<String> partitions = List.of(
+            "audit_log_default",
+            "audit_log_202511",
+            "audit_log_202509",
+            "audit_log_202510",
+            "audit_log_202612"
+        );
+
+        assertThat(AuditLogPartitionMaintenance.partitionsToRetire(partitions, YearMonth.of(2025, 10))).containsExactly(
+            "audit_log_202509"
+        );
+    }
+}
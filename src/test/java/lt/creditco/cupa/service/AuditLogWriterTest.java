@@ -0,0 +1,139 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.service.dto.AuditLogDTO;
+import lt.creditco.cupa.web.filter.HttpLoggingFilter.ApiRequestDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DataFieldMaxValueIncrementer incrementer;
+
+    @Captor
+    private ArgumentCaptor<Collection<Object>> rows;
+
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        when(incrementer.nextLongValue()).thenReturn(1099L, 1149L);
+        applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AuditLogWriter createWriter() {
+        return new AuditLogWriter(
+            applicationProperties,
+            new AuditLogIdAllocator(incrementer),
+            jdbcTemplate,
+            new ObjectMapper(),
+            meterRegistry
+        );
+    }
+
+    @Test
+    void shouldWriteRequestAndResponseAsOneInsert() {
+        writer = createWriter();
+
+        Long id = writer.begin(auditLog());
+        writer.complete(id, responseDetails(200));
+        writer.flush(false);
+
+        assertThat(id).isEqualTo(1050L);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert"), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("update"), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(rows.getValue()).hasSize(1);
+        assertThat(meterRegistry.get("cupa.audit.written").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldUpdateWhenResponseArrivesAfterPendingTimeout() {
+        applicationProperties.getAudit().setPendingTimeout(Duration.ZERO);
+        writer = createWriter();
+
+        Long id = writer.begin(auditLog());
+        writer.flush(false);
+        writer.complete(id, responseDetails(200));
+        writer.flush(false);
+
+        verify(jdbcTemplate).batchUpdate(startsWith("insert"), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(startsWith("update"), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(rows.getValue()).hasSize(1);
+    }
+
+    @Test
+    void shouldDropRecordsWhenQueueIsFull() {
+        applicationProperties.getAudit().setQueueCapacity(1);
+        applicationProperties.getAudit().setOverflowPolicy(ApplicationProperties.Audit.OverflowPolicy.DROP);
+        writer = createWriter();
+
+        writer.complete(writer.begin(auditLog()), responseDetails(200));
+        writer.complete(writer.begin(auditLog()), responseDetails(400));
+        writer.flush(false);
+
+        verify(jdbcTemplate).batchUpdate(startsWith("insert"), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(rows.getValue()).hasSize(1);
+        assertThat(meterRegistry.get("cupa.audit.dropped").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldFlushPendingRequestsOnStop() {
+        writer = createWriter();
+        writer.start();
+
+        writer.begin(auditLog());
+        writer.stop();
+
+        assertThat(writer.isRunning()).isFalse();
+        verify(jdbcTemplate).batchUpdate(startsWith("insert"), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(rows.getValue()).hasSize(1);
+    }
+
+    private static AuditLogDTO auditLog() {
+        AuditLogDTO auditLog = new AuditLogDTO();
+        auditLog.setRequestTimestamp(Instant.now());
+        auditLog.setApiEndpoint("/api/v1/payments");
+        auditLog.setHttpMethod("POST");
+        auditLog.setMerchantId("MERCH-00001");
+        return auditLog;
+    }
+
+    private static ApiRequestDetails responseDetails(int status) {
+        ApiRequestDetails details = mock(ApiRequestDetails.class);
+        when(details.getRequestBody()).thenReturn("{\"orderId\":\"o-1\"}");
+        when(details.getResponseStatus()).thenReturn(status);
+        when(details.getResponseBody()).thenReturn("{}");
+        when(details.getResponseDescription()).thenReturn("OK");
+        return details;
+    }
+}
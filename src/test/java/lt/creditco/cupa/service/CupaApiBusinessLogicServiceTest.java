@@ -2,9 +2,12 @@ package lt.creditco.cupa.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import java.security.Principal;
 import java.util.Optional;
@@ -12,6 +15,7 @@ import lt.creditco.cupa.api.PaymentFlow;
 import lt.creditco.cupa.api.PaymentRequest;
 import lt.creditco.cupa.base.users.CupaUser;
 import lt.creditco.cupa.base.users.CupaUserRepository;
+import lt.creditco.cupa.config.ApplicationProperties;
 import lt.creditco.cupa.domain.Merchant;
 import lt.creditco.cupa.domain.enumeration.MerchantMode;
 import lt.creditco.cupa.domain.enumeration.MerchantStatus;
@@ -24,6 +28,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
 
@@ -45,6 +50,11 @@ class CupaApiBusinessLogicServiceTest {
     @Mock
     private Principal principal;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private MerchantContextCache merchantContextCache = new MerchantContextCache(new ApplicationProperties(), meterRegistry);
+
     @InjectMocks
     private CupaApiBusinessLogicService businessLogicService;
 
@@ -223,4 +233,46 @@ class CupaApiBusinessLogicServiceTest {
         assertThat(context).isNotNull();
         assertThat(context.getRequestData()).contains("Error extracting request data");
     }
+
+    @Test
+    void shouldResolveApiKeyFromDatabaseOnlyOnce() throws Exception {
+        // Given
+        request.addHeader("X-API-Key", "test-api-key");
+
+        Merchant merchant = new Merchant();
+        merchant.setId("test-merchant");
+        merchant.setCupaTestApiKey("test-api-key");
+        merchant.setMode(MerchantMode.TEST);
+        merchant.setStatus(MerchantStatus.ACTIVE);
+
+        when(merchantService.findMerchantByCupaApiKey("test-api-key")).thenReturn(merchant);
+
+        // When
+        CupaApiContext.CupaApiContextData first = businessLogicService.extractBusinessContext(request, null, null);
+        CupaApiContext.CupaApiContextData second = businessLogicService.extractBusinessContext(request, null, null);
+
+        // Then
+        assertThat(first.getMerchantId()).isEqualTo("test-merchant");
+        assertThat(second.getMerchantContext()).isSameAs(first.getMerchantContext());
+        verify(merchantService, times(1)).findMerchantByCupaApiKey("test-api-key");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "merchantContext").tag("result", "hit").functionCounter().count())
+            .isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldResolveApiKeyAgainAfterInvalidation() throws Exception {
+        // Given
+        request.addHeader("X-API-Key", "test-api-key");
+        when(merchantService.findMerchantByCupaApiKey("test-api-key")).thenReturn(null);
+
+        // When
+        businessLogicService.extractBusinessContext(request, null, null);
+        merchantContextCache.invalidateAll();
+        CupaApiContext.CupaApiContextData context = businessLogicService.extractBusinessContext(request, null, null);
+
+        // Then
+        assertThat(context.getMerchantId()).isNull();
+        assertThat(context.getMerchantContext().getSecurityRemarks()).isEqualTo("No merchant found for API key");
+        verify(merchantService, times(2)).findMerchantByCupaApiKey("test-api-key");
+    }
 }
@@ -0,0 +1,171 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import lt.creditco.cupa.domain.DailyAmountLimit;
+import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DailyTurnoverLedgerTest {
+
+    private static final LocalDate TODAY = LocalDate.now(ZoneOffset.UTC);
+
+    private DailyTurnoverLedger ledger;
+    private DailyAmountLimit limit;
+    private DailyTurnoverLedger.Key key;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new DailyTurnoverLedger();
+        limit = new DailyAmountLimit();
+        limit.setAfterDate(TODAY.minusDays(10));
+        limit.setAfterAmount(BigDecimal.valueOf(500));
+        key = new DailyTurnoverLedger.Key("MERCH-00001", MerchantMode.TEST, TODAY);
+    }
+
+    @Test
+    void shouldSeedOnceAndReserveWithinLimit() {
+        AtomicInteger seedCalls = new AtomicInteger();
+
+        assertThat(ledger.tryReserve(key, BigDecimal.valueOf(100), limit, () -> {
+            seedCalls.incrementAndGet();
+            return BigDecimal.valueOf(300);
+        }))
+            .isTrue();
+        assertThat(ledger.tryReserve(key, BigDecimal.valueOf(100), limit, () -> {
+            seedCalls.incrementAndGet();
+            return BigDecimal.valueOf(300);
+        }))
+            .isTrue();
+
+        assertThat(seedCalls).hasValue(1);
+        assertThat(ledger.getTotal(key)).isEqualByComparingTo("500");
+    }
+
+    @Test
+    void shouldRejectReservationOverLimitWithoutChangingTotal() {
+        assertThat(ledger.tryReserve(key, BigDecimal.valueOf(100), limit, () -> BigDecimal.valueOf(401))).isFalse();
+
+        assertThat(ledger.getTotal(key)).isEqualByComparingTo("401");
+    }
+
+    @Test
+    void shouldNotLetConcurrentReservationsExceedLimit() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> calls = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                calls.add(() -> ledger.tryReserve(key, BigDecimal.TEN, limit, () -> BigDecimal.ZERO));
+            }
+            int accepted = 0;
+            for (Future<Boolean> result : executor.invokeAll(calls)) {
+                if (result.get()) {
+                    accepted++;
+                }
+            }
+
+            assertThat(accepted).isEqualTo(50);
+            assertThat(ledger.getTotal(key)).isEqualByComparingTo("500");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldGiveBackReservationWhenPaymentFails() {
+        ledger.tryReserve(key, BigDecimal.valueOf(100), limit, () -> BigDecimal.ZERO);
+
+        ledger.recordChange(transaction(TransactionStatus.FAILED, BigDecimal.valueOf(100)), TransactionStatus.RECEIVED, BigDecimal.valueOf(100));
+        ledger.release(key, BigDecimal.valueOf(100));
+
+        assertThat(ledger.getTotal(key)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void shouldKeepAmountWhenPaymentIsPending() {
+        ledger.tryReserve(key, BigDecimal.valueOf(100), limit, () -> BigDecimal.ZERO);
+
+        ledger.recordChange(transaction(TransactionStatus.PENDING, BigDecimal.valueOf(100)), TransactionStatus.RECEIVED, BigDecimal.valueOf(100));
+        ledger.release(key, BigDecimal.valueOf(100));
+
+        assertThat(ledger.getTotal(key)).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void shouldCountPaymentUnderTheDayItWasCreatedOn() {
+        DailyTurnoverLedger.Key yesterday = new DailyTurnoverLedger.Key("MERCH-00001", MerchantMode.TEST, TODAY.minusDays(1));
+        ledger.tryReserve(yesterday, BigDecimal.valueOf(100), limit, () -> BigDecimal.ZERO);
+        ledger.tryReserve(key, BigDecimal.ZERO, limit, () -> BigDecimal.valueOf(50));
+        PaymentTransaction transaction = transaction(TransactionStatus.PENDING, BigDecimal.valueOf(100));
+        transaction.setCreatedDate(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant());
+
+        ledger.recordChange(transaction, TransactionStatus.RECEIVED, BigDecimal.valueOf(100));
+        ledger.release(yesterday, BigDecimal.valueOf(100));
+
+        assertThat(ledger.getTotal(yesterday)).isEqualByComparingTo("0");
+        assertThat(ledger.getTotal(key)).isEqualByComparingTo("150");
+    }
+
+    @Test
+    void shouldApplyStatusAndAmountChanges() {
+        ledger.rebuild(TODAY, Map.of(key, BigDecimal.valueOf(200)));
+
+        PaymentTransaction transaction = transaction(TransactionStatus.SUCCESS, BigDecimal.valueOf(90));
+        ledger.recordChange(transaction, TransactionStatus.PENDING, BigDecimal.valueOf(100));
+        assertThat(ledger.getTotal(key)).isEqualByComparingTo("190");
+
+        transaction.setStatus(TransactionStatus.ABANDONED);
+        ledger.recordChange(transaction, TransactionStatus.SUCCESS, BigDecimal.valueOf(90));
+        assertThat(ledger.getTotal(key)).isEqualByComparingTo("100");
+
+        transaction.setStatus(TransactionStatus.FAILED);
+        ledger.recordChange(transaction, TransactionStatus.RECEIVED, BigDecimal.valueOf(90));
+        assertThat(ledger.getTotal(key)).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void shouldKeepReservationsMadeWhileRebuilding() {
+        ledger.tryReserve(key, BigDecimal.valueOf(100), limit, () -> BigDecimal.valueOf(200));
+        DailyTurnoverLedger.Key other = new DailyTurnoverLedger.Key("MERCH-00002", MerchantMode.TEST, TODAY);
+
+        ledger.rebuild(TODAY, Map.of(key, BigDecimal.valueOf(200), other, BigDecimal.valueOf(70)));
+
+        assertThat(ledger.getTotal(key)).isEqualByComparingTo("300");
+        assertThat(ledger.getTotal(other)).isEqualByComparingTo("70");
+    }
+
+    @Test
+    void shouldDropDaysOlderThanYesterdayOnRebuild() {
+        DailyTurnoverLedger.Key old = new DailyTurnoverLedger.Key("MERCH-00001", MerchantMode.TEST, TODAY.minusDays(2));
+        ledger.tryReserve(old, BigDecimal.ONE, limit, () -> BigDecimal.ZERO);
+
+        ledger.rebuild(TODAY, Map.of());
+
+        assertThat(ledger.getTotal(old)).isNull();
+    }
+
+    private static PaymentTransaction transaction(TransactionStatus status, BigDecimal amount) {
+        PaymentTransaction transaction = new PaymentTransaction();
+        transaction.setMerchantId("MERCH-00001");
+        transaction.setEnvironment(MerchantMode.TEST);
+        transaction.setStatus(status);
+        transaction.setAmount(amount);
+        transaction.setRequestTimestamp(Instant.now());
+        return transaction;
+    }
+}
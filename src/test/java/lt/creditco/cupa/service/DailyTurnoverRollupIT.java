@@ -0,0 +1,219 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import lt.creditco.cupa.IntegrationTest;
+import lt.creditco.cupa.base.users.CupaUser;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.enumeration.Currency;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.MerchantStatus;
+import lt.creditco.cupa.domain.enumeration.PaymentBrand;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.repository.PaymentTransactionRepository;
+import lt.creditco.cupa.service.dto.DailyTurnoverDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link DailyTurnoverRollup} and {@link MerchantStatisticsService}.
+ */
+@IntegrationTest
+class DailyTurnoverRollupIT {
+
+    private static final String MERCHANT_ID = "MERCH-ROLLUP";
+    private static final Instant DAY_START = Instant.parse("2026-10-16T00:00:00Z");
+    private static final LocalDate DAY = LocalDate.parse("2026-10-16");
+
+    @Autowired
+    private DailyTurnoverRollup dailyTurnoverRollup;
+
+    @Autowired
+    private MerchantStatisticsService merchantStatisticsService;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Autowired
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private CupaUser merchantUser;
+
+    @BeforeEach
+    void setUp() {
+        dailyTurnoverRollup.flush();
+        jdbcTemplate.update("delete from daily_turnover where merchant_id = ?", MERCHANT_ID);
+        jdbcTemplate.update("delete from payment_transaction where merchant_id = ?", MERCHANT_ID);
+        merchantUser = new CupaUser();
+        merchantUser.setLogin("rollup-user");
+        merchantUser.setMerchantIds(MERCHANT_ID);
+    }
+
+    @Test
+    void shouldMoveTransactionsBetweenStatusRows() {
+        PaymentTransaction first = transaction("rollup-1", "10.00");
+        dailyTurnoverRollup.recordChange(first, null, null);
+        first.setStatus(TransactionStatus.PENDING);
+        dailyTurnoverRollup.recordChange(first, TransactionStatus.RECEIVED, first.getAmount());
+        PaymentTransaction second = transaction("rollup-2", "5.50");
+        dailyTurnoverRollup.recordChange(second, null, null);
+        second.setStatus(TransactionStatus.PENDING);
+        dailyTurnoverRollup.recordChange(second, TransactionStatus.RECEIVED, second.getAmount());
+        dailyTurnoverRollup.flush();
+
+        first.setStatus(TransactionStatus.SUCCESS);
+        dailyTurnoverRollup.recordChange(first, TransactionStatus.PENDING, first.getAmount());
+        dailyTurnoverRollup.flush();
+
+        List<DailyTurnoverDTO> rows = merchantStatisticsService.findDailyTurnoverWithAccessControl(null, null, DAY, DAY, merchantUser);
+
+        assertThat(rows)
+            .extracting(DailyTurnoverDTO::status, DailyTurnoverDTO::transactionCount)
+            .containsExactly(
+                tuple(TransactionStatus.PENDING, 1L),
+                tuple(TransactionStatus.SUCCESS, 1L)
+            );
+        assertThat(rows.get(0).amount()).isEqualByComparingTo("5.50");
+        assertThat(rows.get(1).amount()).isEqualByComparingTo("10.00");
+        assertThat(rows.get(1).environment()).isEqualTo(MerchantMode.TEST);
+        assertThat(rows.get(1).day()).isEqualTo(DAY);
+    }
+
+    @Test
+    void shouldMoveTransactionFromItsPreviousKey() {
+        PaymentTransaction transaction = transaction("rollup-7", "10.00");
+        dailyTurnoverRollup.recordChange(transaction, null, null);
+        DailyTurnoverRollup.Snapshot previous = DailyTurnoverRollup.Snapshot.of(transaction);
+        transaction.setCurrency(Currency.EUR);
+        transaction.setAmount(new BigDecimal("8.00"));
+        dailyTurnoverRollup.recordChange(transaction, previous);
+        dailyTurnoverRollup.flush();
+
+        List<DailyTurnoverDTO> rows = merchantStatisticsService.findDailyTurnoverWithAccessControl(null, null, DAY, DAY, merchantUser);
+
+        assertThat(rows).extracting(DailyTurnoverDTO::currency, DailyTurnoverDTO::transactionCount).containsExactly(tuple(Currency.EUR, 1L));
+        assertThat(rows.get(0).amount()).isEqualByComparingTo("8.00");
+    }
+
+    @Test
+    void shouldRemoveDeletedTransactions() {
+        PaymentTransaction kept = transaction("rollup-8", "10.00");
+        dailyTurnoverRollup.recordChange(kept, null, null);
+        PaymentTransaction deleted = transaction("rollup-9", "4.00");
+        dailyTurnoverRollup.recordChange(deleted, null, null);
+        dailyTurnoverRollup.flush();
+
+        dailyTurnoverRollup.recordRemoval(deleted);
+        dailyTurnoverRollup.flush();
+
+        List<DailyTurnoverDTO> rows = merchantStatisticsService.findDailyTurnoverWithAccessControl(null, null, DAY, DAY, merchantUser);
+        assertThat(rows).extracting(DailyTurnoverDTO::transactionCount).containsExactly(1L);
+        assertThat(rows.get(0).amount()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void shouldApplyChangesOnlyAfterCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyTurnoverRollup.recordChange(transaction("rollup-3", "7.00"), null, null);
+            status.setRollbackOnly();
+        });
+
+        assertThat(dailyTurnoverRollup.getPendingCount()).isZero();
+    }
+
+    @Test
+    void shouldRebuildDaysFromPaymentTransactions() {
+        saveMerchant();
+        save("rollup-4", TransactionStatus.SUCCESS, "10.00");
+        save("rollup-5", TransactionStatus.SUCCESS, "2.50");
+        save("rollup-6", TransactionStatus.FAILED, "1.00");
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        jdbcTemplate.update(
+            DailyTurnoverRollup.INSERT_SQL,
+            99L,
+            new BigDecimal("999.00"),
+            MERCHANT_ID,
+            Date.valueOf(today),
+            "TEST",
+            "SUCCESS",
+            "USD",
+            "UnionPay"
+        );
+
+        dailyTurnoverRollup.rebuild(today, today);
+
+        List<DailyTurnoverDTO> rows = merchantStatisticsService.findDailyTurnoverWithAccessControl(
+            List.of(MERCHANT_ID),
+            MerchantMode.TEST,
+            today,
+            today,
+            merchantUser
+        );
+        assertThat(rows).extracting(DailyTurnoverDTO::status).containsExactly(TransactionStatus.FAILED, TransactionStatus.SUCCESS);
+        assertThat(rows.get(1).transactionCount()).isEqualTo(2);
+        assertThat(rows.get(1).amount()).isEqualByComparingTo("12.50");
+    }
+
+    @Test
+    void shouldNotShowOtherMerchantsStatistics() {
+        CupaUser otherUser = new CupaUser();
+        otherUser.setLogin("other-user");
+        otherUser.setMerchantIds("MERCH-OTHER");
+
+        assertThat(
+            merchantStatisticsService.findDailyTurnoverWithAccessControl(Set.of(MERCHANT_ID), null, DAY, DAY, otherUser)
+        ).isEmpty();
+    }
+
+    private PaymentTransaction transaction(String id, String amount) {
+        PaymentTransaction transaction = new PaymentTransaction();
+        transaction.setId(id);
+        transaction.setOrderId("order-" + id);
+        transaction.setMerchantId(MERCHANT_ID);
+        transaction.setStatus(TransactionStatus.RECEIVED);
+        transaction.setPaymentBrand(PaymentBrand.UnionPay);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setCurrency(Currency.USD);
+        transaction.setRequestTimestamp(DAY_START.plusSeconds(3600));
+        transaction.setEnvironment(MerchantMode.TEST);
+        return transaction;
+    }
+
+    private void save(String id, TransactionStatus status, String amount) {
+        PaymentTransaction transaction = transaction(id, amount);
+        transaction.setStatus(status);
+        transaction.setRequestTimestamp(Instant.now());
+        paymentTransactionRepository.saveAndFlush(transaction);
+    }
+
+    private void saveMerchant() {
+        if (merchantRepository.existsById(MERCHANT_ID)) {
+            return;
+        }
+        Merchant merchant = new Merchant();
+        merchant.setId(MERCHANT_ID);
+        merchant.setName("Rollup merchant");
+        merchant.setMode(MerchantMode.TEST);
+        merchant.setStatus(MerchantStatus.ACTIVE);
+        merchantRepository.saveAndFlush(merchant);
+    }
+}
@@ -0,0 +1,114 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bpmid.vapp.web.rest.errors.BadRequestAlertException;
+import java.util.Optional;
+import lt.creditco.cupa.api.Payment;
+import lt.creditco.cupa.api.PaymentRequest;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.web.context.CupaApiContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotentPaymentServiceTest {
+
+    private static final String KEY = "8e0c4b1a-key";
+
+    @Mock
+    private PaymentTransactionService paymentTransactionService;
+
+    private IdempotentPaymentService service;
+
+    private PaymentRequest request;
+    private CupaApiContext.CupaApiContextData context;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotentPaymentService(paymentTransactionService, new ApplicationProperties());
+        request = new PaymentRequest();
+        request.setOrderId("order-1");
+        request.setMerchantId("MERCH-00001");
+        context = CupaApiContext.CupaApiContextData.builder().merchantId("MERCH-00001").build();
+    }
+
+    @Test
+    void shouldCreatePaymentWhenKeyIsNew() {
+        Payment created = payment("order-1");
+        when(paymentTransactionService.findPaymentByIdempotencyKey("MERCH-00001", KEY)).thenReturn(Optional.empty());
+        when(paymentTransactionService.createPayment(request, context, false, KEY)).thenReturn(created);
+
+        IdempotentPaymentService.Result result = service.createPayment(request, context, false, KEY);
+
+        assertThat(result.payment()).isSameAs(created);
+        assertThat(result.replayed()).isFalse();
+    }
+
+    @Test
+    void shouldReplayStoredPaymentWithoutCreatingAnother() {
+        Payment stored = payment("order-1");
+        when(paymentTransactionService.findPaymentByIdempotencyKey("MERCH-00001", KEY)).thenReturn(Optional.of(stored));
+
+        IdempotentPaymentService.Result result = service.createPayment(request, context, false, KEY);
+
+        assertThat(result.payment()).isSameAs(stored);
+        assertThat(result.replayed()).isTrue();
+        verify(paymentTransactionService, never()).createPayment(any(), any(), anyBoolean(), anyString());
+    }
+
+    @Test
+    void shouldReplayPaymentStoredByConcurrentRequestWhenUniqueIndexRejectsCreation() {
+        Payment stored = payment("order-1");
+        when(paymentTransactionService.findPaymentByIdempotencyKey("MERCH-00001", KEY)).thenReturn(
+            Optional.empty(),
+            Optional.of(stored)
+        );
+        when(paymentTransactionService.createPayment(request, context, false, KEY)).thenThrow(
+            new DataIntegrityViolationException("ux_payment_transaction__merchant_idempotency_key")
+        );
+
+        IdempotentPaymentService.Result result = service.createPayment(request, context, false, KEY);
+
+        assertThat(result.payment()).isSameAs(stored);
+        assertThat(result.replayed()).isTrue();
+    }
+
+    @Test
+    void shouldRejectKeyReusedForAnotherOrder() {
+        when(paymentTransactionService.findPaymentByIdempotencyKey("MERCH-00001", KEY)).thenReturn(Optional.of(payment("order-0")));
+
+        assertThatThrownBy(() -> service.createPayment(request, context, false, KEY))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasMessageContaining("another order");
+    }
+
+    @Test
+    void shouldCreatePaymentWithoutLookupWhenNoKeyIsGiven() {
+        Payment created = payment("order-1");
+        when(paymentTransactionService.createPayment(request, context, true, null)).thenReturn(created);
+
+        IdempotentPaymentService.Result result = service.createPayment(request, context, true, null);
+
+        assertThat(result.payment()).isSameAs(created);
+        verify(paymentTransactionService, never()).findPaymentByIdempotencyKey(anyString(), anyString());
+    }
+
+    private static Payment payment(String orderId) {
+        Payment payment = new Payment();
+        payment.setId("tx-1");
+        payment.setOrderId(orderId);
+        return payment;
+    }
+}
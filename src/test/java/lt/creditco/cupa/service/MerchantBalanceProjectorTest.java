@@ -0,0 +1,99 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.repository.MerchantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class MerchantBalanceProjectorTest {
+
+    private static final Instant T0 = Instant.parse("2026-10-17T10:00:00Z");
+
+    @Mock
+    private MerchantRepository merchantRepository;
+
+    private MerchantBalanceProjector projector;
+    private Merchant merchant;
+
+    @BeforeEach
+    void setUp() {
+        projector = new MerchantBalanceProjector(merchantRepository);
+        merchant = newMerchant();
+    }
+
+    @Test
+    void shouldWriteOnlyTheLatestBalancePerFlush() {
+        when(merchantRepository.findById("MERCH-00001")).thenReturn(Optional.of(merchant));
+
+        projector.offer("MERCH-00001", new BigDecimal("110.00"), T0.plusSeconds(1));
+        projector.offer("MERCH-00001", new BigDecimal("130.00"), T0.plusSeconds(3));
+        projector.offer("MERCH-00001", new BigDecimal("120.00"), T0.plusSeconds(2));
+        projector.flush();
+
+        ArgumentCaptor<Merchant> saved = ArgumentCaptor.forClass(Merchant.class);
+        verify(merchantRepository, times(1)).save(saved.capture());
+        assertThat(saved.getValue().getBalance()).isEqualByComparingTo("130.00");
+        assertThat(projector.getPendingCount()).isZero();
+    }
+
+    @Test
+    void shouldIgnoreBalancesOlderThanTheWrittenOne() {
+        when(merchantRepository.findById("MERCH-00001")).thenReturn(Optional.of(merchant));
+
+        projector.offer("MERCH-00001", new BigDecimal("130.00"), T0.plusSeconds(3));
+        projector.flush();
+        projector.offer("MERCH-00001", new BigDecimal("110.00"), T0.plusSeconds(1));
+
+        assertThat(projector.getPendingCount()).isZero();
+    }
+
+    @Test
+    void shouldRetryAfterOptimisticLockFailure() {
+        when(merchantRepository.findById("MERCH-00001")).thenAnswer(invocation -> Optional.of(newMerchant()));
+        when(merchantRepository.save(any(Merchant.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Merchant.class, "MERCH-00001"))
+            .thenReturn(merchant);
+
+        projector.offer("MERCH-00001", new BigDecimal("110.00"), T0);
+        projector.flush();
+        assertThat(projector.getPendingCount()).isEqualTo(1);
+
+        projector.flush();
+        verify(merchantRepository, times(2)).save(any(Merchant.class));
+        assertThat(projector.getPendingCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepBalanceAndFailWhenPersistCannotWrite() {
+        when(merchantRepository.findById("MERCH-00001")).thenReturn(Optional.of(merchant));
+        when(merchantRepository.save(any(Merchant.class))).thenThrow(new IllegalStateException("Database unavailable"));
+
+        projector.offer("MERCH-00001", new BigDecimal("110.00"), T0);
+
+        assertThatThrownBy(projector::persist).isInstanceOf(IllegalStateException.class).hasMessageContaining("MERCH-00001");
+        assertThat(projector.getPendingCount()).isEqualTo(1);
+    }
+
+    private static Merchant newMerchant() {
+        Merchant merchant = new Merchant();
+        merchant.setId("MERCH-00001");
+        merchant.setBalance(new BigDecimal("100.00"));
+        return merchant;
+    }
+}
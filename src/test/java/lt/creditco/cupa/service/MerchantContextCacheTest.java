@@ -0,0 +1,115 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.service.dto.MerchantDTO;
+import lt.creditco.cupa.service.mapper.MerchantMapper;
+import lt.creditco.cupa.web.context.CupaApiContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class MerchantContextCacheTest {
+
+    private static final String API_KEY = "test-api-key";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, MerchantContextCache.Entry> loader = apiKey -> {
+        loads.incrementAndGet();
+        return new MerchantContextCache.Entry("MERCH-00001", CupaApiContext.MerchantContext.builder().merchantId("MERCH-00001").build());
+    };
+
+    private MerchantContextCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMerchantContextCache().setTimeToLive(Duration.ofMinutes(5));
+        cache = new MerchantContextCache(applicationProperties, meterRegistry, nanos::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldLoadOnMissAndServeHitsFromCache() {
+        MerchantContextCache.Entry first = cache.get(API_KEY, loader);
+        MerchantContextCache.Entry second = cache.get(API_KEY, loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(gets("miss")).isEqualTo(1);
+        assertThat(gets("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadAfterTimeToLive() {
+        cache.get(API_KEY, loader);
+
+        nanos.addAndGet(Duration.ofMinutes(4).toNanos());
+        cache.get(API_KEY, loader);
+        assertThat(loads).hasValue(1);
+
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        cache.get(API_KEY, loader);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldReloadAfterMerchantIsUpdated() {
+        MerchantRepository merchantRepository = mock(MerchantRepository.class);
+        MerchantMapper merchantMapper = mock(MerchantMapper.class);
+        MerchantService merchantService = new MerchantService(merchantRepository, merchantMapper, cache, mock(WebhookMerchantIndex.class));
+        Merchant merchant = new Merchant();
+        merchant.setId("MERCH-00001");
+        MerchantDTO merchantDTO = new MerchantDTO();
+        merchantDTO.setId("MERCH-00001");
+        when(merchantRepository.findById("MERCH-00001")).thenReturn(Optional.of(merchant));
+        when(merchantRepository.saveAndFlush(merchant)).thenReturn(merchant);
+        cache.get(API_KEY, loader);
+
+        merchantService.partialUpdate(merchantDTO);
+        cache.get(API_KEY, loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldEvictAgainWhenTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.get(API_KEY, loader);
+
+        cache.invalidateAll();
+        // a request racing with the merchant update caches the pre-commit state
+        cache.get(API_KEY, loader);
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED)
+        );
+        cache.get(API_KEY, loader);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", MerchantContextCache.CACHE_NAME).tag("result", result).functionCounter().count();
+    }
+}
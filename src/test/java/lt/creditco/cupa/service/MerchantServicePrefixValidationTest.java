@@ -34,11 +34,17 @@ class MerchantServicePrefixValidationTest {
     @Mock
     private MerchantMapper merchantMapper;
 
+    @Mock
+    private MerchantContextCache merchantContextCache;
+
+    @Mock
+    private WebhookMerchantIndex webhookMerchantIndex;
+
     private MerchantService merchantService;
 
     @BeforeEach
     void setUp() {
-        merchantService = new MerchantService(merchantRepository, merchantMapper);
+        merchantService = new MerchantService(merchantRepository, merchantMapper, merchantContextCache, webhookMerchantIndex);
     }
 
     /**
@@ -0,0 +1,107 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.repository.PaymentTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentMetricsTest {
+
+    @Mock
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentMetrics paymentMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        paymentMetrics = new PaymentMetrics(meterRegistry, paymentTransactionRepository);
+    }
+
+    @Test
+    void shouldTagStageTimerWithMerchantEnvironmentAndOutcome() {
+        paymentMetrics.stop(paymentMetrics.start(), PaymentMetrics.Stage.GATEWAY_PLACE, "MERCH-00001", MerchantMode.TEST, "ok");
+        paymentMetrics.stop(paymentMetrics.start(), PaymentMetrics.Stage.GATEWAY_PLACE, null, null, "error");
+
+        assertThat(
+            meterRegistry
+                .get("cupa.payment.stage")
+                .tags("stage", "gateway.place", "merchant", "MERCH-00001", "environment", "TEST", "outcome", "ok")
+                .timer()
+                .count()
+        ).isEqualTo(1);
+        assertThat(
+            meterRegistry.get("cupa.payment.stage").tags("merchant", "none", "environment", "none", "outcome", "error").timer().count()
+        ).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordTimeToFinalStatusOnlyWhenLeavingAnOpenStatus() {
+        PaymentTransaction paymentTransaction = transaction(TransactionStatus.SUCCESS);
+
+        paymentMetrics.statusChanged(paymentTransaction, TransactionStatus.PENDING);
+        paymentTransaction.setStatus(TransactionStatus.REFUNDED);
+        paymentMetrics.statusChanged(paymentTransaction, TransactionStatus.SUCCESS);
+        paymentMetrics.statusChanged(paymentTransaction, TransactionStatus.REFUNDED);
+
+        assertThat(meterRegistry.get("cupa.payment.status.transitions").tags("from", "PENDING", "to", "SUCCESS").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cupa.payment.status.transitions").tags("from", "SUCCESS", "to", "REFUNDED").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cupa.payment.status.transitions").counters()).hasSize(2);
+        assertThat(meterRegistry.get("cupa.payment.time.to.final.status").tag("status", "SUCCESS").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("cupa.payment.time.to.final.status").tag("status", "REFUNDED").timer()).isNull();
+    }
+
+    @Test
+    void shouldPublishBacklogPerStatusAndEnvironment() {
+        when(paymentTransactionRepository.countByStatusIn(PaymentMetrics.OPEN_STATUSES)).thenReturn(
+            List.of(statusCount(TransactionStatus.PENDING, MerchantMode.LIVE, 7), statusCount(TransactionStatus.RECEIVED, MerchantMode.TEST, 2))
+        );
+
+        paymentMetrics.refreshBacklog();
+
+        assertThat(meterRegistry.get("cupa.payment.backlog").tags("status", "PENDING", "environment", "LIVE").gauge().value()).isEqualTo(7);
+        assertThat(meterRegistry.get("cupa.payment.backlog").tags("status", "RECEIVED", "environment", "TEST").gauge().value()).isEqualTo(2);
+    }
+
+    private static PaymentTransaction transaction(TransactionStatus status) {
+        PaymentTransaction paymentTransaction = new PaymentTransaction();
+        paymentTransaction.setId("tx-1");
+        paymentTransaction.setMerchantId("MERCH-00001");
+        paymentTransaction.setEnvironment(MerchantMode.LIVE);
+        paymentTransaction.setStatus(status);
+        paymentTransaction.setRequestTimestamp(Instant.now().minusSeconds(30));
+        return paymentTransaction;
+    }
+
+    private static PaymentTransactionRepository.StatusCount statusCount(TransactionStatus status, MerchantMode environment, long count) {
+        return new PaymentTransactionRepository.StatusCount() {
+            @Override
+            public TransactionStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public MerchantMode getEnvironment() {
+                return environment;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}
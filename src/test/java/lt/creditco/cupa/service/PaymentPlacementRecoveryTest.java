@@ -0,0 +1,149 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.MerchantStatus;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.repository.PaymentTransactionRepository;
+import lt.creditco.cupa.repository.PaymentTransactionRepository.ReconciliationCandidate;
+import lt.creditco.cupa.web.context.CupaApiContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentPlacementRecoveryTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+    private static final Instant STALE_BEFORE = NOW.minus(Duration.ofMinutes(5));
+    private static final Instant CREATED_AFTER = NOW.minus(Duration.ofHours(24));
+
+    private record Candidate(String id, String merchantId) implements ReconciliationCandidate {
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getMerchantId() {
+            return merchantId;
+        }
+
+        @Override
+        public MerchantMode getEnvironment() {
+            return MerchantMode.TEST;
+        }
+
+        @Override
+        public String getOrderId() {
+            return "order-" + id;
+        }
+
+        @Override
+        public Instant getRequestTimestamp() {
+            return NOW.minus(Duration.ofMinutes(10));
+        }
+
+        @Override
+        public Instant getCreatedDate() {
+            return getRequestTimestamp();
+        }
+    }
+
+    @Mock
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    @Mock
+    private MerchantRepository merchantRepository;
+
+    @Mock
+    private PaymentTransactionService paymentTransactionService;
+
+    @Mock
+    private PaymentPlacementExecutor paymentPlacementExecutor;
+
+    private PaymentPlacementRecovery recovery;
+
+    @BeforeEach
+    void setUp() {
+        recovery = new PaymentPlacementRecovery(
+            paymentTransactionRepository,
+            merchantRepository,
+            paymentTransactionService,
+            paymentPlacementExecutor,
+            new ApplicationProperties()
+        );
+    }
+
+    @Test
+    void shouldPlaceStaleReceivedPaymentsWithMerchantGatewaySettings() {
+        givenStale(new Candidate("tx-1", "MERCH-00001"));
+        when(paymentPlacementExecutor.tryReserve()).thenReturn(true);
+
+        assertThat(recovery.recover(NOW)).isEqualTo(1);
+
+        ArgumentCaptor<Runnable> placement = ArgumentCaptor.forClass(Runnable.class);
+        verify(paymentPlacementExecutor).execute(placement.capture());
+        placement.getValue().run();
+        ArgumentCaptor<CupaApiContext.CupaApiContextData> context = ArgumentCaptor.forClass(CupaApiContext.CupaApiContextData.class);
+        verify(paymentTransactionService).placeStaleReceivedPayment(eq("tx-1"), eq(STALE_BEFORE), context.capture());
+        assertThat(context.getValue().getMerchantContext().getGatewayUrl()).isEqualTo("https://gateway.test");
+        assertThat(context.getValue().getMerchantContext().getMode()).isEqualTo(MerchantMode.TEST);
+    }
+
+    @Test
+    void shouldStopWhenPlacementExecutorIsSaturated() {
+        givenStale(new Candidate("tx-1", "MERCH-00001"), new Candidate("tx-2", "MERCH-00001"));
+        when(paymentPlacementExecutor.tryReserve()).thenReturn(true, false);
+
+        assertThat(recovery.recover(NOW)).isEqualTo(1);
+
+        verify(paymentPlacementExecutor, times(2)).tryReserve();
+        verify(paymentPlacementExecutor, times(1)).execute(any());
+    }
+
+    @Test
+    void shouldSkipPaymentsOfUnknownMerchants() {
+        when(paymentTransactionRepository.findStaleCandidates(eq(TransactionStatus.RECEIVED), eq(CREATED_AFTER), eq(STALE_BEFORE), any())).thenReturn(
+            List.of(new Candidate("tx-1", "MERCH-GONE"))
+        );
+        when(merchantRepository.findAllById(any())).thenReturn(List.of());
+
+        assertThat(recovery.recover(NOW)).isZero();
+
+        verify(paymentPlacementExecutor, never()).tryReserve();
+        verifyNoInteractions(paymentTransactionService);
+    }
+
+    private void givenStale(Candidate... candidates) {
+        when(paymentTransactionRepository.findStaleCandidates(eq(TransactionStatus.RECEIVED), eq(CREATED_AFTER), eq(STALE_BEFORE), any())).thenReturn(
+            List.of(candidates)
+        );
+        Merchant merchant = new Merchant();
+        merchant.setId("MERCH-00001");
+        merchant.setStatus(MerchantStatus.ACTIVE);
+        merchant.setMode(MerchantMode.TEST);
+        merchant.setRemoteTestUrl("https://gateway.test");
+        merchant.setRemoteTestMerchantId("mid-1");
+        merchant.setRemoteTestMerchantKey("key-1");
+        merchant.setRemoteTestApiKey("api-1");
+        when(merchantRepository.findAllById(any())).thenReturn(List.of(merchant));
+    }
+}
@@ -0,0 +1,249 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.MerchantStatus;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.remote.GatewayConfig;
+import lt.creditco.cupa.remote.GatewayMessage;
+import lt.creditco.cupa.remote.GatewayResponse;
+import lt.creditco.cupa.remote.PaymentReply;
+import lt.creditco.cupa.remote.UpGatewayClient;
+import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.repository.PaymentTransactionRepository;
+import lt.creditco.cupa.repository.PaymentTransactionRepository.MerchantCount;
+import lt.creditco.cupa.repository.PaymentTransactionRepository.ReconciliationCandidate;
+import lt.creditco.cupa.service.tasks.QueryPaymentStatusTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentReconciliationServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+    private static final Instant FIRST_QUERY_BEFORE = NOW.minusSeconds(60);
+    private static final Instant CLAIMED_UNTIL = NOW.plus(Duration.ofMinutes(5));
+
+    private record Count(String merchantId, MerchantMode environment, long count) implements MerchantCount {
+        @Override
+        public String getMerchantId() {
+            return merchantId;
+        }
+
+        @Override
+        public MerchantMode getEnvironment() {
+            return environment;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+    }
+
+    private record Candidate(String id, String merchantId, MerchantMode environment, String orderId, Instant requestTimestamp)
+        implements ReconciliationCandidate {
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getMerchantId() {
+            return merchantId;
+        }
+
+        @Override
+        public MerchantMode getEnvironment() {
+            return environment;
+        }
+
+        @Override
+        public String getOrderId() {
+            return orderId;
+        }
+
+        @Override
+        public Instant getRequestTimestamp() {
+            return requestTimestamp;
+        }
+
+        @Override
+        public Instant getCreatedDate() {
+            return requestTimestamp;
+        }
+    }
+
+    @Mock
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    @Mock
+    private MerchantRepository merchantRepository;
+
+    @Mock
+    private PaymentTransactionService paymentTransactionService;
+
+    @Mock
+    private UpGatewayClient upGatewayClient;
+
+    @Captor
+    private ArgumentCaptor<List<PaymentTransactionService.StatusReply>> replies;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentReconciliationService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new PaymentReconciliationService(
+            paymentTransactionRepository,
+            merchantRepository,
+            paymentTransactionService,
+            upGatewayClient,
+            new ApplicationProperties(),
+            meterRegistry
+        );
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.destroy();
+    }
+
+    @Test
+    void shouldQueryDueTransactionsOfMerchantInOneBatch() {
+        givenPending(
+            new Candidate("tx-1", "MERCH-00001", MerchantMode.TEST, "order-1", NOW.minus(Duration.ofMinutes(5))),
+            new Candidate("tx-2", "MERCH-00001", MerchantMode.TEST, "order-2", NOW.minus(Duration.ofMinutes(5)))
+        );
+        when(upGatewayClient.queryTransaction(anyString(), any(GatewayConfig.class))).thenReturn(gatewayResponse(200));
+        when(paymentTransactionService.applyGatewayReplies(anyList())).thenReturn(Set.of("tx-1", "tx-2"));
+        when(paymentTransactionRepository.countByMerchant(TransactionStatus.PENDING)).thenReturn(
+            List.of(new Count("MERCH-00001", MerchantMode.TEST, 2))
+        );
+
+        service.reconcile(NOW);
+
+        verify(merchantRepository).findAllById(any());
+        verify(paymentTransactionService).applyGatewayReplies(replies.capture());
+        assertThat(replies.getValue()).extracting(PaymentTransactionService.StatusReply::transactionId).containsExactlyInAnyOrder("tx-1", "tx-2");
+        assertThat(
+            meterRegistry.get("cupa.reconciliation.latency").tag("merchant", "MERCH-00001").tag("environment", "TEST").timer().count()
+        ).isEqualTo(2);
+        assertThat(meterRegistry.get("cupa.reconciliation.backlog").tag("merchant", "MERCH-00001").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldNotQueryBeforeFirstQueryDelay() {
+        when(paymentTransactionRepository.findDueForQuery(eq(TransactionStatus.PENDING), eq(NOW), eq(FIRST_QUERY_BEFORE), any())).thenReturn(
+            List.of()
+        );
+
+        service.reconcile(NOW);
+
+        verify(paymentTransactionRepository).findDueForQuery(eq(TransactionStatus.PENDING), eq(NOW), eq(FIRST_QUERY_BEFORE), any());
+        verifyNoInteractions(upGatewayClient);
+        verify(paymentTransactionService, never()).applyGatewayReplies(anyList());
+    }
+
+    @Test
+    void shouldNotQueryTransactionsClaimedByAnotherNode() {
+        when(paymentTransactionRepository.findDueForQuery(eq(TransactionStatus.PENDING), eq(NOW), eq(FIRST_QUERY_BEFORE), any())).thenReturn(
+            List.of(new Candidate("tx-1", "MERCH-00001", MerchantMode.TEST, "order-1", NOW.minus(Duration.ofMinutes(5))))
+        );
+        when(paymentTransactionRepository.claimForQuery(List.of("tx-1"), NOW, CLAIMED_UNTIL)).thenReturn(0);
+
+        service.reconcile(NOW);
+
+        verifyNoInteractions(upGatewayClient, merchantRepository, paymentTransactionService);
+        verify(paymentTransactionRepository, never()).scheduleNextQuery(anyList(), any());
+    }
+
+    @Test
+    void shouldQueryOnlyTransactionsThisNodeClaimed() {
+        givenPending(
+            new Candidate("tx-1", "MERCH-00001", MerchantMode.TEST, "order-1", NOW.minus(Duration.ofMinutes(5))),
+            new Candidate("tx-2", "MERCH-00001", MerchantMode.TEST, "order-2", NOW.minus(Duration.ofMinutes(5)))
+        );
+        when(paymentTransactionRepository.claimForQuery(List.of("tx-1", "tx-2"), NOW, CLAIMED_UNTIL)).thenReturn(1);
+        when(paymentTransactionRepository.findClaimedForQuery(List.of("tx-1", "tx-2"), CLAIMED_UNTIL)).thenReturn(List.of("tx-2"));
+        when(upGatewayClient.queryTransaction(anyString(), any(GatewayConfig.class))).thenReturn(gatewayResponse(200));
+        when(paymentTransactionService.applyGatewayReplies(anyList())).thenReturn(Set.of());
+
+        service.reconcile(NOW);
+
+        verify(upGatewayClient).queryTransaction(eq("order-2"), any(GatewayConfig.class));
+        verify(upGatewayClient, never()).queryTransaction(eq("order-1"), any(GatewayConfig.class));
+    }
+
+    @Test
+    void shouldRescheduleTransactionsThatAreStillPending() {
+        givenPending(new Candidate("tx-1", "MERCH-00001", MerchantMode.TEST, "order-1", NOW.minus(Duration.ofMinutes(5))));
+        when(upGatewayClient.queryTransaction(anyString(), any(GatewayConfig.class))).thenReturn(gatewayResponse(200));
+        when(paymentTransactionService.applyGatewayReplies(anyList())).thenReturn(Set.of());
+
+        service.reconcile(NOW);
+
+        // first hour: queried every minute
+        verify(upGatewayClient, times(1)).queryTransaction(anyString(), any(GatewayConfig.class));
+        verify(paymentTransactionRepository).scheduleNextQuery(List.of("tx-1"), NOW.plusSeconds(60));
+    }
+
+    @Test
+    void shouldAbandonTimedOutTransactions() {
+        givenPending(new Candidate("tx-1", "MERCH-00001", MerchantMode.TEST, "order-1", NOW.minus(Duration.ofHours(25))));
+
+        service.reconcile(NOW);
+
+        verify(paymentTransactionService).abandonPending(List.of("tx-1"), QueryPaymentStatusTask.TIMEOUT_STATUS_DESCRIPTION);
+        verifyNoInteractions(upGatewayClient);
+    }
+
+    private void givenPending(Candidate... candidates) {
+        when(paymentTransactionRepository.findDueForQuery(eq(TransactionStatus.PENDING), eq(NOW), eq(FIRST_QUERY_BEFORE), any())).thenReturn(
+            List.of(candidates)
+        );
+        when(paymentTransactionRepository.claimForQuery(anyList(), eq(NOW), eq(CLAIMED_UNTIL))).thenReturn(candidates.length);
+        Merchant merchant = new Merchant();
+        merchant.setId("MERCH-00001");
+        merchant.setStatus(MerchantStatus.ACTIVE);
+        merchant.setMode(MerchantMode.TEST);
+        merchant.setRemoteTestUrl("https://gateway.test");
+        merchant.setRemoteTestMerchantId("mid-1");
+        merchant.setRemoteTestMerchantKey("key-1");
+        merchant.setRemoteTestApiKey("api-1");
+        when(merchantRepository.findAllById(any())).thenReturn(List.of(merchant));
+    }
+
+    private static GatewayResponse<PaymentReply> gatewayResponse(int statusCode) {
+        PaymentReply reply = new PaymentReply();
+        reply.setResult("1");
+        GatewayResponse<PaymentReply> response = new GatewayResponse<>();
+        response.setResponse(GatewayMessage.builder().statusCode(statusCode).build());
+        response.setReply(reply);
+        return response;
+    }
+}
@@ -4,49 +4,61 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import lt.creditco.cupa.api.PaymentClient;
 import lt.creditco.cupa.api.PaymentRequest;
+import lt.creditco.cupa.base.users.CupaUser;
 import lt.creditco.cupa.domain.Client;
 import lt.creditco.cupa.domain.DailyAmountLimit;
 import lt.creditco.cupa.domain.Merchant;
 import lt.creditco.cupa.domain.PaymentTransaction;
+import lt.creditco.cupa.domain.PaymentTransactionPayload;
 import lt.creditco.cupa.domain.enumeration.Currency;
 import lt.creditco.cupa.domain.enumeration.MerchantMode;
 import lt.creditco.cupa.domain.enumeration.PaymentBrand;
 import lt.creditco.cupa.domain.enumeration.TransactionStatus;
 import lt.creditco.cupa.remote.CardType;
+import lt.creditco.cupa.remote.GatewayMessage;
+import lt.creditco.cupa.remote.GatewayResponse;
 import lt.creditco.cupa.remote.PaymentCurrency;
 import lt.creditco.cupa.remote.PaymentReply;
-import lt.creditco.cupa.remote.RestTemplateBodyInterceptor;
 import lt.creditco.cupa.remote.UpGatewayClient;
 import lt.creditco.cupa.repository.ClientRepository;
 import lt.creditco.cupa.repository.MerchantRepository;
+import lt.creditco.cupa.repository.PaymentTransactionPayloadRepository;
 import lt.creditco.cupa.repository.PaymentTransactionRepository;
 import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
 import lt.creditco.cupa.service.mapper.PaymentMapper;
 import lt.creditco.cupa.service.mapper.PaymentTransactionMapper;
 import lt.creditco.cupa.web.context.CupaApiContext;
 import com.bpmid.vapp.web.rest.errors.BadRequestAlertException;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import tech.jhipster.config.JHipsterProperties;
 
 @ExtendWith(MockitoExtension.class)
@@ -55,6 +67,9 @@ class PaymentTransactionServiceTest {
     @Mock
     private PaymentTransactionRepository paymentTransactionRepository;
 
+    @Mock
+    private PaymentTransactionPayloadRepository paymentTransactionPayloadRepository;
+
     @Mock
     private PaymentTransactionMapper paymentTransactionMapper;
 
@@ -70,9 +85,6 @@ class PaymentTransactionServiceTest {
     @Mock
     private UpGatewayClient upGatewayClient;
 
-    @Mock
-    private RestTemplateBodyInterceptor bodyInterceptor;
-
     @Mock
     private ApplicationEventPublisher eventPublisher;
 
@@ -85,6 +97,17 @@ class PaymentTransactionServiceTest {
     @Mock
     private Environment environment;
 
+    @Spy
+    private DailyTurnoverLedger dailyTurnoverLedger = new DailyTurnoverLedger();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private PaymentMetrics paymentMetrics = new PaymentMetrics(meterRegistry, null);
+
+    @Mock
+    private DailyTurnoverRollup dailyTurnoverRollup;
+
     @InjectMocks
     private PaymentTransactionService paymentTransactionService;
 
@@ -150,17 +173,8 @@ class PaymentTransactionServiceTest {
             )
             .build();
 
-        lenient()
-            .when(
-                paymentTransactionRepository.findTransactionsForPerClientDailyLimit(
-                    any(MerchantMode.class),
-                    anyString(),
-                    anyString(),
-                    any(Instant.class),
-                    eq(PaymentTransactionService.MAX_CLIENT_TRANSACTION_COUNT_QUERY_STATUSES)
-                )
-            )
-            .thenReturn(Collections.emptyList());
+        lenient().when(paymentTransactionRepository.count(any(Specification.class))).thenReturn(0L);
+        lenient().when(paymentTransactionRepository.markPlacementStarted(any(), any(), any())).thenReturn(1);
 
         // Setup test data for enrichment tests
         client = new Client();
@@ -189,8 +203,6 @@ class PaymentTransactionServiceTest {
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(validPaymentTransactionDTO);
-        when(paymentTransactionRepository.existsByMerchantIdAndOrderId("MERCH-00001", "test-order-123")).thenReturn(false);
-        when(bodyInterceptor.getLastTrace()).thenReturn(null);
 
         // Mock client lookup for placePayment
         Client testClient = new Client();
@@ -208,10 +220,156 @@ class PaymentTransactionServiceTest {
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo("test-id");
+        assertThat(meterRegistry.get("cupa.payment.stage").tag("stage", "validation").tag("outcome", "ok").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cupa.payment.stage").tag("stage", "persist").tag("outcome", "ok").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cupa.payment.status.transitions").tag("to", "RECEIVED").counter().count()).isEqualTo(1);
     }
 
     
 
+    @Test
+    void shouldReturnReceivedPaymentAndPlaceItInBackgroundWhenAsync() {
+        // Given
+        PaymentPlacementExecutor placementExecutor = mock(PaymentPlacementExecutor.class);
+        paymentTransactionService.setPaymentPlacementExecutor(placementExecutor);
+        when(placementExecutor.tryReserve()).thenReturn(true);
+        when(clientRepository.existsById("CLN-00001")).thenReturn(true);
+        when(merchantRepository.existsById("MERCH-00001")).thenReturn(true);
+        when(paymentTransactionMapper.toEntity(validPaymentTransactionDTO)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(validPaymentTransactionDTO);
+
+        // When
+        PaymentTransactionDTO result = paymentTransactionService.save(validPaymentTransactionDTO, validContext, true);
+
+        // Then: answered before the gateway is called
+        assertThat(result.getStatus()).isEqualTo(TransactionStatus.RECEIVED);
+        verifyNoInteractions(upGatewayClient);
+        ArgumentCaptor<Runnable> placement = ArgumentCaptor.forClass(Runnable.class);
+        verify(placementExecutor).execute(placement.capture());
+
+        // When: the placement thread runs
+        Client testClient = new Client();
+        testClient.setId("CLN-00001");
+        testClient.setMerchantClientId("merchant-client-id");
+        when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
+        when(paymentTransactionRepository.findById("test-id")).thenReturn(Optional.of(validPaymentTransaction));
+        placement.getValue().run();
+
+        // Then
+        verify(upGatewayClient).placeTransaction(any(), any());
+        verify(paymentTransactionRepository, times(2)).saveAndFlush(validPaymentTransaction);
+    }
+
+    @Test
+    void shouldPlacePaymentWithinRequestWhenPlacementExecutorIsSaturated() {
+        // Given
+        PaymentPlacementExecutor placementExecutor = mock(PaymentPlacementExecutor.class);
+        paymentTransactionService.setPaymentPlacementExecutor(placementExecutor);
+        when(placementExecutor.tryReserve()).thenReturn(false);
+        when(clientRepository.existsById("CLN-00001")).thenReturn(true);
+        when(merchantRepository.existsById("MERCH-00001")).thenReturn(true);
+        when(paymentTransactionMapper.toEntity(validPaymentTransactionDTO)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(validPaymentTransactionDTO);
+        Client testClient = new Client();
+        testClient.setId("CLN-00001");
+        testClient.setMerchantClientId("merchant-client-id");
+        when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
+
+        // When
+        paymentTransactionService.save(validPaymentTransactionDTO, validContext, true);
+
+        // Then: placed before the request returns, nothing handed to the executor
+        verify(upGatewayClient).placeTransaction(any(), any());
+        verify(placementExecutor, never()).execute(any());
+        verify(paymentTransactionRepository, times(2)).saveAndFlush(validPaymentTransaction);
+    }
+
+    @Test
+    void shouldReleasePlacementSlotWhenSaveFails() {
+        // Given
+        PaymentPlacementExecutor placementExecutor = mock(PaymentPlacementExecutor.class);
+        paymentTransactionService.setPaymentPlacementExecutor(placementExecutor);
+        when(placementExecutor.tryReserve()).thenReturn(true);
+        when(clientRepository.existsById("CLN-00001")).thenReturn(true);
+        when(merchantRepository.existsById("MERCH-00001")).thenReturn(true);
+        when(paymentTransactionMapper.toEntity(validPaymentTransactionDTO)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenThrow(new DataIntegrityViolationException("boom"));
+
+        // When
+        assertThatThrownBy(() -> paymentTransactionService.save(validPaymentTransactionDTO, validContext, true))
+            .isInstanceOf(DataIntegrityViolationException.class);
+
+        // Then
+        verify(placementExecutor).release();
+        verify(placementExecutor, never()).execute(any());
+    }
+
+    @Test
+    void shouldLeavePaymentReceivedWithUnknownOutcomeWhenGatewayCallFails() {
+        // Given
+        when(clientRepository.existsById("CLN-00001")).thenReturn(true);
+        when(merchantRepository.existsById("MERCH-00001")).thenReturn(true);
+        when(paymentTransactionMapper.toEntity(validPaymentTransactionDTO)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(validPaymentTransactionDTO);
+        Client testClient = new Client();
+        testClient.setId("CLN-00001");
+        testClient.setMerchantClientId("merchant-client-id");
+        when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
+        when(upGatewayClient.placeTransaction(any(), any())).thenThrow(new RuntimeException("read timed out"));
+
+        // When
+        paymentTransactionService.save(validPaymentTransactionDTO, validContext);
+
+        // Then: the placement start is recorded before the call, so the recovery sweep skips the payment
+        verify(paymentTransactionRepository).markPlacementStarted(eq("test-id"), eq(TransactionStatus.RECEIVED), any());
+        assertThat(validPaymentTransaction.getStatus()).isEqualTo(TransactionStatus.RECEIVED);
+        assertThat(validPaymentTransaction.getStatusDescription()).isEqualTo("ERROR: Gateway placement outcome unknown");
+    }
+
+    @Test
+    void shouldNotPlaceRecoveredPaymentWhosePlacementWasStarted() {
+        // Given
+        when(paymentTransactionRepository.claimStale(eq("test-id"), eq(TransactionStatus.RECEIVED), any(), any())).thenReturn(1);
+        when(paymentTransactionRepository.findById("test-id")).thenReturn(Optional.of(validPaymentTransaction));
+        Client testClient = new Client();
+        testClient.setId("CLN-00001");
+        when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
+        when(paymentTransactionRepository.markPlacementStarted(any(), any(), any())).thenReturn(0);
+
+        // When
+        paymentTransactionService.placeStaleReceivedPayment("test-id", Instant.now(), validContext);
+
+        // Then
+        verifyNoInteractions(upGatewayClient);
+        verify(paymentTransactionRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void shouldRecordRecoveredPlacementInDailyTurnoverLedger() {
+        // Given
+        when(paymentTransactionRepository.claimStale(eq("test-id"), eq(TransactionStatus.RECEIVED), any(), any())).thenReturn(1);
+        when(paymentTransactionRepository.findById("test-id")).thenReturn(Optional.of(validPaymentTransaction));
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
+        Client testClient = new Client();
+        testClient.setId("CLN-00001");
+        testClient.setMerchantClientId("merchant-client-id");
+        when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
+        GatewayResponse<PaymentReply> upResponse = new GatewayResponse<>();
+        upResponse.setResponse(GatewayMessage.builder().statusCode(200).message("OK").build());
+        when(upGatewayClient.placeTransaction(any(), any())).thenReturn(upResponse);
+
+        // When
+        paymentTransactionService.placeStaleReceivedPayment("test-id", Instant.now(), validContext);
+
+        // Then
+        assertThat(validPaymentTransaction.getStatus()).isEqualTo(TransactionStatus.PENDING);
+        verify(dailyTurnoverLedger).recordChange(validPaymentTransaction, TransactionStatus.RECEIVED, new BigDecimal("100.00"));
+        verify(dailyTurnoverRollup).recordChange(validPaymentTransaction, TransactionStatus.RECEIVED, new BigDecimal("100.00"));
+    }
+
     @Test
     void shouldSaveValidPaymentTransactionWhenOrderIdMatchesContextPrefix() {
         // Given
@@ -221,8 +379,6 @@ class PaymentTransactionServiceTest {
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(validPaymentTransactionDTO);
-        when(paymentTransactionRepository.existsByMerchantIdAndOrderId("MERCH-00001", "test-order-123")).thenReturn(false);
-        when(bodyInterceptor.getLastTrace()).thenReturn(null);
 
         // Mock client lookup for placePayment
         Client testClient = new Client();
@@ -234,7 +390,7 @@ class PaymentTransactionServiceTest {
         testClient.setClientPhone("987654321");
         when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
 
-        validContext.getMerchantContext().setOrderIdPrefix(validPaymentTransactionDTO.getOrderId().substring(0, 3));
+        validContext.setMerchantContext(validContext.getMerchantContext().toBuilder().orderIdPrefix(validPaymentTransactionDTO.getOrderId().substring(0, 3)).build());
 
         // When
         PaymentTransactionDTO result = paymentTransactionService.save(validPaymentTransactionDTO, validContext);
@@ -253,8 +409,6 @@ class PaymentTransactionServiceTest {
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(validPaymentTransactionDTO);
-        when(paymentTransactionRepository.existsByMerchantIdAndOrderId("MERCH-00001", "test-order-123")).thenReturn(false);
-        when(bodyInterceptor.getLastTrace()).thenReturn(null);
 
         // Mock client lookup for placePayment
         Client testClient = new Client();
@@ -266,7 +420,7 @@ class PaymentTransactionServiceTest {
         testClient.setClientPhone("987654321");
         when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
 
-        validContext.getMerchantContext().setClientIdPrefix(validPaymentTransactionDTO.getClientId().substring(0, 3));
+        validContext.setMerchantContext(validContext.getMerchantContext().toBuilder().clientIdPrefix(validPaymentTransactionDTO.getClientId().substring(0, 3)).build());
 
         // When
         PaymentTransactionDTO result = paymentTransactionService.save(validPaymentTransactionDTO, validContext);
@@ -285,8 +439,6 @@ class PaymentTransactionServiceTest {
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(validPaymentTransactionDTO);
-        when(paymentTransactionRepository.existsByMerchantIdAndOrderId("MERCH-00001", "test-order-123")).thenReturn(false);
-        when(bodyInterceptor.getLastTrace()).thenReturn(null);
 
         // Mock client lookup for placePayment
         Client testClient = new Client();
@@ -298,7 +450,7 @@ class PaymentTransactionServiceTest {
         testClient.setClientPhone("987654321");
         when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
 
-        validContext.getMerchantContext().setClientIdPrefix("xxx-");
+        validContext.setMerchantContext(validContext.getMerchantContext().toBuilder().clientIdPrefix("xxx-").build());
 
         // When
         PaymentTransactionDTO result = paymentTransactionService.save(validPaymentTransactionDTO, validContext);
@@ -317,8 +469,6 @@ class PaymentTransactionServiceTest {
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
         when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(validPaymentTransactionDTO);
-        when(paymentTransactionRepository.existsByMerchantIdAndOrderId("MERCH-00001", "test-order-123")).thenReturn(false);
-        when(bodyInterceptor.getLastTrace()).thenReturn(null);
         when(
             paymentTransactionRepository.getTotalAmountByMerchantIdAndEnvironmentAndDateRange(
                 "MERCH-00001",
@@ -343,7 +493,7 @@ class PaymentTransactionServiceTest {
         DailyAmountLimit dailyAmountLimit = new DailyAmountLimit();
         dailyAmountLimit.setAfterDate(LocalDate.now().minusDays(10));
         dailyAmountLimit.setAfterAmount(BigDecimal.valueOf(100));
-        validContext.getMerchantContext().setDailyAmountLimit(dailyAmountLimit);
+        validContext.setMerchantContext(validContext.getMerchantContext().toBuilder().dailyAmountLimit(dailyAmountLimit).build());
 
         validPaymentTransactionDTO.setAmount(BigDecimal.valueOf(10));
 
@@ -371,7 +521,7 @@ class PaymentTransactionServiceTest {
         testClient.setClientPhone("987654321");
         when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
 
-        validContext.getMerchantContext().setOrderIdPrefix("xxx-");
+        validContext.setMerchantContext(validContext.getMerchantContext().toBuilder().orderIdPrefix("xxx-").build());
 
         // When & Then
         assertThatThrownBy(() -> paymentTransactionService.save(validPaymentTransactionDTO, validContext))
@@ -379,6 +529,79 @@ class PaymentTransactionServiceTest {
             .hasMessageContaining("Order ID does not match configured prefix (xxx-)");
     }
 
+    @Test
+    void shouldThrowErrorWhenOrderIdIsAlreadyUsedByMerchant() {
+        // Given
+        when(clientRepository.existsById("CLN-00001")).thenReturn(true);
+        when(merchantRepository.existsById("MERCH-00001")).thenReturn(true);
+        when(paymentTransactionMapper.toEntity(validPaymentTransactionDTO)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenThrow(
+            uniqueViolation("PUBLIC.UX_PAYMENT_TRANSACTION__MERCHANT_ORDER ON PUBLIC.PAYMENT_TRANSACTION(MERCHANT_ID, ORDER_ID)")
+        );
+
+        // When & Then
+        assertThatThrownBy(() -> paymentTransactionService.save(validPaymentTransactionDTO, validContext))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasMessageContaining("Duplicate OrderId");
+        verify(paymentTransactionRepository, never()).findByMerchantIdAndOrderId(anyString(), anyString());
+    }
+
+    @Test
+    void shouldThrowErrorWhenIdempotencyKeyIsAlreadyUsedByMerchant() {
+        // Given
+        when(clientRepository.existsById("CLN-00001")).thenReturn(true);
+        when(merchantRepository.existsById("MERCH-00001")).thenReturn(true);
+        when(paymentTransactionMapper.toEntity(validPaymentTransactionDTO)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenThrow(
+            uniqueViolation("ux_payment_transaction__merchant_idempotency_key")
+        );
+
+        // When & Then
+        assertThatThrownBy(() -> paymentTransactionService.save(validPaymentTransactionDTO, validContext))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasMessageContaining("Duplicate Idempotency-Key");
+    }
+
+    @Test
+    void shouldTreatUnnamedUniqueViolationAsDuplicateOrderId() {
+        // Given
+        when(clientRepository.existsById("CLN-00001")).thenReturn(true);
+        when(merchantRepository.existsById("MERCH-00001")).thenReturn(true);
+        when(paymentTransactionMapper.toEntity(validPaymentTransactionDTO)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenThrow(
+            new DataIntegrityViolationException("could not execute statement", new SQLException("duplicate key", "23505"))
+        );
+
+        // When & Then
+        assertThatThrownBy(() -> paymentTransactionService.save(validPaymentTransactionDTO, validContext))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasMessageContaining("Duplicate OrderId");
+    }
+
+    @Test
+    void shouldNotTakeMessageMentioningTheIndexForUniqueViolation() {
+        // Given
+        when(clientRepository.existsById("CLN-00001")).thenReturn(true);
+        when(merchantRepository.existsById("MERCH-00001")).thenReturn(true);
+        when(paymentTransactionMapper.toEntity(validPaymentTransactionDTO)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenThrow(
+            new DataIntegrityViolationException("null value in column of ux_payment_transaction__merchant_order")
+        );
+
+        // When & Then
+        assertThatThrownBy(() -> paymentTransactionService.save(validPaymentTransactionDTO, validContext)).isInstanceOf(
+            DataIntegrityViolationException.class
+        );
+    }
+
+    private static DataIntegrityViolationException uniqueViolation(String constraintName) {
+        SQLException sqlException = new SQLException("Unique index or primary key violation", "23505");
+        return new DataIntegrityViolationException(
+            "could not execute statement",
+            new ConstraintViolationException("could not execute statement", sqlException, constraintName)
+        );
+    }
+
     @Test
     void shouldThrowErrorWhenDailyAmountLimitWasExceeded() {
         // Given
@@ -410,7 +633,7 @@ class PaymentTransactionServiceTest {
         dailyAmountLimit.setAfterAmount(BigDecimal.valueOf(500));
 
 
-        validContext.getMerchantContext().setDailyAmountLimit(dailyAmountLimit);
+        validContext.setMerchantContext(validContext.getMerchantContext().toBuilder().dailyAmountLimit(dailyAmountLimit).build());
         validPaymentTransactionDTO.setAmount(BigDecimal.valueOf(100));
 
         // When & Then
@@ -450,7 +673,7 @@ class PaymentTransactionServiceTest {
         dailyAmountLimit.setAfterAmount(BigDecimal.valueOf(500));
 
 
-        validContext.getMerchantContext().setDailyAmountLimit(dailyAmountLimit);
+        validContext.setMerchantContext(validContext.getMerchantContext().toBuilder().dailyAmountLimit(dailyAmountLimit).build());
         validPaymentTransactionDTO.setAmount(BigDecimal.valueOf(100));
 
         // When & Then
@@ -462,7 +685,7 @@ class PaymentTransactionServiceTest {
     @Test
     void shouldThrowErrorWhenClientIdDoesNotMatchContextPrefix() {
         // Given
-        validContext.getMerchantContext().setClientIdPrefix("xxx-");
+        validContext.setMerchantContext(validContext.getMerchantContext().toBuilder().clientIdPrefix("xxx-").build());
 
         // When & Then
         assertThatThrownBy(() -> paymentTransactionService.createPayment(validPaymentRequest, validContext))
@@ -596,6 +819,68 @@ class PaymentTransactionServiceTest {
         assertThat(enrichedDTO.getMerchantName()).isEqualTo("Test Merchant Name");
     }
 
+    @Test
+    void shouldEnrichListWithOneQueryPerRelatedEntityType() {
+        // Given
+        CupaUser user = mock(CupaUser.class);
+        when(user.hasAccessToAllMerchants()).thenReturn(false);
+        when(user.getMerchantIdsSet()).thenReturn(Set.of("test-merchant-id"));
+
+        PaymentTransaction first = new PaymentTransaction();
+        first.setId("tx-1");
+        PaymentTransaction second = new PaymentTransaction();
+        second.setId("tx-2");
+        PaymentTransactionDTO firstDTO = new PaymentTransactionDTO();
+        firstDTO.setId("tx-1");
+        firstDTO.setClientId("test-client-id");
+        firstDTO.setMerchantId("test-merchant-id");
+        PaymentTransactionDTO secondDTO = new PaymentTransactionDTO();
+        secondDTO.setId("tx-2");
+        secondDTO.setClientId("test-client-id");
+        secondDTO.setMerchantId("test-merchant-id");
+        secondDTO.setClientEmail("snapshot@example.com");
+
+        when(
+            paymentTransactionRepository.findListByMerchantIdsAndRequestTimestampRange(
+                eq(Set.of("test-merchant-id")),
+                eq(Instant.EPOCH),
+                any(Instant.class),
+                any(Pageable.class)
+            )
+        ).thenReturn(List.of(first, second));
+        when(paymentTransactionMapper.toDto(first)).thenReturn(firstDTO);
+        when(paymentTransactionMapper.toDto(second)).thenReturn(secondDTO);
+
+        ClientRepository.ClientSummary clientSummary = mock(ClientRepository.ClientSummary.class);
+        when(clientSummary.getId()).thenReturn("test-client-id");
+        when(clientSummary.getMerchantClientId()).thenReturn("merchant-client-id");
+        when(clientSummary.getName()).thenReturn("Test Client Name");
+        when(clientSummary.getEmailAddress()).thenReturn("client@example.com");
+        when(clientRepository.findSummariesByIds(List.of("test-client-id"))).thenReturn(List.of(clientSummary));
+
+        MerchantRepository.MerchantSummary merchantSummary = mock(MerchantRepository.MerchantSummary.class);
+        when(merchantSummary.getId()).thenReturn("test-merchant-id");
+        when(merchantSummary.getName()).thenReturn("Test Merchant Name");
+        when(merchantRepository.findSummariesByIds(List.of("test-merchant-id"))).thenReturn(List.of(merchantSummary));
+
+        // When
+        List<PaymentTransactionDTO> result = paymentTransactionService.findListWithAccessControl(user, Instant.EPOCH, Instant.now(), 100);
+
+        // Then
+        assertThat(result).hasSize(2);
+        assertThat(result).allSatisfy(dto -> {
+            assertThat(dto.getMerchantClientId()).isEqualTo("merchant-client-id");
+            assertThat(dto.getClientName()).isEqualTo("Test Client Name");
+            assertThat(dto.getMerchantName()).isEqualTo("Test Merchant Name");
+        });
+        assertThat(result.get(0).getClientEmail()).isEqualTo("client@example.com");
+        assertThat(result.get(1).getClientEmail()).isEqualTo("snapshot@example.com");
+        verify(clientRepository, times(1)).findSummariesByIds(anyCollection());
+        verify(merchantRepository, times(1)).findSummariesByIds(anyCollection());
+        verify(clientRepository, never()).findById(anyString());
+        verify(merchantRepository, never()).findById(anyString());
+    }
+
     @Test
     void testGetTransactionStatusFromReply_Result0_ShouldReturnSuccess() {
         // Given
@@ -785,20 +1070,8 @@ class PaymentTransactionServiceTest {
     }
 
     @Test
-    void countTransactions_countsPendingAndSuccess() {
-        PaymentTransaction pending = new PaymentTransaction();
-        pending.setStatus(TransactionStatus.PENDING);
-        PaymentTransaction success = new PaymentTransaction();
-        success.setStatus(TransactionStatus.SUCCESS);
-        when(
-            paymentTransactionRepository.findTransactionsForPerClientDailyLimit(
-                eq(MerchantMode.TEST),
-                eq("test-gateway-merchant-id"),
-                eq("test@example.com"),
-                eq(Instant.EPOCH),
-                eq(PaymentTransactionService.MAX_CLIENT_TRANSACTION_COUNT_QUERY_STATUSES)
-            )
-        ).thenReturn(List.of(pending, success));
+    void countTransactions_returnsDatabaseCount() {
+        when(paymentTransactionRepository.count(any(Specification.class))).thenReturn(3L);
 
         int n = paymentTransactionService.countTransactions(
             MerchantMode.TEST,
@@ -806,130 +1079,69 @@ class PaymentTransactionServiceTest {
             "test@example.com",
             Instant.EPOCH
         );
-        assertThat(n).isEqualTo(2);
-    }
-
-    @Test
-    void countTransactions_includesFailedWhenDescriptionMatchesRiskFragment() {
-        PaymentTransaction tx = new PaymentTransaction();
-        tx.setStatus(TransactionStatus.FAILED);
-        tx.setStatusDescription("Prefix BLOCKED, DUE TO RISK SCORE. CLIENT OVER DAILY LIMIT suffix");
-        when(
-            paymentTransactionRepository.findTransactionsForPerClientDailyLimit(
-                eq(MerchantMode.TEST),
-                eq("test-gateway-merchant-id"),
-                eq("test@example.com"),
-                eq(Instant.EPOCH),
-                eq(PaymentTransactionService.MAX_CLIENT_TRANSACTION_COUNT_QUERY_STATUSES)
-            )
-        ).thenReturn(List.of(tx));
 
-        int n = paymentTransactionService.countTransactions(
-            MerchantMode.TEST,
-            "test-gateway-merchant-id",
-            "test@example.com",
-            Instant.EPOCH
-        );
-        assertThat(n).isEqualTo(1);
+        assertThat(n).isEqualTo(3);
+        verify(paymentTransactionRepository, never()).findAll(any(Specification.class));
     }
 
     @Test
-    void countTransactions_excludesFailedWhenNoFragmentMatch() {
-        PaymentTransaction tx = new PaymentTransaction();
-        tx.setStatus(TransactionStatus.FAILED);
-        tx.setStatusDescription("Card declined");
-        when(
-            paymentTransactionRepository.findTransactionsForPerClientDailyLimit(
-                eq(MerchantMode.TEST),
-                eq("test-gateway-merchant-id"),
-                eq("test@example.com"),
-                eq(Instant.EPOCH),
-                eq(PaymentTransactionService.MAX_CLIENT_TRANSACTION_COUNT_QUERY_STATUSES)
-            )
-        ).thenReturn(List.of(tx));
+    void shouldThrowErrorWhenMaxClientTransactionCountIsReached() {
+        when(clientRepository.existsById("CLN-00001")).thenReturn(true);
+        when(merchantRepository.existsById("MERCH-00001")).thenReturn(true);
+        when(paymentTransactionRepository.count(any(Specification.class))).thenReturn(100L);
+        Client testClient = new Client();
+        testClient.setId("CLN-00001");
+        testClient.setEmailAddress("test@example.com");
+        when(clientRepository.findById("CLN-00001")).thenReturn(Optional.of(testClient));
 
-        int n = paymentTransactionService.countTransactions(
-            MerchantMode.TEST,
-            "test-gateway-merchant-id",
-            "test@example.com",
-            Instant.EPOCH
-        );
-        assertThat(n).isEqualTo(0);
+        assertThatThrownBy(() -> paymentTransactionService.save(validPaymentTransactionDTO, validContext))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasMessageContaining("Max transaction count per day (100) exceeded for the client");
     }
 
     @Test
-    void countTransactions_excludesFailedWhenBlankDescription() {
-        PaymentTransaction tx = new PaymentTransaction();
-        tx.setStatus(TransactionStatus.FAILED);
-        tx.setStatusDescription("  ");
-        when(
-            paymentTransactionRepository.findTransactionsForPerClientDailyLimit(
-                eq(MerchantMode.TEST),
-                eq("test-gateway-merchant-id"),
-                eq("test@example.com"),
-                eq(Instant.EPOCH),
-                eq(PaymentTransactionService.MAX_CLIENT_TRANSACTION_COUNT_QUERY_STATUSES)
-            )
-        ).thenReturn(List.of(tx));
-
-        int n = paymentTransactionService.countTransactions(
-            MerchantMode.TEST,
-            "test-gateway-merchant-id",
-            "test@example.com",
-            Instant.EPOCH
-        );
-        assertThat(n).isEqualTo(0);
+    void shouldWritePayloadFieldsOnPartialUpdate() {
+        PaymentTransactionPayload existingPayload = new PaymentTransactionPayload("test-id");
+        existingPayload.setRequestData("{\"request\":1}");
+        when(paymentTransactionRepository.findById("test-id")).thenReturn(Optional.of(validPaymentTransaction));
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(new PaymentTransactionDTO());
+        when(paymentTransactionPayloadRepository.findById("test-id")).thenReturn(Optional.of(existingPayload));
+        when(paymentTransactionPayloadRepository.save(any(PaymentTransactionPayload.class))).then(returnsFirstArg());
+        PaymentTransactionDTO update = new PaymentTransactionDTO();
+        update.setId("test-id");
+        update.setCallbackData("{\"callback\":1}");
+
+        Optional<PaymentTransactionDTO> result = paymentTransactionService.partialUpdate(update);
+
+        ArgumentCaptor<PaymentTransactionPayload> saved = ArgumentCaptor.forClass(PaymentTransactionPayload.class);
+        verify(paymentTransactionPayloadRepository).save(saved.capture());
+        assertThat(saved.getValue().getCallbackData()).isEqualTo("{\"callback\":1}");
+        assertThat(saved.getValue().getRequestData()).isEqualTo("{\"request\":1}");
+        assertThat(result).get().extracting(PaymentTransactionDTO::getCallbackData).isEqualTo("{\"callback\":1}");
     }
 
     @Test
-    void countTransactions_excludesReceived() {
-        PaymentTransaction tx = new PaymentTransaction();
-        tx.setStatus(TransactionStatus.RECEIVED);
-        when(
-            paymentTransactionRepository.findTransactionsForPerClientDailyLimit(
-                eq(MerchantMode.TEST),
-                eq("test-gateway-merchant-id"),
-                eq("test@example.com"),
-                eq(Instant.EPOCH),
-                eq(PaymentTransactionService.MAX_CLIENT_TRANSACTION_COUNT_QUERY_STATUSES)
-            )
-        ).thenReturn(List.of(tx));
+    void shouldLeavePayloadAloneWhenPartialUpdateHasNoPayloadFields() {
+        when(paymentTransactionRepository.findById("test-id")).thenReturn(Optional.of(validPaymentTransaction));
+        when(paymentTransactionRepository.saveAndFlush(validPaymentTransaction)).thenReturn(validPaymentTransaction);
+        when(paymentTransactionMapper.toDto(validPaymentTransaction)).thenReturn(new PaymentTransactionDTO());
+        PaymentTransactionDTO update = new PaymentTransactionDTO();
+        update.setId("test-id");
+        update.setStatus(TransactionStatus.PENDING);
 
-        int n = paymentTransactionService.countTransactions(
-            MerchantMode.TEST,
-            "test-gateway-merchant-id",
-            "test@example.com",
-            Instant.EPOCH
-        );
-        assertThat(n).isEqualTo(0);
+        paymentTransactionService.partialUpdate(update);
+
+        verifyNoInteractions(paymentTransactionPayloadRepository);
     }
 
     @Test
-    void countTransactions_skipsNullTransactionAndNullStatus() {
-        PaymentTransaction pending = new PaymentTransaction();
-        pending.setStatus(TransactionStatus.PENDING);
-        PaymentTransaction nullStatus = new PaymentTransaction();
-        nullStatus.setStatus(null);
-        List<PaymentTransaction> rows = new ArrayList<>();
-        rows.add(null);
-        rows.add(nullStatus);
-        rows.add(pending);
-        when(
-            paymentTransactionRepository.findTransactionsForPerClientDailyLimit(
-                eq(MerchantMode.TEST),
-                eq("test-gateway-merchant-id"),
-                eq("test@example.com"),
-                eq(Instant.EPOCH),
-                eq(PaymentTransactionService.MAX_CLIENT_TRANSACTION_COUNT_QUERY_STATUSES)
-            )
-        ).thenReturn(rows);
+    void shouldRemoveDeletedTransactionFromTurnoverRollup() {
+        when(paymentTransactionRepository.findById("test-id")).thenReturn(Optional.of(validPaymentTransaction));
 
-        int n = paymentTransactionService.countTransactions(
-            MerchantMode.TEST,
-            "test-gateway-merchant-id",
-            "test@example.com",
-            Instant.EPOCH
-        );
-        assertThat(n).isEqualTo(1);
+        paymentTransactionService.delete("test-id");
+
+        verify(dailyTurnoverRollup).recordRemoval(validPaymentTransaction);
+        verify(paymentTransactionRepository).delete(validPaymentTransaction);
     }
 }
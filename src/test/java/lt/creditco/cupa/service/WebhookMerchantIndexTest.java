@@ -0,0 +1,84 @@
+package lt.creditco.cupa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.repository.MerchantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookMerchantIndexTest {
+
+    @Mock
+    private MerchantRepository merchantRepository;
+
+    private WebhookMerchantIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new WebhookMerchantIndex(merchantRepository, new ApplicationProperties());
+    }
+
+    @Test
+    void shouldResolveTestAndProdMerchantIdsFromOneLoad() {
+        when(merchantRepository.findAll()).thenReturn(
+            List.of(
+                merchant("MERCH-00001", MerchantMode.TEST, "test-mid-1", "prod-mid-1"),
+                merchant("MERCH-00002", MerchantMode.LIVE, null, "prod-mid-2")
+            )
+        );
+
+        assertThat(index.find("test-mid-1")).contains(new WebhookMerchantIndex.Entry("MERCH-00001", MerchantMode.TEST, "test-key"));
+        assertThat(index.find("prod-mid-1")).contains(new WebhookMerchantIndex.Entry("MERCH-00001", MerchantMode.TEST, "test-key"));
+        assertThat(index.find("prod-mid-2")).contains(new WebhookMerchantIndex.Entry("MERCH-00002", MerchantMode.LIVE, "prod-key"));
+        assertThat(index.find("unknown")).isEmpty();
+        verify(merchantRepository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldPreferTestMerchantIdOverEqualProdMerchantId() {
+        when(merchantRepository.findAll()).thenReturn(
+            List.of(
+                merchant("MERCH-00001", MerchantMode.LIVE, null, "shared-mid"),
+                merchant("MERCH-00002", MerchantMode.TEST, "shared-mid", null)
+            )
+        );
+
+        assertThat(index.find("shared-mid")).map(WebhookMerchantIndex.Entry::merchantId).contains("MERCH-00002");
+    }
+
+    @Test
+    void shouldReloadAfterInvalidate() {
+        when(merchantRepository.findAll()).thenReturn(
+            List.of(),
+            List.of(merchant("MERCH-00001", MerchantMode.TEST, "test-mid-1", null))
+        );
+        assertThat(index.find("test-mid-1")).isEmpty();
+
+        index.invalidate();
+
+        assertThat(index.find("test-mid-1")).map(WebhookMerchantIndex.Entry::merchantId).contains("MERCH-00001");
+        verify(merchantRepository, times(2)).findAll();
+    }
+
+    private static Merchant merchant(String id, MerchantMode mode, String remoteTestMerchantId, String remoteProdMerchantId) {
+        Merchant merchant = new Merchant();
+        merchant.setId(id);
+        merchant.setMode(mode);
+        merchant.setRemoteTestMerchantId(remoteTestMerchantId);
+        merchant.setRemoteTestMerchantKey("test-key");
+        merchant.setRemoteProdMerchantId(remoteProdMerchantId);
+        merchant.setRemoteProdMerchantKey("prod-key");
+        return merchant;
+    }
+}
@@ -0,0 +1,139 @@
+package lt.creditco.cupa.service.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lt.creditco.cupa.IntegrationTest;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.event.BalanceUpdateEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link Outbox} and {@link OutboxRelay}; the application's own relay is switched off.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "application.outbox.relay-enabled=false")
+class OutboxRelayIT {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T10:00:00Z");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<BalanceUpdateEvent> handled = new CopyOnWriteArrayList<>();
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private Outbox outbox;
+    private boolean failing;
+    private boolean failingAfterBatch;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from outbox_event");
+        outbox = new Outbox(jdbcTemplate, objectMapper, Clock.fixed(NOW, ZoneOffset.UTC));
+        applicationProperties.getOutbox().setMaxAttempts(2);
+        applicationProperties.getOutbox().setInitialBackoff(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldDeliverCommittedEventsOnly() {
+        transactionTemplate.executeWithoutResult(status -> outbox.record(new BalanceUpdateEvent("TX-1", "MERCH-00001", "ORDER-1")));
+        transactionTemplate.executeWithoutResult(status -> {
+            outbox.record(new BalanceUpdateEvent("TX-2", "MERCH-00001", "ORDER-2"));
+            status.setRollbackOnly();
+        });
+
+        int relayed = relay(NOW).relayBatch(NOW);
+
+        assertThat(relayed).isEqualTo(1);
+        assertThat(handled).containsExactly(new BalanceUpdateEvent("TX-1", "MERCH-00001", "ORDER-1"));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from outbox_event", Integer.class)).isZero();
+    }
+
+    @Test
+    void shouldRetryWithBackoffAndKeepEventsThatKeepFailing() {
+        outbox.record(new BalanceUpdateEvent("TX-3", "MERCH-00001", "ORDER-3"));
+        failing = true;
+
+        assertThat(relay(NOW).relayBatch(NOW)).isEqualTo(1);
+        assertThat(relay(NOW).relayBatch(NOW.plusSeconds(4))).isZero();
+        assertThat(relay(NOW.plusSeconds(5)).relayBatch(NOW.plusSeconds(5))).isEqualTo(1);
+        assertThat(relay(NOW.plusSeconds(60)).relayBatch(NOW.plusSeconds(60))).isZero();
+
+        assertThat(handled).hasSize(2);
+        assertThat(jdbcTemplate.queryForObject("select attempts from outbox_event", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from outbox_event where failed_at is not null", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepEventsWhoseBatchWasNotPersisted() {
+        outbox.record(new BalanceUpdateEvent("TX-4", "MERCH-00001", "ORDER-4"));
+        failingAfterBatch = true;
+
+        assertThat(relay(NOW).relayBatch(NOW)).isEqualTo(1);
+
+        assertThat(handled).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from outbox_event where failed_at is null", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select last_error from outbox_event", String.class)).contains("Database unavailable");
+    }
+
+    @Test
+    void shouldDoubleBackoffUpToMaximum() {
+        Duration initial = Duration.ofSeconds(5);
+        Duration max = Duration.ofMinutes(1);
+
+        assertThat(OutboxRelay.backoff(1, initial, max)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(OutboxRelay.backoff(3, initial, max)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(OutboxRelay.backoff(10, initial, max)).isEqualTo(max);
+    }
+
+    private OutboxRelay relay(Instant now) {
+        OutboxEventHandler<BalanceUpdateEvent> handler = new OutboxEventHandler<>() {
+            @Override
+            public Class<BalanceUpdateEvent> eventClass() {
+                return BalanceUpdateEvent.class;
+            }
+
+            @Override
+            public void handle(BalanceUpdateEvent event) {
+                handled.add(event);
+                if (failing) {
+                    throw new IllegalStateException("Gateway unavailable");
+                }
+            }
+
+            @Override
+            public void afterBatch() {
+                if (failingAfterBatch) {
+                    throw new IllegalStateException("Database unavailable");
+                }
+            }
+        };
+        return new OutboxRelay(
+            jdbcTemplate,
+            objectMapper,
+            List.of(handler),
+            applicationProperties,
+            new SimpleMeterRegistry(),
+            Clock.fixed(now, ZoneOffset.UTC)
+        );
+    }
+}
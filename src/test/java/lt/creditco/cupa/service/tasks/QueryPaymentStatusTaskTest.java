@@ -13,9 +13,12 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.context.ApplicationEventPublisher;
+
 import com.bpmid.pulltasks.domain.PullTask;
 import com.bpmid.pulltasks.domain.PullTaskStatus;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -27,8 +30,13 @@ import lt.creditco.cupa.domain.enumeration.MerchantMode;
 import lt.creditco.cupa.domain.enumeration.MerchantStatus;
 import lt.creditco.cupa.domain.enumeration.PaymentBrand;
 import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.event.PullTaskScheduledEvent;
+import lt.creditco.cupa.remote.GatewayCircuitBreakers;
 import lt.creditco.cupa.repository.MerchantRepository;
 import lt.creditco.cupa.repository.PaymentTransactionRepository;
+import lt.creditco.cupa.service.DailyTurnoverLedger;
+import lt.creditco.cupa.service.DailyTurnoverRollup;
+import lt.creditco.cupa.service.PaymentMetrics;
 import lt.creditco.cupa.service.PaymentTransactionService;
 import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
 
@@ -44,6 +52,18 @@ class QueryPaymentStatusTaskTest {
     @Mock
     private PaymentTransactionService paymentTransactionService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private GatewayCircuitBreakers gatewayCircuitBreakers;
+
+    @Mock
+    private DailyTurnoverRollup dailyTurnoverRollup;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
     private ObjectMapper objectMapper;
     private QueryPaymentStatusTask task;
 
@@ -57,7 +77,12 @@ class QueryPaymentStatusTaskTest {
             paymentTransactionRepository,
             merchantRepository,
             paymentTransactionService,
-            objectMapper
+            objectMapper,
+            new DailyTurnoverLedger(),
+            dailyTurnoverRollup,
+            paymentMetrics,
+            eventPublisher,
+            gatewayCircuitBreakers
         );
 
         // Create test payment transaction
@@ -135,6 +160,34 @@ class QueryPaymentStatusTaskTest {
         PullTask nextTask = pullTask.getUniqueResultTasks().get(0);
         assertNotNull(nextTask.getDueDate());
         assertTrue(nextTask.getDueDate().isAfter(Instant.now()));
+
+        // Should wake the dispatcher for the rescheduled query
+        ArgumentCaptor<PullTaskScheduledEvent> event = ArgumentCaptor.forClass(PullTaskScheduledEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(nextTask.getDueDate(), event.getValue().getDueDate());
+    }
+
+    @Test
+    void shouldRescheduleWithoutQueryWhileGatewayCircuitIsOpen() throws Exception {
+        // Given
+        PullTask pullTask = createPullTask();
+        Instant openUntil = Instant.now().plus(30, ChronoUnit.SECONDS);
+
+        when(paymentTransactionRepository.findById("test-transaction-id"))
+            .thenReturn(Optional.of(paymentTransaction));
+        when(merchantRepository.findById("test-merchant-id"))
+            .thenReturn(Optional.of(merchant));
+        when(gatewayCircuitBreakers.openUntil("https://test-gateway.com")).thenReturn(Optional.of(openUntil));
+
+        // When
+        task.execute(pullTask);
+
+        // Then - no gateway query, rescheduled after the circuit half-opens
+        verifyNoInteractions(paymentTransactionService);
+        assertEquals(1, pullTask.getUniqueResultTasks().size());
+        Instant dueDate = pullTask.getUniqueResultTasks().get(0).getDueDate();
+        assertFalse(dueDate.isBefore(openUntil));
+        assertTrue(dueDate.isBefore(openUntil.plusSeconds(60)));
     }
 
     @Test
@@ -159,6 +212,7 @@ class QueryPaymentStatusTaskTest {
         // Then - should query gateway but not reschedule
         verify(paymentTransactionService).queryPaymentFromGateway(eq("test-transaction-id"), any());
         assertTrue(pullTask.getUniqueResultTasks().isEmpty());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -177,6 +231,7 @@ class QueryPaymentStatusTaskTest {
         verify(paymentTransactionRepository).saveAndFlush(paymentTransaction);
         assertEquals(TransactionStatus.ABANDONED, paymentTransaction.getStatus());
         assertTrue(paymentTransaction.getStatusDescription().contains("Timed out"));
+        verify(paymentMetrics).statusChanged(paymentTransaction, TransactionStatus.PENDING);
         
         // Should fail the task
         assertEquals(PullTaskStatus.FAILED, pullTask.getStatus());
@@ -0,0 +1,377 @@
+package lt.creditco.cupa.simulator;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lt.creditco.cupa.remote.PaymentReply;
+import lt.creditco.cupa.remote.SignatureVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Embeddable fake of the payment gateway, for load and end-to-end tests that must not reach the real one.
+ *
+ * <p>Serves the endpoints used by {@link lt.creditco.cupa.remote.UpGatewayClient}:</p>
+ * <ul>
+ *   <li>{@code POST /merchants/{mid}/transactions/} – accepts the payment as pending ({@code statusCode} 210);</li>
+ *   <li>{@code GET /merchants/{mid}/transactions/{orderId}} – the current status: pending ({@code result} 1) until
+ *   the payment's time to final status has passed, then succeeded or failed.</li>
+ * </ul>
+ * <p>When a payment reaches its final status, a webhook signed like {@link SignatureVerifier} expects is sent to
+ * {@link Settings#getWebhookUrl()}. Latencies, error rates, the time to a final status and the share of payments that
+ * succeed or get a webhook are set with {@link Settings}.</p>
+ *
+ * <p>Records to the given {@link MeterRegistry}, tagged with the current {@link #setPhase phase}:</p>
+ * <ul>
+ *   <li>{@code simulator.webhook} – round trip of a webhook call, i.e. CUPA's webhook handling time;</li>
+ *   <li>{@code simulator.polling.lag} – time from a payment's final status to the first status query that sees it,
+ *   for payments without a webhook.</li>
+ * </ul>
+ */
+public class GatewaySimulator implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GatewaySimulator.class);
+
+    private static final Pattern PLACE_PATH = Pattern.compile("/merchants/([^/]+)/transactions/?");
+    private static final Pattern QUERY_PATH = Pattern.compile("/merchants/([^/]+)/transactions/([^/]+)");
+
+    /**
+     * Behaviour of the simulator.
+     */
+    @Getter
+    @Builder(toBuilder = true)
+    public static class Settings {
+
+        /** Time taken to answer a placement. */
+        @Builder.Default
+        private final SimulatedDelay placeLatency = SimulatedDelay.NONE;
+
+        /** Time taken to answer a status query. */
+        @Builder.Default
+        private final SimulatedDelay queryLatency = SimulatedDelay.NONE;
+
+        /** Share of placements answered with HTTP 500. */
+        private final double placeErrorRate;
+
+        /** Share of status queries answered with HTTP 500. */
+        private final double queryErrorRate;
+
+        /** Time from a placement to the final status. */
+        @Builder.Default
+        private final SimulatedDelay timeToFinalStatus = SimulatedDelay.NONE;
+
+        /** Share of payments that succeed; the others fail. */
+        @Builder.Default
+        private final double successRate = 1.0;
+
+        /**
+         * Share of final statuses reported by a webhook (when {@link #webhookUrl} is set); the others are only seen by
+         * status queries.
+         */
+        @Builder.Default
+        private final double webhookRate = 1.0;
+
+        /** Where webhooks are sent, e.g. {@code http://localhost:8080/public/webhook}; none are sent when not set. */
+        private final String webhookUrl;
+
+        /** Gateway merchant ID to merchant key, used to sign webhooks. */
+        @Singular
+        private final Map<String, String> merchantKeys;
+    }
+
+    private record Order(
+        String merchantMid,
+        String orderId,
+        String clientId,
+        BigDecimal amount,
+        String currency,
+        Instant finalAt,
+        boolean success,
+        boolean webhook,
+        AtomicBoolean observed
+    ) {}
+
+    private final Settings settings;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+    private final AtomicReference<String> phase = new AtomicReference<>("default");
+    private final ExecutorService requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService finalizer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gateway-simulator-finalizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HttpClient webhookClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .executor(requestExecutor)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+    private final HttpServer server;
+
+    private GatewaySimulator(Settings settings, MeterRegistry meterRegistry) throws IOException {
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(requestExecutor);
+        server.createContext("/merchants/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Starts a simulator on a free local port.
+     */
+    public static GatewaySimulator start(Settings settings, MeterRegistry meterRegistry) throws IOException {
+        return new GatewaySimulator(settings, meterRegistry);
+    }
+
+    /**
+     * @return the base URL to configure as the merchant's gateway URL.
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Sets the {@code phase} tag of the meters recorded from now on, e.g. the step of a load test.
+     */
+    public void setPhase(String phase) {
+        this.phase.set(phase);
+    }
+
+    /**
+     * @return payments placed so far.
+     */
+    public int getOrderCount() {
+        return orders.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        finalizer.shutdownNow();
+        requestExecutor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (exchange.getRequestHeaders().getFirst("x-api-key") == null) {
+                respond(exchange, 401, message(401, "Missing API key"), null);
+                return;
+            }
+            Matcher query = QUERY_PATH.matcher(path);
+            Matcher place = PLACE_PATH.matcher(path);
+            if ("GET".equals(method) && query.matches()) {
+                handleQuery(exchange, query.group(1), query.group(2));
+            } else if ("POST".equals(method) && place.matches()) {
+                handlePlace(exchange, place.group(1));
+            } else {
+                respond(exchange, 404, message(404, "Not found"), null);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Simulated gateway request failed", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handlePlace(HttpExchange exchange, String merchantMid) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        sleep(settings.getPlaceLatency().next(random));
+        if (random.nextDouble() < settings.getPlaceErrorRate()) {
+            respond(exchange, 500, message(500, "Simulated gateway error"), null);
+            return;
+        }
+        String orderId = request.path("orderID").asText(null);
+        if (orderId == null || request.path("amount").isMissingNode()) {
+            respond(exchange, 400, message(400, "orderID and amount are required"), null);
+            return;
+        }
+        Order order = new Order(
+            merchantMid,
+            orderId,
+            request.path("clientID").asText(null),
+            request.path("amount").decimalValue(),
+            request.path("currency").asText(null),
+            Instant.now().plus(settings.getTimeToFinalStatus().next(random)),
+            random.nextDouble() < settings.getSuccessRate(),
+            settings.getWebhookUrl() != null && random.nextDouble() < settings.getWebhookRate(),
+            new AtomicBoolean()
+        );
+        if (orders.putIfAbsent(key(merchantMid, orderId), order) != null) {
+            respond(exchange, 400, message(400, "Duplicate orderID"), null);
+            return;
+        }
+        if (order.webhook()) {
+            long delay = Math.max(0, Duration.between(Instant.now(), order.finalAt()).toMillis());
+            finalizer.schedule(() -> requestExecutor.execute(() -> sendWebhook(order)), delay, TimeUnit.MILLISECONDS);
+        }
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("orderID", orderId);
+        reply.put("clientID", order.clientId());
+        reply.put("merchantID", merchantMid);
+        reply.put("amount", order.amount().toPlainString());
+        reply.put("currency", order.currency());
+        reply.put("url", getBaseUrl() + "/pay/" + orderId);
+        respond(exchange, 200, message(210, "Pending"), reply);
+    }
+
+    private void handleQuery(HttpExchange exchange, String merchantMid, String orderId) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        sleep(settings.getQueryLatency().next(random));
+        if (random.nextDouble() < settings.getQueryErrorRate()) {
+            respond(exchange, 500, message(500, "Simulated gateway error"), null);
+            return;
+        }
+        Order order = orders.get(key(merchantMid, orderId));
+        if (order == null) {
+            respond(exchange, 404, message(404, "Transaction not found"), null);
+            return;
+        }
+        Instant now = Instant.now();
+        boolean isFinal = !now.isBefore(order.finalAt());
+        if (isFinal && !order.webhook() && order.observed().compareAndSet(false, true)) {
+            timer("simulator.polling.lag").record(Duration.between(order.finalAt(), now));
+        }
+        Map<String, Object> reply = replyOf(order);
+        reply.put("date", now.truncatedTo(ChronoUnit.MILLIS).toString());
+        if (!isFinal) {
+            reply.remove("success");
+            reply.put("result", "1");
+            reply.put("detail", "Pending");
+        }
+        respond(exchange, 200, message(200, "OK"), reply);
+    }
+
+    private void sendWebhook(Order order) {
+        String merchantKey = settings.getMerchantKeys().get(order.merchantMid());
+        if (merchantKey == null) {
+            LOG.warn("No merchant key for {}, webhook of {} not sent", order.merchantMid(), order.orderId());
+            return;
+        }
+        PaymentReply reply = new PaymentReply();
+        reply.setSuccess(order.success() ? "Y" : "N");
+        reply.setClientId(order.clientId());
+        reply.setOrderId(order.orderId());
+        reply.setAmount(order.amount());
+        reply.setCurrency(order.currency());
+        reply.setMerchantId(order.merchantMid());
+        StringBuilder url = new StringBuilder(settings.getWebhookUrl()).append('?');
+        replyOf(order).forEach((name, value) -> {
+            if (value != null) {
+                url.append(name).append('=').append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8)).append('&');
+            }
+        });
+        url.append("signature=").append(SignatureVerifier.calculateWebhookSignature(reply, merchantKey));
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            HttpResponse<Void> response = webhookClient.send(
+                HttpRequest.newBuilder(URI.create(url.toString())).timeout(Duration.ofSeconds(30)).GET().build(),
+                HttpResponse.BodyHandlers.discarding()
+            );
+            sample.stop(timer("simulator.webhook"));
+            if (response.statusCode() != 200) {
+                LOG.warn("Webhook of {} answered with HTTP {}", order.orderId(), response.statusCode());
+            }
+        } catch (IOException e) {
+            LOG.warn("Webhook of {} failed: {}", order.orderId(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, Object> replyOf(Order order) {
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("orderID", order.orderId());
+        reply.put("clientID", order.clientId());
+        reply.put("merchantID", order.merchantMid());
+        reply.put("amount", order.amount().toPlainString());
+        reply.put("currency", order.currency());
+        reply.put("success", order.success() ? "Y" : "N");
+        reply.put("result", order.success() ? "0" : "2");
+        reply.put("detail", order.success() ? "Successfully completed" : "Declined by simulator");
+        return reply;
+    }
+
+    private Timer timer(String name) {
+        return Timer.builder(name)
+            .tag("phase", phase.get())
+            .publishPercentiles(0.5, 0.99)
+            .distributionStatisticExpiry(Duration.ofHours(1))
+            .distributionStatisticBufferLength(1)
+            .register(meterRegistry);
+    }
+
+    private void respond(HttpExchange exchange, int httpStatus, Map<String, Object> response, Map<String, Object> reply)
+        throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("response", response);
+        if (reply != null) {
+            body.put("reply", reply);
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(httpStatus, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, Object> message(int statusCode, String message) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("statusCode", statusCode);
+        response.put("message", message);
+        return response;
+    }
+
+    private static String key(String merchantMid, String orderId) {
+        return merchantMid + "/" + orderId;
+    }
+
+    private static void sleep(Duration delay) {
+        if (delay.isZero() || delay.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
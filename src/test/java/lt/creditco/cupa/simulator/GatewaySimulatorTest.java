@@ -0,0 +1,137 @@
+package lt.creditco.cupa.simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lt.creditco.cupa.config.ApplicationProperties;
+import lt.creditco.cupa.remote.GatewayCircuitBreakers;
+import lt.creditco.cupa.remote.GatewayConfig;
+import lt.creditco.cupa.remote.GatewayResponse;
+import lt.creditco.cupa.remote.NoOpResponseErrorHandler;
+import lt.creditco.cupa.remote.PaymentReply;
+import lt.creditco.cupa.remote.PaymentRequest;
+import lt.creditco.cupa.remote.SignatureVerifier;
+import lt.creditco.cupa.remote.UpGatewayClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+class GatewaySimulatorTest {
+
+    private static final String MERCHANT_MID = "SIM-MID";
+    private static final String MERCHANT_KEY = "sim-merchant-key";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CompletableFuture<Map<String, String>> webhook = new CompletableFuture<>();
+
+    private HttpServer webhookReceiver;
+    private GatewaySimulator simulator;
+    private UpGatewayClient upGatewayClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        webhookReceiver = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        webhookReceiver.createContext("/public/webhook", exchange -> {
+            webhook.complete(queryParameters(exchange.getRequestURI().getRawQuery()));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        webhookReceiver.start();
+
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setErrorHandler(new NoOpResponseErrorHandler());
+        upGatewayClient = new UpGatewayClient(restTemplate, new GatewayCircuitBreakers(new ApplicationProperties(), meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (simulator != null) {
+            simulator.close();
+        }
+        webhookReceiver.stop(0);
+    }
+
+    @Test
+    void shouldPlaceQueryAndSendVerifiableWebhook() throws Exception {
+        simulator = GatewaySimulator.start(
+            GatewaySimulator.Settings.builder()
+                .timeToFinalStatus(SimulatedDelay.fixed(Duration.ofMillis(100)))
+                .webhookUrl("http://localhost:" + webhookReceiver.getAddress().getPort() + "/public/webhook")
+                .merchantKey(MERCHANT_MID, MERCHANT_KEY)
+                .build(),
+            meterRegistry
+        );
+
+        GatewayResponse<PaymentReply> placed = upGatewayClient.placeTransaction(paymentRequest("SIM-ORDER-1"), config());
+        GatewayResponse<PaymentReply> pending = upGatewayClient.queryTransaction("SIM-ORDER-1", config());
+        Map<String, String> parameters = webhook.get(5, TimeUnit.SECONDS);
+        GatewayResponse<PaymentReply> completed = upGatewayClient.queryTransaction("SIM-ORDER-1", config());
+
+        assertThat(placed.getResponse().getStatusCode()).isEqualTo(210);
+        assertThat(placed.getReply().getOrderId()).isEqualTo("SIM-ORDER-1");
+        assertThat(pending.getReply().getResult()).isEqualTo("1");
+        assertThat(completed.getReply().getSuccess()).isEqualTo("Y");
+        assertThat(completed.getReply().getDate()).isNotNull();
+
+        PaymentReply webhookReply = new PaymentReply();
+        webhookReply.setSuccess(parameters.get("success"));
+        webhookReply.setClientId(parameters.get("clientID"));
+        webhookReply.setOrderId(parameters.get("orderID"));
+        webhookReply.setAmount(new BigDecimal(parameters.get("amount")));
+        webhookReply.setCurrency(parameters.get("currency"));
+        webhookReply.setMerchantId(parameters.get("merchantID"));
+        webhookReply.setSignature(parameters.get("signature"));
+        assertThat(webhookReply.getAmount()).isEqualByComparingTo("25.00");
+        assertThat(SignatureVerifier.verifyWebhookSignature(webhookReply, MERCHANT_KEY)).isTrue();
+    }
+
+    @Test
+    void shouldAnswerWithConfiguredErrors() throws Exception {
+        simulator = GatewaySimulator.start(GatewaySimulator.Settings.builder().placeErrorRate(1.0).build(), meterRegistry);
+
+        GatewayResponse<PaymentReply> placed = upGatewayClient.placeTransaction(paymentRequest("SIM-ORDER-2"), config());
+        GatewayResponse<PaymentReply> unknown = upGatewayClient.queryTransaction("SIM-ORDER-2", config());
+
+        assertThat(placed.getResponse().getStatusCode()).isEqualTo(500);
+        assertThat(unknown.getResponse().getStatusCode()).isEqualTo(404);
+        assertThat(simulator.getOrderCount()).isZero();
+    }
+
+    private GatewayConfig config() {
+        return GatewayConfig.builder()
+            .baseUrl(simulator.getBaseUrl())
+            .merchantMid(MERCHANT_MID)
+            .merchantKey(MERCHANT_KEY)
+            .apiKey("sim-api-key")
+            .build();
+    }
+
+    private static PaymentRequest paymentRequest(String orderId) {
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(orderId);
+        request.setClientId("SIM-CLIENT-1");
+        request.setAmount(new BigDecimal("25.00"));
+        request.setCurrency("USD");
+        return request;
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            parameters.put(pair.substring(0, equals), URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+}
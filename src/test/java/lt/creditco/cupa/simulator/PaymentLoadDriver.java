@@ -0,0 +1,338 @@
+package lt.creditco.cupa.simulator;
+
+import com.bpmid.vapp.config.JacksonConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lt.creditco.cupa.CupaApplication;
+import lt.creditco.cupa.config.Constants;
+import lt.creditco.cupa.config.PostgreSqlTestContainer;
+import lt.creditco.cupa.domain.Client;
+import lt.creditco.cupa.domain.Merchant;
+import lt.creditco.cupa.domain.enumeration.MerchantMode;
+import lt.creditco.cupa.domain.enumeration.MerchantStatus;
+import lt.creditco.cupa.repository.ClientRepository;
+import lt.creditco.cupa.repository.MerchantRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load test of CUPA end to end: starts the application on H2 ({@code --profile=testdev}) or a Testcontainers
+ * PostgreSQL ({@code --profile=testprod}) against a {@link GatewaySimulator}, then ramps {@code POST /api/v1/payments}
+ * through the given request rates and reports, per step, the throughput and p50/p99 of
+ * <ul>
+ *   <li>intake – the {@code POST /api/v1/payments} call, measured by this driver;</li>
+ *   <li>webhook – CUPA's handling of the gateway webhook, measured by the simulator;</li>
+ *   <li>polling – for payments without a webhook, the time until CUPA's status polling sees the final status.</li>
+ * </ul>
+ *
+ * <p>Run with {@code ./mvnw -Ploadtest verify -DskipTests -Dloadtest.args="--rates=10,50,100 --step=30s"}. Options
+ * (defaults in brackets): {@code --rates} [10,25,50] requests per second, {@code --step} [30s], {@code --drain} [30s]
+ * to wait for final statuses after the last step, {@code --max-in-flight} [500], {@code --profile} [testdev],
+ * {@code --place-latency} [50ms~300ms], {@code --query-latency} [30ms~200ms], {@code --time-to-final}
+ * [2s~20s], {@code --place-error-rate} [0.01], {@code --query-error-rate} [0.01], {@code --success-rate} [0.9],
+ * {@code --webhook-rate} [0.8]. Delays are parsed by {@link SimulatedDelay#parse}. Any other {@code --name=value} is
+ * passed on to CUPA as a Spring property, e.g. {@code --application.reconciliation.parallelism=16}.</p>
+ */
+public final class PaymentLoadDriver {
+
+    private static final String MERCHANT_ID = "MERCH-LOAD";
+    private static final String MERCHANT_CLIENT_ID = "LOAD-CLIENT-1";
+    private static final String GATEWAY_MERCHANT_ID = "load-mid";
+    private static final String GATEWAY_MERCHANT_KEY = "load-merchant-key";
+    private static final String CUPA_API_KEY = "load-test-api-key";
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+        Map.entry("rates", "10,25,50"),
+        Map.entry("step", "30s"),
+        Map.entry("drain", "30s"),
+        Map.entry("max-in-flight", "500"),
+        Map.entry("profile", "testdev"),
+        Map.entry("place-latency", "50ms~300ms"),
+        Map.entry("query-latency", "30ms~200ms"),
+        Map.entry("time-to-final", "2s~20s"),
+        Map.entry("place-error-rate", "0.01"),
+        Map.entry("query-error-rate", "0.01"),
+        Map.entry("success-rate", "0.9"),
+        Map.entry("webhook-rate", "0.8")
+    );
+
+    private record StepResult(String phase, int rate, long sent, long accepted, long failed, long dropped, Duration elapsed) {}
+
+    private final Map<String, String> options;
+    private final List<String> springProperties;
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+    private final AtomicLong orderSequence = new AtomicLong();
+    private final String orderIdPrefix = "LOAD-" + Instant.now().toEpochMilli() + "-";
+
+    private PaymentLoadDriver(Map<String, String> options, List<String> springProperties) {
+        this.options = options;
+        this.springProperties = springProperties;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        List<String> springProperties = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, equals);
+            if (DEFAULTS.containsKey(name)) {
+                options.put(name, arg.substring(equals + 1));
+            } else {
+                springProperties.add(arg.substring(2));
+            }
+        }
+        new PaymentLoadDriver(options, springProperties).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        PostgreSqlTestContainer postgreSqlTestContainer = null;
+        ConfigurableApplicationContext context = null;
+        try {
+            SpringApplicationBuilder builder = new SpringApplicationBuilder(CupaApplication.class, JacksonConfiguration.class)
+                .profiles("test", options.get("profile"))
+                .properties(
+                    "server.port=0",
+                    "pulltasks.enabled=false",
+                    "application.reconciliation.enabled=true",
+                    "application.reconciliation.interval=1s",
+                    "application.reconciliation.first-query-delay=1s",
+                    "logging.level.lt.creditco.cupa=WARN"
+                )
+                .properties(springProperties.toArray(String[]::new));
+            if ("testprod".equals(options.get("profile"))) {
+                postgreSqlTestContainer = new PostgreSqlTestContainer();
+                postgreSqlTestContainer.afterPropertiesSet();
+                builder.properties(
+                    "spring.datasource.url=" + postgreSqlTestContainer.getTestContainer().getJdbcUrl(),
+                    "spring.datasource.username=" + postgreSqlTestContainer.getTestContainer().getUsername(),
+                    "spring.datasource.password=" + postgreSqlTestContainer.getTestContainer().getPassword()
+                );
+            }
+            context = builder.run();
+            String cupaUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            try (GatewaySimulator simulator = GatewaySimulator.start(simulatorSettings(cupaUrl), meterRegistry)) {
+                seed(context, simulator);
+                List<StepResult> results = new ArrayList<>();
+                for (String rate : options.get("rates").split(",")) {
+                    String phase = "rate-" + rate.trim();
+                    simulator.setPhase(phase);
+                    results.add(runStep(cupaUrl, phase, Integer.parseInt(rate.trim()), duration("step")));
+                }
+                simulator.setPhase("drain");
+                Thread.sleep(duration("drain"));
+                report(results);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (postgreSqlTestContainer != null) {
+                postgreSqlTestContainer.destroy();
+            }
+        }
+    }
+
+    private GatewaySimulator.Settings simulatorSettings(String cupaUrl) {
+        return GatewaySimulator.Settings.builder()
+            .placeLatency(SimulatedDelay.parse(options.get("place-latency")))
+            .queryLatency(SimulatedDelay.parse(options.get("query-latency")))
+            .timeToFinalStatus(SimulatedDelay.parse(options.get("time-to-final")))
+            .placeErrorRate(Double.parseDouble(options.get("place-error-rate")))
+            .queryErrorRate(Double.parseDouble(options.get("query-error-rate")))
+            .successRate(Double.parseDouble(options.get("success-rate")))
+            .webhookRate(Double.parseDouble(options.get("webhook-rate")))
+            .webhookUrl(cupaUrl + "/public/webhook")
+            .merchantKey(GATEWAY_MERCHANT_ID, GATEWAY_MERCHANT_KEY)
+            .build();
+    }
+
+    private void seed(ConfigurableApplicationContext context, GatewaySimulator simulator) {
+        Merchant merchant = new Merchant()
+            .id(MERCHANT_ID)
+            .name("Load test merchant")
+            .mode(MerchantMode.TEST)
+            .status(MerchantStatus.ACTIVE)
+            .cupaTestApiKey(CUPA_API_KEY)
+            .remoteTestUrl(simulator.getBaseUrl())
+            .remoteTestMerchantId(GATEWAY_MERCHANT_ID)
+            .remoteTestMerchantKey(GATEWAY_MERCHANT_KEY)
+            .remoteTestApiKey("load-gateway-api-key");
+        merchant.setTestMaxClientTransactionCountPerDay(Integer.MAX_VALUE);
+        merchant.setTestMaxTransactionAmount(new BigDecimal("10000"));
+        context.getBean(MerchantRepository.class).save(merchant);
+
+        ClientRepository clientRepository = context.getBean(ClientRepository.class);
+        if (clientRepository.findByMerchantClientId(MERCHANT_CLIENT_ID).isEmpty()) {
+            clientRepository.save(
+                new Client()
+                    .id("01K7QZ3J9V6W8X2Y4Z6A8B0LOD")
+                    .merchantClientId(MERCHANT_CLIENT_ID)
+                    .merchantId(MERCHANT_ID)
+                    .environment(MerchantMode.TEST)
+                    .name("Load test client")
+                    .emailAddress("load.client@example.com")
+                    .valid(true)
+            );
+        }
+    }
+
+    /**
+     * Sends requests at a fixed rate (an open workload: a slow CUPA does not slow the senders down) for one step.
+     * Requests beyond {@code --max-in-flight} concurrent ones are dropped and counted.
+     */
+    private StepResult runStep(String cupaUrl, String phase, int rate, Duration duration) throws InterruptedException {
+        Timer intake = timer("load.intake", phase);
+        Semaphore inFlight = new Semaphore(Integer.parseInt(options.get("max-in-flight")));
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long dropped = 0;
+        long sent = 0;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long next = start; next < end; next += intervalNanos) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                if (!inFlight.tryAcquire()) {
+                    dropped++;
+                    continue;
+                }
+                sent++;
+                senders.execute(() -> {
+                    try {
+                        long began = System.nanoTime();
+                        int status = createPayment(cupaUrl);
+                        intake.record(System.nanoTime() - began, TimeUnit.NANOSECONDS);
+                        (status == 201 || status == 202 ? accepted : failed).incrementAndGet();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return new StepResult(phase, rate, sent, accepted.get(), failed.get(), dropped, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private int createPayment(String cupaUrl) {
+        String body =
+            """
+            {"orderId":"%s","clientId":"%s","amount":25.00,"currency":"USD","cardType":"UnionPay","paymentFlow":"EMAIL"}""".formatted(
+                    orderIdPrefix + orderSequence.incrementAndGet(),
+                    MERCHANT_CLIENT_ID
+                );
+        HttpRequest request = HttpRequest.newBuilder(URI.create(cupaUrl + "/api/v1/payments"))
+            .timeout(Duration.ofSeconds(60))
+            .header("Content-Type", "application/json")
+            .header(Constants.API_KEY_HEADER, CUPA_API_KEY)
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private void report(List<StepResult> results) {
+        System.out.printf(
+            "%n%-10s %6s %8s %8s %6s %7s %9s | %-21s | %-21s | %-21s%n",
+            "step",
+            "rate",
+            "sent",
+            "accepted",
+            "failed",
+            "dropped",
+            "req/s",
+            "intake p50/p99 ms",
+            "webhook p50/p99 ms",
+            "polling p50/p99 ms"
+        );
+        for (StepResult result : results) {
+            System.out.printf(
+                "%-10s %6d %8d %8d %6d %7d %9.1f | %-21s | %-21s | %-21s%n",
+                result.phase(),
+                result.rate(),
+                result.sent(),
+                result.accepted(),
+                result.failed(),
+                result.dropped(),
+                result.accepted() / Math.max(0.001, result.elapsed().toMillis() / 1000.0),
+                percentiles("load.intake", result.phase()),
+                percentiles("simulator.webhook", result.phase()),
+                percentiles("simulator.polling.lag", result.phase())
+            );
+        }
+        System.out.printf(
+            "%-10s %s | %-21s | %-21s%n",
+            "drain",
+            " ".repeat(55),
+            percentiles("simulator.webhook", "drain"),
+            percentiles("simulator.polling.lag", "drain")
+        );
+    }
+
+    private String percentiles(String name, String phase) {
+        Timer timer = meterRegistry.find(name).tag("phase", phase).timer();
+        if (timer == null || timer.count() == 0) {
+            return "-";
+        }
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        return Arrays.stream(snapshot.percentileValues())
+                .map(value -> String.format("%.0f", value.value(TimeUnit.MILLISECONDS)))
+                .reduce((p50, p99) -> p50 + " / " + p99)
+                .orElse("-") +
+            " (" +
+            timer.count() +
+            ")";
+    }
+
+    private Timer timer(String name, String phase) {
+        return Timer.builder(name)
+            .tag("phase", phase)
+            .publishPercentiles(0.5, 0.99)
+            .distributionStatisticExpiry(Duration.ofHours(1))
+            .distributionStatisticBufferLength(1)
+            .register(meterRegistry);
+    }
+
+    private Duration duration(String option) {
+        return DurationStyle.detectAndParse(options.get(option));
+    }
+}
@@ -0,0 +1,61 @@
+package lt.creditco.cupa.simulator;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * A distribution of delays used by {@link GatewaySimulator} for response latencies and times to a final status.
+ */
+@FunctionalInterface
+public interface SimulatedDelay {
+    /** z-score of the 99th percentile of the standard normal distribution. */
+    double Z_99 = 2.326;
+
+    SimulatedDelay NONE = random -> Duration.ZERO;
+
+    Duration next(RandomGenerator random);
+
+    static SimulatedDelay fixed(Duration delay) {
+        return random -> delay;
+    }
+
+    static SimulatedDelay uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long maxNanos = max.toNanos();
+        return random -> Duration.ofNanos(maxNanos > minNanos ? random.nextLong(minNanos, maxNanos + 1) : minNanos);
+    }
+
+    /**
+     * Log-normal delays, the usual shape of service latencies: most close to the median with a long tail.
+     *
+     * @param median half of the delays are shorter.
+     * @param p99 99% of the delays are shorter; must not be less than {@code median}.
+     */
+    static SimulatedDelay logNormal(Duration median, Duration p99) {
+        double mu = Math.log(Math.max(1, median.toNanos()));
+        double sigma = Math.max(0, Math.log(Math.max(1, p99.toNanos())) - mu) / Z_99;
+        return random -> Duration.ofNanos(Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+    }
+
+    /**
+     * Parses {@code 200ms} (fixed), {@code 50ms..300ms} (uniform) or {@code 2s~30s} (log-normal with median 2s and
+     * p99 30s). Durations use the Spring Boot format ({@code 500ms}, {@code 2s}, {@code 1m}).
+     */
+    static SimulatedDelay parse(String value) {
+        String text = value.trim();
+        int range = text.indexOf("..");
+        if (range > 0) {
+            return uniform(parseDuration(text.substring(0, range)), parseDuration(text.substring(range + 2)));
+        }
+        int tail = text.indexOf('~');
+        if (tail > 0) {
+            return logNormal(parseDuration(text.substring(0, tail)), parseDuration(text.substring(tail + 1)));
+        }
+        return fixed(parseDuration(text));
+    }
+
+    private static Duration parseDuration(String value) {
+        return DurationStyle.detectAndParse(value.trim());
+    }
+}
@@ -0,0 +1,115 @@
+package lt.creditco.cupa.ui.paymenttransaction.excel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import lt.creditco.cupa.domain.enumeration.TransactionStatus;
+import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+class PaymentTransactionExcelExporterTest {
+
+    private final PaymentTransactionExcelExporter exporter = new PaymentTransactionExcelExporter();
+
+    @Test
+    void shouldStreamAllWindowsIntoOneSheet() throws Exception {
+        int rows = PaymentTransactionExcelExporter.ROW_ACCESS_WINDOW * 3 + 7;
+        List<PaymentTransactionDTO> all = IntStream.range(0, rows)
+            .mapToObj(PaymentTransactionExcelExporterTest::transaction)
+            .toList();
+        List<ScrollPosition> requestedPositions = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exporter.writeExcel(out, ZoneId.of("UTC"), ScrollPosition.offset(), position -> {
+            requestedPositions.add(position);
+            OffsetScrollPosition offset = (OffsetScrollPosition) position;
+            int from = offset.isInitial() ? 0 : (int) offset.getOffset() + 1;
+            int to = Math.min(from + 150, rows);
+            return Window.from(all.subList(from, to), index -> ScrollPosition.offset(from + index), to < rows);
+        });
+
+        assertThat(written).isEqualTo(rows);
+        assertThat(requestedPositions).hasSize(3);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("payment_transactions");
+            assertThat(sheet.getLastRowNum()).isEqualTo(rows);
+            assertThat(sheet.getRow(0).getCell(1).getStringCellValue()).isEqualTo("Order ID");
+            assertThat(sheet.getRow(1).getCell(1).getStringCellValue()).isEqualTo("order-0");
+            assertThat(sheet.getRow(rows).getCell(1).getStringCellValue()).isEqualTo("order-" + (rows - 1));
+            assertThat(sheet.getRow(rows).getCell(3).getNumericCellValue()).isEqualTo(rows - 1 + 0.5);
+            assertThat(sheet.getColumnWidth(1)).isEqualTo(30 * 256);
+        }
+    }
+
+    @Test
+    void shouldStopAtRowLimitWithTruncationNotice() throws Exception {
+        PaymentTransactionExcelExporter limited = new PaymentTransactionExcelExporter(5);
+        List<PaymentTransactionDTO> all = IntStream.range(0, 8).mapToObj(PaymentTransactionExcelExporterTest::transaction).toList();
+        List<ScrollPosition> requestedPositions = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = limited.writeExcel(out, ZoneId.of("UTC"), ScrollPosition.offset(), position -> {
+            requestedPositions.add(position);
+            OffsetScrollPosition offset = (OffsetScrollPosition) position;
+            int from = offset.isInitial() ? 0 : (int) offset.getOffset() + 1;
+            int to = Math.min(from + 3, all.size());
+            return Window.from(all.subList(from, to), index -> ScrollPosition.offset(from + index), to < all.size());
+        });
+
+        assertThat(written).isEqualTo(5);
+        assertThat(requestedPositions).hasSize(2);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("payment_transactions");
+            assertThat(sheet.getRow(5).getCell(1).getStringCellValue()).isEqualTo("order-4");
+            assertThat(sheet.getRow(6).getCell(0).getStringCellValue()).startsWith("Export truncated after 5 rows");
+            assertThat(sheet.getLastRowNum()).isEqualTo(6);
+        }
+    }
+
+    @Test
+    void shouldWriteCellsLikeExcelExporter() throws Exception {
+        List<PaymentTransactionDTO> all = IntStream.range(0, 3).mapToObj(PaymentTransactionExcelExporterTest::transaction).toList();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.writeExcel(out, ZoneId.of("UTC"), ScrollPosition.offset(), position -> Window.from(all, ScrollPosition::offset));
+
+        try (
+            XSSFWorkbook streamed = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()));
+            XSSFWorkbook inMemory = new XSSFWorkbook(new ByteArrayInputStream(exporter.exportToExcel(all, ZoneId.of("UTC"))))
+        ) {
+            Sheet expected = inMemory.getSheet("payment_transactions");
+            Sheet actual = streamed.getSheet("payment_transactions");
+            DataFormatter formatter = new DataFormatter();
+            for (int row = 0; row <= all.size(); row++) {
+                for (int column = 0; column < expected.getRow(0).getLastCellNum(); column++) {
+                    assertThat(formatter.formatCellValue(actual.getRow(row).getCell(column)))
+                        .as("row %d, column %d", row, column)
+                        .isEqualTo(formatter.formatCellValue(expected.getRow(row).getCell(column)));
+                }
+            }
+        }
+    }
+
+    private static PaymentTransactionDTO transaction(int i) {
+        PaymentTransactionDTO dto = new PaymentTransactionDTO();
+        dto.setId("tx-" + i);
+        dto.setOrderId("order-" + i);
+        dto.setMerchantId("MERCH-00001");
+        dto.setAmount(new BigDecimal(i).add(new BigDecimal("0.5")));
+        dto.setStatus(TransactionStatus.SUCCESS);
+        dto.setRequestTimestamp(Instant.parse("2026-10-01T00:00:00Z").plusSeconds(i));
+        return dto;
+    }
+}
@@ -5,10 +5,9 @@ import static org.mockito.Mockito.*;
 
 import java.security.Principal;
 import java.time.Instant;
-import java.util.Optional;
 
 import lt.creditco.cupa.domain.enumeration.MerchantMode;
-import lt.creditco.cupa.service.AuditLogService;
+import lt.creditco.cupa.service.AuditLogWriter;
 import lt.creditco.cupa.service.CupaApiBusinessLogicService;
 import lt.creditco.cupa.service.dto.AuditLogDTO;
 import lt.creditco.cupa.web.context.CupaApiContext;
@@ -28,7 +27,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 class CupaApiAuditInterceptorTest {
 
     @Mock
-    private AuditLogService auditLogService;
+    private AuditLogWriter auditLogWriter;
 
     @Mock
     private CupaApiBusinessLogicService businessLogicService;
@@ -88,22 +87,14 @@ class CupaApiAuditInterceptorTest {
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
         SecurityContextHolder.setContext(securityContext);
 
-        // Mock AuditLogService.save() to simulate database ID generation
-        lenient().when(auditLogService.save(any(AuditLogDTO.class))).thenAnswer(invocation -> {
-            AuditLogDTO auditLogDTO = invocation.getArgument(0);
-            auditLogDTO.setId(1L); // Simulate database-generated ID for testing purposes
-            return auditLogDTO;
-        });
+        // Mock AuditLogWriter.begin() to simulate id allocation
+        lenient().when(auditLogWriter.begin(any(AuditLogDTO.class))).thenReturn(1L);
     }
 
     @Test
     void shouldCreateAuditLogOnPreHandle() throws Exception {
         // Given
-        AuditLogDTO savedAuditLog = new AuditLogDTO();
-        savedAuditLog.setId(1L);
-
         when(businessLogicService.extractBusinessContext(any(), any(), any())).thenReturn(contextData);
-        when(auditLogService.save(any(AuditLogDTO.class))).thenReturn(savedAuditLog);
 
         // When
         boolean result = interceptor.preHandle(request, response, null);
@@ -111,11 +102,13 @@ class CupaApiAuditInterceptorTest {
         // Then
         assert result;
         verify(businessLogicService).extractBusinessContext(any(), any(), any());
-        verify(auditLogService).save(any(AuditLogDTO.class));
+        verify(auditLogWriter).begin(any(AuditLogDTO.class));
+        assert "1".equals(response.getHeader("X-Response-Id"));
 
         // Verify context was set
         CupaApiContext.CupaApiContextData context = CupaApiContext.getContext();
         assert context != null;
+        assert Long.valueOf(1L).equals(context.getAuditLogId());
         assert "test-merchant".equals(context.getMerchantId());
         assert MerchantMode.TEST.equals(context.getEnvironment());
     }
@@ -123,9 +116,6 @@ class CupaApiAuditInterceptorTest {
     @Test
     void shouldUpdateAuditLogOnPostHandle() throws Exception {
         // Given
-        AuditLogDTO existingAuditLog = new AuditLogDTO();
-        existingAuditLog.setId(1L);
-
         contextData.setAuditLogId(1L);
         CupaApiContext.setContext(contextData);
 
@@ -137,30 +127,22 @@ class CupaApiAuditInterceptorTest {
 
         // Then
         // Since postHandle is commented out, no audit log operations should occur
-        verify(auditLogService, never()).findOne(any());
-        verify(auditLogService, never()).update(any());
+        verifyNoInteractions(auditLogWriter);
     }
 
     @Test
     void shouldUpdateAuditLogWithException() throws Exception {
         // Given
-        AuditLogDTO existingAuditLog = new AuditLogDTO();
-        existingAuditLog.setId(1L);
-
         contextData.setAuditLogId(1L);
         CupaApiContext.setContext(contextData);
 
-        Exception testException = new RuntimeException("Test exception - don't investigate this message in logs. This exception was thrown to test the error handling in AuditLogService.update() method.");
-
-        when(auditLogService.findOne(1L)).thenReturn(Optional.of(existingAuditLog));
-        when(auditLogService.update(any(AuditLogDTO.class))).thenReturn(existingAuditLog);
+        Exception testException = new RuntimeException("Test exception - don't investigate this message in logs. This exception was thrown to test the error handling in AuditLogWriter.fail() method.");
 
         // When
         interceptor.afterCompletion(request, response, null, testException);
 
         // Then
-        verify(auditLogService).findOne(1L);
-        verify(auditLogService).update(any(AuditLogDTO.class));
+        verify(auditLogWriter).fail(1L, testException);
 
         // Verify context was cleared
         CupaApiContext.clearContext();
@@ -178,6 +160,6 @@ class CupaApiAuditInterceptorTest {
 
         // Then
         assert result; // Should not block the request
-        verify(auditLogService, never()).save(any());
+        verify(auditLogWriter, never()).begin(any());
     }
 }
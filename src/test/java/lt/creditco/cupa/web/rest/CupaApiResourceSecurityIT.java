@@ -20,8 +20,10 @@ import lt.creditco.cupa.domain.enumeration.MerchantStatus;
 import lt.creditco.cupa.repository.AuditLogRepository;
 import lt.creditco.cupa.repository.MerchantRepository;
 import lt.creditco.cupa.service.CupaApiBusinessLogicService;
+import lt.creditco.cupa.service.MerchantContextCache;
 import lt.creditco.cupa.service.MerchantService;
 import lt.creditco.cupa.service.PaymentTransactionService;
+import lt.creditco.cupa.service.WebhookMerchantIndex;
 import lt.creditco.cupa.service.dto.PaymentTransactionDTO;
 import lt.creditco.cupa.service.mapper.MerchantMapper;
 import lt.creditco.cupa.service.mapper.PaymentMapper;
@@ -47,6 +49,9 @@ class CupaApiResourceSecurityIT {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private MerchantContextCache merchantContextCache;
+
     @MockitoBean
     private MerchantRepository merchantRepository;
 
@@ -66,22 +71,28 @@ class CupaApiResourceSecurityIT {
     static class TestConfig {
 
         @Bean
-        public MerchantService merchantService(MerchantRepository merchantRepository, MerchantMapper merchantMapper) {
+        public MerchantService merchantService(
+            MerchantRepository merchantRepository,
+            MerchantMapper merchantMapper,
+            MerchantContextCache merchantContextCache,
+            WebhookMerchantIndex webhookMerchantIndex
+        ) {
             Objects.requireNonNull(merchantRepository, "merchantRepository must be set");
             Objects.requireNonNull(merchantMapper, "merchantMapper must be set");
-            return new MerchantService(merchantRepository, merchantMapper);
+            return new MerchantService(merchantRepository, merchantMapper, merchantContextCache, webhookMerchantIndex);
         }
 
         @Bean
         public CupaApiBusinessLogicService cupaApiBusinessLogicService(
             MerchantService merchantService,
             CupaUserRepository cupaUserRepository,
-            ObjectMapper objectMapper
+            ObjectMapper objectMapper,
+            MerchantContextCache merchantContextCache
         ) {
             Objects.requireNonNull(merchantService, "merchantService must be set");
             Objects.requireNonNull(cupaUserRepository, "cupaUserRepository must be set");
             Objects.requireNonNull(objectMapper, "objectMapper must be set");
-            return new CupaApiBusinessLogicService(merchantService, cupaUserRepository, objectMapper);
+            return new CupaApiBusinessLogicService(merchantService, cupaUserRepository, objectMapper, merchantContextCache);
         }
     }
 
@@ -92,6 +103,7 @@ class CupaApiResourceSecurityIT {
 
     @BeforeEach
     void setUp() {
+        merchantContextCache.invalidateAll();
         // Setup test merchant
         testMerchant = new Merchant();
         testMerchant.setId("MER-TEST-001");